@@ -0,0 +1,49 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.adapter.grpc;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+
+/**
+ * Defaults for calls whose admission is deferred by queueing rules, shared by the interceptors.
+ * The scheduler is only used as a timer, which hands the calls to the executor at their admission time,
+ * as starting a call may run the business logic (e.g. the service method of unary calls).
+ *
+ * @since 1.4.1
+ */
+final class DeferredAdmissionScheduler {
+
+    private static final ScheduledExecutorService DEFAULT = Executors.newSingleThreadScheduledExecutor(
+        new NamedThreadFactory("sentinel-grpc-admission", true));
+
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(
+        new NamedThreadFactory("sentinel-grpc-deferred-call", true));
+
+    static ScheduledExecutorService getDefault() {
+        return DEFAULT;
+    }
+
+    static Executor getDefaultExecutor() {
+        return DEFAULT_EXECUTOR;
+    }
+
+    private DeferredAdmissionScheduler() {}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.adapter.grpc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import io.grpc.Attributes;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+
+/**
+ * A client call which queues the operations of the caller until the call is admitted,
+ * and then replays them on the real call.
+ *
+ * @param <ReqT>  type of request message
+ * @param <RespT> type of response message
+ * @since 1.4.1
+ */
+final class DeferredClientCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+    private List<Operation<ReqT, RespT>> pendingOperations = new ArrayList<Operation<ReqT, RespT>>();
+    private ClientCall<ReqT, RespT> delegate;
+
+    /**
+     * Replay the queued operations and all following ones on given call.
+     */
+    synchronized void setCall(ClientCall<ReqT, RespT> call) {
+        for (Operation<ReqT, RespT> operation : pendingOperations) {
+            operation.apply(call);
+        }
+        pendingOperations = null;
+        this.delegate = call;
+    }
+
+    private void apply(Operation<ReqT, RespT> operation) {
+        ClientCall<ReqT, RespT> call;
+        synchronized (this) {
+            call = delegate;
+            if (call == null) {
+                pendingOperations.add(operation);
+                return;
+            }
+        }
+        operation.apply(call);
+    }
+
+    private synchronized ClientCall<ReqT, RespT> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void start(final Listener<RespT> responseListener, final Metadata headers) {
+        apply(new Operation<ReqT, RespT>() {
+            @Override
+            public void apply(ClientCall<ReqT, RespT> call) {
+                call.start(responseListener, headers);
+            }
+        });
+    }
+
+    @Override
+    public void request(final int numMessages) {
+        apply(new Operation<ReqT, RespT>() {
+            @Override
+            public void apply(ClientCall<ReqT, RespT> call) {
+                call.request(numMessages);
+            }
+        });
+    }
+
+    @Override
+    public void cancel(@Nullable final String message, @Nullable final Throwable cause) {
+        apply(new Operation<ReqT, RespT>() {
+            @Override
+            public void apply(ClientCall<ReqT, RespT> call) {
+                call.cancel(message, cause);
+            }
+        });
+    }
+
+    @Override
+    public void halfClose() {
+        apply(new Operation<ReqT, RespT>() {
+            @Override
+            public void apply(ClientCall<ReqT, RespT> call) {
+                call.halfClose();
+            }
+        });
+    }
+
+    @Override
+    public void sendMessage(final ReqT message) {
+        apply(new Operation<ReqT, RespT>() {
+            @Override
+            public void apply(ClientCall<ReqT, RespT> call) {
+                call.sendMessage(message);
+            }
+        });
+    }
+
+    @Override
+    public void setMessageCompression(final boolean enabled) {
+        apply(new Operation<ReqT, RespT>() {
+            @Override
+            public void apply(ClientCall<ReqT, RespT> call) {
+                call.setMessageCompression(enabled);
+            }
+        });
+    }
+
+    @Override
+    public boolean isReady() {
+        ClientCall<ReqT, RespT> call = getDelegate();
+        return call != null && call.isReady();
+    }
+
+    @Override
+    public Attributes getAttributes() {
+        ClientCall<ReqT, RespT> call = getDelegate();
+        return call == null ? Attributes.EMPTY : call.getAttributes();
+    }
+
+    private interface Operation<ReqT, RespT> {
+        void apply(ClientCall<ReqT, RespT> call);
+    }
+}
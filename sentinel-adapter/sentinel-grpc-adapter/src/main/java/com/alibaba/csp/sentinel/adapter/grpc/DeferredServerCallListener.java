@@ -0,0 +1,135 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.adapter.grpc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.grpc.ServerCall;
+
+/**
+ * A server call listener which queues the events of a call until the call is started
+ * at its admission time, and then forwards them to the listener of the started call.
+ *
+ * @param <ReqT> type of request message
+ * @since 1.4.1
+ */
+final class DeferredServerCallListener<ReqT> extends ServerCall.Listener<ReqT> {
+
+    private List<Event<ReqT>> pendingEvents = new ArrayList<Event<ReqT>>();
+    private ServerCall.Listener<ReqT> delegate;
+    private boolean cancelled;
+
+    /**
+     * Forward the queued events and all following ones to given listener. The queued events are
+     * replayed without holding the lock, as replaying {@code onHalfClose} runs the service method,
+     * which must not block the events from the transport. Events arriving during the replay are
+     * queued and replayed in turn, so that the events are never reordered.
+     */
+    void setListener(ServerCall.Listener<ReqT> listener) {
+        while (true) {
+            List<Event<ReqT>> events;
+            synchronized (this) {
+                if (pendingEvents.isEmpty()) {
+                    pendingEvents = null;
+                    this.delegate = listener;
+                    return;
+                }
+                events = pendingEvents;
+                pendingEvents = new ArrayList<Event<ReqT>>();
+            }
+            for (Event<ReqT> event : events) {
+                event.dispatch(listener);
+            }
+        }
+    }
+
+    /**
+     * Whether the call was cancelled while waiting for admission, so that it should not be started.
+     */
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void dispatch(Event<ReqT> event) {
+        ServerCall.Listener<ReqT> listener;
+        synchronized (this) {
+            listener = delegate;
+            if (listener == null) {
+                pendingEvents.add(event);
+                return;
+            }
+        }
+        event.dispatch(listener);
+    }
+
+    @Override
+    public void onMessage(final ReqT message) {
+        dispatch(new Event<ReqT>() {
+            @Override
+            public void dispatch(ServerCall.Listener<ReqT> listener) {
+                listener.onMessage(message);
+            }
+        });
+    }
+
+    @Override
+    public void onHalfClose() {
+        dispatch(new Event<ReqT>() {
+            @Override
+            public void dispatch(ServerCall.Listener<ReqT> listener) {
+                listener.onHalfClose();
+            }
+        });
+    }
+
+    @Override
+    public void onCancel() {
+        synchronized (this) {
+            cancelled = true;
+        }
+        dispatch(new Event<ReqT>() {
+            @Override
+            public void dispatch(ServerCall.Listener<ReqT> listener) {
+                listener.onCancel();
+            }
+        });
+    }
+
+    @Override
+    public void onComplete() {
+        dispatch(new Event<ReqT>() {
+            @Override
+            public void dispatch(ServerCall.Listener<ReqT> listener) {
+                listener.onComplete();
+            }
+        });
+    }
+
+    @Override
+    public void onReady() {
+        dispatch(new Event<ReqT>() {
+            @Override
+            public void dispatch(ServerCall.Listener<ReqT> listener) {
+                listener.onReady();
+            }
+        });
+    }
+
+    private interface Event<ReqT> {
+        void dispatch(ServerCall.Listener<ReqT> listener);
+    }
+}
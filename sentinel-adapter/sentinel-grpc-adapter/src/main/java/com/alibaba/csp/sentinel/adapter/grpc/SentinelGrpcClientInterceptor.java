@@ -17,12 +17,19 @@ package com.alibaba.csp.sentinel.adapter.grpc;
 
 import javax.annotation.Nullable;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.AsyncEntry;
 import com.alibaba.csp.sentinel.Entry;
 import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.SphU;
 import com.alibaba.csp.sentinel.Tracer;
 import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.util.AssertUtil;
 
 import io.grpc.CallOptions;
 import io.grpc.Channel;
@@ -37,6 +44,9 @@ import io.grpc.Status;
 /**
  * <p>gRPC client interceptor for Sentinel. Currently it only works with unary methods.</p>
  *
+ * <p>When queueing rules (e.g. uniform rate limiting) admit a call later, the operations on the call
+ * are queued and replayed on an executor at its admission time rather than blocking the caller.</p>
+ *
  * Example code:
  * <pre>
  * public class ServiceClient {
@@ -62,42 +72,68 @@ public class SentinelGrpcClientInterceptor implements ClientInterceptor {
     private static final Status FLOW_CONTROL_BLOCK = Status.UNAVAILABLE.withDescription(
         "Flow control limit exceeded (client side)");
 
+    private final ScheduledExecutorService admissionScheduler;
+    private final Executor callExecutor;
+
+    public SentinelGrpcClientInterceptor() {
+        this(DeferredAdmissionScheduler.getDefault());
+    }
+
+    /**
+     * @param admissionScheduler timer of the calls deferred by queueing rules (e.g. uniform rate limiting)
+     * @since 1.4.1
+     */
+    public SentinelGrpcClientInterceptor(ScheduledExecutorService admissionScheduler) {
+        this(admissionScheduler, DeferredAdmissionScheduler.getDefaultExecutor());
+    }
+
+    /**
+     * @param admissionScheduler timer of the calls deferred by queueing rules (e.g. uniform rate limiting)
+     * @param callExecutor       executor to replay the operations of the deferred calls on
+     * @since 1.4.1
+     */
+    public SentinelGrpcClientInterceptor(ScheduledExecutorService admissionScheduler, Executor callExecutor) {
+        AssertUtil.notNull(admissionScheduler, "admissionScheduler cannot be null");
+        AssertUtil.notNull(callExecutor, "callExecutor cannot be null");
+        this.admissionScheduler = admissionScheduler;
+        this.callExecutor = callExecutor;
+    }
+
     @Override
     public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> methodDescriptor,
                                                                CallOptions callOptions, Channel channel) {
         String resourceName = methodDescriptor.getFullMethodName();
         Entry entry = null;
         try {
-            entry = SphU.entry(resourceName, EntryType.OUT);
+            // Queueing rules must not block the caller, the call is started later instead.
+            AsyncEntry asyncEntry = SphU.asyncEntryWithDeferredAdmission(resourceName, EntryType.OUT);
+            entry = asyncEntry;
             // Allow access, forward the call.
-            return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(
-                channel.newCall(methodDescriptor, callOptions)) {
+            final ClientCall<ReqT, RespT> call = newCall(methodDescriptor, callOptions, channel);
+            long admissionDelayMs = asyncEntry.getAdmissionDelayMs();
+            if (admissionDelayMs <= 0) {
+                return call;
+            }
+            final DeferredClientCall<ReqT, RespT> deferredCall = new DeferredClientCall<ReqT, RespT>();
+            final Runnable replay = new Runnable() {
                 @Override
-                public void start(Listener<RespT> responseListener, Metadata headers) {
-                    super.start(new SimpleForwardingClientCallListener<RespT>(responseListener) {
-                        @Override
-                        public void onReady() {
-                            super.onReady();
-                        }
-
-                        @Override
-                        public void onClose(Status status, Metadata trailers) {
-                            super.onClose(status, trailers);
-                            // Record the exception metrics.
-                            if (!status.isOk()) {
-                                recordException(status.asRuntimeException());
-                            }
-                        }
-                    }, headers);
+                public void run() {
+                    deferredCall.setCall(call);
                 }
-
+            };
+            admissionScheduler.schedule(new Runnable() {
                 @Override
-                public void cancel(@Nullable String message, @Nullable Throwable cause) {
-                    super.cancel(message, cause);
-                    // Record the exception metrics.
-                    recordException(cause);
+                public void run() {
+                    // The scheduler is only a timer, the operations are replayed on the executor.
+                    try {
+                        callExecutor.execute(replay);
+                    } catch (RejectedExecutionException ex) {
+                        // Operations of client calls don't block, so they can be replayed here as well.
+                        replay.run();
+                    }
                 }
-            };
+            }, admissionDelayMs, TimeUnit.MILLISECONDS);
+            return deferredCall;
         } catch (BlockException e) {
             // Flow control threshold exceeded, block the call.
             return new ClientCall<ReqT, RespT>() {
@@ -133,6 +169,38 @@ public class SentinelGrpcClientInterceptor implements ClientInterceptor {
         }
     }
 
+    private <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> methodDescriptor,
+                                                          CallOptions callOptions, Channel channel) {
+        return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(
+            channel.newCall(methodDescriptor, callOptions)) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                super.start(new SimpleForwardingClientCallListener<RespT>(responseListener) {
+                    @Override
+                    public void onReady() {
+                        super.onReady();
+                    }
+
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        super.onClose(status, trailers);
+                        // Record the exception metrics.
+                        if (!status.isOk()) {
+                            recordException(status.asRuntimeException());
+                        }
+                    }
+                }, headers);
+            }
+
+            @Override
+            public void cancel(@Nullable String message, @Nullable Throwable cause) {
+                super.cancel(message, cause);
+                // Record the exception metrics.
+                recordException(cause);
+            }
+        };
+    }
+
     private void recordException(Throwable t) {
         Tracer.trace(t);
     }
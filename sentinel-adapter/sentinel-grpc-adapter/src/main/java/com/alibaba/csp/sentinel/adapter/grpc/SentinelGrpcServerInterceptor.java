@@ -15,12 +15,19 @@
  */
 package com.alibaba.csp.sentinel.adapter.grpc;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.AsyncEntry;
 import com.alibaba.csp.sentinel.Entry;
 import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.SphU;
 import com.alibaba.csp.sentinel.Tracer;
 import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.util.AssertUtil;
 
 import io.grpc.ForwardingServerCall;
 import io.grpc.ForwardingServerCallListener;
@@ -34,6 +41,9 @@ import io.grpc.Status;
 /**
  * <p>gRPC server interceptor for Sentinel. Currently it only works with unary methods.</p>
  *
+ * <p>When queueing rules (e.g. uniform rate limiting) admit a call later, the call is handed to
+ * an executor at its admission time rather than blocking the transport thread.</p>
+ *
  * Example code:
  * <pre>
  * Server server = ServerBuilder.forPort(port)
@@ -51,28 +61,80 @@ public class SentinelGrpcServerInterceptor implements ServerInterceptor {
     private static final Status FLOW_CONTROL_BLOCK = Status.UNAVAILABLE.withDescription(
         "Flow control limit exceeded (server side)");
 
+    private final ScheduledExecutorService admissionScheduler;
+    private final Executor callExecutor;
+
+    public SentinelGrpcServerInterceptor() {
+        this(DeferredAdmissionScheduler.getDefault());
+    }
+
+    /**
+     * @param admissionScheduler timer of the calls deferred by queueing rules (e.g. uniform rate limiting)
+     * @since 1.4.1
+     */
+    public SentinelGrpcServerInterceptor(ScheduledExecutorService admissionScheduler) {
+        this(admissionScheduler, DeferredAdmissionScheduler.getDefaultExecutor());
+    }
+
+    /**
+     * @param admissionScheduler timer of the calls deferred by queueing rules (e.g. uniform rate limiting)
+     * @param callExecutor       executor to start the deferred calls and replay their events on,
+     *                           e.g. the executor of the server
+     * @since 1.4.1
+     */
+    public SentinelGrpcServerInterceptor(ScheduledExecutorService admissionScheduler, Executor callExecutor) {
+        AssertUtil.notNull(admissionScheduler, "admissionScheduler cannot be null");
+        AssertUtil.notNull(callExecutor, "callExecutor cannot be null");
+        this.admissionScheduler = admissionScheduler;
+        this.callExecutor = callExecutor;
+    }
+
     @Override
-    public <ReqT, RespT> Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> serverCall, Metadata metadata,
-                                                      ServerCallHandler<ReqT, RespT> serverCallHandler) {
+    public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> serverCall, final Metadata metadata,
+                                                      final ServerCallHandler<ReqT, RespT> serverCallHandler) {
         String resourceName = serverCall.getMethodDescriptor().getFullMethodName();
         // Remote address: serverCall.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
         Entry entry = null;
         try {
             ContextUtil.enter(resourceName);
-            entry = SphU.entry(resourceName, EntryType.IN);
-            // Allow access, forward the call.
-            return new ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT>(
-                serverCallHandler.startCall(
-                    new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(serverCall) {
-                        @Override
-                        public void close(Status status, Metadata trailers) {
-                            super.close(status, trailers);
-                            // Record the exception metrics.
-                            if (!status.isOk()) {
-                                recordException(status.asRuntimeException());
-                            }
-                        }
-                    }, metadata)) {};
+            // Queueing rules must not block the transport thread, the call is started later instead.
+            AsyncEntry asyncEntry = SphU.asyncEntryWithDeferredAdmission(resourceName, EntryType.IN);
+            entry = asyncEntry;
+            long admissionDelayMs = asyncEntry.getAdmissionDelayMs();
+            if (admissionDelayMs <= 0) {
+                // Allow access, forward the call.
+                return startCall(serverCall, metadata, serverCallHandler);
+            }
+            final DeferredServerCallListener<ReqT> listener = new DeferredServerCallListener<ReqT>();
+            final Runnable start = new Runnable() {
+                @Override
+                public void run() {
+                    if (listener.isCancelled()) {
+                        listener.setListener(new ServerCall.Listener<ReqT>() {});
+                        return;
+                    }
+                    try {
+                        listener.setListener(startCall(serverCall, metadata, serverCallHandler));
+                    } catch (Throwable t) {
+                        serverCall.close(Status.fromThrowable(t), new Metadata());
+                        listener.setListener(new ServerCall.Listener<ReqT>() {});
+                    }
+                }
+            };
+            admissionScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    // The scheduler is only a timer, the call (and the service method) runs on the executor.
+                    try {
+                        callExecutor.execute(start);
+                    } catch (RejectedExecutionException ex) {
+                        serverCall.close(Status.UNAVAILABLE.withDescription("Deferred call rejected")
+                            .withCause(ex), new Metadata());
+                        listener.setListener(new ServerCall.Listener<ReqT>() {});
+                    }
+                }
+            }, admissionDelayMs, TimeUnit.MILLISECONDS);
+            return listener;
         } catch (BlockException e) {
             serverCall.close(FLOW_CONTROL_BLOCK, new Metadata());
             return new ServerCall.Listener<ReqT>() {};
@@ -84,6 +146,22 @@ public class SentinelGrpcServerInterceptor implements ServerInterceptor {
         }
     }
 
+    private <ReqT, RespT> Listener<ReqT> startCall(ServerCall<ReqT, RespT> serverCall, Metadata metadata,
+                                                   ServerCallHandler<ReqT, RespT> serverCallHandler) {
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT>(
+            serverCallHandler.startCall(
+                new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(serverCall) {
+                    @Override
+                    public void close(Status status, Metadata trailers) {
+                        super.close(status, trailers);
+                        // Record the exception metrics.
+                        if (!status.isOk()) {
+                            recordException(status.asRuntimeException());
+                        }
+                    }
+                }, metadata)) {};
+    }
+
     private void recordException(Throwable t) {
         Tracer.trace(t);
     }
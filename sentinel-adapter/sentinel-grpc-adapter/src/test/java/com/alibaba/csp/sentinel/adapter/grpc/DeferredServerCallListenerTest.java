@@ -0,0 +1,127 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.adapter.grpc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.grpc.ServerCall;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link DeferredServerCallListener}.
+ */
+public class DeferredServerCallListenerTest {
+
+    @Test
+    public void testQueuedEventsForwardedInOrder() {
+        DeferredServerCallListener<String> listener = new DeferredServerCallListener<String>();
+        listener.onReady();
+        listener.onMessage("a");
+        listener.onHalfClose();
+        RecordingListener delegate = new RecordingListener(null, null);
+        listener.setListener(delegate);
+        listener.onComplete();
+
+        assertEquals(Arrays.asList("ready", "message:a", "halfClose", "complete"), delegate.events);
+    }
+
+    @Test
+    public void testTransportEventsNotBlockedByReplay() throws Exception {
+        final DeferredServerCallListener<String> listener = new DeferredServerCallListener<String>();
+        listener.onMessage("a");
+        listener.onHalfClose();
+        final CountDownLatch serviceStarted = new CountDownLatch(1);
+        final CountDownLatch serviceRelease = new CountDownLatch(1);
+        final RecordingListener delegate = new RecordingListener(serviceStarted, serviceRelease);
+        Thread starter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                listener.setListener(delegate);
+            }
+        });
+        starter.start();
+        assertTrue(serviceStarted.await(5, TimeUnit.SECONDS));
+
+        // The service method is running, a cancellation from the transport must return at once.
+        Thread transport = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                listener.onCancel();
+            }
+        });
+        transport.start();
+        transport.join(5000);
+        assertFalse(transport.isAlive());
+        assertTrue(listener.isCancelled());
+
+        serviceRelease.countDown();
+        starter.join(5000);
+        // The cancellation is forwarded after the replayed events.
+        assertEquals(Arrays.asList("message:a", "halfClose", "cancel"), delegate.events);
+    }
+
+    private static class RecordingListener extends ServerCall.Listener<String> {
+
+        private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch serviceStarted;
+        private final CountDownLatch serviceRelease;
+
+        RecordingListener(CountDownLatch serviceStarted, CountDownLatch serviceRelease) {
+            this.serviceStarted = serviceStarted;
+            this.serviceRelease = serviceRelease;
+        }
+
+        @Override
+        public void onMessage(String message) {
+            events.add("message:" + message);
+        }
+
+        @Override
+        public void onHalfClose() {
+            if (serviceStarted != null) {
+                serviceStarted.countDown();
+                try {
+                    serviceRelease.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.add("halfClose");
+        }
+
+        @Override
+        public void onCancel() {
+            events.add("cancel");
+        }
+
+        @Override
+        public void onComplete() {
+            events.add("complete");
+        }
+
+        @Override
+        public void onReady() {
+            events.add("ready");
+        }
+    }
+}
@@ -16,21 +16,33 @@
 package com.alibaba.csp.sentinel.adapter.grpc;
 
 import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.adapter.grpc.gen.FooRequest;
 import com.alibaba.csp.sentinel.adapter.grpc.gen.FooResponse;
+import com.alibaba.csp.sentinel.adapter.grpc.gen.FooServiceGrpc;
 import com.alibaba.csp.sentinel.node.ClusterNode;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
 import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
-
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.clock.ManualClock;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import org.junit.After;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Test cases for {@link SentinelGrpcClientInterceptor}.
@@ -77,6 +89,58 @@ public class SentinelGrpcClientInterceptorTest {
         server.stop();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDeferredAdmission() {
+        // A method of its own, as the statistics of a resource outlive the test case.
+        MethodDescriptor<FooRequest, FooResponse> method = FooServiceGrpc.getAnotherHelloMethod().toBuilder()
+            .setFullMethodName("com.alibaba.sentinel.examples.FooService/deferredClientHello")
+            .build();
+        String resourceName = method.getFullMethodName();
+        FlowRule rule = new FlowRule(resourceName).setCount(10)
+            .setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER)
+            .setMaxQueueingTimeMs(1000);
+        FlowRuleManager.loadRules(Collections.singletonList(rule));
+        TimeUtil.setClock(new ManualClock(10000));
+        try {
+            Channel channel = mock(Channel.class);
+            ClientCall<FooRequest, FooResponse> delegate = mock(ClientCall.class);
+            when(channel.newCall(any(MethodDescriptor.class), any(CallOptions.class))).thenReturn(delegate);
+            ClientCall.Listener<FooResponse> responseListener = mock(ClientCall.Listener.class);
+            final AtomicInteger executed = new AtomicInteger();
+            Executor executor = new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    executed.incrementAndGet();
+                    command.run();
+                }
+            };
+            SentinelGrpcClientInterceptor interceptor = new SentinelGrpcClientInterceptor(
+                DeferredAdmissionScheduler.getDefault(), executor);
+
+            ClientCall<FooRequest, FooResponse> call = interceptor.interceptCall(method,
+                CallOptions.DEFAULT, channel);
+            assertFalse(call instanceof DeferredClientCall);
+
+            // Admitted 100 ms later, the interceptor returns without waiting.
+            call = interceptor.interceptCall(method, CallOptions.DEFAULT, channel);
+            assertTrue(call instanceof DeferredClientCall);
+            call.start(responseListener, new Metadata());
+            call.request(1);
+            assertFalse(call.isReady());
+            verify(delegate, never()).start(any(ClientCall.Listener.class), any(Metadata.class));
+
+            verify(delegate, timeout(2000)).start(any(ClientCall.Listener.class), any(Metadata.class));
+            verify(delegate, timeout(2000)).request(1);
+            assertEquals(1, executed.get());
+            call.halfClose();
+            verify(delegate).halfClose();
+            verify(responseListener, never()).onClose(any(Status.class), any(Metadata.class));
+        } finally {
+            TimeUtil.setClock(null);
+        }
+    }
+
     private boolean sendRequest(FooServiceClient client) {
         try {
             FooResponse response = client.sayHello(FooRequest.newBuilder().setName("Sentinel").setId(666).build());
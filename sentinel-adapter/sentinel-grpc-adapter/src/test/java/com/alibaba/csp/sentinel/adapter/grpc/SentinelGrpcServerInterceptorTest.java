@@ -16,21 +16,32 @@
 package com.alibaba.csp.sentinel.adapter.grpc;
 
 import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.adapter.grpc.gen.FooRequest;
 import com.alibaba.csp.sentinel.adapter.grpc.gen.FooResponse;
+import com.alibaba.csp.sentinel.adapter.grpc.gen.FooServiceGrpc;
 import com.alibaba.csp.sentinel.node.ClusterNode;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
 import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
-
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.clock.ManualClock;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import org.junit.After;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Test cases for {@link SentinelGrpcServerInterceptor}.
@@ -78,6 +89,55 @@ public class SentinelGrpcServerInterceptorTest {
         server.stop();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDeferredAdmission() {
+        // A method of its own, as the statistics of a resource outlive the test case.
+        MethodDescriptor<FooRequest, FooResponse> method = FooServiceGrpc.getSayHelloMethod().toBuilder()
+            .setFullMethodName("com.alibaba.sentinel.examples.FooService/deferredServerHello")
+            .build();
+        String resourceName = method.getFullMethodName();
+        FlowRule rule = new FlowRule(resourceName).setCount(10)
+            .setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER)
+            .setMaxQueueingTimeMs(1000);
+        FlowRuleManager.loadRules(Collections.singletonList(rule));
+        TimeUtil.setClock(new ManualClock(10000));
+        try {
+            ServerCall<FooRequest, FooResponse> call = mock(ServerCall.class);
+            when(call.getMethodDescriptor()).thenReturn(method);
+            ServerCallHandler<FooRequest, FooResponse> handler = mock(ServerCallHandler.class);
+            ServerCall.Listener<FooRequest> delegate = mock(ServerCall.Listener.class);
+            when(handler.startCall(any(ServerCall.class), any(Metadata.class))).thenReturn(delegate);
+            final AtomicInteger executed = new AtomicInteger();
+            Executor executor = new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    executed.incrementAndGet();
+                    command.run();
+                }
+            };
+            SentinelGrpcServerInterceptor interceptor = new SentinelGrpcServerInterceptor(
+                DeferredAdmissionScheduler.getDefault(), executor);
+
+            interceptor.interceptCall(call, new Metadata(), handler);
+            verify(handler, times(1)).startCall(any(ServerCall.class), any(Metadata.class));
+
+            // Admitted 100 ms later, the interceptor returns without waiting.
+            ServerCall.Listener<FooRequest> listener = interceptor.interceptCall(call, new Metadata(), handler);
+            assertTrue(listener instanceof DeferredServerCallListener);
+            verify(handler, times(1)).startCall(any(ServerCall.class), any(Metadata.class));
+            listener.onHalfClose();
+            verify(delegate, never()).onHalfClose();
+
+            verify(handler, timeout(2000).times(2)).startCall(any(ServerCall.class), any(Metadata.class));
+            verify(delegate, timeout(2000)).onHalfClose();
+            assertEquals(1, executed.get());
+            verify(call, never()).close(any(Status.class), any(Metadata.class));
+        } finally {
+            TimeUtil.setClock(null);
+        }
+    }
+
     private boolean sendRequest() {
         try {
             FooResponse response = client.anotherHello(FooRequest.newBuilder().setName("Sentinel").setId(666).build());
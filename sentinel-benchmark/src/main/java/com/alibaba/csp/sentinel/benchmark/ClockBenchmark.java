@@ -0,0 +1,112 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.clock.AdaptiveTickingClock;
+import com.alibaba.csp.sentinel.util.clock.Clock;
+import com.alibaba.csp.sentinel.util.clock.SystemClock;
+import com.alibaba.csp.sentinel.util.clock.TickingClock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the clock modes ({@link SentinelConfig#CLOCK_MODE}).
+ *
+ * <p>{@code testReadClock*} measures a bare read of {@link TimeUtil#currentTimeMillis()},
+ * while {@code testEntryExit*} measures an entry/exit pair, which reads the clock several times.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ClockBenchmark {
+
+    @Param({SentinelConfig.CLOCK_MODE_TICKER, SentinelConfig.CLOCK_MODE_SYSTEM, SentinelConfig.CLOCK_MODE_ADAPTIVE})
+    private String mode;
+
+    @Setup
+    public void prepare() {
+        Clock clock;
+        if (SentinelConfig.CLOCK_MODE_SYSTEM.equals(mode)) {
+            clock = SystemClock.INSTANCE;
+        } else if (SentinelConfig.CLOCK_MODE_ADAPTIVE.equals(mode)) {
+            clock = new AdaptiveTickingClock();
+        } else {
+            clock = new TickingClock();
+        }
+        TimeUtil.setClock(clock);
+    }
+
+    @TearDown
+    public void tearDown() {
+        TimeUtil.setClock(null);
+    }
+
+    private void entryExit() {
+        Entry e = null;
+        try {
+            e = SphU.entry("benchmark-clock");
+        } catch (BlockException ex) {
+        } finally {
+            if (e != null) {
+                e.exit();
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long testReadClockSingleThread() {
+        return TimeUtil.currentTimeMillis();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long testReadClock8Threads() {
+        return TimeUtil.currentTimeMillis();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testEntryExitSingleThread() {
+        entryExit();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void testEntryExit8Threads() {
+        entryExit();
+    }
+}
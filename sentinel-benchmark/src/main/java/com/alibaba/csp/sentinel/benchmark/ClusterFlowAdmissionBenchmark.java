@@ -0,0 +1,142 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterMetric;
+import com.alibaba.csp.sentinel.slots.statistic.base.LongAdder;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the admission of cluster flow tokens on the token server.
+ *
+ * <p>{@code checkThenAct} reads the average pass count and then adds the pass (the legacy way),
+ * while {@code atomic} checks and reserves the tokens in one atomic step. Besides the throughput,
+ * the max count of admitted tokens in any sliding interval (10 buckets of 100 ms) is printed after
+ * each iteration, as a ratio to the threshold. A ratio above 1.0 indicates over-admission
+ * (the audit reads the time apart from the admission, so a few tokens at bucket edges may be misattributed).
+ * Run it on a multi-core host, as the race of check-then-act rarely happens with few cores.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ClusterFlowAdmissionBenchmark {
+
+    private static final int SAMPLE_COUNT = 10;
+    private static final int INTERVAL_MS = 1000;
+    private static final int BUCKET_LENGTH_MS = INTERVAL_MS / SAMPLE_COUNT;
+    private static final int MAX_AUDIT_BUCKETS = 1200;
+
+    @Param({"checkThenAct", "atomic"})
+    private String admission;
+
+    /**
+     * Global threshold of the flow (tokens per second).
+     */
+    @Param({"1000000"})
+    private double threshold;
+
+    private ClusterMetric metric;
+    private boolean atomic;
+
+    /**
+     * Admitted tokens of each bucket since the iteration starts.
+     */
+    private LongAdder[] audit;
+    private long startBucket;
+
+    @Setup(Level.Iteration)
+    public void prepare() {
+        atomic = "atomic".equals(admission);
+        metric = new ClusterMetric(SAMPLE_COUNT, INTERVAL_MS);
+        audit = new LongAdder[MAX_AUDIT_BUCKETS];
+        for (int i = 0; i < MAX_AUDIT_BUCKETS; i++) {
+            audit[i] = new LongAdder();
+        }
+        startBucket = TimeUtil.currentTimeMillis() / BUCKET_LENGTH_MS;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long maxAdmitted = 0;
+        long total = 0;
+        for (int i = 0; i < MAX_AUDIT_BUCKETS; i++) {
+            long sum = 0;
+            for (int j = Math.max(0, i - SAMPLE_COUNT + 1); j <= i; j++) {
+                sum += audit[j].sum();
+            }
+            maxAdmitted = Math.max(maxAdmitted, sum);
+            total += audit[i].sum();
+        }
+        double allowed = threshold * INTERVAL_MS / 1000;
+        System.out.printf("%n[%s] admitted %d tokens, max in an interval: %d, ratio to threshold: %.4f%n",
+            admission, total, maxAdmitted, maxAdmitted / allowed);
+    }
+
+    private boolean acquire() {
+        boolean pass;
+        if (atomic) {
+            pass = metric.tryPass(1, threshold) >= 0;
+        } else {
+            pass = metric.getAvg(ClusterFlowEvent.PASS_REQUEST) + 1 <= threshold;
+        }
+        if (pass) {
+            metric.add(ClusterFlowEvent.PASS, 1);
+            metric.add(ClusterFlowEvent.PASS_REQUEST, 1);
+            int idx = (int)(TimeUtil.currentTimeMillis() / BUCKET_LENGTH_MS - startBucket);
+            if (idx < MAX_AUDIT_BUCKETS) {
+                audit[idx].add(1);
+            }
+        }
+        return pass;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean testAcquireSingleThread() {
+        return acquire();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean testAcquire8Threads() {
+        return acquire();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean testAcquire32Threads() {
+        return acquire();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.transport.command.netty.HttpServer;
+import com.alibaba.csp.sentinel.transport.config.TransportConfig;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the throughput of the netty-http command center, with requests of a trivial command
+ * sent over keep-alive connections. The command center of the dashboard-facing transport is expected
+ * to keep up with 1k requests per second.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class CommandCenterBenchmark {
+
+    private HttpServer server;
+    private int port;
+
+    @Setup(Level.Trial)
+    public void startServer() throws Exception {
+        ServerSocket socket = new ServerSocket(0);
+        port = socket.getLocalPort();
+        socket.close();
+        SentinelConfig.setConfig(TransportConfig.SERVER_PORT, String.valueOf(port));
+
+        server = new HttpServer();
+        server.registerCommand("echo", new CommandHandler<String>() {
+            @Override
+            public CommandResponse<String> handle(CommandRequest request) {
+                return CommandResponse.ofSuccess("echo:" + request.getParam("msg"));
+            }
+        });
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    server.start();
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (TransportConfig.getRuntimePort() != port) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Command center not started on port " + port);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.close();
+    }
+
+    private int echo() throws IOException {
+        HttpURLConnection conn = (HttpURLConnection)new URL("http://127.0.0.1:" + port + "/echo?msg=x")
+            .openConnection();
+        if (conn.getResponseCode() != 200) {
+            throw new IllegalStateException("Unexpected status: " + conn.getResponseCode());
+        }
+        // Read fully, so that the connection goes back to the keep-alive cache.
+        InputStream in = conn.getInputStream();
+        try {
+            int length = 0;
+            byte[] buf = new byte[256];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                length += n;
+            }
+            return length;
+        } finally {
+            in.close();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int testEchoSingleThread() throws IOException {
+        return echo();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int testEcho8Threads() throws IOException {
+        return echo();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the flow rule check of an entry with several rules on the resource.
+ *
+ * <p>The resource has one rule for each of {@code rules - 1} specific origins ({@code app1}, {@code app2}...)
+ * and one default rule, all with thresholds that never block. The entry comes either from a specific
+ * origin ({@code app1}) or from an origin without rules of its own.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FlowRuleBenchmark {
+
+    private static final String RESOURCE = "flow-benchmark";
+
+    @Param({"1", "10", "100"})
+    private int rules;
+
+    @Param({"app1", "unknown"})
+    private String origin;
+
+    @Setup
+    public void prepare() {
+        List<FlowRule> flowRules = new ArrayList<>(rules);
+        for (int i = 1; i < rules; i++) {
+            FlowRule rule = new FlowRule(RESOURCE).setCount(Integer.MAX_VALUE);
+            rule.setLimitApp("app" + i);
+            flowRules.add(rule);
+        }
+        FlowRule defaultRule = new FlowRule(RESOURCE).setCount(Integer.MAX_VALUE);
+        defaultRule.setLimitApp(RuleConstant.LIMIT_APP_DEFAULT);
+        flowRules.add(defaultRule);
+        FlowRuleManager.loadRules(flowRules);
+    }
+
+    @TearDown
+    public void tearDown() {
+        FlowRuleManager.loadRules(null);
+    }
+
+    @State(Scope.Thread)
+    public static class OriginContextState {
+
+        @Setup
+        public void enterContext(FlowRuleBenchmark benchmark) {
+            ContextUtil.enter("flow-benchmark-context", benchmark.origin);
+        }
+
+        @TearDown
+        public void exitContext() {
+            ContextUtil.exit();
+        }
+    }
+
+    private Entry entryAndExit() {
+        Entry e0 = null;
+        try {
+            e0 = SphU.entry(RESOURCE);
+        } catch (BlockException e) {
+        } finally {
+            if (e0 != null) {
+                e0.exit();
+            }
+        }
+        return e0;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Entry testEntryExit(OriginContextState state) {
+        return entryAndExit();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Entry test4ThreadsEntryExit(OriginContextState state) {
+        return entryAndExit();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
+import com.alibaba.csp.sentinel.slots.statistic.metric.MetricsLeapArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link MetricsLeapArray#currentWindow()} under contention.
+ *
+ * <p>With 1 ms windows every bucket boundary is crossed by all benchmark threads at once,
+ * so the result mostly reflects the cost of window rotation. Use {@code -bm sample}
+ * to see the tail latency at bucket boundaries.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class LeapArrayBenchmark {
+
+    @Param({"1", "500"})
+    private int windowLengthInMs;
+
+    private MetricsLeapArray leapArray;
+
+    @Setup
+    public void prepare() {
+        leapArray = new MetricsLeapArray(windowLengthInMs, 1);
+    }
+
+    private MetricBucket addPass() {
+        MetricBucket bucket = leapArray.currentWindow().value();
+        bucket.addPass();
+        return bucket;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public MetricBucket testCurrentWindowSingleThread() {
+        return addPass();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public MetricBucket testCurrentWindow8Threads() {
+        return addPass();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public MetricBucket testCurrentWindow64Threads() {
+        return addPass();
+    }
+}
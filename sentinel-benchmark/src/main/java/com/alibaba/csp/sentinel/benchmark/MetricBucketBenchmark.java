@@ -0,0 +1,114 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.slots.statistic.data.DefaultMetricBucketFactory;
+import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucketFactory;
+import com.alibaba.csp.sentinel.slots.statistic.data.StripedMetricBucketFactory;
+import com.alibaba.csp.sentinel.slots.statistic.metric.ArrayMetric;
+import com.alibaba.csp.sentinel.slots.statistic.metric.MetricsLeapArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the layouts of metric buckets.
+ *
+ * <p>The {@code testUpdate*} benchmarks measure update throughput of a shared second-level counter.
+ * {@code testCreateMinuteCounter} builds a fully populated minute-level counter (60 buckets),
+ * so running it with {@code -prof gc} shows the memory taken by each layout ({@code gc.alloc.rate.norm}).</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MetricBucketBenchmark {
+
+    /**
+     * Layout of the buckets: {@code default} for LongAdder per event,
+     * {@code stripedN} for striped buckets with N stripes.
+     */
+    @Param({"default", "striped1", "striped8"})
+    private String layout;
+
+    private MetricBucketFactory factory;
+
+    private ArrayMetric metric;
+
+    @Setup
+    public void prepare() {
+        if ("default".equals(layout)) {
+            factory = DefaultMetricBucketFactory.INSTANCE;
+        } else {
+            factory = new StripedMetricBucketFactory(Integer.parseInt(layout.substring("striped".length())));
+        }
+        metric = new ArrayMetric(500, 1, factory);
+    }
+
+    private void update() {
+        metric.addPass();
+        metric.addSuccess();
+        metric.addRT(5);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testUpdateSingleThread() {
+        update();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void testUpdate8Threads() {
+        update();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void testUpdate32Threads() {
+        update();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long testUpdateAndRead8Threads() {
+        update();
+        return metric.pass();
+    }
+
+    @Benchmark
+    @Threads(1)
+    @BenchmarkMode(Mode.AverageTime)
+    public MetricsLeapArray testCreateMinuteCounter() {
+        MetricsLeapArray leapArray = new MetricsLeapArray(1000, 60, factory);
+        for (int i = 0; i < 60; i++) {
+            leapArray.currentWindow(i * 1000L).value().addPass();
+        }
+        return leapArray;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.node.Node;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for per-origin lookup in {@link ClusterNode#getOrCreateOriginNode(String)}.
+ *
+ * <p>{@code testLookup*} picks a random origin out of {@code origins} callers. When there are more callers
+ * than {@code capacity}, lookups keep evicting and recreating origin nodes, so the cost of the
+ * bounded index shows up as well. {@code testNewOrigin} always looks up an unseen origin.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class OriginNodeBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int origins;
+
+    @Param({"2000"})
+    private int capacity;
+
+    private String[] names;
+
+    private ClusterNode node;
+
+    private final AtomicLong newOrigin = new AtomicLong();
+
+    @Setup
+    public void prepare() {
+        names = new String[origins];
+        node = new ClusterNode(capacity);
+        for (int i = 0; i < origins; i++) {
+            names[i] = "app" + i;
+            node.getOrCreateOriginNode(names[i]);
+        }
+    }
+
+    private Node lookup() {
+        return node.getOrCreateOriginNode(names[ThreadLocalRandom.current().nextInt(origins)]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Node testLookupSingleThread() {
+        return lookup();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Node testLookupMultiThread() {
+        return lookup();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Node testNewOrigin() {
+        return node.getOrCreateOriginNode("new" + newOrigin.incrementAndGet());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.slots.block.flow.param.RollingParamEvent;
+import com.alibaba.csp.sentinel.slots.statistic.data.ParamMapBucket;
+import com.alibaba.csp.sentinel.slots.statistic.data.SketchParamMapBucket;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the default LRU {@link ParamMapBucket} against {@link SketchParamMapBucket}
+ * with {@code distinct} parameter values, one in ten requests hitting one of a few hot values.
+ *
+ * <p>The retained heap of a bucket after seeing all the values is printed when setting up the trial,
+ * which is more stable with {@code -jvmArgs -XX:+UseSerialGC}.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ParamBucketBenchmark {
+
+    private static final int HOT_VALUES = 10;
+
+    @Param({"1000000"})
+    private int distinct;
+
+    @Param({"false", "true"})
+    private boolean sketch;
+
+    private Long[] values;
+
+    private ParamMapBucket bucket;
+
+    @Setup
+    public void prepare() {
+        values = new Long[distinct];
+        for (int i = 0; i < distinct; i++) {
+            values[i] = (long)i;
+        }
+        System.out.println();
+        System.out.println("Retained bytes per bucket: " + retainedBytesPerBucket());
+        bucket = fill(newBucket());
+    }
+
+    private ParamMapBucket newBucket() {
+        return sketch ? new SketchParamMapBucket() : new ParamMapBucket();
+    }
+
+    private ParamMapBucket fill(ParamMapBucket b) {
+        for (Long value : values) {
+            b.add(RollingParamEvent.REQUEST_PASSED, 1, value);
+        }
+        return b;
+    }
+
+    private long retainedBytesPerBucket() {
+        int count = 50;
+        ParamMapBucket[] buckets = new ParamMapBucket[count];
+        long before = usedHeap();
+        for (int i = 0; i < count; i++) {
+            buckets[i] = fill(newBucket());
+        }
+        long after = usedHeap();
+        // Keep the buckets reachable until the heap is measured.
+        return buckets[count - 1] == null ? -1 : (after - before) / count;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private Long nextValue() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(10) == 0) {
+            return values[random.nextInt(HOT_VALUES)];
+        }
+        return values[random.nextInt(distinct)];
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ParamMapBucket testAddSingleThread() {
+        return bucket.add(RollingParamEvent.REQUEST_PASSED, 1, nextValue());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ParamMapBucket testAddMultiThread() {
+        return bucket.add(RollingParamEvent.REQUEST_PASSED, 1, nextValue());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int testGet() {
+        return bucket.get(RollingParamEvent.REQUEST_PASSED, nextValue());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.Constants;
+import com.alibaba.csp.sentinel.CtSph;
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.node.DefaultNode;
+import com.alibaba.csp.sentinel.node.Node;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the first entry of distinct resources, which registers the slot chain
+ * and the cluster node of each resource.
+ *
+ * <p>Each measurement iteration starts from an empty registry and enters {@code resourceCount}
+ * distinct resources once, so the result is the total time of registering all of them.
+ * Note that resources beyond {@link Constants#MAX_SLOT_CHAIN_SIZE} take the no-chain path.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ResourceRegistryBenchmark {
+
+    @Param({"1000", "5000", "10000"})
+    private int resourceCount;
+
+    private String[] resources;
+
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    @Setup
+    public void prepare() {
+        resources = new String[resourceCount];
+        for (int i = 0; i < resourceCount; i++) {
+            resources[i] = "benchmark-resource-" + i;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetRegistry() throws Exception {
+        Method resetChainMap = CtSph.class.getDeclaredMethod("resetChainMap");
+        resetChainMap.setAccessible(true);
+        resetChainMap.invoke(null);
+        ClusterBuilderSlot.getClusterNodeMap().clear();
+        for (Node entranceNode : Constants.ROOT.getChildList()) {
+            ((DefaultNode)entranceNode).removeChildList();
+        }
+        cursor.set(0);
+    }
+
+    private void enterAll() {
+        int i;
+        while ((i = cursor.getAndIncrement()) < resources.length) {
+            Entry e = null;
+            try {
+                e = SphU.entry(resources[i]);
+            } catch (BlockException ex) {
+            } finally {
+                if (e != null) {
+                    e.exit();
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Map<?, ?> testFirstEntrySingleThread() {
+        enterAll();
+        return ClusterBuilderSlot.getClusterNodeMap();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Map<?, ?> testFirstEntry8Threads() {
+        enterAll();
+        return ClusterBuilderSlot.getClusterNodeMap();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public Map<?, ?> testFirstEntry32Threads() {
+        enterAll();
+        return ClusterBuilderSlot.getClusterNodeMap();
+    }
+}
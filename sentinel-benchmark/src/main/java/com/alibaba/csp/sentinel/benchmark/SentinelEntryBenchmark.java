@@ -23,22 +23,30 @@ import java.util.concurrent.TimeUnit;
 
 import com.alibaba.csp.sentinel.Entry;
 import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 
 /**
  * Benchmark for Sentinel entries.
  *
+ * <p>The {@code testEntryExit*} benchmarks measure a bare entry/exit pair within an entered context.
+ * Run them with {@code -prof gc} to compare the allocation rate with and without the entry pool
+ * ({@link SentinelConfig#ENTRY_POOL_ENABLED}).</p>
+ *
  * @author Eric Zhao
  */
 @Warmup(iterations = 10)
@@ -137,4 +145,57 @@ public class SentinelEntryBenchmark {
     public void test16ThreadsSingleEntry() {
         doSomethingWithEntry();
     }
+
+    @State(Scope.Thread)
+    public static class EntryContextState {
+
+        @Setup
+        public void enterContext() {
+            ContextUtil.enter("benchmark-context");
+        }
+
+        @TearDown
+        public void exitContext() {
+            ContextUtil.exit();
+        }
+    }
+
+    private Entry entryAndExit() {
+        Entry e0 = null;
+        try {
+            e0 = SphU.entry("benchmark");
+        } catch (BlockException e) {
+        } finally {
+            if (e0 != null) {
+                e0.exit();
+            }
+        }
+        return e0;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Entry testEntryExit(EntryContextState state) {
+        return entryAndExit();
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Fork(jvmArgsAppend = "-D" + SentinelConfig.ENTRY_POOL_ENABLED + "=true")
+    public Entry testEntryExitPooled(EntryContextState state) {
+        return entryAndExit();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Entry test8ThreadsEntryExit(EntryContextState state) {
+        return entryAndExit();
+    }
+
+    @Benchmark
+    @Threads(8)
+    @Fork(jvmArgsAppend = "-D" + SentinelConfig.ENTRY_POOL_ENABLED + "=true")
+    public Entry test8ThreadsEntryExitPooled(EntryContextState state) {
+        return entryAndExit();
+    }
 }
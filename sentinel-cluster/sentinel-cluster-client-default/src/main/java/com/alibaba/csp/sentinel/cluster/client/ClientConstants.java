@@ -24,6 +24,22 @@ public final class ClientConstants {
     public static final int TYPE_PING = 0;
     public static final int TYPE_FLOW = 1;
     public static final int TYPE_PARAM_FLOW = 2;
+    public static final int TYPE_FLOW_BATCH = 3;
+    public static final int TYPE_FLOW_LEASE = 4;
+
+    /**
+     * Max amount of token requests coalesced in a single frame, so that the frame fits the frame length limit.
+     */
+    public static final int MAX_FLOW_BATCH_SIZE = 100;
+
+    /**
+     * Min count of tokens asked for in a lease request. The token server may grant fewer tokens.
+     */
+    public static final int MIN_LEASE_REQUEST_COUNT = 16;
+    /**
+     * Time to wait before leasing again after the token server rejected a lease request.
+     */
+    public static final int LEASE_RETRY_INTERVAL_MS = 100;
 
     public static final int CLIENT_STATUS_OFF = 0;
     public static final int CLIENT_STATUS_PENDING = 1;
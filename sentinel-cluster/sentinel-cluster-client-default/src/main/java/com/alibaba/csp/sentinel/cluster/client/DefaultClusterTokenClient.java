@@ -16,11 +16,20 @@
 package com.alibaba.csp.sentinel.cluster.client;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.ClusterErrorMessages;
+import com.alibaba.csp.sentinel.cluster.ClusterResponseCallback;
 import com.alibaba.csp.sentinel.cluster.ClusterTransportClient;
 import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultFuture;
 import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
 import com.alibaba.csp.sentinel.cluster.TokenServerDescriptor;
 import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
@@ -28,12 +37,16 @@ import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager
 import com.alibaba.csp.sentinel.cluster.client.config.ServerChangeObserver;
 import com.alibaba.csp.sentinel.cluster.log.ClusterClientStatLogUtil;
 import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowLeaseRequestData;
 import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
 import com.alibaba.csp.sentinel.cluster.request.data.ParamFlowRequestData;
 import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowLeaseResponseData;
 import com.alibaba.csp.sentinel.cluster.response.data.FlowTokenResponseData;
+import com.alibaba.csp.sentinel.cluster.shard.ClusterShardRing;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.util.StringUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
  * Default implementation of {@link ClusterTokenClient}.
@@ -46,8 +59,18 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
     private ClusterTransportClient transportClient;
     private TokenServerDescriptor serverDescriptor;
 
+    /**
+     * Shard ring and the transport clients of the shards, only present in sharding mode.
+     */
+    private volatile ShardRoute shardRoute;
+
     private final AtomicBoolean shouldStart = new AtomicBoolean(false);
 
+    /**
+     * Token leases of flows (flowId -> lease), only used when lease mode is enabled.
+     */
+    private final ConcurrentMap<Long, FlowTokenLease> leaseMap = new ConcurrentHashMap<>();
+
     public DefaultClusterTokenClient() {
         ClusterClientConfigManager.addServerChangeObserver(new ServerChangeObserver() {
             @Override
@@ -56,6 +79,7 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
             }
         });
         initNewConnection();
+        changeShards(ClusterClientConfigManager.getShardRing());
     }
 
     private boolean serverEqual(TokenServerDescriptor descriptor, ClusterClientConfig config) {
@@ -85,13 +109,16 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
     }
 
     private void changeServer(/*@Valid*/ ClusterClientConfig config) {
-        if (serverEqual(serverDescriptor, config)) {
+        changeShards(ClusterClientConfigManager.getShardRing());
+        if (StringUtil.isBlank(config.getServerHost()) || serverEqual(serverDescriptor, config)) {
             return;
         }
         try {
             if (transportClient != null) {
                 transportClient.stop();
             }
+            // Leases granted by the previous server are no longer valid.
+            leaseMap.clear();
             // Replace with new, even if the new client is not ready.
             this.transportClient = new NettyTransportClient(config);
             this.serverDescriptor = new TokenServerDescriptor(config.getServerHost(), config.getServerPort());
@@ -102,11 +129,80 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
         }
     }
 
+    /**
+     * Reconcile the transport clients of the shards: clients of remaining shards are kept,
+     * clients of new shards are created (and started if scheduled), and clients of removed shards are stopped.
+     */
+    private synchronized void changeShards(ClusterShardRing ring) {
+        ShardRoute oldRoute = shardRoute;
+        if (oldRoute == null ? ring == null : oldRoute.ring == ring) {
+            return;
+        }
+        Map<String, ClusterTransportClient> oldClients = oldRoute == null
+            ? new HashMap<String, ClusterTransportClient>() : oldRoute.clients;
+        Map<String, ClusterTransportClient> newClients = new HashMap<>();
+        if (ring != null) {
+            for (String shard : ring.getShards()) {
+                ClusterTransportClient client = oldClients.get(shard);
+                if (client == null) {
+                    client = newShardClient(shard);
+                }
+                if (client != null) {
+                    newClients.put(shard, client);
+                }
+            }
+        }
+        this.shardRoute = ring == null ? null : new ShardRoute(ring, newClients);
+        // Flows may be moved to other shards.
+        leaseMap.clear();
+        for (Map.Entry<String, ClusterTransportClient> e : oldClients.entrySet()) {
+            if (!newClients.containsKey(e.getKey())) {
+                try {
+                    e.getValue().stop();
+                } catch (Exception ex) {
+                    RecordLog.warn("[DefaultClusterTokenClient] Failed to stop client of removed shard: " + e.getKey(), ex);
+                }
+            }
+        }
+        RecordLog.info("[DefaultClusterTokenClient] Token server shards changed: " + ring);
+    }
+
+    private ClusterTransportClient newShardClient(String shard) {
+        TokenServerDescriptor descriptor = ClusterShardRing.parseAddress(shard);
+        try {
+            ClusterTransportClient client = new NettyTransportClient(descriptor.getHost(), descriptor.getPort());
+            if (shouldStart.get()) {
+                client.start();
+            }
+            return client;
+        } catch (Exception ex) {
+            RecordLog.warn("[DefaultClusterTokenClient] Failed to create client for shard: " + shard, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Get the transport client of the token server that owns given flow.
+     *
+     * @param flowId flow ID
+     * @return the client of the owner shard in sharding mode, otherwise the client of the token server
+     */
+    private ClusterTransportClient getTransportClient(Long flowId) {
+        ShardRoute route = shardRoute;
+        if (route != null) {
+            ClusterTransportClient client = route.clients.get(route.ring.getShard(flowId));
+            if (client != null) {
+                return client;
+            }
+        }
+        return transportClient;
+    }
+
     private void startClientIfScheduled() throws Exception {
         if (shouldStart.get()) {
             if (transportClient != null) {
                 transportClient.start();
-            } else {
+            } else if (shardRoute == null) {
                 RecordLog.warn("[DefaultClusterTokenClient] Cannot start transport client: client not created");
             }
         }
@@ -117,6 +213,12 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
             if (transportClient != null) {
                 transportClient.stop();
             }
+            ShardRoute route = shardRoute;
+            if (route != null) {
+                for (ClusterTransportClient client : route.clients.values()) {
+                    client.stop();
+                }
+            }
         }
     }
 
@@ -124,6 +226,12 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
     public void start() throws Exception {
         if (shouldStart.compareAndSet(false, true)) {
             startClientIfScheduled();
+            ShardRoute route = shardRoute;
+            if (route != null) {
+                for (ClusterTransportClient client : route.clients.values()) {
+                    client.start();
+                }
+            }
         }
     }
 
@@ -139,18 +247,109 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
 
     @Override
     public TokenResult requestToken(Long flowId, int acquireCount, boolean prioritized) {
+        TokenResultFuture future = requestTokenAsync(flowId, acquireCount, prioritized);
+        try {
+            // The request may be coalesced with concurrent requests of the same flow.
+            return future.get(ClusterClientConfigManager.getRequestTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            ClusterClientStatLogUtil.log(ClusterErrorMessages.REQUEST_TIME_OUT);
+            return clientFail();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return clientFail();
+        }
+    }
+
+    @Override
+    public TokenResultFuture requestTokenAsync(Long flowId, int acquireCount, boolean prioritized) {
         if (notValidRequest(flowId, acquireCount)) {
-            return badRequest();
+            return TokenResultFuture.completed(badRequest());
+        }
+        TokenResult leased = tryAcquireLeased(flowId, acquireCount, prioritized);
+        if (leased != null) {
+            return TokenResultFuture.completed(leased);
+        }
+        ClusterTransportClient transportClient = getTransportClient(flowId);
+        if (transportClient == null) {
+            RecordLog.warn("[DefaultClusterTokenClient] Client not created, please check your config for cluster client");
+            return TokenResultFuture.completed(clientFail());
         }
         FlowRequestData data = new FlowRequestData().setCount(acquireCount)
             .setFlowId(flowId).setPriority(prioritized);
         ClusterRequest<FlowRequestData> request = new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, data);
-        try {
-            return sendTokenRequest(request);
-        } catch (Exception ex) {
-            ClusterClientStatLogUtil.log(ex.getMessage());
-            return new TokenResult(TokenResultStatus.FAIL);
+        final TokenResultFuture future = new TokenResultFuture();
+        transportClient.sendRequestAsync(request, new ClusterResponseCallback() {
+            @Override
+            public void onResponse(ClusterResponse response) {
+                future.complete(toTokenResult(response));
+            }
+
+            @Override
+            public void onFailure(Throwable ex) {
+                ClusterClientStatLogUtil.log(ex.getMessage());
+                future.complete(clientFail());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Try to serve the token request from the lease of the flow, and refill the lease in background if needed.
+     *
+     * @return the token result if served locally, or null if the request should be sent to the token server
+     */
+    private TokenResult tryAcquireLeased(Long flowId, int acquireCount, boolean prioritized) {
+        if (!ClusterClientConfigManager.isLeaseEnabled() || prioritized || notValidRequest(flowId, acquireCount)) {
+            return null;
+        }
+        FlowTokenLease lease = leaseMap.get(flowId);
+        if (lease == null) {
+            FlowTokenLease newLease = new FlowTokenLease(flowId);
+            lease = leaseMap.putIfAbsent(flowId, newLease);
+            if (lease == null) {
+                lease = newLease;
+            }
+        }
+        long now = TimeUtil.currentTimeMillis();
+        int remaining = lease.tryAcquire(acquireCount, now);
+        if (lease.shouldRefill(now)) {
+            refillLease(flowId, lease, now);
+        }
+        if (remaining < 0) {
+            return null;
         }
+        return new TokenResult(TokenResultStatus.OK)
+            .setRemaining(remaining)
+            .setWaitInMs(0);
+    }
+
+    private void refillLease(Long flowId, final FlowTokenLease lease, long now) {
+        ClusterTransportClient client = getTransportClient(flowId);
+        if (client == null || !lease.tryStartRefill(now)) {
+            return;
+        }
+        FlowLeaseRequestData data = lease.buildRequest(now);
+        ClusterRequest<FlowLeaseRequestData> request = new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW_LEASE, data);
+        client.sendRequestAsync(request, new ClusterResponseCallback() {
+            @Override
+            public void onResponse(ClusterResponse response) {
+                long now = TimeUtil.currentTimeMillis();
+                FlowLeaseResponseData responseData = (FlowLeaseResponseData)response.getData();
+                if (response.getStatus() == TokenResultStatus.OK && responseData != null
+                    && responseData.getGrantedCount() > 0) {
+                    lease.onLeaseGranted(responseData.getLeaseId(), responseData.getGrantedCount(),
+                        responseData.getLeaseTimeInMs(), now);
+                } else {
+                    lease.onLeaseRejected(now);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable ex) {
+                ClusterClientStatLogUtil.log(ex.getMessage());
+                lease.onLeaseRejected(TimeUtil.currentTimeMillis());
+            }
+        });
     }
 
     @Override
@@ -162,19 +361,23 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
             .setFlowId(flowId).setParams(params);
         ClusterRequest<ParamFlowRequestData> request = new ClusterRequest<>(ClusterConstants.MSG_TYPE_PARAM_FLOW, data);
         try {
-            return sendTokenRequest(request);
+            return sendTokenRequest(flowId, request);
         } catch (Exception ex) {
             ClusterClientStatLogUtil.log(ex.getMessage());
             return new TokenResult(TokenResultStatus.FAIL);
         }
     }
 
-    private TokenResult sendTokenRequest(ClusterRequest request) throws Exception {
+    private TokenResult sendTokenRequest(Long flowId, ClusterRequest request) throws Exception {
+        ClusterTransportClient transportClient = getTransportClient(flowId);
         if (transportClient == null) {
             RecordLog.warn("[DefaultClusterTokenClient] Client not created, please check your config for cluster client");
             return clientFail();
         }
-        ClusterResponse response = transportClient.sendRequest(request);
+        return toTokenResult(transportClient.sendRequest(request));
+    }
+
+    private TokenResult toTokenResult(ClusterResponse response) {
         TokenResult result = new TokenResult(response.getStatus());
         if (response.getData() != null) {
             FlowTokenResponseData responseData = (FlowTokenResponseData)response.getData();
@@ -195,4 +398,14 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
     private TokenResult clientFail() {
         return new TokenResult(TokenResultStatus.FAIL);
     }
+
+    private static final class ShardRoute {
+        private final ClusterShardRing ring;
+        private final Map<String, ClusterTransportClient> clients;
+
+        private ShardRoute(ClusterShardRing ring, Map<String, ClusterTransportClient> clients) {
+            this.ring = ring;
+            this.clients = clients;
+        }
+    }
 }
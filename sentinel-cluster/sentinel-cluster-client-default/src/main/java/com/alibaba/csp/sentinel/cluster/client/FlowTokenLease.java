@@ -0,0 +1,145 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.cluster.request.data.FlowLeaseRequestData;
+
+/**
+ * <p>Token leases of a single flow held by the cluster client.</p>
+ *
+ * <p>Tokens of the current lease are consumed locally via an atomic counter. A new lease is requested
+ * in background once the current lease is running low or expired, and at most one lease request is in flight.
+ * Unused tokens of a replaced lease are given back to the token server with the next lease request.</p>
+ *
+ * @since 1.4.1
+ */
+final class FlowTokenLease {
+
+    private final long flowId;
+
+    private volatile Lease current;
+    private final AtomicBoolean refilling = new AtomicBoolean(false);
+    private volatile long retryAfter = 0;
+
+    private long releaseLeaseId;
+    private int releaseCount;
+
+    FlowTokenLease(long flowId) {
+        this.flowId = flowId;
+    }
+
+    /**
+     * Try to consume tokens from current lease.
+     *
+     * @param count count of tokens to consume
+     * @param now   current time in milliseconds
+     * @return remaining count of the lease after consuming; -1 if the tokens cannot be served locally
+     */
+    int tryAcquire(int count, long now) {
+        Lease lease = current;
+        if (lease == null || now >= lease.expireTime) {
+            return -1;
+        }
+        while (true) {
+            int remaining = lease.remaining.get();
+            if (remaining < count) {
+                return -1;
+            }
+            if (lease.remaining.compareAndSet(remaining, remaining - count)) {
+                return remaining - count;
+            }
+        }
+    }
+
+    boolean shouldRefill(long now) {
+        Lease lease = current;
+        // Refill when a quarter of the lease is left, so that the next lease arrives before running out.
+        return lease == null || now >= lease.expireTime || lease.remaining.get() <= lease.grantedCount / 4;
+    }
+
+    boolean tryStartRefill(long now) {
+        return now >= retryAfter && refilling.compareAndSet(false, true);
+    }
+
+    /**
+     * Build the lease request. Should be called only by the thread that started the refill.
+     *
+     * @param now current time in milliseconds
+     * @return the lease request
+     */
+    FlowLeaseRequestData buildRequest(long now) {
+        FlowLeaseRequestData data = new FlowLeaseRequestData().setFlowId(flowId)
+            .setCount(ClientConstants.MIN_LEASE_REQUEST_COUNT);
+        Lease lease = current;
+        if (lease != null) {
+            int consumed = lease.grantedCount - Math.max(0, lease.remaining.get());
+            // Ask for twice as much as consumed, so that the lease size follows the traffic.
+            data.setCount(Math.max(ClientConstants.MIN_LEASE_REQUEST_COUNT, consumed * 2));
+            if (now >= lease.expireTime) {
+                releaseUnused(lease);
+            }
+        }
+        synchronized (this) {
+            if (releaseLeaseId > 0) {
+                data.setReleaseLeaseId(releaseLeaseId).setReleaseCount(releaseCount);
+                releaseLeaseId = 0;
+                releaseCount = 0;
+            }
+        }
+        return data;
+    }
+
+    void onLeaseGranted(long leaseId, int grantedCount, int leaseTimeInMs, long now) {
+        Lease old = current;
+        current = new Lease(leaseId, grantedCount, now + leaseTimeInMs);
+        if (old != null) {
+            releaseUnused(old);
+        }
+        refilling.set(false);
+    }
+
+    void onLeaseRejected(long now) {
+        retryAfter = now + ClientConstants.LEASE_RETRY_INTERVAL_MS;
+        refilling.set(false);
+    }
+
+    private void releaseUnused(Lease lease) {
+        int unused = lease.remaining.getAndSet(0);
+        if (unused > 0) {
+            synchronized (this) {
+                releaseLeaseId = lease.leaseId;
+                releaseCount = unused;
+            }
+        }
+    }
+
+    private static final class Lease {
+        private final long leaseId;
+        private final int grantedCount;
+        private final long expireTime;
+        private final AtomicInteger remaining;
+
+        private Lease(long leaseId, int grantedCount, long expireTime) {
+            this.leaseId = leaseId;
+            this.grantedCount = grantedCount;
+            this.expireTime = expireTime;
+            this.remaining = new AtomicInteger(grantedCount);
+        }
+    }
+}
@@ -16,11 +16,21 @@
 package com.alibaba.csp.sentinel.cluster.client;
 
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
 import com.alibaba.csp.sentinel.cluster.ClusterErrorMessages;
+import com.alibaba.csp.sentinel.cluster.ClusterResponseCallback;
 import com.alibaba.csp.sentinel.cluster.ClusterTransportClient;
+import com.alibaba.csp.sentinel.cluster.TokenResult;
 import com.alibaba.csp.sentinel.cluster.client.codec.netty.NettyRequestEncoder;
 import com.alibaba.csp.sentinel.cluster.client.codec.netty.NettyResponseDecoder;
 import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
@@ -30,7 +40,11 @@ import com.alibaba.csp.sentinel.cluster.client.handler.TokenClientPromiseHolder;
 import com.alibaba.csp.sentinel.cluster.exception.SentinelClusterException;
 import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
 import com.alibaba.csp.sentinel.cluster.request.Request;
+import com.alibaba.csp.sentinel.cluster.request.data.BatchFlowRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
 import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.response.data.BatchFlowTokenResponseData;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowTokenResponseData;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 
@@ -47,10 +61,16 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
 
 /**
- * Netty transport client implementation for Sentinel cluster transport.
+ * <p>Netty transport client implementation for Sentinel cluster transport.</p>
+ *
+ * <p>Asynchronous flow token requests are queued and written by the I/O thread in a single flush.
+ * If batching is enabled ({@link ClusterClientConfigManager#isBatchEnabled()}), queued requests
+ * of the same flow are coalesced into one batched frame.</p>
  *
  * @author Eric Zhao
  * @since 1.4.0
@@ -70,6 +90,15 @@ public class NettyTransportClient implements ClusterTransportClient {
     private final AtomicInteger currentState = new AtomicInteger(ClientConstants.CLIENT_STATUS_OFF);
     private final AtomicInteger failConnectedTime = new AtomicInteger(0);
 
+    private final Queue<PendingFlowRequest> pendingFlowRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushPendingFlowRequests();
+        }
+    };
+
     public NettyTransportClient(ClusterClientConfig clientConfig) {
         AssertUtil.notNull(clientConfig, "client config cannot be null");
         this.host = clientConfig.getServerHost();
@@ -222,27 +251,230 @@ public class NettyTransportClient implements ClusterTransportClient {
         return idGenerator.incrementAndGet();
     }
 
-    /*public CompletableFuture<ClusterResponse> sendRequestAsync(ClusterRequest request) {
-        // Uncomment this when min target JDK is 1.8.
+    @Override
+    public void sendRequestAsync(ClusterRequest request, ClusterResponseCallback callback) {
+        AssertUtil.notNull(callback, "callback cannot be null");
+        Channel ch = channel;
+        if (ch == null || !isReady()) {
+            callback.onFailure(new SentinelClusterException(ClusterErrorMessages.CLIENT_NOT_READY));
+            return;
+        }
         if (!validRequest(request)) {
-            return CompletableFuture.failedFuture(new IllegalArgumentException("Bad request"));
+            callback.onFailure(new SentinelClusterException(ClusterErrorMessages.BAD_REQUEST));
+            return;
         }
-        int xid = getCurrentId();
+        if (request.getType() == ClusterConstants.MSG_TYPE_FLOW && request.getData() instanceof FlowRequestData) {
+            // Flow token requests are written together in the I/O thread.
+            queueFlowRequest(request, callback);
+            scheduleFlush(ch);
+            return;
+        }
+        writeRequest(ch, request, callback);
+        ch.flush();
+    }
+
+    void queueFlowRequest(ClusterRequest request, ClusterResponseCallback callback) {
+        pendingFlowRequests.offer(new PendingFlowRequest(request, callback));
+    }
+
+    private void scheduleFlush(Channel ch) {
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                ch.eventLoop().execute(flushTask);
+            } catch (Exception ex) {
+                // The event loop has been shut down.
+                flushScheduled.set(false);
+                failPendingFlowRequests(ex);
+            }
+        }
+    }
+
+    private void flushPendingFlowRequests() {
+        flushScheduled.set(false);
+        Channel ch = channel;
+        if (ch == null) {
+            failPendingFlowRequests(new SentinelClusterException(ClusterErrorMessages.CLIENT_NOT_READY));
+            return;
+        }
+        writePendingFlowRequests(ch);
+    }
+
+    /**
+     * Write the queued flow token requests to given channel in a single flush.
+     */
+    void writePendingFlowRequests(Channel ch) {
+        boolean batchEnabled = ClusterClientConfigManager.isBatchEnabled();
+        // Group the requests by flow ID, keeping the order of arrival.
+        Map<Long, List<PendingFlowRequest>> groups = new LinkedHashMap<>();
+        PendingFlowRequest pending;
+        while ((pending = pendingFlowRequests.poll()) != null) {
+            if (!batchEnabled) {
+                writeRequest(ch, pending.request, pending.callback);
+                continue;
+            }
+            long flowId = ((FlowRequestData)pending.request.getData()).getFlowId();
+            List<PendingFlowRequest> group = groups.get(flowId);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(flowId, group);
+            }
+            group.add(pending);
+        }
+        for (Map.Entry<Long, List<PendingFlowRequest>> e : groups.entrySet()) {
+            List<PendingFlowRequest> group = e.getValue();
+            for (int from = 0; from < group.size(); from += ClientConstants.MAX_FLOW_BATCH_SIZE) {
+                int to = Math.min(group.size(), from + ClientConstants.MAX_FLOW_BATCH_SIZE);
+                if (to - from == 1) {
+                    PendingFlowRequest single = group.get(from);
+                    writeRequest(ch, single.request, single.callback);
+                } else {
+                    writeBatchRequest(ch, e.getKey(), group.subList(from, to));
+                }
+            }
+        }
+        ch.flush();
+    }
+
+    private void writeBatchRequest(Channel ch, long flowId, List<PendingFlowRequest> requests) {
+        BatchFlowRequestData data = new BatchFlowRequestData().setFlowId(flowId);
+        for (PendingFlowRequest pending : requests) {
+            data.addRequest((FlowRequestData)pending.request.getData());
+        }
+        ClusterRequest<BatchFlowRequestData> request = new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW_BATCH, data);
+        writeRequest(ch, request, new BatchResponseCallback(new ArrayList<>(requests)));
+    }
+
+    private void writeRequest(Channel ch, ClusterRequest request, ClusterResponseCallback callback) {
+        final int xid = getCurrentId();
         request.setId(xid);
+        TimeoutCancellingCallback timedCallback = new TimeoutCancellingCallback(callback);
+        TokenClientPromiseHolder.putCallback(xid, timedCallback);
+
+        ch.write(request).addListener(new GenericFutureListener<Future<? super Void>>() {
+            @Override
+            public void operationComplete(Future<? super Void> future) {
+                if (!future.isSuccess()) {
+                    failRequest(xid, future.cause());
+                }
+            }
+        });
+        timedCallback.setTimeoutFuture(ch.eventLoop().schedule(new Runnable() {
+            @Override
+            public void run() {
+                failRequest(xid, new SentinelClusterException(ClusterErrorMessages.REQUEST_TIME_OUT));
+            }
+        }, ClusterClientConfigManager.getRequestTimeout(), TimeUnit.MILLISECONDS));
+    }
 
-        CompletableFuture<ClusterResponse> future = new CompletableFuture<>();
-        channel.writeAndFlush(request)
-            .addListener(f -> {
-                if (f.isSuccess()) {
-                    future.complete(someResult);
-                } else if (f.cause() != null) {
-                    future.completeExceptionally(f.cause());
+    private void failRequest(int xid, Throwable cause) {
+        ClusterResponseCallback callback = TokenClientPromiseHolder.removeCallback(xid);
+        if (callback != null) {
+            callback.onFailure(cause);
+        }
+    }
+
+    private void failPendingFlowRequests(Throwable cause) {
+        PendingFlowRequest pending;
+        while ((pending = pendingFlowRequests.poll()) != null) {
+            pending.callback.onFailure(cause);
+        }
+    }
+
+    /**
+     * Cancel the timeout task of a request once it's completed, so that the tasks of completed
+     * requests don't pile up in the event loop until the timeout.
+     */
+    private static class TimeoutCancellingCallback implements ClusterResponseCallback {
+
+        private final ClusterResponseCallback delegate;
+        private volatile ScheduledFuture<?> timeoutFuture;
+        private volatile boolean completed;
+
+        TimeoutCancellingCallback(ClusterResponseCallback delegate) {
+            this.delegate = delegate;
+        }
+
+        void setTimeoutFuture(ScheduledFuture<?> timeoutFuture) {
+            this.timeoutFuture = timeoutFuture;
+            // The response may have come before the timeout task is scheduled.
+            if (completed) {
+                timeoutFuture.cancel(false);
+            }
+        }
+
+        private void cancelTimeout() {
+            completed = true;
+            ScheduledFuture<?> future = timeoutFuture;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        @Override
+        public void onResponse(ClusterResponse response) {
+            cancelTimeout();
+            delegate.onResponse(response);
+        }
+
+        @Override
+        public void onFailure(Throwable ex) {
+            cancelTimeout();
+            delegate.onFailure(ex);
+        }
+    }
+
+    private static class PendingFlowRequest {
+        private final ClusterRequest request;
+        private final ClusterResponseCallback callback;
+
+        PendingFlowRequest(ClusterRequest request, ClusterResponseCallback callback) {
+            this.request = request;
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * Dispatch the response of a batched frame to the callback of each coalesced request.
+     */
+    private static class BatchResponseCallback implements ClusterResponseCallback {
+
+        private final List<PendingFlowRequest> requests;
+
+        BatchResponseCallback(List<PendingFlowRequest> requests) {
+            this.requests = requests;
+        }
+
+        @Override
+        public void onResponse(ClusterResponse response) {
+            Object data = response.getData();
+            List<TokenResult> results = data instanceof BatchFlowTokenResponseData
+                ? ((BatchFlowTokenResponseData)data).getResults() : null;
+            for (int i = 0; i < requests.size(); i++) {
+                PendingFlowRequest pending = requests.get(i);
+                ClusterResponse<FlowTokenResponseData> single;
+                if (results == null || results.size() != requests.size()) {
+                    // Bad batch response, so all coalesced requests fail with the same status.
+                    int status = response.getStatus() == ClusterConstants.RESPONSE_STATUS_OK
+                        ? ClusterConstants.RESPONSE_STATUS_BAD : response.getStatus();
+                    single = new ClusterResponse<>(response.getId(), ClusterConstants.MSG_TYPE_FLOW, status, null);
                 } else {
-                    future.cancel(false);
+                    TokenResult result = results.get(i);
+                    single = new ClusterResponse<>(response.getId(), ClusterConstants.MSG_TYPE_FLOW,
+                        result.getStatus(), new FlowTokenResponseData()
+                        .setRemainingCount(result.getRemaining())
+                        .setWaitInMs(result.getWaitInMs()));
                 }
-            });
-        return future;
-    }*/
+                pending.callback.onResponse(single);
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable ex) {
+            for (PendingFlowRequest pending : requests) {
+                pending.callback.onFailure(ex);
+            }
+        }
+    }
 
     private static final int MAX_ID = 999_999_999;
 }
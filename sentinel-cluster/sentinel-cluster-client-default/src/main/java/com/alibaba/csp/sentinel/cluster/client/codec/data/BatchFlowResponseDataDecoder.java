@@ -0,0 +1,50 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client.codec.data;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.codec.EntityDecoder;
+import com.alibaba.csp.sentinel.cluster.response.data.BatchFlowTokenResponseData;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * <p>Decoder for {@link BatchFlowTokenResponseData}. The layout:</p>
+ * <pre>
+ * | amount (2) | status (1) | remaining (4) | wait (4) | status (1) | remaining (4) | wait (4) | ...
+ * </pre>
+ *
+ * @since 1.4.1
+ */
+public class BatchFlowResponseDataDecoder implements EntityDecoder<ByteBuf, BatchFlowTokenResponseData> {
+
+    @Override
+    public BatchFlowTokenResponseData decode(ByteBuf source) {
+        BatchFlowTokenResponseData data = new BatchFlowTokenResponseData();
+        if (source.readableBytes() >= 2) {
+            int amount = source.readUnsignedShort();
+            if (source.readableBytes() < amount * 9) {
+                return data;
+            }
+            for (int i = 0; i < amount; i++) {
+                data.addResult(new TokenResult((int)source.readByte())
+                    .setRemaining(source.readInt())
+                    .setWaitInMs(source.readInt()));
+            }
+        }
+        return data;
+    }
+}
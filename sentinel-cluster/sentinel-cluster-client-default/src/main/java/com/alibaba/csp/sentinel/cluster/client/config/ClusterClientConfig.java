@@ -15,6 +15,8 @@
  */
 package com.alibaba.csp.sentinel.cluster.client.config;
 
+import java.util.List;
+
 /**
  * @author Eric Zhao
  * @since 1.4.0
@@ -27,6 +29,23 @@ public class ClusterClientConfig {
     private int requestTimeout;
     private int connectTimeout;
 
+    /**
+     * Whether to coalesce concurrent token requests of the same flow into a single frame.
+     * The token server should support batched requests (since 1.4.1).
+     */
+    private boolean batchEnabled;
+    /**
+     * Whether to lease blocks of tokens from the token server and consume them locally.
+     * Prioritized requests always go to the token server. The token server should support leases (since 1.4.1).
+     */
+    private boolean leaseEnabled;
+    /**
+     * Addresses ({@code host:port}) of the token server shards. If present, each request is routed to the shard
+     * that owns the flow (see {@code ClusterShardRing}), and the server host and port are not required.
+     * The token servers should be configured with the same shards (since 1.4.1).
+     */
+    private List<String> shardServers;
+
     public String getServerHost() {
         return serverHost;
     }
@@ -63,6 +82,33 @@ public class ClusterClientConfig {
         return this;
     }
 
+    public boolean isBatchEnabled() {
+        return batchEnabled;
+    }
+
+    public ClusterClientConfig setBatchEnabled(boolean batchEnabled) {
+        this.batchEnabled = batchEnabled;
+        return this;
+    }
+
+    public boolean isLeaseEnabled() {
+        return leaseEnabled;
+    }
+
+    public ClusterClientConfig setLeaseEnabled(boolean leaseEnabled) {
+        this.leaseEnabled = leaseEnabled;
+        return this;
+    }
+
+    public List<String> getShardServers() {
+        return shardServers;
+    }
+
+    public ClusterClientConfig setShardServers(List<String> shardServers) {
+        this.shardServers = shardServers;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "ClusterClientConfig{" +
@@ -70,6 +116,9 @@ public class ClusterClientConfig {
             ", serverPort=" + serverPort +
             ", requestTimeout=" + requestTimeout +
             ", connectTimeout=" + connectTimeout +
+            ", batchEnabled=" + batchEnabled +
+            ", leaseEnabled=" + leaseEnabled +
+            ", shardServers=" + shardServers +
             '}';
     }
 }
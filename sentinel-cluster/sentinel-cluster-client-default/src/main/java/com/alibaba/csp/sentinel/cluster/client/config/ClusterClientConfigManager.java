@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.shard.ClusterShardRing;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.PropertyListener;
@@ -38,6 +39,12 @@ public final class ClusterClientConfigManager {
     private static volatile String serverHost = null;
     private static volatile int serverPort = ClusterConstants.DEFAULT_CLUSTER_SERVER_PORT;
     private static volatile int requestTimeout = ClusterConstants.DEFAULT_REQUEST_TIMEOUT;
+    private static volatile boolean batchEnabled = false;
+    private static volatile boolean leaseEnabled = false;
+    /**
+     * Shards of token servers; null if sharding mode is disabled.
+     */
+    private static volatile ClusterShardRing shardRing = null;
 
     private static final PropertyListener<ClusterClientConfig> PROPERTY_LISTENER = new ClientConfigPropertyListener();
     private static SentinelProperty<ClusterClientConfig> currentProperty = new DynamicSentinelProperty<>();
@@ -97,25 +104,51 @@ public final class ClusterClientConfigManager {
             if (config.getRequestTimeout() != requestTimeout) {
                 requestTimeout = config.getRequestTimeout();
             }
+            batchEnabled = config.isBatchEnabled();
+            leaseEnabled = config.isLeaseEnabled();
             updateServer(config);
         }
     }
 
     public static boolean isValidConfig(ClusterClientConfig config) {
-        return config != null && StringUtil.isNotBlank(config.getServerHost())
+        if (config == null || config.getRequestTimeout() <= 0) {
+            return false;
+        }
+        if (hasShards(config)) {
+            for (String shard : config.getShardServers()) {
+                if (ClusterShardRing.parseAddress(shard) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return StringUtil.isNotBlank(config.getServerHost())
             && config.getServerPort() > 0
-            && config.getServerPort() <= 65535
-            && config.getRequestTimeout() > 0;
+            && config.getServerPort() <= 65535;
+    }
+
+    private static boolean hasShards(ClusterClientConfig config) {
+        return config.getShardServers() != null && !config.getShardServers().isEmpty();
     }
 
     public static void updateServer(ClusterClientConfig config) {
         String host = config.getServerHost();
         int port = config.getServerPort();
-        AssertUtil.assertNotBlank(host, "token server host cannot be empty");
-        AssertUtil.isTrue(port > 0, "token server port should be valid (positive)");
-        if (serverPort == port && host.equals(serverHost)) {
+        boolean sharding = hasShards(config);
+        if (!sharding) {
+            AssertUtil.assertNotBlank(host, "token server host cannot be empty");
+            AssertUtil.isTrue(port > 0, "token server port should be valid (positive)");
+        }
+        ClusterShardRing currentRing = shardRing;
+        boolean shardChanged = sharding ? currentRing == null || !currentRing.sameShards(config.getShardServers())
+            : currentRing != null;
+        boolean serverChanged = serverPort != port || !StringUtil.equals(host, serverHost);
+        if (!serverChanged && !shardChanged) {
             return;
         }
+        if (shardChanged) {
+            shardRing = sharding ? new ClusterShardRing(config.getShardServers()) : null;
+        }
         for (ServerChangeObserver observer : SERVER_CHANGE_OBSERVERS) {
             observer.onRemoteServerChange(config);
         }
@@ -136,5 +169,21 @@ public final class ClusterClientConfigManager {
         return requestTimeout;
     }
 
+    public static boolean isBatchEnabled() {
+        return batchEnabled;
+    }
+
+    public static boolean isLeaseEnabled() {
+        return leaseEnabled;
+    }
+
+    /**
+     * @return the shards of token servers, or null if sharding mode is disabled
+     * @since 1.4.1
+     */
+    public static ClusterShardRing getShardRing() {
+        return shardRing;
+    }
+
     private ClusterClientConfigManager() {}
 }
@@ -19,6 +19,7 @@ import java.util.AbstractMap.SimpleEntry;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.alibaba.csp.sentinel.cluster.ClusterResponseCallback;
 import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
 
 import io.netty.channel.ChannelPromise;
@@ -30,6 +31,7 @@ import io.netty.channel.ChannelPromise;
 public final class TokenClientPromiseHolder {
 
     private static final Map<Integer, SimpleEntry<ChannelPromise, ClusterResponse>> PROMISE_MAP = new ConcurrentHashMap<>();
+    private static final Map<Integer, ClusterResponseCallback> CALLBACK_MAP = new ConcurrentHashMap<>();
 
     public static void putPromise(int xid, ChannelPromise promise) {
         PROMISE_MAP.put(xid, new SimpleEntry<ChannelPromise, ClusterResponse>(promise, null));
@@ -43,8 +45,27 @@ public final class TokenClientPromiseHolder {
         PROMISE_MAP.remove(xid);
     }
 
+    public static void putCallback(int xid, ClusterResponseCallback callback) {
+        CALLBACK_MAP.put(xid, callback);
+    }
+
+    /**
+     * Remove the callback of an asynchronous request.
+     *
+     * @param xid request ID
+     * @return the callback if it has not been removed (i.e. the request is not completed), otherwise null
+     */
+    public static ClusterResponseCallback removeCallback(int xid) {
+        return CALLBACK_MAP.remove(xid);
+    }
+
     public static <T> boolean completePromise(int xid, ClusterResponse<T> response) {
         if (!PROMISE_MAP.containsKey(xid)) {
+            ClusterResponseCallback callback = CALLBACK_MAP.remove(xid);
+            if (callback != null) {
+                callback.onResponse(response);
+                return true;
+            }
             return false;
         }
         SimpleEntry<ChannelPromise, ClusterResponse> entry = PROMISE_MAP.get(xid);
@@ -0,0 +1,229 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.ClusterResponseCallback;
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.client.handler.TokenClientPromiseHolder;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.BatchFlowRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.response.data.BatchFlowTokenResponseData;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowTokenResponseData;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for writing queued flow token requests of {@link NettyTransportClient},
+ * with an embedded channel instead of a connection to the token server.
+ */
+public class NettyTransportClientTest {
+
+    private final NettyTransportClient client = new NettyTransportClient("127.0.0.1", 18730);
+    private EmbeddedChannel channel;
+    private int lastCount;
+
+    @Before
+    public void setUp() {
+        channel = new EmbeddedChannel();
+    }
+
+    @After
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        applyConfig(false);
+    }
+
+    @Test
+    public void testRequestsWrittenOneByOneWithoutBatching() {
+        applyConfig(false);
+        List<RecordingCallback> callbacks = queue(1L, 3);
+        client.writePendingFlowRequests(channel);
+
+        for (int i = 0; i < 3; i++) {
+            ClusterRequest request = channel.readOutbound();
+            assertEquals(ClusterConstants.MSG_TYPE_FLOW, request.getType());
+            TokenClientPromiseHolder.completePromise(request.getId(), flowResponse(request.getId(), i));
+        }
+        assertNull(channel.readOutbound());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, ((FlowTokenResponseData)callbacks.get(i).response.getData()).getRemainingCount());
+        }
+    }
+
+    @Test
+    public void testRequestsOfSameFlowCoalesced() {
+        applyConfig(true);
+        List<RecordingCallback> first = queue(1L, 3);
+        List<RecordingCallback> other = queue(2L, 1);
+        List<RecordingCallback> second = queue(1L, 2);
+        client.writePendingFlowRequests(channel);
+
+        // The requests of flow 1 are coalesced in order of arrival, the single request of flow 2 is not batched.
+        ClusterRequest<BatchFlowRequestData> batch = channel.readOutbound();
+        assertEquals(ClusterConstants.MSG_TYPE_FLOW_BATCH, batch.getType());
+        assertEquals(1L, batch.getData().getFlowId());
+        int[] counts = {1, 2, 3, 5, 6};
+        assertEquals(counts.length, batch.getData().getRequests().size());
+        for (int i = 0; i < counts.length; i++) {
+            assertEquals(counts[i], batch.getData().getRequests().get(i).getCount());
+        }
+        ClusterRequest<FlowRequestData> single = channel.readOutbound();
+        assertEquals(ClusterConstants.MSG_TYPE_FLOW, single.getType());
+        assertEquals(2L, single.getData().getFlowId());
+        assertEquals(4, single.getData().getCount());
+        assertNull(channel.readOutbound());
+
+        BatchFlowTokenResponseData data = new BatchFlowTokenResponseData();
+        for (int i = 0; i < 5; i++) {
+            data.addResult(new TokenResult(i % 2 == 0 ? TokenResultStatus.OK : TokenResultStatus.BLOCKED)
+                .setRemaining(10 - i)
+                .setWaitInMs(i));
+        }
+        assertTrue(TokenClientPromiseHolder.completePromise(batch.getId(), new ClusterResponse<>(batch.getId(),
+            ClusterConstants.MSG_TYPE_FLOW_BATCH, ClusterConstants.RESPONSE_STATUS_OK, data)));
+
+        List<RecordingCallback> coalesced = new ArrayList<>(first);
+        coalesced.addAll(second);
+        for (int i = 0; i < 5; i++) {
+            ClusterResponse response = coalesced.get(i).response;
+            assertNotNull(response);
+            assertEquals(ClusterConstants.MSG_TYPE_FLOW, response.getType());
+            assertEquals(i % 2 == 0 ? TokenResultStatus.OK : TokenResultStatus.BLOCKED, response.getStatus());
+            FlowTokenResponseData result = (FlowTokenResponseData)response.getData();
+            assertEquals(10 - i, result.getRemainingCount());
+            assertEquals(i, result.getWaitInMs());
+        }
+        // Not answered yet.
+        assertNull(other.get(0).response);
+        assertNull(other.get(0).failure);
+    }
+
+    @Test
+    public void testLargeBatchSplit() {
+        applyConfig(true);
+        queue(1L, ClientConstants.MAX_FLOW_BATCH_SIZE + 1);
+        client.writePendingFlowRequests(channel);
+
+        ClusterRequest<BatchFlowRequestData> batch = channel.readOutbound();
+        assertEquals(ClusterConstants.MSG_TYPE_FLOW_BATCH, batch.getType());
+        assertEquals(ClientConstants.MAX_FLOW_BATCH_SIZE, batch.getData().getRequests().size());
+        ClusterRequest rest = channel.readOutbound();
+        assertEquals(ClusterConstants.MSG_TYPE_FLOW, rest.getType());
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void testShortBatchResponseFailsAllRequests() {
+        applyConfig(true);
+        List<RecordingCallback> callbacks = queue(1L, 3);
+        client.writePendingFlowRequests(channel);
+        ClusterRequest batch = channel.readOutbound();
+
+        BatchFlowTokenResponseData data = new BatchFlowTokenResponseData()
+            .addResult(new TokenResult(TokenResultStatus.OK))
+            .addResult(new TokenResult(TokenResultStatus.OK));
+        TokenClientPromiseHolder.completePromise(batch.getId(), new ClusterResponse<>(batch.getId(),
+            ClusterConstants.MSG_TYPE_FLOW_BATCH, ClusterConstants.RESPONSE_STATUS_OK, data));
+
+        for (RecordingCallback callback : callbacks) {
+            assertEquals(ClusterConstants.RESPONSE_STATUS_BAD, callback.response.getStatus());
+            assertNull(callback.response.getData());
+        }
+    }
+
+    @Test
+    public void testBatchResponseWithoutResultsKeepsStatus() {
+        applyConfig(true);
+        List<RecordingCallback> callbacks = queue(1L, 2);
+        client.writePendingFlowRequests(channel);
+        ClusterRequest batch = channel.readOutbound();
+
+        TokenClientPromiseHolder.completePromise(batch.getId(), new ClusterResponse<>(batch.getId(),
+            ClusterConstants.MSG_TYPE_FLOW_BATCH, TokenResultStatus.FAIL, null));
+
+        for (RecordingCallback callback : callbacks) {
+            assertEquals(TokenResultStatus.FAIL, callback.response.getStatus());
+        }
+    }
+
+    @Test
+    public void testWriteFailureFailsAllRequests() {
+        applyConfig(true);
+        List<RecordingCallback> callbacks = queue(1L, 2);
+        channel.close();
+        client.writePendingFlowRequests(channel);
+
+        for (RecordingCallback callback : callbacks) {
+            assertNull(callback.response);
+            assertNotNull(callback.failure);
+        }
+    }
+
+    private List<RecordingCallback> queue(long flowId, int amount) {
+        List<RecordingCallback> callbacks = new ArrayList<>();
+        for (int i = 0; i < amount; i++) {
+            RecordingCallback callback = new RecordingCallback();
+            // Each request has a distinct count, so that the requests can be told apart in a batch.
+            FlowRequestData data = new FlowRequestData().setFlowId(flowId).setCount(++lastCount);
+            client.queueFlowRequest(new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, data), callback);
+            callbacks.add(callback);
+        }
+        return callbacks;
+    }
+
+    private static ClusterResponse<FlowTokenResponseData> flowResponse(int id, int remaining) {
+        return new ClusterResponse<>(id, ClusterConstants.MSG_TYPE_FLOW, TokenResultStatus.OK,
+            new FlowTokenResponseData().setRemainingCount(remaining));
+    }
+
+    private static void applyConfig(boolean batchEnabled) {
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig()
+            .setServerHost("127.0.0.1")
+            .setServerPort(18730)
+            .setRequestTimeout(1000)
+            .setBatchEnabled(batchEnabled));
+    }
+
+    private static class RecordingCallback implements ClusterResponseCallback {
+
+        private ClusterResponse response;
+        private Throwable failure;
+
+        @Override
+        public void onResponse(ClusterResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void onFailure(Throwable ex) {
+            this.failure = ex;
+        }
+    }
+}
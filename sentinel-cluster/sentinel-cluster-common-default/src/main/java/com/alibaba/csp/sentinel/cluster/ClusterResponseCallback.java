@@ -0,0 +1,41 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster;
+
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+
+/**
+ * Callback of an asynchronous cluster request. It's invoked in the I/O thread of the transport client,
+ * so the callback should not block.
+ *
+ * @since 1.4.1
+ */
+public interface ClusterResponseCallback {
+
+    /**
+     * Invoked when the response of the request is received.
+     *
+     * @param response response from remote server
+     */
+    void onResponse(ClusterResponse response);
+
+    /**
+     * Invoked when the request failed (e.g. client not ready or request timeout).
+     *
+     * @param ex the failure
+     */
+    void onFailure(Throwable ex);
+}
@@ -19,7 +19,7 @@ import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
 import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
 
 /**
- * Synchronous transport client for distributed flow control.
+ * Transport client for distributed flow control.
  *
  * @author Eric Zhao
  * @since 1.4.0
@@ -49,6 +49,16 @@ public interface ClusterTransportClient {
      */
     ClusterResponse sendRequest(ClusterRequest request) throws Exception;
 
+    /**
+     * Send request to remote server asynchronously. The callback will be invoked exactly once,
+     * with the response or the failure (e.g. client not ready or request timeout).
+     *
+     * @param request  Sentinel cluster request
+     * @param callback callback of the response
+     * @since 1.4.1
+     */
+    void sendRequestAsync(ClusterRequest request, ClusterResponseCallback callback);
+
     /**
      * Check whether the client has been started and ready for sending requests.
      *
@@ -0,0 +1,62 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.request.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token requests of the same flow coalesced in a single frame.
+ * Each request is checked individually by the token server, in order.
+ *
+ * @since 1.4.1
+ */
+public class BatchFlowRequestData {
+
+    private long flowId;
+    private List<FlowRequestData> requests = new ArrayList<>();
+
+    public long getFlowId() {
+        return flowId;
+    }
+
+    public BatchFlowRequestData setFlowId(long flowId) {
+        this.flowId = flowId;
+        return this;
+    }
+
+    public List<FlowRequestData> getRequests() {
+        return requests;
+    }
+
+    public BatchFlowRequestData setRequests(List<FlowRequestData> requests) {
+        this.requests = requests;
+        return this;
+    }
+
+    public BatchFlowRequestData addRequest(FlowRequestData request) {
+        this.requests.add(request);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchFlowRequestData{" +
+            "flowId=" + flowId +
+            ", requests=" + requests +
+            '}';
+    }
+}
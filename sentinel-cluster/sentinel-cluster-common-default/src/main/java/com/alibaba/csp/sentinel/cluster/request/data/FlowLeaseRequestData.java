@@ -0,0 +1,77 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.request.data;
+
+/**
+ * Request for a lease of tokens of a flow, which can be consumed locally by the client until the lease expires.
+ * The unused tokens of the previous lease (if any) can be given back in the same request.
+ *
+ * @since 1.4.1
+ */
+public class FlowLeaseRequestData {
+
+    private long flowId;
+    private int count;
+
+    private long releaseLeaseId;
+    private int releaseCount;
+
+    public long getFlowId() {
+        return flowId;
+    }
+
+    public FlowLeaseRequestData setFlowId(long flowId) {
+        this.flowId = flowId;
+        return this;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public FlowLeaseRequestData setCount(int count) {
+        this.count = count;
+        return this;
+    }
+
+    public long getReleaseLeaseId() {
+        return releaseLeaseId;
+    }
+
+    public FlowLeaseRequestData setReleaseLeaseId(long releaseLeaseId) {
+        this.releaseLeaseId = releaseLeaseId;
+        return this;
+    }
+
+    public int getReleaseCount() {
+        return releaseCount;
+    }
+
+    public FlowLeaseRequestData setReleaseCount(int releaseCount) {
+        this.releaseCount = releaseCount;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "FlowLeaseRequestData{" +
+            "flowId=" + flowId +
+            ", count=" + count +
+            ", releaseLeaseId=" + releaseLeaseId +
+            ", releaseCount=" + releaseCount +
+            '}';
+    }
+}
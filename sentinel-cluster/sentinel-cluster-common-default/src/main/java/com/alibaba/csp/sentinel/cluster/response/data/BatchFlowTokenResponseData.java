@@ -0,0 +1,53 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.response.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+
+/**
+ * Token results of a {@link com.alibaba.csp.sentinel.cluster.request.data.BatchFlowRequestData},
+ * in the same order as the requests.
+ *
+ * @since 1.4.1
+ */
+public class BatchFlowTokenResponseData {
+
+    private List<TokenResult> results = new ArrayList<>();
+
+    public List<TokenResult> getResults() {
+        return results;
+    }
+
+    public BatchFlowTokenResponseData setResults(List<TokenResult> results) {
+        this.results = results;
+        return this;
+    }
+
+    public BatchFlowTokenResponseData addResult(TokenResult result) {
+        this.results.add(result);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchFlowTokenResponseData{" +
+            "results=" + results +
+            '}';
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.response.data;
+
+/**
+ * A lease of tokens granted by the token server.
+ *
+ * @since 1.4.1
+ */
+public class FlowLeaseResponseData {
+
+    private long leaseId;
+    private int grantedCount;
+    private int leaseTimeInMs;
+
+    public long getLeaseId() {
+        return leaseId;
+    }
+
+    public FlowLeaseResponseData setLeaseId(long leaseId) {
+        this.leaseId = leaseId;
+        return this;
+    }
+
+    public int getGrantedCount() {
+        return grantedCount;
+    }
+
+    public FlowLeaseResponseData setGrantedCount(int grantedCount) {
+        this.grantedCount = grantedCount;
+        return this;
+    }
+
+    public int getLeaseTimeInMs() {
+        return leaseTimeInMs;
+    }
+
+    public FlowLeaseResponseData setLeaseTimeInMs(int leaseTimeInMs) {
+        this.leaseTimeInMs = leaseTimeInMs;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "FlowLeaseResponseData{" +
+            "leaseId=" + leaseId +
+            ", grantedCount=" + grantedCount +
+            ", leaseTimeInMs=" + leaseTimeInMs +
+            '}';
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.shard;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.alibaba.csp.sentinel.cluster.TokenServerDescriptor;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * <p>Consistent hash ring that assigns flow IDs to token server shards.</p>
+ *
+ * <p>Each shard is identified by its address ({@code host:port}) and placed on the ring with
+ * {@link #VIRTUAL_NODE_COUNT} virtual nodes. Token servers and clients build the ring from the same
+ * shard list, so that they agree on the owner of each flow. When a shard is added or removed,
+ * only the flows of that shard are moved.</p>
+ *
+ * @since 1.4.1
+ */
+public final class ClusterShardRing {
+
+    public static final int VIRTUAL_NODE_COUNT = 128;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final List<String> shards;
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+    /**
+     * @param shards addresses of the shards ({@code host:port}), should not be empty
+     */
+    public ClusterShardRing(List<String> shards) {
+        AssertUtil.isTrue(shards != null && !shards.isEmpty(), "shards cannot be empty");
+        List<String> list = new ArrayList<>(shards.size());
+        for (String shard : shards) {
+            AssertUtil.isTrue(parseAddress(shard) != null, "invalid shard address: " + shard);
+            if (!list.contains(shard)) {
+                list.add(shard);
+                for (int i = 0; i < VIRTUAL_NODE_COUNT; i++) {
+                    ring.put(hash(shard + "#" + i), shard);
+                }
+            }
+        }
+        this.shards = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Get the shard that owns given flow.
+     *
+     * @param flowId flow ID
+     * @return address of the owner shard
+     */
+    public String getShard(long flowId) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(mix(flowId));
+        if (entry == null) {
+            entry = ring.firstEntry();
+        }
+        return entry.getValue();
+    }
+
+    public List<String> getShards() {
+        return shards;
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    /**
+     * Check whether this ring contains the same shards as the given shard list (regardless of the order).
+     *
+     * @param shards addresses of the shards
+     * @return true if the shards are the same
+     */
+    public boolean sameShards(List<String> shards) {
+        return shards != null && shards.size() == this.shards.size() && this.shards.containsAll(shards);
+    }
+
+    /**
+     * Parse a shard address in {@code host:port} format.
+     *
+     * @param address shard address
+     * @return the descriptor of the token server, or null if the address is invalid
+     */
+    public static TokenServerDescriptor parseAddress(String address) {
+        if (StringUtil.isBlank(address)) {
+            return null;
+        }
+        int idx = address.lastIndexOf(':');
+        if (idx <= 0 || idx == address.length() - 1) {
+            return null;
+        }
+        try {
+            int port = Integer.parseInt(address.substring(idx + 1).trim());
+            if (port <= 0 || port > 65535) {
+                return null;
+            }
+            return new TokenServerDescriptor(address.substring(0, idx).trim(), port);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    public static String toAddress(String host, int port) {
+        return host + ":" + port;
+    }
+
+    private static long hash(String key) {
+        // 64-bit FNV-1a.
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Finalizer of MurmurHash3 (64-bit), which spreads sequential flow IDs over the ring.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterShardRing{" +
+            "shards=" + shards +
+            '}';
+    }
+}
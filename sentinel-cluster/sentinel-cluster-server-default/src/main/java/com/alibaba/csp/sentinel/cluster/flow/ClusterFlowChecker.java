@@ -53,12 +53,11 @@ final class ClusterFlowChecker {
             return new TokenResult(TokenResultStatus.FAIL);
         }
 
-        double latestQps = metric.getAvg(ClusterFlowEvent.PASS_REQUEST);
         double globalThreshold = calcGlobalThreshold(rule) * ClusterServerConfigManager.getExceedCount();
-        double nextRemaining = globalThreshold - latestQps - acquireCount;
+        // Check and reserve the tokens atomically, so that concurrent requests cannot over-admit.
+        double nextRemaining = metric.tryPass(acquireCount, globalThreshold);
 
         if (nextRemaining >= 0) {
-            // TODO: checking logic and metric operation should be separated.
             metric.add(ClusterFlowEvent.PASS, acquireCount);
             metric.add(ClusterFlowEvent.PASS_REQUEST, 1);
             if (prioritized) {
@@ -100,6 +99,66 @@ final class ClusterFlowChecker {
         }
     }
 
+    /**
+     * Reserve a lease of tokens for a client. The granted count is bounded by the fair share of each
+     * connected client during the lease time and the remaining quota of current interval.
+     * The granted tokens are recorded as passed immediately.
+     *
+     * @param rule           valid cluster flow rule
+     * @param requestedCount count of tokens the client asks for
+     * @param leaseTimeInMs  lease time in milliseconds
+     * @param now            current time in milliseconds
+     * @return granted count; 0 if blocked, -1 if the metric is absent
+     */
+    static int acquireClusterLease(/*@Valid*/ FlowRule rule, int requestedCount, int leaseTimeInMs, long now) {
+        Long id = rule.getClusterConfig().getFlowId();
+        ClusterMetric metric = ClusterMetricStatistics.getMetric(id);
+        if (metric == null) {
+            return -1;
+        }
+
+        double globalThreshold = calcGlobalThreshold(rule) * ClusterServerConfigManager.getExceedCount();
+        int connectedCount = Math.max(1, ClusterFlowRuleManager.getConnectedCount(id));
+        double share = globalThreshold * leaseTimeInMs / ClusterServerConfigManager.getIntervalMs() / connectedCount;
+        int granted = metric.tryPassUpTo((int) Math.min(requestedCount, Math.max(1, share)), globalThreshold, now);
+
+        if (granted <= 0) {
+            metric.add(ClusterFlowEvent.BLOCK, requestedCount);
+            metric.add(ClusterFlowEvent.BLOCK_REQUEST, 1);
+            ClusterServerStatLogUtil.log("flow|lease_block|" + id, 1);
+            return 0;
+        }
+        // Each leased token is consumed by a single request of the client.
+        metric.add(ClusterFlowEvent.PASS, granted);
+        metric.add(ClusterFlowEvent.PASS_REQUEST, granted);
+        ClusterServerStatLogUtil.log("flow|lease|" + id, granted);
+        return granted;
+    }
+
+    /**
+     * Give back unused tokens of a lease. Tokens granted in a window that has slid out
+     * are no longer counted, so there is nothing to reclaim for them.
+     *
+     * @param rule        valid cluster flow rule
+     * @param unusedCount count of tokens not consumed by the client
+     * @param grantTime   the time when the lease was granted
+     * @param now         current time in milliseconds
+     */
+    static void reclaimLeaseTokens(/*@Valid*/ FlowRule rule, int unusedCount, long grantTime, long now) {
+        Long id = rule.getClusterConfig().getFlowId();
+        ClusterMetric metric = ClusterMetricStatistics.getMetric(id);
+        if (metric == null || unusedCount <= 0) {
+            return;
+        }
+        unusedCount = metric.releasePass(unusedCount, grantTime, now);
+        if (unusedCount <= 0) {
+            return;
+        }
+        metric.add(ClusterFlowEvent.PASS, -unusedCount);
+        metric.add(ClusterFlowEvent.PASS_REQUEST, -unusedCount);
+        ClusterServerStatLogUtil.log("flow|lease_reclaim|" + id, unusedCount);
+    }
+
     private static TokenResult blockedResult() {
         return new TokenResult(TokenResultStatus.BLOCKED)
             .setRemaining(0)
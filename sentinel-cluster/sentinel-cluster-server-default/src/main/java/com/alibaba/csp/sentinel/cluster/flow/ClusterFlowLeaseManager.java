@@ -0,0 +1,116 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>Manager of the token leases granted to cluster clients.</p>
+ *
+ * <p>A client may lease a block of tokens of a flow and consume them locally until the lease expires,
+ * so that hot flows do not cost a round trip for each request. The leased tokens are recorded as passed
+ * when granted. Unused tokens of an expired lease can be given back with the next lease request of the client,
+ * and they are reclaimed only if the lease is still in current statistic interval. Leases that are never
+ * given back are dropped once they are out of the interval.</p>
+ *
+ * @since 1.4.1
+ */
+public final class ClusterFlowLeaseManager {
+
+    private static final AtomicLong LEASE_ID_GENERATOR = new AtomicLong(0);
+
+    private static final Map<Long, TokenLease> LEASE_MAP = new ConcurrentHashMap<>();
+
+    private static final AtomicLong LAST_SWEEP_TIME = new AtomicLong(0);
+
+    /**
+     * Request a lease of tokens of given flow.
+     *
+     * @param flowId         flow ID of the cluster rule
+     * @param count          count of tokens the client asks for
+     * @param releaseLeaseId ID of the previous lease to give back; 0 if absent
+     * @param releaseCount   count of unused tokens of the previous lease
+     * @return the lease (status {@link TokenResultStatus#OK}), or a lease with failure status
+     */
+    public static TokenLease requestLease(Long flowId, int count, long releaseLeaseId, int releaseCount) {
+        if (flowId == null || flowId <= 0 || count <= 0) {
+            return new TokenLease(TokenResultStatus.BAD_REQUEST);
+        }
+        FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(flowId);
+        if (rule == null) {
+            return new TokenLease(TokenResultStatus.NO_RULE_EXISTS);
+        }
+        long now = TimeUtil.currentTimeMillis();
+        if (releaseLeaseId > 0) {
+            releaseLease(rule, releaseLeaseId, releaseCount, now);
+        }
+        sweepExpiredLeases(now);
+
+        int leaseTimeInMs = ClusterServerConfigManager.getLeaseTimeInMs();
+        int granted = ClusterFlowChecker.acquireClusterLease(rule, count, leaseTimeInMs, now);
+        if (granted < 0) {
+            return new TokenLease(TokenResultStatus.FAIL);
+        }
+        if (granted == 0) {
+            return new TokenLease(TokenResultStatus.BLOCKED);
+        }
+        long leaseId = LEASE_ID_GENERATOR.incrementAndGet();
+        TokenLease lease = new TokenLease(TokenResultStatus.OK, leaseId, flowId, granted, now, leaseTimeInMs);
+        LEASE_MAP.put(leaseId, lease);
+        return lease;
+    }
+
+    private static void releaseLease(FlowRule rule, long leaseId, int unusedCount, long now) {
+        TokenLease lease = LEASE_MAP.remove(leaseId);
+        if (lease == null || lease.getFlowId() != rule.getClusterConfig().getFlowId()) {
+            return;
+        }
+        ClusterFlowChecker.reclaimLeaseTokens(rule, Math.min(unusedCount, lease.getGrantedCount()),
+            lease.getGrantTime(), now);
+    }
+
+    private static void sweepExpiredLeases(long now) {
+        long intervalMs = ClusterServerConfigManager.getIntervalMs();
+        long last = LAST_SWEEP_TIME.get();
+        if (now - last < intervalMs || !LAST_SWEEP_TIME.compareAndSet(last, now)) {
+            return;
+        }
+        for (Iterator<TokenLease> it = LEASE_MAP.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().getGrantTime() >= intervalMs) {
+                it.remove();
+            }
+        }
+    }
+
+    static int leaseCount() {
+        return LEASE_MAP.size();
+    }
+
+    static void clearLeases() {
+        LEASE_MAP.clear();
+    }
+
+    private ClusterFlowLeaseManager() {}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow;
+
+/**
+ * A lease of tokens granted to a cluster client (or a failed attempt, indicated by the status).
+ *
+ * @since 1.4.1
+ */
+public class TokenLease {
+
+    private final int status;
+    private final long leaseId;
+    private final long flowId;
+    private final int grantedCount;
+    private final long grantTime;
+    private final int leaseTimeInMs;
+
+    TokenLease(int status) {
+        this(status, 0, 0, 0, 0, 0);
+    }
+
+    TokenLease(int status, long leaseId, long flowId, int grantedCount, long grantTime, int leaseTimeInMs) {
+        this.status = status;
+        this.leaseId = leaseId;
+        this.flowId = flowId;
+        this.grantedCount = grantedCount;
+        this.grantTime = grantTime;
+        this.leaseTimeInMs = leaseTimeInMs;
+    }
+
+    /**
+     * @return status of the lease request, as defined in {@link com.alibaba.csp.sentinel.cluster.TokenResultStatus}
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    public long getLeaseId() {
+        return leaseId;
+    }
+
+    public long getFlowId() {
+        return flowId;
+    }
+
+    public int getGrantedCount() {
+        return grantedCount;
+    }
+
+    public long getGrantTime() {
+        return grantTime;
+    }
+
+    public int getLeaseTimeInMs() {
+        return leaseTimeInMs;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenLease{" +
+            "status=" + status +
+            ", leaseId=" + leaseId +
+            ", flowId=" + flowId +
+            ", grantedCount=" + grantedCount +
+            ", grantTime=" + grantTime +
+            ", leaseTimeInMs=" + leaseTimeInMs +
+            '}';
+    }
+}
@@ -28,6 +28,7 @@ import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
 import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
 import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
 import com.alibaba.csp.sentinel.cluster.server.util.ClusterRuleUtil;
+import com.alibaba.csp.sentinel.cluster.shard.ClusterShardRing;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.PropertyListener;
@@ -88,6 +89,12 @@ public final class ClusterFlowRuleManager {
     private static volatile Function<String, SentinelProperty<List<FlowRule>>> propertySupplier
         = DEFAULT_PROPERTY_SUPPLIER;
 
+    /**
+     * Consistent hash ring of token server shards, and the address of current server in the ring.
+     * Null if sharding mode is disabled.
+     */
+    private static volatile ShardState shardState = null;
+
     private static final Object UPDATE_LOCK = new Object();
 
     static {
@@ -286,6 +293,53 @@ public final class ClusterFlowRuleManager {
         }
     }
 
+    /**
+     * <p>Apply the shards of token servers. In sharding mode, flows are assigned to shards by consistent hashing
+     * (see {@link ClusterShardRing}), and only the rules of the flows owned by current server are loaded.
+     * Cluster clients should be configured with the same shards, so that each request is routed to the owner.</p>
+     * <p>Rules of all namespaces (including cluster parameter flow rules) are re-applied after the shards change.</p>
+     *
+     * @param shards     addresses of all shards ({@code host:port}); null or empty to disable sharding mode
+     * @param localShard address of current server, which should be one of the shards
+     * @since 1.4.1
+     */
+    public static void applyShards(List<String> shards, String localShard) {
+        synchronized (UPDATE_LOCK) {
+            if (shards == null || shards.isEmpty()) {
+                shardState = null;
+                RecordLog.info("[ClusterFlowRuleManager] Sharding mode disabled");
+            } else {
+                AssertUtil.isTrue(shards.contains(localShard), "local shard should be one of the shards");
+                shardState = new ShardState(new ClusterShardRing(shards), localShard);
+                RecordLog.info("[ClusterFlowRuleManager] Sharding mode enabled, local shard <{0}> in {1}",
+                    localShard, shards);
+            }
+            restorePropertyListeners();
+            ClusterParamFlowRuleManager.restorePropertyListeners();
+        }
+    }
+
+    /**
+     * Check whether given flow is owned by current server.
+     *
+     * @param flowId unique flow ID
+     * @return true if sharding mode is disabled or the flow is owned by current server
+     * @since 1.4.1
+     */
+    public static boolean isLocalFlow(long flowId) {
+        ShardState state = shardState;
+        return state == null || state.localShard.equals(state.ring.getShard(flowId));
+    }
+
+    /**
+     * @return the shard ring, or null if sharding mode is disabled
+     * @since 1.4.1
+     */
+    public static ClusterShardRing getShardRing() {
+        ShardState state = shardState;
+        return state == null ? null : state.ring;
+    }
+
     /**
      * Get connected count for associated namespace of given {@code flowId}.
      *
@@ -330,6 +384,10 @@ public final class ClusterFlowRuleManager {
             if (flowId == null) {
                 continue;
             }
+            if (!isLocalFlow(flowId)) {
+                // The flow is owned by another shard.
+                continue;
+            }
             ruleMap.put(flowId, rule);
             FLOW_NAMESPACE_MAP.put(flowId, namespace);
             flowIdSet.add(flowId);
@@ -375,5 +433,15 @@ public final class ClusterFlowRuleManager {
         }
     }
 
+    private static final class ShardState {
+        private final ClusterShardRing ring;
+        private final String localShard;
+
+        private ShardState(ClusterShardRing ring, String localShard) {
+            this.ring = ring;
+            this.localShard = localShard;
+        }
+    }
+
     private ClusterFlowRuleManager() {}
 }
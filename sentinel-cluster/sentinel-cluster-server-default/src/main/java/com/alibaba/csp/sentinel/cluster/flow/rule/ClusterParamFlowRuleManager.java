@@ -173,7 +173,7 @@ public final class ClusterParamFlowRuleManager {
         }
     }
 
-    private static void restorePropertyListeners() {
+    static void restorePropertyListeners() {
         for (NamespaceFlowProperty<ParamFlowRule> p : PROPERTY_MAP.values()) {
             p.getProperty().removeListener(p.getListener());
             p.getProperty().addListener(p.getListener());
@@ -327,7 +327,7 @@ public final class ClusterParamFlowRuleManager {
 
             // Flow id should not be null after filtered.
             Long flowId = rule.getClusterConfig().getFlowId();
-            if (flowId == null) {
+            if (flowId == null || !ClusterFlowRuleManager.isLocalFlow(flowId)) {
                 continue;
             }
             ruleMap.put(flowId, rule);
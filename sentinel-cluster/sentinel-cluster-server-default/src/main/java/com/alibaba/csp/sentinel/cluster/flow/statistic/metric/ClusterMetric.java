@@ -20,6 +20,7 @@ import java.util.List;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterMetricBucket;
 import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
  * @author Eric Zhao
@@ -28,6 +29,8 @@ import com.alibaba.csp.sentinel.util.AssertUtil;
 public class ClusterMetric {
 
     private final ClusterMetricLeapArray metric;
+    private final ClusterTokenCounter passCounter;
+    private final double intervalInSecond;
 
     public ClusterMetric(int sampleCount, int intervalInMs) {
         AssertUtil.isTrue(sampleCount > 0, "sampleCount should be positive");
@@ -35,6 +38,8 @@ public class ClusterMetric {
         AssertUtil.isTrue(intervalInMs % sampleCount == 0, "time span needs to be evenly divided");
         int windowLengthInMs = intervalInMs / sampleCount;
         this.metric = new ClusterMetricLeapArray(windowLengthInMs, intervalInMs);
+        this.passCounter = new ClusterTokenCounter(sampleCount, intervalInMs);
+        this.intervalInSecond = intervalInMs / 1000.0;
     }
 
     public void add(ClusterFlowEvent event, long count) {
@@ -72,6 +77,47 @@ public class ClusterMetric {
         return getSum(event) / metric.getIntervalInSecond();
     }
 
+    /**
+     * Try to pass the tokens if the passed count per second (including the tokens) does not exceed the threshold.
+     * The check and the reservation are done in one atomic step, so concurrent requests cannot exceed
+     * the threshold. The events should still be recorded via {@link #add(ClusterFlowEvent, long)}.
+     *
+     * @param acquireCount count of tokens to acquire
+     * @param threshold    max passed count per second
+     * @return remaining count per second after passing; -1 if the tokens cannot pass
+     * @since 1.4.1
+     */
+    public double tryPass(int acquireCount, double threshold) {
+        long remaining = passCounter.tryAcquire(acquireCount, (long)(threshold * intervalInSecond));
+        return remaining < 0 ? -1 : remaining / intervalInSecond;
+    }
+
+    /**
+     * Pass as many tokens as possible (but no more than given count) within the threshold.
+     *
+     * @param acquireCount max count of tokens to acquire
+     * @param threshold    max passed count per second
+     * @param time         current time in milliseconds
+     * @return count of passed tokens, which may be 0
+     * @since 1.4.1
+     */
+    public int tryPassUpTo(int acquireCount, double threshold, long time) {
+        return passCounter.tryAcquireUpTo(acquireCount, (long)(threshold * intervalInSecond), time);
+    }
+
+    /**
+     * Give back tokens passed at given time, if they are still in the sliding window.
+     *
+     * @param count    count of tokens
+     * @param passTime the time when the tokens passed
+     * @param time     current time in milliseconds
+     * @return count of tokens actually given back
+     * @since 1.4.1
+     */
+    public int releasePass(int count, long passTime, long time) {
+        return passCounter.release(count, passTime, time);
+    }
+
     /**
      * Try to pre-occupy upcoming buckets.
      *
@@ -83,6 +129,8 @@ public class ClusterMetric {
             return 0;
         }
         metric.addOccupyPass(acquireCount);
+        // Occupied tokens are reserved in current window, which is conservative.
+        passCounter.add(acquireCount, TimeUtil.currentTimeMillis());
         add(ClusterFlowEvent.WAITING, acquireCount);
         return 1000 / metric.getSampleCount();
     }
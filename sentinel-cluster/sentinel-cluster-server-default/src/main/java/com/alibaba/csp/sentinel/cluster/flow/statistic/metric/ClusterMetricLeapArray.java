@@ -50,12 +50,11 @@ public class ClusterMetricLeapArray extends LeapArray<ClusterMetricBucket> {
         return new ClusterMetricBucket();
     }
 
+
     @Override
-    protected WindowWrap<ClusterMetricBucket> resetWindowTo(WindowWrap<ClusterMetricBucket> w, long startTime) {
-        w.resetTo(startTime);
-        w.value().reset();
+    protected void onWindowRotated(WindowWrap<ClusterMetricBucket> w) {
+        // Transfer only to the bucket that has been placed in the array, so that no occupied count is dropped.
         transferOccupyToBucket(w.value());
-        return w;
     }
 
     private void transferOccupyToBucket(/*@Valid*/ ClusterMetricBucket bucket) {
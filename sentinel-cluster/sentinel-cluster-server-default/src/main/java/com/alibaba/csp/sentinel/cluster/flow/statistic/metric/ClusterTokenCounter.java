@@ -0,0 +1,227 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.metric;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>Lock-free sliding window token counter, which checks the threshold and reserves tokens in one atomic step.</p>
+ *
+ * <p>The counter keeps the total count of the sliding window in a single atomic long, so that admission
+ * is a CAS loop on the total. Each bucket packs the window ID (high 32 bits) and the count of the window
+ * (low 32 bits) in one long, so a bucket is rotated (and its count given back to the total) with a single CAS.
+ * Races between reservation and rotation only make the tokens counted longer than needed,
+ * so the counter never admits more tokens than the threshold in the sliding window.</p>
+ *
+ * @since 1.4.1
+ */
+public class ClusterTokenCounter {
+
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    private final int windowLengthInMs;
+    private final int sampleCount;
+    /**
+     * Window IDs are relative to the creation of the counter, so that they fit in 32 bits.
+     */
+    private final long baseTime;
+
+    private final AtomicLongArray buckets;
+    private final AtomicLong total = new AtomicLong(0);
+    private final AtomicLong lastSweptWindowId = new AtomicLong(Long.MIN_VALUE);
+
+    public ClusterTokenCounter(int sampleCount, int intervalInMs) {
+        AssertUtil.isTrue(sampleCount > 0, "sampleCount should be positive");
+        AssertUtil.isTrue(intervalInMs > 0, "interval should be positive");
+        AssertUtil.isTrue(intervalInMs % sampleCount == 0, "time span needs to be evenly divided");
+        this.windowLengthInMs = intervalInMs / sampleCount;
+        this.sampleCount = sampleCount;
+        this.buckets = new AtomicLongArray(sampleCount);
+        long now = TimeUtil.currentTimeMillis();
+        // Align with the windows of leap arrays.
+        this.baseTime = now - now % windowLengthInMs;
+    }
+
+    /**
+     * Try to acquire tokens if the total count of the sliding window does not exceed the max count.
+     *
+     * @param acquireCount count of tokens to acquire
+     * @param maxCount     max count of tokens in the sliding window
+     * @return remaining count of the sliding window after acquiring; -1 if the tokens cannot be acquired
+     */
+    public long tryAcquire(int acquireCount, long maxCount) {
+        return tryAcquire(acquireCount, maxCount, TimeUtil.currentTimeMillis());
+    }
+
+    public long tryAcquire(int acquireCount, long maxCount, long time) {
+        long windowId = windowIdOf(time);
+        int idx = prepareWindow(windowId);
+        while (true) {
+            long current = total.get();
+            long next = current + acquireCount;
+            if (next > maxCount) {
+                return -1;
+            }
+            if (total.compareAndSet(current, next)) {
+                buckets.addAndGet(idx, acquireCount);
+                return maxCount - next;
+            }
+        }
+    }
+
+    /**
+     * Acquire as many tokens as possible (but no more than given count) within the max count.
+     *
+     * @param acquireCount max count of tokens to acquire
+     * @param maxCount     max count of tokens in the sliding window
+     * @param time         current time in milliseconds
+     * @return acquired count, which may be 0
+     */
+    public int tryAcquireUpTo(int acquireCount, long maxCount, long time) {
+        long windowId = windowIdOf(time);
+        int idx = prepareWindow(windowId);
+        while (true) {
+            long current = total.get();
+            int granted = (int)Math.min(acquireCount, maxCount - current);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (total.compareAndSet(current, current + granted)) {
+                buckets.addAndGet(idx, granted);
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Add tokens regardless of the max count (e.g. tokens occupied from incoming windows).
+     *
+     * @param count count of tokens
+     * @param time  current time in milliseconds
+     */
+    public void add(int count, long time) {
+        int idx = prepareWindow(windowIdOf(time));
+        total.addAndGet(count);
+        buckets.addAndGet(idx, count);
+    }
+
+    /**
+     * Give back tokens acquired at given time, if the window of the tokens is still present.
+     *
+     * @param count       count of tokens to give back
+     * @param acquireTime the time when the tokens were acquired
+     * @param time        current time in milliseconds
+     * @return count of tokens actually given back
+     */
+    public int release(int count, long acquireTime, long time) {
+        long windowId = windowIdOf(acquireTime);
+        if (windowIdOf(time) - windowId >= sampleCount) {
+            // The window has slid out, even if the bucket is not rotated yet.
+            return 0;
+        }
+        int idx = (int)(windowId % sampleCount);
+        while (true) {
+            long value = buckets.get(idx);
+            if (windowOf(value) != (int)windowId) {
+                // The window has been rotated, so the tokens have already been given back.
+                return 0;
+            }
+            int released = (int)Math.min(count, countOf(value));
+            if (released <= 0) {
+                return 0;
+            }
+            if (buckets.compareAndSet(idx, value, value - released)) {
+                total.addAndGet(-released);
+                return released;
+            }
+        }
+    }
+
+    /**
+     * @return total count of tokens in the sliding window (tokens of expired windows may not be swept yet)
+     */
+    public long count() {
+        return total.get();
+    }
+
+    private long windowIdOf(long time) {
+        return Math.max(0, time - baseTime) / windowLengthInMs;
+    }
+
+    private int prepareWindow(long windowId) {
+        int idx = (int)(windowId % sampleCount);
+        int wid = (int)windowId;
+        while (true) {
+            long value = buckets.get(idx);
+            int w = windowOf(value);
+            // Count into the bucket if it is current (or even newer, which happens when the thread is lagging).
+            if (w - wid >= 0) {
+                break;
+            }
+            if (buckets.compareAndSet(idx, value, pack(wid, 0))) {
+                long expired = countOf(value);
+                if (expired != 0) {
+                    total.addAndGet(-expired);
+                }
+                break;
+            }
+        }
+        sweepIfNeeded(windowId);
+        return idx;
+    }
+
+    /**
+     * Give back tokens of the buckets that are out of the sliding window but not yet rotated,
+     * which happens when there has been no request for some windows. It runs at most once per window.
+     */
+    private void sweepIfNeeded(long windowId) {
+        long last = lastSweptWindowId.get();
+        if (last >= windowId || !lastSweptWindowId.compareAndSet(last, windowId)) {
+            return;
+        }
+        int wid = (int)windowId;
+        for (int i = 0; i < sampleCount; i++) {
+            while (true) {
+                long value = buckets.get(i);
+                int w = windowOf(value);
+                long expired = countOf(value);
+                if (wid - w < sampleCount || expired == 0) {
+                    break;
+                }
+                if (buckets.compareAndSet(i, value, pack(w, 0))) {
+                    total.addAndGet(-expired);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static long pack(int windowId, long count) {
+        return ((long)windowId << 32) | (count & COUNT_MASK);
+    }
+
+    private static int windowOf(long value) {
+        return (int)(value >>> 32);
+    }
+
+    private static long countOf(long value) {
+        return value & COUNT_MASK;
+    }
+}
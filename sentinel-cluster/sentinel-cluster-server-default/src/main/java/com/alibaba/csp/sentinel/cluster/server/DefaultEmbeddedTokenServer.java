@@ -18,6 +18,7 @@ package com.alibaba.csp.sentinel.cluster.server;
 import java.util.Collection;
 
 import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultFuture;
 import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
 import com.alibaba.csp.sentinel.cluster.TokenService;
 
@@ -51,6 +52,14 @@ public class DefaultEmbeddedTokenServer implements EmbeddedClusterTokenServer {
         return new TokenResult(TokenResultStatus.FAIL);
     }
 
+    @Override
+    public TokenResultFuture requestTokenAsync(Long ruleId, int acquireCount, boolean prioritized) {
+        if (tokenService != null) {
+            return tokenService.requestTokenAsync(ruleId, acquireCount, prioritized);
+        }
+        return TokenResultFuture.completed(new TokenResult(TokenResultStatus.FAIL));
+    }
+
     @Override
     public TokenResult requestParamToken(Long ruleId, int acquireCount, Collection<Object> params) {
         if (tokenService != null) {
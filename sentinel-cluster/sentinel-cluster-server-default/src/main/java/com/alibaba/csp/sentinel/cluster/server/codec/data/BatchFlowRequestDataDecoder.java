@@ -0,0 +1,55 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.codec.data;
+
+import com.alibaba.csp.sentinel.cluster.codec.EntityDecoder;
+import com.alibaba.csp.sentinel.cluster.request.data.BatchFlowRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * <p>
+ * Decoder for {@link BatchFlowRequestData} from {@code ByteBuf} stream. The layout:
+ * </p>
+ * <pre>
+ * | flow ID (8) | amount (2) | count (4) | priority flag (1) | count (4) | priority flag (1) | ...
+ * </pre>
+ *
+ * @since 1.4.1
+ */
+public class BatchFlowRequestDataDecoder implements EntityDecoder<ByteBuf, BatchFlowRequestData> {
+
+    @Override
+    public BatchFlowRequestData decode(ByteBuf source) {
+        if (source.readableBytes() >= 10) {
+            long flowId = source.readLong();
+            int amount = source.readUnsignedShort();
+            if (source.readableBytes() < amount * 5) {
+                return null;
+            }
+            BatchFlowRequestData requestData = new BatchFlowRequestData().setFlowId(flowId);
+            for (int i = 0; i < amount; i++) {
+                requestData.addRequest(new FlowRequestData()
+                    .setFlowId(flowId)
+                    .setCount(source.readInt())
+                    .setPriority(source.readBoolean()));
+            }
+            return requestData;
+        }
+        return null;
+    }
+}
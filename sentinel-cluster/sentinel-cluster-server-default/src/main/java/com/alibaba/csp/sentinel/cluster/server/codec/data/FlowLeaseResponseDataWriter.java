@@ -0,0 +1,39 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.codec.data;
+
+import com.alibaba.csp.sentinel.cluster.codec.EntityWriter;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowLeaseResponseData;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * <p>Writer for {@link FlowLeaseResponseData}. The layout:</p>
+ * <pre>
+ * | lease ID (8) | granted count (4) | lease time (4) |
+ * </pre>
+ *
+ * @since 1.4.1
+ */
+public class FlowLeaseResponseDataWriter implements EntityWriter<FlowLeaseResponseData, ByteBuf> {
+
+    @Override
+    public void writeTo(FlowLeaseResponseData entity, ByteBuf out) {
+        out.writeLong(entity.getLeaseId());
+        out.writeInt(entity.getGrantedCount());
+        out.writeInt(entity.getLeaseTimeInMs());
+    }
+}
@@ -15,6 +15,9 @@
  */
 package com.alibaba.csp.sentinel.cluster.server.command.handler;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
 import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfig;
 import com.alibaba.csp.sentinel.command.CommandHandler;
@@ -44,8 +47,23 @@ public class ModifyClusterServerTransportConfigHandler implements CommandHandler
             int port = Integer.valueOf(portValue);
             int idleSeconds = Integer.valueOf(idleSecondsValue);
 
-            ClusterServerConfigManager.loadGlobalTransportConfig(new ServerTransportConfig()
-                .setPort(port).setIdleSeconds(idleSeconds));
+            ServerTransportConfig config = new ServerTransportConfig().setPort(port).setIdleSeconds(idleSeconds);
+            // Shards are kept if absent, and sharding mode is disabled if empty.
+            String shardServersValue = request.getParam("shardServers");
+            if (shardServersValue == null) {
+                config.setShardServers(ClusterServerConfigManager.getShardServers())
+                    .setLocalShard(ClusterServerConfigManager.getLocalShard());
+            } else if (StringUtil.isNotBlank(shardServersValue)) {
+                List<String> shardServers = new ArrayList<>();
+                for (String shard : shardServersValue.split(",")) {
+                    shardServers.add(shard.trim());
+                }
+                config.setShardServers(shardServers).setLocalShard(request.getParam("localShard"));
+            }
+            if (!ClusterServerConfigManager.isValidTransportConfig(config)) {
+                return CommandResponse.ofFailure(new IllegalArgumentException("invalid transport config"));
+            }
+            ClusterServerConfigManager.loadGlobalTransportConfig(config);
             return CommandResponse.ofSuccess("success");
         } catch (NumberFormatException e) {
             return CommandResponse.ofFailure(new IllegalArgumentException("invalid parameter"));
@@ -28,6 +28,7 @@ import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterParamFlowRuleManager;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterMetricStatistics;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterParamMetricStatistics;
 import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.cluster.shard.ClusterShardRing;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.PropertyListener;
@@ -46,6 +47,8 @@ public final class ClusterServerConfigManager {
     private static volatile int port = ServerTransportConfig.DEFAULT_PORT;
     private static volatile int idleSeconds = ServerTransportConfig.DEFAULT_IDLE_SECONDS;
     private static volatile Set<String> namespaceSet = Collections.singleton(ServerConstants.DEFAULT_NAMESPACE);
+    private static volatile List<String> shardServers = null;
+    private static volatile String localShard = null;
 
     /**
      * Server global flow config.
@@ -54,6 +57,7 @@ public final class ClusterServerConfigManager {
     private static volatile double maxOccupyRatio = ServerFlowConfig.DEFAULT_MAX_OCCUPY_RATIO;
     private static volatile int intervalMs = ServerFlowConfig.DEFAULT_INTERVAL_MS;
     private static volatile int sampleCount = ServerFlowConfig.DEFAULT_SAMPLE_COUNT;
+    private static volatile int leaseTimeInMs = ServerFlowConfig.DEFAULT_LEASE_TIME_MS;
 
     /**
      * Namespace-specific flow config for token server.
@@ -214,10 +218,27 @@ public final class ClusterServerConfigManager {
             if (config.getIdleSeconds() != idleSeconds) {
                 idleSeconds = config.getIdleSeconds();
             }
+            updateShards(config);
             updateTokenServer(config);
         }
     }
 
+    private static void updateShards(ServerTransportConfig config) {
+        List<String> newShards = hasShards(config) ? new ArrayList<>(config.getShardServers()) : null;
+        String newLocalShard = newShards == null ? null : config.getLocalShard();
+        if (newShards == null ? shardServers == null
+            : newShards.equals(shardServers) && newLocalShard.equals(localShard)) {
+            return;
+        }
+        ClusterFlowRuleManager.applyShards(newShards, newLocalShard);
+        shardServers = newShards;
+        localShard = newLocalShard;
+    }
+
+    private static boolean hasShards(ServerTransportConfig config) {
+        return config.getShardServers() != null && !config.getShardServers().isEmpty();
+    }
+
     private static void updateTokenServer(ServerTransportConfig config) {
         int newPort = config.getPort();
         AssertUtil.isTrue(newPort > 0, "token server port should be valid (positive)");
@@ -269,11 +290,30 @@ public final class ClusterServerConfigManager {
                     ClusterParamMetricStatistics.resetFlowMetrics();
                 }
             }
+            int newLeaseTimeInMs = config.getLeaseTimeInMs();
+            if (newLeaseTimeInMs != leaseTimeInMs) {
+                if (newLeaseTimeInMs <= 0 || newLeaseTimeInMs > intervalMs) {
+                    RecordLog.warn("[ClusterServerConfigManager] Ignoring invalid lease time: " + newLeaseTimeInMs);
+                } else {
+                    leaseTimeInMs = newLeaseTimeInMs;
+                }
+            }
         }
     }
 
     public static boolean isValidTransportConfig(ServerTransportConfig config) {
-        return config != null && config.getPort() > 0 && config.getPort() <= 65535;
+        if (config == null || config.getPort() <= 0 || config.getPort() > 65535) {
+            return false;
+        }
+        if (hasShards(config)) {
+            for (String shard : config.getShardServers()) {
+                if (ClusterShardRing.parseAddress(shard) == null) {
+                    return false;
+                }
+            }
+            return config.getShardServers().contains(config.getLocalShard());
+        }
+        return true;
     }
 
     public static boolean isValidFlowConfig(ServerFlowConfig config) {
@@ -338,6 +378,22 @@ public final class ClusterServerConfigManager {
         return port;
     }
 
+    /**
+     * @return addresses of all token server shards, or null if sharding mode is disabled
+     * @since 1.4.1
+     */
+    public static List<String> getShardServers() {
+        return shardServers;
+    }
+
+    /**
+     * @return address of current server among the shards, or null if sharding mode is disabled
+     * @since 1.4.1
+     */
+    public static String getLocalShard() {
+        return localShard;
+    }
+
     public static int getIdleSeconds() {
         return idleSeconds;
     }
@@ -350,6 +406,17 @@ public final class ClusterServerConfigManager {
         return sampleCount;
     }
 
+    /**
+     * Get the duration of token leases granted to clients. The lease time never exceeds the statistic interval,
+     * so that the leased tokens are counted in the same window they are consumed in.
+     *
+     * @return lease time in milliseconds
+     * @since 1.4.1
+     */
+    public static int getLeaseTimeInMs() {
+        return leaseTimeInMs;
+    }
+
     public static void setNamespaceSet(Set<String> namespaceSet) {
         applyNamespaceSetChange(namespaceSet);
     }
@@ -28,6 +28,7 @@ public class ServerFlowConfig {
 
     public static final int DEFAULT_INTERVAL_MS = 1000;
     public static final int DEFAULT_SAMPLE_COUNT= 10;
+    public static final int DEFAULT_LEASE_TIME_MS = 200;
 
     private final String namespace;
 
@@ -35,6 +36,7 @@ public class ServerFlowConfig {
     private double maxOccupyRatio = DEFAULT_MAX_OCCUPY_RATIO;
     private int intervalMs = DEFAULT_INTERVAL_MS;
     private int sampleCount = DEFAULT_SAMPLE_COUNT;
+    private int leaseTimeInMs = DEFAULT_LEASE_TIME_MS;
 
     public ServerFlowConfig() {
         this(ServerConstants.DEFAULT_NAMESPACE);
@@ -84,6 +86,15 @@ public class ServerFlowConfig {
         return this;
     }
 
+    public int getLeaseTimeInMs() {
+        return leaseTimeInMs;
+    }
+
+    public ServerFlowConfig setLeaseTimeInMs(int leaseTimeInMs) {
+        this.leaseTimeInMs = leaseTimeInMs;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "ServerFlowConfig{" +
@@ -92,6 +103,7 @@ public class ServerFlowConfig {
             ", maxOccupyRatio=" + maxOccupyRatio +
             ", intervalMs=" + intervalMs +
             ", sampleCount=" + sampleCount +
+            ", leaseTimeInMs=" + leaseTimeInMs +
             '}';
     }
 }
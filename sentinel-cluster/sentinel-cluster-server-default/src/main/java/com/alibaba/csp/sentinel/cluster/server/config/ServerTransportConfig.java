@@ -15,6 +15,8 @@
  */
 package com.alibaba.csp.sentinel.cluster.server.config;
 
+import java.util.List;
+
 /**
  * @author Eric Zhao
  * @since 1.4.0
@@ -27,6 +29,13 @@ public class ServerTransportConfig {
     private int port;
     private int idleSeconds;
 
+    /**
+     * Addresses ({@code host:port}) of all token server shards, and the address of current server among them.
+     * If present, current server only loads the rules of the flows it owns (since 1.4.1).
+     */
+    private List<String> shardServers;
+    private String localShard;
+
     public ServerTransportConfig() {
         this(DEFAULT_PORT, DEFAULT_IDLE_SECONDS);
     }
@@ -54,11 +63,31 @@ public class ServerTransportConfig {
         return this;
     }
 
+    public List<String> getShardServers() {
+        return shardServers;
+    }
+
+    public ServerTransportConfig setShardServers(List<String> shardServers) {
+        this.shardServers = shardServers;
+        return this;
+    }
+
+    public String getLocalShard() {
+        return localShard;
+    }
+
+    public ServerTransportConfig setLocalShard(String localShard) {
+        this.localShard = localShard;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "ServerTransportConfig{" +
             "port=" + port +
             ", idleSeconds=" + idleSeconds +
+            ", shardServers=" + shardServers +
+            ", localShard='" + localShard + '\'' +
             '}';
     }
 }
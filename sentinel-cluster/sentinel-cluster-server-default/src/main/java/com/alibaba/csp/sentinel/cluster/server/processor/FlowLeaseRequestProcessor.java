@@ -0,0 +1,51 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.processor;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.annotation.RequestType;
+import com.alibaba.csp.sentinel.cluster.flow.ClusterFlowLeaseManager;
+import com.alibaba.csp.sentinel.cluster.flow.TokenLease;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowLeaseRequestData;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowLeaseResponseData;
+
+/**
+ * Processor for token lease requests of cluster clients.
+ *
+ * @since 1.4.1
+ */
+@RequestType(ClusterConstants.MSG_TYPE_FLOW_LEASE)
+public class FlowLeaseRequestProcessor implements RequestProcessor<FlowLeaseRequestData, FlowLeaseResponseData> {
+
+    @Override
+    public ClusterResponse<FlowLeaseResponseData> processRequest(ClusterRequest<FlowLeaseRequestData> request) {
+        FlowLeaseRequestData data = request.getData();
+        if (data == null) {
+            return new ClusterResponse<>(request.getId(), request.getType(), ClusterConstants.RESPONSE_STATUS_BAD,
+                null);
+        }
+        TokenLease lease = ClusterFlowLeaseManager.requestLease(data.getFlowId(), data.getCount(),
+            data.getReleaseLeaseId(), data.getReleaseCount());
+        return new ClusterResponse<>(request.getId(), request.getType(), lease.getStatus(),
+            new FlowLeaseResponseData()
+                .setLeaseId(lease.getLeaseId())
+                .setGrantedCount(lease.getGrantedCount())
+                .setLeaseTimeInMs(lease.getLeaseTimeInMs())
+        );
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow;
+
+import java.util.Collections;
+
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterMetricStatistics;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
+import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.clock.ManualClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link ClusterFlowLeaseManager}.
+ */
+public class ClusterFlowLeaseManagerTest {
+
+    private static final long FLOW_ID = 192837L;
+
+    private final ManualClock clock = new ManualClock(100000);
+
+    @Before
+    public void setUp() {
+        TimeUtil.setClock(clock);
+        // Fair share of a single client: 100 * 200ms / 1000ms = 20 tokens per lease.
+        FlowRule rule = new FlowRule("leaseResource")
+            .setCount(100)
+            .setClusterMode(true)
+            .setClusterConfig(new ClusterFlowConfig()
+                .setFlowId(FLOW_ID)
+                .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL));
+        ClusterFlowRuleManager.loadRules(ServerConstants.DEFAULT_NAMESPACE, Collections.singletonList(rule));
+    }
+
+    @After
+    public void tearDown() {
+        ClusterFlowRuleManager.loadRules(ServerConstants.DEFAULT_NAMESPACE, Collections.<FlowRule>emptyList());
+        ClusterMetricStatistics.removeMetric(FLOW_ID);
+        ClusterFlowLeaseManager.clearLeases();
+        TimeUtil.setClock(null);
+    }
+
+    @Test
+    public void testInvalidLeaseRequest() {
+        assertEquals(TokenResultStatus.BAD_REQUEST, ClusterFlowLeaseManager.requestLease(FLOW_ID, 0, 0, 0).getStatus());
+        assertEquals(TokenResultStatus.BAD_REQUEST, ClusterFlowLeaseManager.requestLease(null, 10, 0, 0).getStatus());
+        assertEquals(TokenResultStatus.NO_RULE_EXISTS,
+            ClusterFlowLeaseManager.requestLease(FLOW_ID + 1, 10, 0, 0).getStatus());
+    }
+
+    @Test
+    public void testLeaseBoundedByShareAndRemaining() {
+        TokenLease lease = ClusterFlowLeaseManager.requestLease(FLOW_ID, 5, 0, 0);
+        assertEquals(TokenResultStatus.OK, lease.getStatus());
+        assertEquals(5, lease.getGrantedCount());
+        assertTrue(lease.getLeaseTimeInMs() > 0);
+
+        for (int i = 0; i < 4; i++) {
+            lease = ClusterFlowLeaseManager.requestLease(FLOW_ID, 1000, 0, 0);
+            assertEquals(TokenResultStatus.OK, lease.getStatus());
+            assertEquals(20, lease.getGrantedCount());
+        }
+        // 85 tokens granted, so only 15 tokens are left.
+        lease = ClusterFlowLeaseManager.requestLease(FLOW_ID, 1000, 0, 0);
+        assertEquals(15, lease.getGrantedCount());
+        assertEquals(TokenResultStatus.BLOCKED, ClusterFlowLeaseManager.requestLease(FLOW_ID, 1000, 0, 0).getStatus());
+        assertEquals(100, ClusterMetricStatistics.getMetric(FLOW_ID).getSum(ClusterFlowEvent.PASS));
+    }
+
+    @Test
+    public void testReclaimUnusedTokensInInterval() {
+        TokenLease first = ClusterFlowLeaseManager.requestLease(FLOW_ID, 20, 0, 0);
+        assertEquals(20, first.getGrantedCount());
+        assertEquals(1, ClusterFlowLeaseManager.leaseCount());
+
+        clock.advance(first.getLeaseTimeInMs());
+        // Give back 15 unused tokens of the expired lease.
+        TokenLease second = ClusterFlowLeaseManager.requestLease(FLOW_ID, 20, first.getLeaseId(), 15);
+        assertEquals(TokenResultStatus.OK, second.getStatus());
+        assertEquals(25, ClusterMetricStatistics.getMetric(FLOW_ID).getSum(ClusterFlowEvent.PASS));
+        assertEquals(1, ClusterFlowLeaseManager.leaseCount());
+
+        // A lease could not be given back twice.
+        ClusterFlowLeaseManager.requestLease(FLOW_ID, 20, first.getLeaseId(), 15);
+        assertEquals(45, ClusterMetricStatistics.getMetric(FLOW_ID).getSum(ClusterFlowEvent.PASS));
+    }
+
+    @Test
+    public void testNoReclaimOutOfInterval() {
+        TokenLease first = ClusterFlowLeaseManager.requestLease(FLOW_ID, 20, 0, 0);
+        clock.advance(1000);
+        ClusterFlowLeaseManager.requestLease(FLOW_ID, 20, first.getLeaseId(), 20);
+        // Tokens of the first lease have slid out of the window.
+        assertEquals(20, ClusterMetricStatistics.getMetric(FLOW_ID).getSum(ClusterFlowEvent.PASS));
+        // The stale lease is dropped.
+        assertEquals(1, ClusterFlowLeaseManager.leaseCount());
+    }
+}
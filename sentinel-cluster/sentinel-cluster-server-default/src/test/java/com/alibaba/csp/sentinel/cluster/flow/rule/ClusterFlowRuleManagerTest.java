@@ -0,0 +1,152 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfig;
+import com.alibaba.csp.sentinel.cluster.shard.ClusterShardRing;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for sharding mode of {@link ClusterFlowRuleManager}.
+ */
+public class ClusterFlowRuleManagerTest {
+
+    private static final List<String> SHARDS = Arrays.asList("127.0.0.1:18730", "127.0.0.1:18731", "127.0.0.1:18732");
+
+    private static final int FLOW_COUNT = 300;
+
+    private final List<FlowRule> rules = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        for (int i = 1; i <= FLOW_COUNT; i++) {
+            rules.add(new FlowRule("shardResource" + i)
+                .setCount(10)
+                .setClusterMode(true)
+                .setClusterConfig(new ClusterFlowConfig()
+                    .setFlowId((long)i)
+                    .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL)));
+        }
+        ClusterFlowRuleManager.loadRules(ServerConstants.DEFAULT_NAMESPACE, rules);
+    }
+
+    @After
+    public void tearDown() {
+        ClusterServerConfigManager.loadGlobalTransportConfig(new ServerTransportConfig());
+        ClusterFlowRuleManager.applyShards(null, null);
+        ClusterFlowRuleManager.loadRules(ServerConstants.DEFAULT_NAMESPACE, new ArrayList<FlowRule>());
+    }
+
+    @Test
+    public void testOnlyLocalFlowsLoaded() {
+        int total = 0;
+        for (String shard : SHARDS) {
+            ClusterFlowRuleManager.applyShards(SHARDS, shard);
+            ClusterShardRing ring = ClusterFlowRuleManager.getShardRing();
+            int loaded = 0;
+            for (long flowId = 1; flowId <= FLOW_COUNT; flowId++) {
+                boolean local = shard.equals(ring.getShard(flowId));
+                assertEquals(local, ClusterFlowRuleManager.isLocalFlow(flowId));
+                assertEquals(local, ClusterFlowRuleManager.getFlowRuleById(flowId) != null);
+                if (local) {
+                    loaded++;
+                }
+            }
+            // Each shard should take a reasonable part of the flows.
+            assertTrue(loaded > FLOW_COUNT / 6);
+            total += loaded;
+        }
+        assertEquals(FLOW_COUNT, total);
+
+        ClusterFlowRuleManager.applyShards(null, null);
+        assertNull(ClusterFlowRuleManager.getShardRing());
+        assertEquals(FLOW_COUNT, ClusterFlowRuleManager.getAllFlowRules().size());
+    }
+
+    @Test
+    public void testShardsFromTransportConfig() {
+        ClusterServerConfigManager.loadGlobalTransportConfig(new ServerTransportConfig()
+            .setShardServers(SHARDS)
+            .setLocalShard(SHARDS.get(1)));
+        assertEquals(SHARDS, ClusterServerConfigManager.getShardServers());
+        assertEquals(SHARDS.get(1), ClusterServerConfigManager.getLocalShard());
+        ClusterShardRing ring = ClusterFlowRuleManager.getShardRing();
+        assertNotNull(ring);
+        for (long flowId = 1; flowId <= FLOW_COUNT; flowId++) {
+            assertEquals(SHARDS.get(1).equals(ring.getShard(flowId)), ClusterFlowRuleManager.isLocalFlow(flowId));
+        }
+
+        // Ignored as current server is not one of the shards.
+        ClusterServerConfigManager.loadGlobalTransportConfig(new ServerTransportConfig()
+            .setShardServers(SHARDS)
+            .setLocalShard("127.0.0.1:9999"));
+        assertEquals(SHARDS.get(1), ClusterServerConfigManager.getLocalShard());
+
+        ClusterServerConfigManager.loadGlobalTransportConfig(new ServerTransportConfig());
+        assertNull(ClusterServerConfigManager.getShardServers());
+        assertNull(ClusterFlowRuleManager.getShardRing());
+        assertEquals(FLOW_COUNT, ClusterFlowRuleManager.getAllFlowRules().size());
+    }
+
+    @Test
+    public void testAddShardOnlyMovesFlowsToNewShard() {
+        ClusterShardRing ring = new ClusterShardRing(SHARDS);
+        List<String> newShards = new ArrayList<>(SHARDS);
+        newShards.add("127.0.0.1:18733");
+        ClusterShardRing newRing = new ClusterShardRing(newShards);
+
+        int moved = 0;
+        for (long flowId = 1; flowId <= FLOW_COUNT; flowId++) {
+            assertEquals(ring.getShard(flowId), new ClusterShardRing(SHARDS).getShard(flowId));
+            String owner = newRing.getShard(flowId);
+            if (!owner.equals(ring.getShard(flowId))) {
+                assertEquals("127.0.0.1:18733", owner);
+                moved++;
+            }
+        }
+        assertTrue(moved > 0);
+        assertTrue(moved < FLOW_COUNT / 2);
+    }
+
+    @Test
+    public void testShardAddresses() {
+        ClusterShardRing ring = new ClusterShardRing(Arrays.asList("127.0.0.1:18730", "127.0.0.1:18730"));
+        assertEquals(1, ring.size());
+        assertTrue(ring.sameShards(Arrays.asList("127.0.0.1:18730")));
+        assertNull(ClusterShardRing.parseAddress("127.0.0.1"));
+        assertNull(ClusterShardRing.parseAddress("127.0.0.1:0"));
+        assertEquals(18730, ClusterShardRing.parseAddress("127.0.0.1:18730").getPort());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLocalShardNotInShards() {
+        ClusterFlowRuleManager.applyShards(SHARDS, "127.0.0.1:9999");
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.metric;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.clock.ManualClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link ClusterTokenCounter}.
+ */
+public class ClusterTokenCounterTest {
+
+    private static final long START = 100000;
+
+    @Before
+    public void setUp() {
+        TimeUtil.setClock(new ManualClock(START));
+    }
+
+    @After
+    public void tearDown() {
+        TimeUtil.setClock(null);
+    }
+
+    @Test
+    public void testAcquireWithinMaxCount() {
+        ClusterTokenCounter counter = new ClusterTokenCounter(10, 1000);
+        assertEquals(7, counter.tryAcquire(3, 10, START));
+        assertEquals(2, counter.tryAcquire(5, 10, START + 150));
+        assertEquals(-1, counter.tryAcquire(3, 10, START + 250));
+        assertEquals(0, counter.tryAcquire(2, 10, START + 250));
+        assertEquals(10, counter.count());
+        assertEquals(0, counter.tryAcquireUpTo(5, 10, START + 300));
+    }
+
+    @Test
+    public void testTokensSlideOutOfWindow() {
+        ClusterTokenCounter counter = new ClusterTokenCounter(10, 1000);
+        counter.tryAcquire(6, 10, START);
+        counter.tryAcquire(4, 10, START + 500);
+        assertEquals(-1, counter.tryAcquire(1, 10, START + 999));
+        // The first bucket is rotated.
+        assertEquals(0, counter.tryAcquire(6, 10, START + 1000));
+        // Tokens of skipped windows are swept.
+        assertEquals(5, counter.tryAcquireUpTo(5, 10, START + 2600));
+        assertEquals(5, counter.count());
+    }
+
+    @Test
+    public void testAcquireUpTo() {
+        ClusterTokenCounter counter = new ClusterTokenCounter(10, 1000);
+        assertEquals(8, counter.tryAcquireUpTo(8, 10, START));
+        assertEquals(2, counter.tryAcquireUpTo(8, 10, START));
+        assertEquals(0, counter.tryAcquireUpTo(8, 10, START));
+    }
+
+    @Test
+    public void testRelease() {
+        ClusterTokenCounter counter = new ClusterTokenCounter(10, 1000);
+        counter.tryAcquire(8, 10, START);
+        assertEquals(5, counter.release(5, START, START + 300));
+        // Could not give back more than acquired in the window.
+        assertEquals(3, counter.release(5, START, START + 300));
+        assertEquals(0, counter.count());
+
+        counter.tryAcquire(8, 10, START + 100);
+        assertEquals(0, counter.release(8, START + 100, START + 1100));
+        assertEquals(0, counter.release(8, START + 700, START + 800));
+    }
+
+    @Test
+    public void testConcurrentAcquireNeverExceedsMaxCount() throws Exception {
+        final ClusterTokenCounter counter = new ClusterTokenCounter(10, 1000);
+        final int threadCount = 16;
+        final long maxCount = 10000;
+        final AtomicInteger passed = new AtomicInteger();
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final CountDownLatch latch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        barrier.await();
+                        for (int j = 0; j < 2000; j++) {
+                            if (counter.tryAcquire(1, maxCount, START + j % 1000) >= 0) {
+                                passed.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }).start();
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(maxCount, passed.get());
+        assertEquals(maxCount, counter.count());
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.client.DefaultClusterTokenClient;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfig;
+import com.alibaba.csp.sentinel.cluster.shard.ClusterShardRing;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Loopback test of sharded token servers. Rules are held statically, so each server runs in its own JVM.
+ */
+public class ShardedTokenServerTest {
+
+    private static final int FLOW_COUNT = 60;
+    private static final int SHARD_COUNT = 3;
+    private static final String READY = "shard server ready";
+
+    private final List<Integer> ports = new ArrayList<>();
+    private final List<String> shards = new ArrayList<>();
+    private final List<Process> servers = new ArrayList<>();
+    private DefaultClusterTokenClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        // Free ports are picked together, so that they are distinct.
+        List<ServerSocket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < SHARD_COUNT; i++) {
+                ServerSocket socket = new ServerSocket(0);
+                sockets.add(socket);
+                ports.add(socket.getLocalPort());
+                shards.add("127.0.0.1:" + socket.getLocalPort());
+            }
+        } finally {
+            for (ServerSocket socket : sockets) {
+                socket.close();
+            }
+        }
+        StringBuilder shardArg = new StringBuilder();
+        for (String shard : shards) {
+            shardArg.append(shardArg.length() > 0 ? "," : "").append(shard);
+        }
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            Process server = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ShardServer.class.getName(), String.valueOf(ports.get(i)), shardArg.toString())
+                .redirectErrorStream(true)
+                .start();
+            servers.add(server);
+            awaitReady(server);
+        }
+        client = new DefaultClusterTokenClient();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (client != null) {
+            client.stop();
+        }
+        for (Process server : servers) {
+            server.destroy();
+            // Release the port for the next test.
+            server.waitFor();
+        }
+    }
+
+    @Test
+    public void testRequestsRoutedToOwningShard() throws Exception {
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig()
+            .setRequestTimeout(1000)
+            .setShardServers(shards));
+        client.start();
+        for (long flowId = 1; flowId <= FLOW_COUNT; flowId++) {
+            assertEquals(TokenResultStatus.OK, requestUntilConnected(flowId));
+        }
+    }
+
+    @Test
+    public void testServerOnlyLoadsOwnedFlows() throws Exception {
+        // Connect to the first shard only.
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig()
+            .setRequestTimeout(1000)
+            .setServerHost("127.0.0.1")
+            .setServerPort(ports.get(0)));
+        client.start();
+        ClusterShardRing ring = new ClusterShardRing(shards);
+        int owned = 0;
+        for (long flowId = 1; flowId <= FLOW_COUNT; flowId++) {
+            int status = requestUntilConnected(flowId);
+            if (shards.get(0).equals(ring.getShard(flowId))) {
+                assertEquals(TokenResultStatus.OK, status);
+                owned++;
+            } else {
+                assertEquals(TokenResultStatus.NO_RULE_EXISTS, status);
+            }
+        }
+        assertTrue(owned > 0);
+    }
+
+    private int requestUntilConnected(long flowId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (true) {
+            TokenResult result = client.requestToken(flowId, 1, false);
+            if (result.getStatus() != TokenResultStatus.FAIL || System.currentTimeMillis() > deadline) {
+                return result.getStatus();
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+    }
+
+    private static void awaitReady(Process server) throws Exception {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(server.getInputStream()));
+        final CountDownLatch ready = new CountDownLatch(1);
+        // Keep draining the output so that the server never blocks on it.
+        Thread drainer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (READY.equals(line)) {
+                            ready.countDown();
+                        }
+                    }
+                } catch (IOException ex) {
+                    // The server has exited.
+                }
+            }
+        });
+        drainer.setDaemon(true);
+        drainer.start();
+        assertTrue("shard server not started", ready.await(30, TimeUnit.SECONDS));
+    }
+
+    /**
+     * A token server of one shard, which exits when the test closes its input.
+     */
+    public static class ShardServer {
+
+        public static void main(String[] args) throws Exception {
+            int port = Integer.parseInt(args[0]);
+            List<FlowRule> rules = new ArrayList<>();
+            for (int i = 1; i <= FLOW_COUNT; i++) {
+                rules.add(new FlowRule("shardResource" + i)
+                    .setCount(1000)
+                    .setClusterMode(true)
+                    .setClusterConfig(new ClusterFlowConfig()
+                        .setFlowId((long)i)
+                        .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL)));
+            }
+            ClusterFlowRuleManager.loadRules(ServerConstants.DEFAULT_NAMESPACE, rules);
+            ClusterServerConfigManager.loadGlobalTransportConfig(new ServerTransportConfig()
+                .setPort(port)
+                .setShardServers(Arrays.asList(args[1].split(",")))
+                .setLocalShard("127.0.0.1:" + port));
+
+            SentinelDefaultTokenServer server = new SentinelDefaultTokenServer();
+            server.start();
+            System.out.println(READY);
+            while (System.in.read() >= 0) {
+                // Wait until the test exits.
+            }
+            server.stop();
+            System.exit(0);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.codec.data;
+
+import com.alibaba.csp.sentinel.cluster.client.codec.data.BatchFlowRequestDataWriter;
+import com.alibaba.csp.sentinel.cluster.request.data.BatchFlowRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round-trip test cases for {@link BatchFlowRequestDataDecoder} with the writer of the client.
+ */
+public class BatchFlowRequestDataDecoderTest {
+
+    private final BatchFlowRequestDataWriter writer = new BatchFlowRequestDataWriter();
+    private final BatchFlowRequestDataDecoder decoder = new BatchFlowRequestDataDecoder();
+
+    @Test
+    public void testRoundTrip() {
+        BatchFlowRequestData data = new BatchFlowRequestData().setFlowId(Long.MAX_VALUE - 1)
+            .addRequest(new FlowRequestData().setCount(1).setPriority(false))
+            .addRequest(new FlowRequestData().setCount(Integer.MAX_VALUE).setPriority(true))
+            .addRequest(new FlowRequestData().setCount(3).setPriority(false));
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            writer.writeTo(data, buf);
+            BatchFlowRequestData decoded = decoder.decode(buf);
+
+            assertNotNull(decoded);
+            assertEquals(0, buf.readableBytes());
+            assertEquals(Long.MAX_VALUE - 1, decoded.getFlowId());
+            assertEquals(3, decoded.getRequests().size());
+            for (int i = 0; i < 3; i++) {
+                FlowRequestData expected = data.getRequests().get(i);
+                FlowRequestData actual = decoded.getRequests().get(i);
+                assertEquals(Long.MAX_VALUE - 1, actual.getFlowId());
+                assertEquals(expected.getCount(), actual.getCount());
+                assertEquals(expected.isPriority(), actual.isPriority());
+            }
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testRoundTripOfEmptyBatch() {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            writer.writeTo(new BatchFlowRequestData().setFlowId(5L), buf);
+            BatchFlowRequestData decoded = decoder.decode(buf);
+
+            assertNotNull(decoded);
+            assertEquals(5L, decoded.getFlowId());
+            assertTrue(decoded.getRequests().isEmpty());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testDecodeTruncated() {
+        BatchFlowRequestData data = new BatchFlowRequestData().setFlowId(5L)
+            .addRequest(new FlowRequestData().setCount(1))
+            .addRequest(new FlowRequestData().setCount(2));
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            writer.writeTo(data, buf);
+            // Without the priority flag of the last request.
+            assertNull(decoder.decode(buf.slice(0, buf.readableBytes() - 1)));
+            // Without the amount.
+            assertNull(decoder.decode(buf.slice(0, 9)));
+        } finally {
+            buf.release();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.codec.data;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.client.codec.data.BatchFlowResponseDataDecoder;
+import com.alibaba.csp.sentinel.cluster.response.data.BatchFlowTokenResponseData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round-trip test cases for {@link BatchFlowResponseDataWriter} with the decoder of the client.
+ */
+public class BatchFlowResponseDataWriterTest {
+
+    private final BatchFlowResponseDataWriter writer = new BatchFlowResponseDataWriter();
+    private final BatchFlowResponseDataDecoder decoder = new BatchFlowResponseDataDecoder();
+
+    @Test
+    public void testRoundTrip() {
+        BatchFlowTokenResponseData data = new BatchFlowTokenResponseData()
+            .addResult(new TokenResult(TokenResultStatus.OK).setRemaining(9).setWaitInMs(0))
+            .addResult(new TokenResult(TokenResultStatus.BLOCKED).setRemaining(0).setWaitInMs(0))
+            .addResult(new TokenResult(TokenResultStatus.SHOULD_WAIT).setRemaining(0).setWaitInMs(200))
+            .addResult(new TokenResult(TokenResultStatus.BAD_REQUEST));
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            writer.writeTo(data, buf);
+            BatchFlowTokenResponseData decoded = decoder.decode(buf);
+
+            assertEquals(0, buf.readableBytes());
+            assertEquals(4, decoded.getResults().size());
+            for (int i = 0; i < 4; i++) {
+                TokenResult expected = data.getResults().get(i);
+                TokenResult actual = decoded.getResults().get(i);
+                assertEquals(expected.getStatus(), actual.getStatus());
+                assertEquals(expected.getRemaining(), actual.getRemaining());
+                assertEquals(expected.getWaitInMs(), actual.getWaitInMs());
+            }
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testDecodeTruncated() {
+        BatchFlowTokenResponseData data = new BatchFlowTokenResponseData()
+            .addResult(new TokenResult(TokenResultStatus.OK))
+            .addResult(new TokenResult(TokenResultStatus.OK));
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            writer.writeTo(data, buf);
+            // A short response has no results, so that the client fails all coalesced requests.
+            assertTrue(decoder.decode(buf.slice(0, buf.readableBytes() - 1)).getResults().isEmpty());
+            assertTrue(decoder.decode(buf.slice(0, 1)).getResults().isEmpty());
+        } finally {
+            buf.release();
+        }
+    }
+}
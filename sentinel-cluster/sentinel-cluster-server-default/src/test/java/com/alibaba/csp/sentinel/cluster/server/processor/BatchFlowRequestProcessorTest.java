@@ -0,0 +1,114 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.BatchFlowRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.response.data.BatchFlowTokenResponseData;
+import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link BatchFlowRequestProcessor}.
+ */
+public class BatchFlowRequestProcessorTest {
+
+    private static final long FLOW_ID = 98761L;
+
+    private final BatchFlowRequestProcessor processor = new BatchFlowRequestProcessor();
+
+    @Before
+    public void setUp() {
+        FlowRule rule = new FlowRule("batchResource")
+            .setCount(3)
+            .setClusterMode(true)
+            .setClusterConfig(new ClusterFlowConfig()
+                .setFlowId(FLOW_ID)
+                .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL));
+        ClusterFlowRuleManager.loadRules(ServerConstants.DEFAULT_NAMESPACE, Collections.singletonList(rule));
+    }
+
+    @After
+    public void tearDown() {
+        ClusterFlowRuleManager.loadRules(ServerConstants.DEFAULT_NAMESPACE, new ArrayList<FlowRule>());
+    }
+
+    @Test
+    public void testRequestsCheckedInOrder() {
+        BatchFlowRequestData batch = new BatchFlowRequestData().setFlowId(FLOW_ID)
+            .addRequest(new FlowRequestData().setFlowId(FLOW_ID).setCount(1))
+            .addRequest(new FlowRequestData().setFlowId(FLOW_ID).setCount(2))
+            // Exceeds the threshold of the rule.
+            .addRequest(new FlowRequestData().setFlowId(FLOW_ID).setCount(1))
+            .addRequest(new FlowRequestData().setFlowId(FLOW_ID).setCount(0));
+        ClusterResponse<BatchFlowTokenResponseData> response = processor.processRequest(request(7, batch));
+
+        assertEquals(7, response.getId());
+        assertEquals(ClusterConstants.MSG_TYPE_FLOW_BATCH, response.getType());
+        assertEquals(ClusterConstants.RESPONSE_STATUS_OK, response.getStatus());
+        List<TokenResult> results = response.getData().getResults();
+        assertEquals(4, results.size());
+        assertEquals(TokenResultStatus.OK, (int)results.get(0).getStatus());
+        assertEquals(TokenResultStatus.OK, (int)results.get(1).getStatus());
+        assertEquals(TokenResultStatus.BLOCKED, (int)results.get(2).getStatus());
+        assertEquals(TokenResultStatus.BAD_REQUEST, (int)results.get(3).getStatus());
+    }
+
+    @Test
+    public void testRequestsOfUnknownFlow() {
+        BatchFlowRequestData batch = new BatchFlowRequestData().setFlowId(FLOW_ID + 1)
+            .addRequest(new FlowRequestData().setFlowId(FLOW_ID + 1).setCount(1))
+            .addRequest(new FlowRequestData().setFlowId(FLOW_ID + 1).setCount(1));
+        ClusterResponse<BatchFlowTokenResponseData> response = processor.processRequest(request(8, batch));
+
+        assertEquals(ClusterConstants.RESPONSE_STATUS_OK, response.getStatus());
+        for (TokenResult result : response.getData().getResults()) {
+            assertEquals(TokenResultStatus.NO_RULE_EXISTS, (int)result.getStatus());
+        }
+        assertEquals(2, response.getData().getResults().size());
+    }
+
+    @Test
+    public void testBadRequestWithoutData() {
+        ClusterResponse<BatchFlowTokenResponseData> response = processor.processRequest(request(9, null));
+
+        assertEquals(9, response.getId());
+        assertEquals(ClusterConstants.RESPONSE_STATUS_BAD, response.getStatus());
+        assertNull(response.getData());
+    }
+
+    private static ClusterRequest<BatchFlowRequestData> request(int id, BatchFlowRequestData data) {
+        return new ClusterRequest<>(id, ClusterConstants.MSG_TYPE_FLOW_BATCH, data);
+    }
+}
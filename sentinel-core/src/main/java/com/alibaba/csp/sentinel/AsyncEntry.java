@@ -20,6 +20,7 @@ import com.alibaba.csp.sentinel.context.NullContext;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.slotchain.ProcessorSlot;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
  * The entry for asynchronous resources.
@@ -31,8 +32,68 @@ public class AsyncEntry extends CtEntry {
 
     private Context asyncContext;
 
+    /**
+     * Whether queueing rules may defer the admission instead of waiting on the caller thread.
+     */
+    private final boolean admissionDeferrable;
+    private volatile long admissionTime;
+
     AsyncEntry(ResourceWrapper resourceWrapper, ProcessorSlot<Object> chain, Context context) {
+        this(resourceWrapper, chain, context, false);
+    }
+
+    AsyncEntry(ResourceWrapper resourceWrapper, ProcessorSlot<Object> chain, Context context,
+               boolean admissionDeferrable) {
         super(resourceWrapper, chain, context);
+        this.admissionDeferrable = admissionDeferrable;
+        this.admissionTime = getCreateTime();
+    }
+
+    /**
+     * Whether the admission of this entry may be deferred, i.e. the entry was created by
+     * {@link SphU#asyncEntryWithDeferredAdmission(String, EntryType, int, Object...)}.
+     *
+     * @return true if the admission may be deferred
+     * @since 1.4.1
+     */
+    public boolean isAdmissionDeferrable() {
+        return admissionDeferrable;
+    }
+
+    /**
+     * Defer the admission of this entry by given time from now. Called by rule checkers
+     * while the entry is being checked, the latest admission wins.
+     *
+     * @param waitMs time to wait in milliseconds
+     * @since 1.4.1
+     */
+    public void deferAdmission(long waitMs) {
+        long time = TimeUtil.currentTimeMillis() + waitMs;
+        if (time > admissionTime) {
+            admissionTime = time;
+        }
+    }
+
+    /**
+     * Get the time (as of {@link TimeUtil#currentTimeMillis()}) from which the work of this entry may start.
+     * It is later than the creation time only if queueing rules deferred the admission.
+     *
+     * @return the admission time in milliseconds
+     * @since 1.4.1
+     */
+    public long getAdmissionTime() {
+        return admissionTime;
+    }
+
+    /**
+     * Get the remaining time until the admission of this entry. Asynchronous callers should schedule
+     * the work after this delay rather than wait for it.
+     *
+     * @return the remaining time until admission in milliseconds, {@code 0} if already admitted
+     * @since 1.4.1
+     */
+    public long getAdmissionDelayMs() {
+        return Math.max(0, admissionTime - TimeUtil.currentTimeMillis());
     }
 
     /**
@@ -36,6 +36,11 @@ class CtEntry extends Entry {
     protected ProcessorSlot<Object> chain;
     protected Context context;
 
+    /**
+     * Whether this entry is borrowed from {@link CtEntryPool} and should be given back after exit.
+     */
+    boolean pooled = false;
+
     CtEntry(ResourceWrapper resourceWrapper, ProcessorSlot<Object> chain, Context context) {
         super(resourceWrapper);
         this.chain = chain;
@@ -44,6 +49,19 @@ class CtEntry extends Entry {
         setUpEntryFor(context);
     }
 
+    /**
+     * Re-use a pooled entry for a new invocation.
+     */
+    void reuse(ResourceWrapper resourceWrapper, ProcessorSlot<Object> chain, Context context) {
+        reinitialize(resourceWrapper);
+        this.chain = chain;
+        this.context = context;
+        this.parent = null;
+        this.child = null;
+
+        setUpEntryFor(context);
+    }
+
     private void setUpEntryFor(Context context) {
         // The entry should not be associated to NullContext.
         if (context instanceof NullContext) {
@@ -72,8 +90,9 @@ class CtEntry extends Entry {
                 // Clean previous call stack.
                 CtEntry e = (CtEntry)context.getCurEntry();
                 while (e != null) {
+                    CtEntry parentEntry = (CtEntry)e.parent;
                     e.exit(count, args);
-                    e = (CtEntry)e.parent;
+                    e = parentEntry;
                 }
                 String errorMessage = String.format("The order of entry exit can't be paired with the order of entry"
                     + ", current entry in context: <%s>, but expected: <%s>", curEntryNameInContext, resourceWrapper.getName());
@@ -95,6 +114,9 @@ class CtEntry extends Entry {
                 }
                 // Clean the reference of context in current entry to avoid duplicate exit.
                 clearEntryContext();
+                if (pooled) {
+                    recycle();
+                }
             }
         }
     }
@@ -103,8 +125,20 @@ class CtEntry extends Entry {
         this.context = null;
     }
 
+    private void recycle() {
+        this.chain = null;
+        this.parent = null;
+        this.child = null;
+        setCurNode(null);
+        setOriginNode(null);
+        setError(null);
+        CtEntryPool.current().release(this);
+    }
+
     @Override
     protected Entry trueExit(int count, Object... args) throws ErrorEntryFreeException {
+        // The parent should be retrieved before exit, as a pooled entry will be cleaned up after exit.
+        Entry parent = this.parent;
         exitForContext(context, count, args);
 
         return parent;
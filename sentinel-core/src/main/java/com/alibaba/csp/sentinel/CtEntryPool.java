@@ -0,0 +1,121 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlot;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+
+/**
+ * <p>A per-thread pool of {@link CtEntry}, which is enabled by {@link SentinelConfig#ENTRY_POOL_ENABLED}.</p>
+ *
+ * <p>
+ * Entries are borrowed in {@link CtSph} and given back as soon as they exit, so in the steady state
+ * no entry is allocated for an entry/exit pair. Entries are handled as a stack, which keeps the same
+ * entry object at the same nesting depth, so the resource wrapper of the previous invocation
+ * can be re-used as well.
+ * </p>
+ *
+ * <p>
+ * Note that a pooled entry MUST NOT be used anymore after it has exited, as it may have
+ * been handed out to another invocation in the same thread. Asynchronous entries are never pooled.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+final class CtEntryPool {
+
+    /**
+     * Max amount of entries kept by each thread, which bounds the nesting depth that can be served without allocation.
+     */
+    static final int MAX_POOLED_ENTRY_COUNT = 16;
+
+    private static volatile boolean enabled = SentinelConfig.entryPoolEnabled();
+
+    private static final ThreadLocal<CtEntryPool> LOCAL_POOL = new ThreadLocal<CtEntryPool>() {
+        @Override
+        protected CtEntryPool initialValue() {
+            return new CtEntryPool();
+        }
+    };
+
+    private final CtEntry[] entries = new CtEntry[MAX_POOLED_ENTRY_COUNT];
+    private int size = 0;
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static void setEnabled(boolean enabled) {
+        CtEntryPool.enabled = enabled;
+    }
+
+    static CtEntryPool current() {
+        return LOCAL_POOL.get();
+    }
+
+    /**
+     * Get the resource wrapper for the next entry, re-using the wrapper of the entry that will be borrowed
+     * if it represents the same resource. This is safe since {@link StringResourceWrapper} is immutable.
+     *
+     * @param name resource name
+     * @param type entry type
+     * @return resource wrapper of given name and type
+     */
+    ResourceWrapper resourceOf(String name, EntryType type) {
+        if (size > 0) {
+            ResourceWrapper last = entries[size - 1].resourceWrapper;
+            if (last instanceof StringResourceWrapper && last.getType() == type && last.getName().equals(name)) {
+                return last;
+            }
+        }
+        return new StringResourceWrapper(name, type);
+    }
+
+    CtEntry acquire(ResourceWrapper resourceWrapper, ProcessorSlot<Object> chain, Context context) {
+        if (size == 0) {
+            CtEntry entry = new CtEntry(resourceWrapper, chain, context);
+            entry.pooled = true;
+            return entry;
+        }
+        CtEntry entry = entries[--size];
+        entries[size] = null;
+        entry.reuse(resourceWrapper, chain, context);
+        return entry;
+    }
+
+    void release(CtEntry entry) {
+        if (size < entries.length) {
+            entries[size++] = entry;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Only for internal test.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            entries[i] = null;
+        }
+        size = 0;
+    }
+}
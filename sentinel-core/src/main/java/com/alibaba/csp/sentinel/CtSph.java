@@ -16,8 +16,8 @@
 package com.alibaba.csp.sentinel;
 
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.context.Context;
@@ -47,14 +47,18 @@ public class CtSph implements Sph {
     /**
      * Same resource({@link ResourceWrapper#equals(Object)}) will share the same
      * {@link ProcessorSlotChain}, no matter in which {@link Context}.
+     *
+     * <p>Lookups never lock. Creating the chain of a new resource only takes the {@link #LOCK} to keep
+     * the amount of chains under {@link Constants#MAX_SLOT_CHAIN_SIZE}, and no longer copies the whole map,
+     * so the cost of registering a resource does not grow with the amount of existing resources.</p>
      */
-    private static volatile Map<ResourceWrapper, ProcessorSlotChain> chainMap
-        = new HashMap<ResourceWrapper, ProcessorSlotChain>();
+    private static final Map<ResourceWrapper, ProcessorSlotChain> chainMap
+        = new ConcurrentHashMap<ResourceWrapper, ProcessorSlotChain>(256);
 
     private static final Object LOCK = new Object();
 
-    private AsyncEntry asyncEntryWithNoChain(ResourceWrapper resourceWrapper, Context context) {
-        AsyncEntry entry = new AsyncEntry(resourceWrapper, null, context);
+    private AsyncEntry asyncEntryWithNoChain(ResourceWrapper resourceWrapper, Context context, boolean deferrable) {
+        AsyncEntry entry = new AsyncEntry(resourceWrapper, null, context, deferrable);
         entry.initAsyncContext();
         // The async entry will be removed from current context as soon as it has been created.
         entry.cleanCurrentEntryInLocal();
@@ -62,12 +66,12 @@ public class CtSph implements Sph {
     }
 
     private AsyncEntry asyncEntryWithPriorityInternal(ResourceWrapper resourceWrapper, int count, boolean prioritized,
-                                                      Object... args) throws BlockException {
+                                                      boolean deferrable, Object... args) throws BlockException {
         Context context = ContextUtil.getContext();
         if (context instanceof NullContext) {
             // The {@link NullContext} indicates that the amount of context has exceeded the threshold,
             // so here init the entry only. No rule checking will be done.
-            return asyncEntryWithNoChain(resourceWrapper, context);
+            return asyncEntryWithNoChain(resourceWrapper, context, deferrable);
         }
         if (context == null) {
             // Using default context.
@@ -76,17 +80,17 @@ public class CtSph implements Sph {
 
         // Global switch is turned off, so no rule checking will be done.
         if (!Constants.ON) {
-            return asyncEntryWithNoChain(resourceWrapper, context);
+            return asyncEntryWithNoChain(resourceWrapper, context, deferrable);
         }
 
         ProcessorSlot<Object> chain = lookProcessChain(resourceWrapper);
 
         // Means processor cache size exceeds {@link Constants.MAX_SLOT_CHAIN_SIZE}, so no rule checking will be done.
         if (chain == null) {
-            return asyncEntryWithNoChain(resourceWrapper, context);
+            return asyncEntryWithNoChain(resourceWrapper, context, deferrable);
         }
 
-        AsyncEntry asyncEntry = new AsyncEntry(resourceWrapper, chain, context);
+        AsyncEntry asyncEntry = new AsyncEntry(resourceWrapper, chain, context, deferrable);
         try {
             chain.entry(context, resourceWrapper, null, count, prioritized, args);
             // Initiate the async context only when the entry successfully passed the slot chain.
@@ -110,7 +114,7 @@ public class CtSph implements Sph {
     }
 
     private AsyncEntry asyncEntryInternal(ResourceWrapper resourceWrapper, int count, Object... args) throws BlockException {
-        return asyncEntryWithPriorityInternal(resourceWrapper, count, false, args);
+        return asyncEntryWithPriorityInternal(resourceWrapper, count, false, false, args);
     }
 
     private Entry entryWithPriority(ResourceWrapper resourceWrapper, int count, boolean prioritized, Object... args)
@@ -129,7 +133,7 @@ public class CtSph implements Sph {
 
         // Global switch is close, no rule checking will do.
         if (!Constants.ON) {
-            return new CtEntry(resourceWrapper, null, context);
+            return newEntry(resourceWrapper, null, context);
         }
 
         ProcessorSlot<Object> chain = lookProcessChain(resourceWrapper);
@@ -139,10 +143,10 @@ public class CtSph implements Sph {
          * so no rule checking will be done.
          */
         if (chain == null) {
-            return new CtEntry(resourceWrapper, null, context);
+            return newEntry(resourceWrapper, null, context);
         }
 
-        Entry e = new CtEntry(resourceWrapper, chain, context);
+        Entry e = newEntry(resourceWrapper, chain, context);
         try {
             chain.entry(context, resourceWrapper, null, count, prioritized, args);
         } catch (BlockException e1) {
@@ -155,6 +159,20 @@ public class CtSph implements Sph {
         return e;
     }
 
+    private static CtEntry newEntry(ResourceWrapper resourceWrapper, ProcessorSlot<Object> chain, Context context) {
+        if (CtEntryPool.isEnabled()) {
+            return CtEntryPool.current().acquire(resourceWrapper, chain, context);
+        }
+        return new CtEntry(resourceWrapper, chain, context);
+    }
+
+    private static ResourceWrapper newStringResource(String name, EntryType type) {
+        if (CtEntryPool.isEnabled()) {
+            return CtEntryPool.current().resourceOf(name, type);
+        }
+        return new StringResourceWrapper(name, type);
+    }
+
     /**
      * Do all {@link Rule}s checking about the resource.
      *
@@ -202,11 +220,7 @@ public class CtSph implements Sph {
                     }
 
                     chain = SlotChainProvider.newSlotChain();
-                    Map<ResourceWrapper, ProcessorSlotChain> newMap = new HashMap<ResourceWrapper, ProcessorSlotChain>(
-                        chainMap.size() + 1);
-                    newMap.putAll(chainMap);
-                    newMap.put(resourceWrapper, chain);
-                    chainMap = newMap;
+                    chainMap.put(resourceWrapper, chain);
                 }
             }
         }
@@ -252,7 +266,7 @@ public class CtSph implements Sph {
 
     @Override
     public Entry entry(String name) throws BlockException {
-        StringResourceWrapper resource = new StringResourceWrapper(name, EntryType.OUT);
+        ResourceWrapper resource = newStringResource(name, EntryType.OUT);
         return entry(resource, 1, OBJECTS0);
     }
 
@@ -270,7 +284,7 @@ public class CtSph implements Sph {
 
     @Override
     public Entry entry(String name, EntryType type) throws BlockException {
-        StringResourceWrapper resource = new StringResourceWrapper(name, type);
+        ResourceWrapper resource = newStringResource(name, type);
         return entry(resource, 1, OBJECTS0);
     }
 
@@ -282,7 +296,7 @@ public class CtSph implements Sph {
 
     @Override
     public Entry entry(String name, EntryType type, int count) throws BlockException {
-        StringResourceWrapper resource = new StringResourceWrapper(name, type);
+        ResourceWrapper resource = newStringResource(name, type);
         return entry(resource, count, OBJECTS0);
     }
 
@@ -294,7 +308,7 @@ public class CtSph implements Sph {
 
     @Override
     public Entry entry(String name, int count) throws BlockException {
-        StringResourceWrapper resource = new StringResourceWrapper(name, EntryType.OUT);
+        ResourceWrapper resource = newStringResource(name, EntryType.OUT);
         return entry(resource, count, OBJECTS0);
     }
 
@@ -306,7 +320,7 @@ public class CtSph implements Sph {
 
     @Override
     public Entry entry(String name, EntryType type, int count, Object... args) throws BlockException {
-        StringResourceWrapper resource = new StringResourceWrapper(name, type);
+        ResourceWrapper resource = newStringResource(name, type);
         return entry(resource, count, args);
     }
 
@@ -317,8 +331,15 @@ public class CtSph implements Sph {
     }
 
     @Override
-    public Entry entryWithPriority(String name, EntryType type, int count, boolean prioritized) throws BlockException {
+    public AsyncEntry asyncEntryWithDeferredAdmission(String name, EntryType type, int count, Object... args)
+        throws BlockException {
         StringResourceWrapper resource = new StringResourceWrapper(name, type);
-        return entryWithPriority(resource, count, prioritized);
+        return asyncEntryWithPriorityInternal(resource, count, false, true, args);
+    }
+
+    @Override
+    public Entry entryWithPriority(String name, EntryType type, int count, boolean prioritized) throws BlockException {
+        ResourceWrapper resource = newStringResource(name, type);
+        return entryWithPriority(resource, count, prioritized, OBJECTS0);
     }
 }
@@ -59,6 +59,10 @@ public abstract class Entry {
      */
     private Node originNode;
     private Throwable error;
+    /**
+     * The latest business exception traced by {@link Tracer} during this invocation.
+     */
+    private Throwable tracedError;
     protected ResourceWrapper resourceWrapper;
 
     public Entry(ResourceWrapper resourceWrapper) {
@@ -66,6 +70,20 @@ public abstract class Entry {
         this.createTime = TimeUtil.currentTimeMillis();
     }
 
+    /**
+     * Reset the state of a recycled entry so that it can represent a new invocation of the resource.
+     *
+     * @param resourceWrapper resource of the new invocation
+     */
+    void reinitialize(ResourceWrapper resourceWrapper) {
+        this.resourceWrapper = resourceWrapper;
+        this.createTime = TimeUtil.currentTimeMillis();
+        this.curNode = null;
+        this.originNode = null;
+        this.error = null;
+        this.tracedError = null;
+    }
+
     public ResourceWrapper getResourceWrapper() {
         return resourceWrapper;
     }
@@ -124,6 +142,21 @@ public abstract class Entry {
         this.error = error;
     }
 
+    /**
+     * Get the latest business exception traced by {@link Tracer#trace(Throwable)} while this entry is
+     * the current entry of the context.
+     *
+     * @return the traced exception, or null if none
+     * @since 1.4.1
+     */
+    public Throwable getTracedError() {
+        return tracedError;
+    }
+
+    void setTracedError(Throwable tracedError) {
+        this.tracedError = tracedError;
+    }
+
     /**
      * Get origin {@link Node} of the this {@link Entry}.
      *
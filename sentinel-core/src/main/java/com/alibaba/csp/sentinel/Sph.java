@@ -156,6 +156,23 @@ public interface Sph {
      */
     AsyncEntry asyncEntry(String name, EntryType type, int count, Object... args) throws BlockException;
 
+    /**
+     * Create a protected asynchronous resource whose admission may be deferred. Queueing rules
+     * (e.g. uniform rate limiting) do not wait on the caller thread, but set the admission time
+     * of the entry instead (see {@link AsyncEntry#getAdmissionDelayMs()}).
+     *
+     * @param name  the unique name for the protected resource
+     * @param type  the resource is an inbound or an outbound method. This is used
+     *              to mark whether it can be blocked when the system is unstable
+     * @param count the count that the resource requires
+     * @param args  the parameters of the method. It can also be counted by setting hot parameter rule
+     * @return created asynchronous entry
+     * @throws BlockException if the block criteria is met
+     * @since 1.4.1
+     */
+    AsyncEntry asyncEntryWithDeferredAdmission(String name, EntryType type, int count, Object... args)
+        throws BlockException;
+
     /**
      * Create a protected resource with priority.
      *
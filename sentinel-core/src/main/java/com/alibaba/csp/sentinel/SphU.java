@@ -243,6 +243,41 @@ public class SphU {
         return Env.sph.asyncEntry(name, type, count, args);
     }
 
+    /**
+     * Checking all {@link Rule}s about the asynchronous resource without waiting on the caller thread.
+     * When queueing rules (e.g. uniform rate limiting) admit the entry later, the work should be scheduled
+     * after {@link AsyncEntry#getAdmissionDelayMs()} instead.
+     *
+     * @param name the unique name for the protected resource
+     * @param type the resource is an inbound or an outbound method. This is used
+     *             to mark whether it can be blocked when the system is unstable,
+     *             only inbound traffic could be blocked by {@link SystemRule}
+     * @throws BlockException if the block criteria is met, eg. when any rule's threshold is exceeded
+     * @since 1.4.1
+     */
+    public static AsyncEntry asyncEntryWithDeferredAdmission(String name, EntryType type) throws BlockException {
+        return Env.sph.asyncEntryWithDeferredAdmission(name, type, 1, OBJECTS0);
+    }
+
+    /**
+     * Checking all {@link Rule}s about the asynchronous resource without waiting on the caller thread.
+     * When queueing rules (e.g. uniform rate limiting) admit the entry later, the work should be scheduled
+     * after {@link AsyncEntry#getAdmissionDelayMs()} instead.
+     *
+     * @param name  the unique name for the protected resource
+     * @param type  the resource is an inbound or an outbound method. This is used
+     *              to mark whether it can be blocked when the system is unstable,
+     *              only inbound traffic could be blocked by {@link SystemRule}
+     * @param count tokens required
+     * @param args  extra parameters
+     * @throws BlockException if the block criteria is met, eg. when any rule's threshold is exceeded
+     * @since 1.4.1
+     */
+    public static AsyncEntry asyncEntryWithDeferredAdmission(String name, EntryType type, int count, Object... args)
+        throws BlockException {
+        return Env.sph.asyncEntryWithDeferredAdmission(name, type, count, args);
+    }
+
     /**
      * Checking all {@link Rule}s related the resource. The entry is prioritized.
      *
@@ -41,6 +41,9 @@ public final class Tracer {
         if (context == null) {
             return;
         }
+        if (context.getCurEntry() != null) {
+            context.getCurEntry().setTracedError(e);
+        }
 
         DefaultNode curNode = (DefaultNode)context.getCurNode();
         if (curNode == null) {
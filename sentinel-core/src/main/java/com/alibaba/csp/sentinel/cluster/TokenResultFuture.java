@@ -0,0 +1,157 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>Completion handle of an asynchronous token request (see {@link TokenService#requestTokenAsync}).</p>
+ *
+ * <p>The future is always completed with a {@link TokenResult} (failures are represented by
+ * {@link TokenResultStatus#FAIL}), and it cannot be cancelled.</p>
+ *
+ * @since 1.4.1
+ */
+public class TokenResultFuture implements Future<TokenResult> {
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    private volatile TokenResult result;
+    private List<TokenResultListener> listeners;
+
+    /**
+     * Create a future that has already been completed with given result.
+     *
+     * @param result the token result
+     * @return completed future
+     */
+    public static TokenResultFuture completed(TokenResult result) {
+        TokenResultFuture future = new TokenResultFuture();
+        future.complete(result);
+        return future;
+    }
+
+    /**
+     * Complete the future with given result if it has not been completed.
+     *
+     * @param result the token result
+     * @return true if the future is completed by this call, otherwise false
+     */
+    public boolean complete(TokenResult result) {
+        AssertUtil.notNull(result, "token result cannot be null");
+        List<TokenResultListener> toNotify;
+        synchronized (this) {
+            if (this.result != null) {
+                return false;
+            }
+            this.result = result;
+            toNotify = listeners;
+            listeners = null;
+        }
+        latch.countDown();
+        if (toNotify != null) {
+            for (TokenResultListener listener : toNotify) {
+                notifyListener(listener, result);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add a listener that will be notified when the future is completed.
+     * If the future has been completed, the listener will be notified immediately in current thread.
+     *
+     * @param listener a valid listener
+     * @return this future
+     */
+    public TokenResultFuture addListener(TokenResultListener listener) {
+        AssertUtil.notNull(listener, "listener cannot be null");
+        synchronized (this) {
+            if (result == null) {
+                if (listeners == null) {
+                    listeners = new ArrayList<TokenResultListener>(2);
+                }
+                listeners.add(listener);
+                return this;
+            }
+        }
+        notifyListener(listener, result);
+        return this;
+    }
+
+    private void notifyListener(TokenResultListener listener, TokenResult result) {
+        try {
+            listener.onComplete(result);
+        } catch (Throwable ex) {
+            RecordLog.warn("[TokenResultFuture] Error when notifying token result listener", ex);
+        }
+    }
+
+    /**
+     * Get the result if completed, otherwise return the given value.
+     *
+     * @param valueIfAbsent the value to return if not completed
+     * @return the result if completed, otherwise the given value
+     */
+    public TokenResult getNow(TokenResult valueIfAbsent) {
+        TokenResult r = result;
+        return r == null ? valueIfAbsent : r;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    public boolean isDone() {
+        return result != null;
+    }
+
+    @Override
+    public TokenResult get() throws InterruptedException {
+        latch.await();
+        return result;
+    }
+
+    @Override
+    public TokenResult get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        if (!latch.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenResultFuture{" +
+            "result=" + result +
+            '}';
+    }
+}
@@ -35,6 +35,17 @@ public interface TokenService {
      */
     TokenResult requestToken(Long ruleId, int acquireCount, boolean prioritized);
 
+    /**
+     * Request tokens from remote token server asynchronously.
+     *
+     * @param ruleId the unique rule ID
+     * @param acquireCount token count to acquire
+     * @param prioritized whether the request is prioritized
+     * @return completion handle of the token request
+     * @since 1.4.1
+     */
+    TokenResultFuture requestTokenAsync(Long ruleId, int acquireCount, boolean prioritized);
+
     /**
      * Request tokens for a specific parameter from remote token server.
      *
@@ -39,10 +39,36 @@ public class SentinelConfig {
     public static final String CHARSET = "csp.sentinel.charset";
     public static final String SINGLE_METRIC_FILE_SIZE = "csp.sentinel.metric.file.single.size";
     public static final String TOTAL_METRIC_FILE_COUNT = "csp.sentinel.metric.file.total.count";
+    public static final String METRIC_FILE_FORMAT = "csp.sentinel.metric.file.format";
+    public static final String METRIC_WRITER_ASYNC = "csp.sentinel.metric.writer.async";
     public static final String COLD_FACTOR = "csp.sentinel.flow.cold.factor";
+    public static final String ENTRY_POOL_ENABLED = "csp.sentinel.entry.pool.enabled";
+    public static final String METRIC_BUCKET_TYPE = "csp.sentinel.metric.bucket.type";
+    public static final String METRIC_BUCKET_STRIPES = "csp.sentinel.metric.bucket.stripes";
+    public static final String CLOCK_MODE = "csp.sentinel.clock.mode";
+    public static final String ORIGIN_NODE_CAPACITY = "csp.sentinel.origin.node.capacity";
+    public static final String SYSTEM_STATUS_PROVIDER = "csp.sentinel.system.status.provider";
+    public static final String SYSTEM_STATUS_INTERVAL = "csp.sentinel.system.status.interval.ms";
+
+    public static final String METRIC_BUCKET_TYPE_DEFAULT = "default";
+    public static final String METRIC_BUCKET_TYPE_STRIPED = "striped";
+
+    public static final String METRIC_FILE_FORMAT_TEXT = "text";
+    public static final String METRIC_FILE_FORMAT_BINARY = "binary";
+
+    public static final String CLOCK_MODE_TICKER = "ticker";
+    public static final String CLOCK_MODE_SYSTEM = "system";
+    public static final String CLOCK_MODE_ADAPTIVE = "adaptive";
+
+    public static final String SYSTEM_STATUS_PROVIDER_AUTO = "auto";
+    public static final String SYSTEM_STATUS_PROVIDER_OS = "os";
+    public static final String SYSTEM_STATUS_PROVIDER_CGROUP = "cgroup";
 
     static final long DEFAULT_SINGLE_METRIC_FILE_SIZE = 1024 * 1024 * 50;
     static final int DEFAULT_TOTAL_METRIC_FILE_COUNT = 6;
+    static final int DEFAULT_METRIC_BUCKET_STRIPES = 1;
+    static final int DEFAULT_ORIGIN_NODE_CAPACITY = 2000;
+    static final long DEFAULT_SYSTEM_STATUS_INTERVAL = 500;
 
     static {
         initialize();
@@ -54,7 +80,16 @@ public class SentinelConfig {
         SentinelConfig.setConfig(CHARSET, "UTF-8");
         SentinelConfig.setConfig(SINGLE_METRIC_FILE_SIZE, String.valueOf(DEFAULT_SINGLE_METRIC_FILE_SIZE));
         SentinelConfig.setConfig(TOTAL_METRIC_FILE_COUNT, String.valueOf(DEFAULT_TOTAL_METRIC_FILE_COUNT));
+        SentinelConfig.setConfig(METRIC_FILE_FORMAT, METRIC_FILE_FORMAT_TEXT);
+        SentinelConfig.setConfig(METRIC_WRITER_ASYNC, String.valueOf(false));
         SentinelConfig.setConfig(COLD_FACTOR, String.valueOf(3));
+        SentinelConfig.setConfig(ENTRY_POOL_ENABLED, String.valueOf(false));
+        SentinelConfig.setConfig(METRIC_BUCKET_TYPE, METRIC_BUCKET_TYPE_DEFAULT);
+        SentinelConfig.setConfig(METRIC_BUCKET_STRIPES, String.valueOf(DEFAULT_METRIC_BUCKET_STRIPES));
+        SentinelConfig.setConfig(CLOCK_MODE, CLOCK_MODE_TICKER);
+        SentinelConfig.setConfig(ORIGIN_NODE_CAPACITY, String.valueOf(DEFAULT_ORIGIN_NODE_CAPACITY));
+        SentinelConfig.setConfig(SYSTEM_STATUS_PROVIDER, SYSTEM_STATUS_PROVIDER_AUTO);
+        SentinelConfig.setConfig(SYSTEM_STATUS_INTERVAL, String.valueOf(DEFAULT_SYSTEM_STATUS_INTERVAL));
     }
 
     private static void loadProps() {
@@ -143,4 +178,128 @@ public class SentinelConfig {
             return DEFAULT_TOTAL_METRIC_FILE_COUNT;
         }
     }
+
+    /**
+     * Get the format of metric files, either {@link #METRIC_FILE_FORMAT_TEXT} (one text line per metric)
+     * or {@link #METRIC_FILE_FORMAT_BINARY} (compact blocks with dictionary-encoded resource names).
+     *
+     * @return the format of metric files
+     * @since 1.4.1
+     */
+    public static String metricFileFormat() {
+        return props.get(METRIC_FILE_FORMAT);
+    }
+
+    /**
+     * Whether metrics are written to files by a dedicated writer thread, so that slow disks do not
+     * delay the metric timer. Disabled by default.
+     *
+     * @return true if the asynchronous metric writer is enabled
+     * @since 1.4.1
+     */
+    public static boolean metricWriterAsync() {
+        return Boolean.parseBoolean(props.get(METRIC_WRITER_ASYNC));
+    }
+
+    /**
+     * Whether synchronous entries are recycled through a per-thread pool. Disabled by default,
+     * as a pooled entry must not be used anymore after it has exited.
+     *
+     * @return true if entry pooling is enabled
+     * @since 1.4.1
+     */
+    public static boolean entryPoolEnabled() {
+        return Boolean.parseBoolean(props.get(ENTRY_POOL_ENABLED));
+    }
+
+    /**
+     * Get the layout of metric buckets, either {@link #METRIC_BUCKET_TYPE_DEFAULT} (one {@code LongAdder}
+     * per event) or {@link #METRIC_BUCKET_TYPE_STRIPED} (counters in a single padded array).
+     *
+     * @return the layout of metric buckets
+     * @since 1.4.1
+     */
+    public static String metricBucketType() {
+        return props.get(METRIC_BUCKET_TYPE);
+    }
+
+    /**
+     * Get the amount of stripes of each striped metric bucket. One stripe is the most compact,
+     * while resources updated by many threads may use one stripe per CPU.
+     *
+     * @return the amount of stripes of each striped metric bucket
+     * @since 1.4.1
+     */
+    public static int metricBucketStripes() {
+        try {
+            return Integer.parseInt(props.get(METRIC_BUCKET_STRIPES));
+        } catch (Throwable throwable) {
+            RecordLog.info("[SentinelConfig] Parse metricBucketStripes fail, use default value: "
+                + DEFAULT_METRIC_BUCKET_STRIPES, throwable);
+            return DEFAULT_METRIC_BUCKET_STRIPES;
+        }
+    }
+
+    /**
+     * Get the mode of the default clock: {@link #CLOCK_MODE_TICKER} (cached time updated every millisecond),
+     * {@link #CLOCK_MODE_SYSTEM} (read system time directly) or {@link #CLOCK_MODE_ADAPTIVE}
+     * (ticking only when the clock is read frequently).
+     *
+     * @return the mode of the default clock
+     * @since 1.4.1
+     */
+    public static String clockMode() {
+        return props.get(CLOCK_MODE);
+    }
+
+    /**
+     * Get the maximum amount of origin nodes kept by each cluster node. When exceeded,
+     * the least used origins are evicted.
+     *
+     * @return the maximum amount of origin nodes of each resource
+     * @since 1.4.1
+     */
+    public static int originNodeCapacity() {
+        try {
+            int capacity = Integer.parseInt(props.get(ORIGIN_NODE_CAPACITY));
+            if (capacity > 0) {
+                return capacity;
+            }
+        } catch (Throwable throwable) {
+            RecordLog.info("[SentinelConfig] Parse originNodeCapacity fail, use default value: "
+                + DEFAULT_ORIGIN_NODE_CAPACITY, throwable);
+        }
+        return DEFAULT_ORIGIN_NODE_CAPACITY;
+    }
+
+    /**
+     * Get the type of the default system status provider: {@link #SYSTEM_STATUS_PROVIDER_OS} (host-wide
+     * status of the JVM), {@link #SYSTEM_STATUS_PROVIDER_CGROUP} (status of the current cgroup) or
+     * {@link #SYSTEM_STATUS_PROVIDER_AUTO} (cgroup if available, otherwise OS).
+     *
+     * @return the type of the default system status provider
+     * @since 1.4.1
+     */
+    public static String systemStatusProvider() {
+        return props.get(SYSTEM_STATUS_PROVIDER);
+    }
+
+    /**
+     * Get the interval in milliseconds of sampling the system status.
+     *
+     * @return the interval of sampling the system status
+     * @since 1.4.1
+     */
+    public static long systemStatusIntervalMs() {
+        try {
+            long interval = Long.parseLong(props.get(SYSTEM_STATUS_INTERVAL));
+            if (interval > 0) {
+                return interval;
+            }
+        } catch (Throwable throwable) {
+            RecordLog.info("[SentinelConfig] Parse systemStatusIntervalMs fail, use default value: "
+                + DEFAULT_SYSTEM_STATUS_INTERVAL, throwable);
+        }
+        return DEFAULT_SYSTEM_STATUS_INTERVAL;
+    }
 }
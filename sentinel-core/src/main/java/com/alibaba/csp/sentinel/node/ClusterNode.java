@@ -15,10 +15,9 @@
  */
 package com.alibaba.csp.sentinel.node;
 
-import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.locks.ReentrantLock;
 
+import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 
@@ -31,7 +30,7 @@ import com.alibaba.csp.sentinel.slots.block.BlockException;
  * <p>
  * To distinguish invocation from different origin (declared in
  * {@link ContextUtil#enter(String name, String origin)}),
- * one {@link ClusterNode} holds an {@link #originCountMap}, this map holds {@link StatisticNode}
+ * one {@link ClusterNode} holds a bounded index of {@link StatisticNode}
  * of different origin. Use {@link #getOrCreateOriginNode(String)} to get {@link Node} of the specific
  * origin.<br/>
  * Note that 'origin' usually is Service Consumer's app name.
@@ -43,13 +42,23 @@ import com.alibaba.csp.sentinel.slots.block.BlockException;
 public class ClusterNode extends StatisticNode {
 
     /**
-     * The longer the application runs, the more stable this mapping will
-     * become. so we don't concurrent map but a lock. as this lock only happens
-     * at the very beginning while concurrent map will hold the lock all the time.
+     * Origin nodes are looked up on every entry with an origin, so existing origins are read without any lock.
+     * The amount of origins is bounded by {@link SentinelConfig#originNodeCapacity()}, the least used origins
+     * are evicted beyond that.
      */
-    private Map<String, StatisticNode> originCountMap = new HashMap<String, StatisticNode>();
+    private final OriginNodeIndex originNodeIndex;
 
-    private final ReentrantLock lock = new ReentrantLock();
+    public ClusterNode() {
+        this(SentinelConfig.originNodeCapacity());
+    }
+
+    /**
+     * @param originCapacity maximum amount of origin nodes to keep
+     * @since 1.4.1
+     */
+    public ClusterNode(int originCapacity) {
+        this.originNodeIndex = new OriginNodeIndex(originCapacity);
+    }
 
     /**
      * <p>Get {@link Node} of the specific origin. Usually the origin is the Service Consumer's app name.</p>
@@ -61,29 +70,26 @@ public class ClusterNode extends StatisticNode {
      * @return the {@link Node} of the specific origin
      */
     public Node getOrCreateOriginNode(String origin) {
-        StatisticNode statisticNode = originCountMap.get(origin);
-        if (statisticNode == null) {
-            try {
-                lock.lock();
-                statisticNode = originCountMap.get(origin);
-                if (statisticNode == null) {
-                    // The node is absent, create a new node for the origin.
-                    statisticNode = new StatisticNode();
-                    HashMap<String, StatisticNode> newMap = new HashMap<String, StatisticNode>(
-                        originCountMap.size() + 1);
-                    newMap.putAll(originCountMap);
-                    newMap.put(origin, statisticNode);
-                    originCountMap = newMap;
-                }
-            } finally {
-                lock.unlock();
-            }
-        }
-        return statisticNode;
+        return originNodeIndex.getOrCreate(origin);
     }
 
-    public synchronized Map<String, StatisticNode> getOriginCountMap() {
-        return originCountMap;
+    /**
+     * Get an unmodifiable live view of the origin nodes.
+     *
+     * @return origin nodes of this resource
+     */
+    public Map<String, StatisticNode> getOriginCountMap() {
+        return originNodeIndex.asMap();
+    }
+
+    /**
+     * Get the amount of origin nodes evicted since this node was created.
+     *
+     * @return the amount of evicted origin nodes
+     * @since 1.4.1
+     */
+    public long getEvictedOriginCount() {
+        return originNodeIndex.evictedCount();
     }
 
     /**
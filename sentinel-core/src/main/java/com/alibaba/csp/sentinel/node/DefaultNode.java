@@ -15,8 +15,9 @@
  */
 package com.alibaba.csp.sentinel.node;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.SphO;
@@ -46,9 +47,10 @@ public class DefaultNode extends StatisticNode {
     private ResourceWrapper id;
 
     /**
-     * The list of all child nodes.
+     * The list of all child nodes. Entrance nodes may hold thousands of children,
+     * so children are added in place rather than copying the whole set.
      */
-    private volatile Set<Node> childList = new HashSet<Node>();
+    private volatile Set<Node> childList = newChildSet();
 
     /**
      * Associated cluster node.
@@ -82,15 +84,7 @@ public class DefaultNode extends StatisticNode {
             RecordLog.warn("Trying to add null child to node <{0}>, ignored", id.getName());
             return;
         }
-        if (!childList.contains(node)) {
-            synchronized (this) {
-                if (!childList.contains(node)) {
-                    Set<Node> newSet = new HashSet<Node>(childList.size() + 1);
-                    newSet.addAll(childList);
-                    newSet.add(node);
-                    childList = newSet;
-                }
-            }
+        if (!childList.contains(node) && childList.add(node)) {
             RecordLog.info("Add child <{0}> to node <{1}>", ((DefaultNode)node).id.getName(), id.getName());
         }
     }
@@ -99,7 +93,11 @@ public class DefaultNode extends StatisticNode {
      * Reset the child node list.
      */
     public void removeChildList() {
-        this.childList = new HashSet<Node>();
+        this.childList = newChildSet();
+    }
+
+    private static Set<Node> newChildSet() {
+        return Collections.newSetFromMap(new ConcurrentHashMap<Node, Boolean>(4));
     }
 
     public Set<Node> getChildList() {
@@ -0,0 +1,163 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>A bounded index from origin to {@link StatisticNode}.</p>
+ * <p>
+ * Lookups of existing origins are lock-free reads of a {@link ConcurrentHashMap}, only the creation of
+ * a new origin node takes a lock. Once more than {@code capacity} origins are present, a batch of the
+ * least used origins is evicted, so the amount of nodes stays capped no matter how many callers there are.
+ * Usage is the request count of the last minute plus the current thread count, which is recorded by the
+ * node anyway, so there is no extra bookkeeping on the lookup path. Origins created in the last minute
+ * have not collected a full window yet, so they are evicted only when there are no other candidates.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+final class OriginNodeIndex {
+
+    /**
+     * Origins younger than this are protected from eviction, unless all origins are young.
+     */
+    static final long PROTECTION_MS = 60 * 1000;
+
+    private final ConcurrentMap<String, OriginNode> nodes = new ConcurrentHashMap<String, OriginNode>();
+    private final Map<String, StatisticNode> view = Collections.<String, StatisticNode>unmodifiableMap(nodes);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final int capacity;
+
+    OriginNodeIndex(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity should be positive, current: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    StatisticNode getOrCreate(String origin) {
+        StatisticNode node = nodes.get(origin);
+        if (node != null) {
+            return node;
+        }
+        lock.lock();
+        try {
+            OriginNode created = nodes.get(origin);
+            if (created == null) {
+                long now = TimeUtil.currentTimeMillis();
+                created = new OriginNode(now);
+                nodes.put(origin, created);
+                if (nodes.size() > capacity) {
+                    evict(origin, now);
+                }
+            }
+            return created;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evict least used origins until a tenth of the capacity is free again, so that eviction
+     * is amortized over the following insertions. The origin just created is never evicted.
+     */
+    private void evict(String created, long now) {
+        int target = Math.max(1, capacity - capacity / 10);
+        int toEvict = nodes.size() - target;
+        List<Candidate> candidates = new ArrayList<Candidate>(nodes.size());
+        for (Map.Entry<String, OriginNode> entry : nodes.entrySet()) {
+            if (!entry.getKey().equals(created)) {
+                candidates.add(new Candidate(entry.getKey(), entry.getValue(), now));
+            }
+        }
+        Collections.sort(candidates, CANDIDATE_ORDER);
+        for (int i = 0; i < toEvict && i < candidates.size(); i++) {
+            Candidate candidate = candidates.get(i);
+            if (nodes.remove(candidate.origin, candidate.node)) {
+                evictedCount.incrementAndGet();
+            }
+        }
+    }
+
+    Map<String, StatisticNode> asMap() {
+        return view;
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long evictedCount() {
+        return evictedCount.get();
+    }
+
+    private static final class OriginNode extends StatisticNode {
+
+        private final long createTime;
+
+        OriginNode(long createTime) {
+            this.createTime = createTime;
+        }
+    }
+
+    private static final class Candidate {
+
+        private final String origin;
+        private final OriginNode node;
+        private final boolean young;
+        private final long usage;
+
+        Candidate(String origin, OriginNode node, long now) {
+            this.origin = origin;
+            this.node = node;
+            this.young = now - node.createTime < PROTECTION_MS;
+            // Snapshot the usage, as it may change while sorting.
+            this.usage = node.totalRequest() + node.curThreadNum();
+        }
+    }
+
+    private static final Comparator<Candidate> CANDIDATE_ORDER = new Comparator<Candidate>() {
+        @Override
+        public int compare(Candidate c1, Candidate c2) {
+            if (c1.young != c2.young) {
+                return c1.young ? 1 : -1;
+            }
+            if (c1.usage != c2.usage) {
+                return c1.usage < c2.usage ? -1 : 1;
+            }
+            if (c1.node.createTime != c2.node.createTime) {
+                return c1.node.createTime < c2.node.createTime ? -1 : 1;
+            }
+            return 0;
+        }
+    };
+}
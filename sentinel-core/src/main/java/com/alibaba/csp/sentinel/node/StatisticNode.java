@@ -20,8 +20,13 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.util.TimeUtil;
 import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.slots.statistic.data.DefaultMetricBucketFactory;
+import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucketFactory;
+import com.alibaba.csp.sentinel.slots.statistic.data.StripedMetricBucketFactory;
 import com.alibaba.csp.sentinel.slots.statistic.metric.ArrayMetric;
 import com.alibaba.csp.sentinel.slots.statistic.metric.Metric;
 
@@ -88,18 +93,23 @@ import com.alibaba.csp.sentinel.slots.statistic.metric.Metric;
  */
 public class StatisticNode implements Node {
 
+    /**
+     * Factory of the metric buckets of all statistic nodes, resolved from {@link SentinelConfig#METRIC_BUCKET_TYPE}.
+     */
+    private static final MetricBucketFactory BUCKET_FACTORY = resolveBucketFactory();
+
     /**
      * Holds statistics of the recent {@code INTERVAL} seconds. The {@code INTERVAL} is divided into time spans
      * by given {@code sampleCount}.
      */
     private transient volatile Metric rollingCounterInSecond = new ArrayMetric(1000 / SampleCountProperty.SAMPLE_COUNT,
-        IntervalProperty.INTERVAL);
+        IntervalProperty.INTERVAL, BUCKET_FACTORY);
 
     /**
      * Holds statistics of the recent 60 seconds. The windowLengthInMs is deliberately set to 1000 milliseconds,
      * meaning each bucket per second, in this way we can get accurate statistics of each second.
      */
-    private transient Metric rollingCounterInMinute = new ArrayMetric(1000, 60);
+    private transient Metric rollingCounterInMinute = new ArrayMetric(1000, 60, BUCKET_FACTORY);
 
     /**
      * The counter for thread count.
@@ -142,7 +152,17 @@ public class StatisticNode implements Node {
 
     @Override
     public void reset() {
-        rollingCounterInSecond = new ArrayMetric(1000 / SampleCountProperty.SAMPLE_COUNT, IntervalProperty.INTERVAL);
+        rollingCounterInSecond = new ArrayMetric(1000 / SampleCountProperty.SAMPLE_COUNT, IntervalProperty.INTERVAL,
+            BUCKET_FACTORY);
+    }
+
+    private static MetricBucketFactory resolveBucketFactory() {
+        if (SentinelConfig.METRIC_BUCKET_TYPE_STRIPED.equals(SentinelConfig.metricBucketType())) {
+            MetricBucketFactory factory = new StripedMetricBucketFactory(SentinelConfig.metricBucketStripes());
+            RecordLog.info("[StatisticNode] Using metric bucket factory: " + factory);
+            return factory;
+        }
+        return DefaultMetricBucketFactory.INSTANCE;
     }
 
     @Override
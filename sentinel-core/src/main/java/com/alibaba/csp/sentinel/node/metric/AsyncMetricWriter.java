@@ -0,0 +1,236 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+/**
+ * <p>Metric writer that moves the file writing off the caller (the metric timer). The caller only formats
+ * the metrics of a second into a reusable direct buffer (in text format) and enqueues the batch; a dedicated
+ * writer thread drains all queued batches and writes them through a {@link MetricWriter} in group commit
+ * mode, so that batches queued behind a slow disk are committed together. The files written are identical
+ * to those written by {@link MetricWriter} directly.</p>
+ *
+ * <p>In binary format the batches are encoded by the writer thread, as the resource dictionary belongs to
+ * the file being written. When the queue is full, the batch is dropped and counted.</p>
+ *
+ * @since 1.4.1
+ */
+public class AsyncMetricWriter {
+
+    static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+    private final MetricWriter writer;
+    private final boolean binaryFormat;
+    private final BlockingQueue<Batch> queue;
+    /**
+     * Formatted buffers returned by the writer thread for reuse.
+     */
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+    private final CharsetEncoder encoder;
+    private final Thread writerThread;
+
+    private final AtomicLong writtenBatches = new AtomicLong();
+    private final AtomicLong droppedBatches = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param singleFileSize max size of single metric file
+     * @param totalFileCount max count of metric files
+     * @param binaryFormat   whether to write metrics in binary format
+     */
+    public AsyncMetricWriter(long singleFileSize, int totalFileCount, boolean binaryFormat) {
+        this(new MetricWriter(MetricWriter.METRIC_BASE_DIR, singleFileSize, totalFileCount, binaryFormat, true),
+            binaryFormat, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    AsyncMetricWriter(MetricWriter writer, boolean binaryFormat, int queueCapacity) {
+        this.writer = writer;
+        this.binaryFormat = binaryFormat;
+        this.queue = new ArrayBlockingQueue<Batch>(queueCapacity);
+        // One buffer more than the queue, for the batch being formatted.
+        this.freeBuffers = new ArrayBlockingQueue<ByteBuffer>(queueCapacity + 1);
+        this.encoder = Charset.forName(SentinelConfig.charset()).newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.writerThread = new NamedThreadFactory("sentinel-metrics-writer-task", true).newThread(new Runnable() {
+            @Override
+            public void run() {
+                runWriter();
+            }
+        });
+        this.writerThread.start();
+    }
+
+    /**
+     * Enqueue metrics of the same second, see {@link MetricWriter#write(long, List)}.
+     *
+     * @return false if the batch is dropped as the queue is full
+     */
+    public synchronized boolean write(long time, List<MetricNode> nodes) {
+        if (nodes == null || closed) {
+            return false;
+        }
+        for (MetricNode node : nodes) {
+            node.setTimestamp(time);
+        }
+        ByteBuffer formatted = binaryFormat ? null : format(nodes);
+        if (queue.offer(new Batch(time, nodes, formatted))) {
+            return true;
+        }
+        long dropped = droppedBatches.incrementAndGet();
+        RecordLog.warn("[AsyncMetricWriter] Queue is full, metrics of " + time + " dropped, total dropped batches: "
+            + dropped);
+        recycle(formatted);
+        return false;
+    }
+
+    private ByteBuffer format(List<MetricNode> nodes) {
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+        }
+        buffer.clear();
+        for (MetricNode node : nodes) {
+            CharBuffer line = CharBuffer.wrap(node.toFatString());
+            encoder.reset();
+            while (true) {
+                CoderResult result = encoder.encode(line, buffer, true);
+                if (!result.isOverflow()) {
+                    result = encoder.flush(buffer);
+                }
+                if (result.isOverflow()) {
+                    buffer = grow(buffer);
+                } else {
+                    break;
+                }
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    private void recycle(ByteBuffer buffer) {
+        if (buffer != null) {
+            freeBuffers.offer(buffer);
+        }
+    }
+
+    private void runWriter() {
+        List<Batch> batches = new ArrayList<Batch>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Batch first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batches.add(first);
+                queue.drainTo(batches);
+                writeBatches(batches);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batches.clear();
+            }
+        }
+    }
+
+    private void writeBatches(List<Batch> batches) {
+        try {
+            for (Batch batch : batches) {
+                writer.write(batch.time, batch.nodes, batch.formatted);
+                writtenBatches.incrementAndGet();
+            }
+            writer.commit();
+            commits.incrementAndGet();
+        } catch (Exception e) {
+            RecordLog.warn("[AsyncMetricWriter] Write metric error", e);
+        }
+        for (Batch batch : batches) {
+            recycle(batch.formatted);
+        }
+    }
+
+    /**
+     * Write all queued batches and close the files.
+     */
+    public void close() throws Exception {
+        closed = true;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        writer.close();
+    }
+
+    /**
+     * @return count of batches waiting to be written
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getWrittenBatches() {
+        return writtenBatches.get();
+    }
+
+    public long getDroppedBatches() {
+        return droppedBatches.get();
+    }
+
+    /**
+     * @return count of group commits, each writes one or more batches
+     */
+    public long getCommits() {
+        return commits.get();
+    }
+
+    private static final class Batch {
+        private final long time;
+        private final List<MetricNode> nodes;
+        private final ByteBuffer formatted;
+
+        private Batch(long time, List<MetricNode> nodes, ByteBuffer formatted) {
+            this.time = time;
+            this.nodes = nodes;
+            this.formatted = formatted;
+        }
+    }
+}
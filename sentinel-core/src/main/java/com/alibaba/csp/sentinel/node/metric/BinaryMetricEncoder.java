@@ -0,0 +1,162 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Encoder of the binary metric file format. A binary metric file starts with a header ({@link #MAGIC} and
+ * the format version), followed by one block per written second:</p>
+ * <pre>
+ * block   := timestamp(varint) definitionCount(varint) definition* nodeCount(varint) bodyLength(varint) record*
+ * definition := nameLength(varint) name(UTF-8)
+ * record  := resourceId(varint) payloadLength(1 byte) passQps blockQps successQps exceptionQps rt (varints)
+ * </pre>
+ * <p>Resource names are dictionary-encoded per file: a name is defined in the header of the first block
+ * it appears in, and takes the next id (starting from 0). The body length and the payload length
+ * allow readers to skip unrelated blocks and records without decoding them.</p>
+ *
+ * <p>Offsets in the index file point at the start of the blocks, same as the text format.</p>
+ *
+ * @since 1.4.1
+ */
+final class BinaryMetricEncoder {
+
+    static final byte[] MAGIC = {0, 'S', 'M', 'B'};
+    static final byte VERSION = 1;
+    static final int HEADER_LENGTH = MAGIC.length + 1;
+
+    static final Charset CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * Five varints take at most 50 bytes, so the payload length always fits in a byte.
+     */
+    private static final int MAX_PAYLOAD_LENGTH = 50;
+
+    /**
+     * Resource name -> id of current file.
+     */
+    private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+
+    private final ByteArrayOutputStream definitions = new ByteArrayOutputStream(256);
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream(4096);
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream(MAX_PAYLOAD_LENGTH);
+
+    /**
+     * Write the file header and reset the dictionary, called once for every new file.
+     */
+    void writeHeader(OutputStream out) throws IOException {
+        dictionary.clear();
+        out.write(MAGIC);
+        out.write(VERSION);
+    }
+
+    /**
+     * Encode the nodes of the same second as a block.
+     */
+    void writeBlock(OutputStream out, long time, List<MetricNode> nodes) throws IOException {
+        definitions.reset();
+        body.reset();
+        block.reset();
+        int definitionCount = 0;
+        for (MetricNode node : nodes) {
+            Integer id = dictionary.get(node.getResource());
+            if (id == null) {
+                id = dictionary.size();
+                dictionary.put(node.getResource(), id);
+                byte[] name = node.getResource().getBytes(CHARSET);
+                writeVarLong(definitions, name.length);
+                definitions.write(name);
+                definitionCount++;
+            }
+            payload.reset();
+            writeVarLong(payload, node.getPassQps());
+            writeVarLong(payload, node.getBlockQps());
+            writeVarLong(payload, node.getSuccessQps());
+            writeVarLong(payload, node.getExceptionQps());
+            writeVarLong(payload, node.getRt());
+            writeVarLong(body, id);
+            body.write(payload.size());
+            payload.writeTo(body);
+        }
+        writeVarLong(block, time);
+        writeVarLong(block, definitionCount);
+        definitions.writeTo(block);
+        writeVarLong(block, nodes.size());
+        writeVarLong(block, body.size());
+        body.writeTo(block);
+        // Write the whole block at once.
+        block.writeTo(out);
+    }
+
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int)value);
+    }
+
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    static int readVarInt(ByteBuffer buffer) {
+        return (int)readVarLong(buffer);
+    }
+
+    /**
+     * Check whether given metric file is in binary format.
+     *
+     * @param fileName name of the metric file
+     * @return true if the file starts with the binary header
+     */
+    static boolean isBinaryFile(String fileName) throws IOException {
+        FileInputStream in = new FileInputStream(fileName);
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            int n = 0;
+            while (n < magic.length) {
+                int read = in.read(magic, n, magic.length - n);
+                if (read < 0) {
+                    return false;
+                }
+                n += read;
+            }
+            return Arrays.equals(MAGIC, magic);
+        } finally {
+            in.close();
+        }
+    }
+}
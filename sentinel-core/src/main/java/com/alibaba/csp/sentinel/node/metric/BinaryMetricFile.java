@@ -0,0 +1,335 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.alibaba.csp.sentinel.node.metric.BinaryMetricEncoder.readVarInt;
+import static com.alibaba.csp.sentinel.node.metric.BinaryMetricEncoder.readVarLong;
+
+/**
+ * Reader of a metric file in binary format (see {@link BinaryMetricEncoder}). The file is read with positional
+ * reads into a heap buffer holding a window of the file, which is moved forward as the blocks are parsed, so
+ * that no mapping or file-sized buffer is created by a read. The resource dictionary is accumulated
+ * incrementally as the file grows, so that reading from an indexed offset only needs to visit the headers of
+ * earlier blocks once. Reads of the same file are serialized as they share the dictionary and the buffer.
+ *
+ * @since 1.4.1
+ */
+final class BinaryMetricFile {
+
+    static final int DEFAULT_READ_WINDOW_SIZE = 64 * 1024;
+
+    private final String fileName;
+    private final int readWindowSize;
+
+    /**
+     * Resource id -> name, and the reverse.
+     */
+    private final List<String> names = new ArrayList<String>();
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+    /**
+     * End of the last block whose resource definitions have been registered.
+     */
+    private long scannedPosition = BinaryMetricEncoder.HEADER_LENGTH;
+
+    private final Block block = new Block();
+    /**
+     * Buffer of the read window, reused by the reads.
+     */
+    private ByteBuffer buffer;
+
+    BinaryMetricFile(String fileName) {
+        this(fileName, DEFAULT_READ_WINDOW_SIZE);
+    }
+
+    BinaryMetricFile(String fileName, int readWindowSize) {
+        this.fileName = fileName;
+        this.readWindowSize = readWindowSize;
+        this.buffer = ByteBuffer.allocate(readWindowSize);
+    }
+
+    /**
+     * Read metrics of the specific resource (or all resources if {@code identity} is null)
+     * until the given end second.
+     *
+     * @return if should continue to read the next file, return true, else false
+     */
+    synchronized boolean readByEndTime(List<MetricNode> list, long offset, long endSecond, String identity, int maxLines)
+        throws IOException {
+        Window window = open();
+        try {
+            seek(window, offset);
+            while (nextBlock(window)) {
+                if (block.time / 1000 > endSecond) {
+                    return false;
+                }
+                if (identity == null) {
+                    readRecords(list, -1);
+                } else {
+                    Integer id = ids.get(identity);
+                    if (id != null) {
+                        readRecords(list, id);
+                    }
+                }
+                window.moveTo(block.end);
+                if (list.size() >= maxLines) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            window.close();
+        }
+    }
+
+    /**
+     * Read metrics of all resources, see {@link MetricsReader#readMetricsInOneFile(List, String, long, int)}.
+     */
+    synchronized void read(List<MetricNode> list, long offset, int recommendLines) throws IOException {
+        long lastSecond = -1;
+        if (list.size() > 0) {
+            lastSecond = list.get(list.size() - 1).getTimestamp() / 1000;
+        }
+        Window window = open();
+        try {
+            seek(window, offset);
+            while (nextBlock(window)) {
+                long currentSecond = block.time / 1000;
+                // Data in the same second is never split.
+                if (list.size() >= recommendLines && currentSecond != lastSecond) {
+                    break;
+                }
+                readRecords(list, -1);
+                window.moveTo(block.end);
+                lastSecond = currentSecond;
+            }
+        } finally {
+            window.close();
+        }
+    }
+
+    private Window open() throws IOException {
+        RandomAccessFile file = new RandomAccessFile(fileName, "r");
+        try {
+            return new Window(file);
+        } catch (IOException ex) {
+            file.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Move to the block at given offset, registering the resource definitions of all preceding blocks.
+     */
+    private void seek(Window window, long offset) throws IOException {
+        long target = Math.max(offset, BinaryMetricEncoder.HEADER_LENGTH);
+        if (target > window.fileSize) {
+            window.moveTo(window.fileSize);
+            return;
+        }
+        if (scannedPosition < target) {
+            window.moveTo(scannedPosition);
+            while (scannedPosition < target && nextBlock(window)) {
+                window.moveTo(block.end);
+            }
+        }
+        window.moveTo(Math.min(target, scannedPosition));
+    }
+
+    /**
+     * Parse the header of the block at current position. After this, the position of the buffer
+     * is the start of the records, and the whole block is in the buffer.
+     *
+     * @return false if there are no more complete blocks
+     */
+    private boolean nextBlock(Window window) throws IOException {
+        long start = window.position();
+        if (start >= window.fileSize || start > scannedPosition) {
+            // Definitions of the preceding blocks are unknown.
+            return false;
+        }
+        while (!parseBlock(window, start)) {
+            // The block may be cut off by the end of the window.
+            if (!window.extend(start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean parseBlock(Window window, long start) {
+        window.moveWithin(start);
+        try {
+            long time = readVarLong(buffer);
+            int definitionCount = readVarInt(buffer);
+            int definitionStart = buffer.position();
+            for (int i = 0; i < definitionCount; i++) {
+                int length = readVarInt(buffer);
+                buffer.position(buffer.position() + length);
+            }
+            int nodeCount = readVarInt(buffer);
+            int bodyLength = readVarInt(buffer);
+            long bodyStart = window.position();
+            if (bodyLength < 0 || bodyStart + bodyLength > window.end()) {
+                // The block is being written, or not entirely in the window.
+                return false;
+            }
+            if (start == scannedPosition) {
+                int recordStart = buffer.position();
+                registerDefinitions(definitionStart, definitionCount);
+                scannedPosition = bodyStart + bodyLength;
+                buffer.position(recordStart);
+            }
+            block.time = time;
+            block.nodeCount = nodeCount;
+            block.end = bodyStart + bodyLength;
+            return true;
+        } catch (RuntimeException ex) {
+            // Incomplete block.
+            return false;
+        }
+    }
+
+    private void registerDefinitions(int definitionStart, int definitionCount) {
+        buffer.position(definitionStart);
+        for (int i = 0; i < definitionCount; i++) {
+            byte[] name = new byte[readVarInt(buffer)];
+            buffer.get(name);
+            String resource = new String(name, BinaryMetricEncoder.CHARSET);
+            ids.put(resource, names.size());
+            names.add(resource);
+        }
+    }
+
+    /**
+     * Read the records of current block.
+     *
+     * @param targetId id of the resource to read, or -1 to read all resources
+     */
+    private void readRecords(List<MetricNode> list, int targetId) {
+        for (int i = 0; i < block.nodeCount; i++) {
+            int id = readVarInt(buffer);
+            int payloadLength = buffer.get() & 0xFF;
+            if (targetId >= 0 && id != targetId) {
+                buffer.position(buffer.position() + payloadLength);
+                continue;
+            }
+            MetricNode node = new MetricNode();
+            node.setTimestamp(block.time);
+            node.setResource(names.get(id));
+            node.setPassQps(readVarLong(buffer));
+            node.setBlockQps(readVarLong(buffer));
+            node.setSuccessQps(readVarLong(buffer));
+            node.setExceptionQps(readVarLong(buffer));
+            node.setRt(readVarLong(buffer));
+            list.add(node);
+        }
+    }
+
+    /**
+     * The part of the file in the buffer, from {@code start} of the file.
+     */
+    private final class Window {
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final long fileSize;
+        private long start;
+
+        Window(RandomAccessFile file) throws IOException {
+            this.file = file;
+            this.channel = file.getChannel();
+            this.fileSize = channel.size();
+            // Empty until the first move.
+            this.start = fileSize;
+            buffer.clear().limit(0);
+        }
+
+        long position() {
+            return start + buffer.position();
+        }
+
+        long end() {
+            return start + buffer.limit();
+        }
+
+        /**
+         * Move to the position, which must be in the window.
+         */
+        void moveWithin(long position) {
+            buffer.position((int)(position - start));
+        }
+
+        /**
+         * Move to the position, reading the file from there if it's out of the window.
+         */
+        void moveTo(long position) throws IOException {
+            if (position >= start && position <= end()) {
+                moveWithin(position);
+            } else {
+                load(position, buffer.capacity());
+            }
+        }
+
+        /**
+         * Read more of the file from the position, so that a block starting there that is cut off
+         * by the end of the window can be parsed.
+         *
+         * @return false if the window has reached the end of the file
+         */
+        boolean extend(long position) throws IOException {
+            if (end() >= fileSize) {
+                return false;
+            }
+            // The block is larger than the buffer.
+            int capacity = position == start ? buffer.capacity() * 2 : buffer.capacity();
+            load(position, Math.max(capacity, readWindowSize));
+            return true;
+        }
+
+        private void load(long position, int capacity) throws IOException {
+            if (buffer.capacity() < capacity) {
+                buffer = ByteBuffer.allocate(capacity);
+            }
+            int length = (int)Math.max(0, Math.min(capacity, fileSize - position));
+            buffer.clear().limit(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            start = position;
+        }
+
+        void close() throws IOException {
+            file.close();
+        }
+    }
+
+    private static final class Block {
+        long time;
+        int nodeCount;
+        long end;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Metric index file ({@code .idx}), which consists of (second, offset) entries of 16 bytes in ascending
+ * order of second, see {@link MetricWriter}. Lookups binary-search the entries. A rolled index file no longer
+ * grows, so it is memory-mapped once. The index file being written is searched with positional reads instead,
+ * as re-mapping it whenever it grows would leave stale mappings behind until they are garbage collected.
+ * Lookups can be performed concurrently.
+ *
+ * @since 1.4.1
+ */
+final class MappedMetricIndex {
+
+    private static final int ENTRY_LENGTH = 16;
+
+    private final String fileName;
+
+    /**
+     * Mapped entries, only present once the file has been rolled.
+     */
+    private volatile ByteBuffer mapped;
+    private volatile int mappedEntries;
+
+    MappedMetricIndex(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Find the offset in the metric file of the first second not before {@code beginSecond}.
+     *
+     * @param beginSecond the second to search
+     * @param rolled      whether the index file has been rolled, i.e. is no longer written
+     * @return offset in the metric file, or -1 if all seconds in the index are before {@code beginSecond}
+     */
+    long findOffset(long beginSecond, boolean rolled) throws IOException {
+        if (rolled) {
+            ByteBuffer buffer = mapped;
+            if (buffer == null) {
+                buffer = map();
+            }
+            return findOffset(buffer, mappedEntries, beginSecond);
+        }
+        RandomAccessFile file;
+        try {
+            file = new RandomAccessFile(fileName, "r");
+        } catch (FileNotFoundException ex) {
+            // The file has been removed.
+            return -1;
+        }
+        try {
+            FileChannel channel = file.getChannel();
+            // Only complete entries are searched, the last one may be partially written.
+            return findOffset(channel, (int)(channel.size() / ENTRY_LENGTH), beginSecond);
+        } finally {
+            file.close();
+        }
+    }
+
+    private static long findOffset(ByteBuffer buffer, int entries, long beginSecond) {
+        int low = 0;
+        int high = entries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(mid * ENTRY_LENGTH) < beginSecond) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (low >= entries) {
+            return -1;
+        }
+        return buffer.getLong(low * ENTRY_LENGTH + 8);
+    }
+
+    private static long findOffset(FileChannel channel, int entries, long beginSecond) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        int low = 0;
+        int high = entries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (readLong(channel, buffer, (long)mid * ENTRY_LENGTH) < beginSecond) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (low >= entries) {
+            return -1;
+        }
+        return readLong(channel, buffer, (long)low * ENTRY_LENGTH + 8);
+    }
+
+    private static long readLong(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of metric index file at " + position);
+            }
+        }
+        return buffer.getLong(0);
+    }
+
+    private synchronized ByteBuffer map() throws IOException {
+        if (mapped != null) {
+            return mapped;
+        }
+        RandomAccessFile file = new RandomAccessFile(fileName, "r");
+        try {
+            int entries = (int)(file.length() / ENTRY_LENGTH);
+            ByteBuffer buffer = entries == 0 ? ByteBuffer.allocate(0)
+                : file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, (long)entries * ENTRY_LENGTH);
+            mappedEntries = entries;
+            mapped = buffer;
+            return buffer;
+        } finally {
+            // The mapping stays valid after the file is closed.
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exporter of the aggregated metrics, which is invoked by {@link MetricTimerListener}
+ * after the metrics of each run have been written to the metric files.
+ *
+ * @since 1.4.1
+ */
+public interface MetricExporter {
+
+    /**
+     * Export the aggregated metrics collected in one run. The exporter is invoked in the metric
+     * timer thread, so it should not block.
+     *
+     * @param metrics timestamp (second) -> metric nodes of that second, ordered by timestamp
+     * @throws Exception if any error occurs
+     */
+    void export(Map<Long, List<MetricNode>> metrics) throws Exception;
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the {@link MetricExporter}s invoked by {@link MetricTimerListener}.
+ *
+ * @since 1.4.1
+ */
+public final class MetricExporterRegistry {
+
+    private static final Map<String, MetricExporter> exporterMap = new ConcurrentHashMap<String, MetricExporter>();
+
+    private static volatile List<MetricExporter> exporters = Collections.emptyList();
+
+    public static synchronized void addExporter(String key, MetricExporter exporter) {
+        exporterMap.put(key, exporter);
+        refreshExporters();
+    }
+
+    public static synchronized MetricExporter removeExporter(String key) {
+        if (key == null) {
+            return null;
+        }
+        MetricExporter exporter = exporterMap.remove(key);
+        refreshExporters();
+        return exporter;
+    }
+
+    public static synchronized void clearExporter() {
+        exporterMap.clear();
+        refreshExporters();
+    }
+
+    public static List<MetricExporter> getExporters() {
+        return exporters;
+    }
+
+    private static void refreshExporters() {
+        exporters = Collections.unmodifiableList(new ArrayList<MetricExporter>(exporterMap.values()));
+    }
+
+    private MetricExporterRegistry() {}
+}
@@ -15,19 +15,18 @@
  */
 package com.alibaba.csp.sentinel.node.metric;
 
-import java.io.DataInputStream;
-import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 
 /**
  * 从指定目录下找出所有的metric文件，并按照指定时间戳进行检索，参考{@link MetricSearcher#find(long, int)}。
- * 会借助索引以提高检索效率，参考{@link MetricWriter}；还会在内部缓存上一次检索的文件指针，以便下一次顺序检索时
- * 减少读盘次数。
+ * 会借助索引以提高检索效率，参考{@link MetricWriter}：索引文件通过内存映射后二分查找，每个文件的查找代价为O(log n)；
+ * 文件列表会被缓存，直到{@link MetricWriter}滚动文件或目录发生变化。检索方法是线程安全的，可以被并发调用。
  *
  * @author leyou
  */
@@ -39,7 +38,13 @@ public class MetricSearcher {
     private String baseDir;
     private String baseFileName;
 
-    private Position lastPosition = new Position();
+    /**
+     * Index file name -> index of the file.
+     */
+    private final ConcurrentHashMap<String, MappedMetricIndex> indexes
+        = new ConcurrentHashMap<String, MappedMetricIndex>();
+
+    private volatile FileList fileList = new FileList(-1, -1, null);
 
     /**
      * @param baseDir      metric文件所在目录
@@ -81,23 +86,10 @@ public class MetricSearcher {
      * @return
      * @throws Exception
      */
-    public synchronized List<MetricNode> find(long beginTimeMs, int recommendLines) throws Exception {
-        List<String> fileNames = MetricWriter.listMetricFiles(baseDir, baseFileName);
-        int i = 0;
-        long offsetInIndex = 0;
-        if (validPosition(beginTimeMs)) {
-            i = fileNames.indexOf(lastPosition.metricFileName);
-            if (i == -1) {
-                i = 0;
-            } else {
-                offsetInIndex = lastPosition.offsetInIndex;
-            }
-        }
-        for (; i < fileNames.size(); i++) {
-            String fileName = fileNames.get(i);
-            long offset = findOffset(beginTimeMs, fileName,
-                MetricWriter.formIndexFileName(fileName), offsetInIndex);
-            offsetInIndex = 0;
+    public List<MetricNode> find(long beginTimeMs, int recommendLines) throws Exception {
+        List<String> fileNames = listMetricFiles();
+        for (int i = 0; i < fileNames.size(); i++) {
+            long offset = findOffset(beginTimeMs, fileNames.get(i), i < fileNames.size() - 1);
             if (offset != -1) {
                 return metricsReader.readMetrics(fileNames, i, offset, recommendLines);
             }
@@ -110,29 +102,11 @@ public class MetricSearcher {
      * When identity is null, all metric between the time intervalMs will be read, otherwise, only the specific
      * identity will be read.
      */
-    public synchronized List<MetricNode> findByTimeAndResource(long beginTimeMs, long endTimeMs, String identity)
+    public List<MetricNode> findByTimeAndResource(long beginTimeMs, long endTimeMs, String identity)
         throws Exception {
-        List<String> fileNames = MetricWriter.listMetricFiles(baseDir, baseFileName);
-        //RecordLog.info("pid=" + pid + ", findByTimeAndResource([" + beginTimeMs + ", " + endTimeMs
-        //    + "], " + identity + ")");
-        int i = 0;
-        long offsetInIndex = 0;
-        if (validPosition(beginTimeMs)) {
-            i = fileNames.indexOf(lastPosition.metricFileName);
-            if (i == -1) {
-                i = 0;
-            } else {
-                offsetInIndex = lastPosition.offsetInIndex;
-            }
-        } else {
-            //RecordLog.info("lastPosition is invalidate, will re iterate all files, pid = " + pid);
-        }
-
-        for (; i < fileNames.size(); i++) {
-            String fileName = fileNames.get(i);
-            long offset = findOffset(beginTimeMs, fileName,
-                    MetricWriter.formIndexFileName(fileName), offsetInIndex);
-            offsetInIndex = 0;
+        List<String> fileNames = listMetricFiles();
+        for (int i = 0; i < fileNames.size(); i++) {
+            long offset = findOffset(beginTimeMs, fileNames.get(i), i < fileNames.size() - 1);
             if (offset != -1) {
                 return metricsReader.readMetricsByEndTime(fileNames, i, offset, endTimeMs, identity);
             }
@@ -141,83 +115,56 @@ public class MetricSearcher {
     }
 
     /**
-     * 记录上一次读取的index文件位置和数值
+     * List the metric files, the cached list is reused until {@link MetricWriter} rolls a file
+     * or the directory is modified (e.g. by the writer of another process).
      */
-    private static final class Position {
-        String metricFileName;
-        String indexFileName;
-        /**
-         * 索引文件内的偏移
-         */
-        long offsetInIndex;
-        /**
-         * 索引文件中offsetInIndex位置上的数字，秒数。
-         */
-        long second;
-    }
-
-    /**
-     * The position we cached is useful only when {@code beginTimeMs} is >= {@code lastPosition.second}
-     * and the index file exists and the second we cached is same as in the index file.
-     */
-    private boolean validPosition(long beginTimeMs) {
-        if (beginTimeMs / 1000 < lastPosition.second) {
-            return false;
-        }
-        if (lastPosition.indexFileName == null) {
-            return false;
-        }
-        // index file dose not exits
-        if (!new File(lastPosition.indexFileName).exists()) {
-            return false;
+    private List<String> listMetricFiles() throws Exception {
+        // Read the generation before listing, so that the list is never older than the generation.
+        long generation = MetricWriter.fileGeneration();
+        long dirModified = new File(baseDir).lastModified();
+        FileList current = fileList;
+        if (current.fileNames != null && current.generation == generation && current.dirModified == dirModified) {
+            return current.fileNames;
         }
-        FileInputStream in = null;
-        try {
-            in = new FileInputStream(lastPosition.indexFileName);
-            in.getChannel().position(lastPosition.offsetInIndex);
-            DataInputStream indexIn = new DataInputStream(in);
-            // timestamp(second) in the specific position == that we cached
-            return indexIn.readLong() == lastPosition.second;
-        } catch (Exception e) {
-            return false;
-        } finally {
-            if (in != null) {
-                try {
-                    in.close();
-                } catch (Exception ignore) {
-                }
+        List<String> fileNames = Collections.unmodifiableList(MetricWriter.listMetricFiles(baseDir, baseFileName));
+        for (String indexFileName : indexes.keySet()) {
+            if (!fileNames.contains(indexFileName.substring(0,
+                indexFileName.length() - MetricWriter.METRIC_FILE_INDEX_SUFFIX.length()))) {
+                indexes.remove(indexFileName);
             }
         }
+        fileList = new FileList(generation, dirModified, fileNames);
+        return fileNames;
     }
 
-    private long findOffset(long beginTime, String metricFileName,
-                            String idxFileName, long offsetInIndex) throws Exception {
-        lastPosition.metricFileName = null;
-        lastPosition.indexFileName = null;
+    /**
+     * @param rolled whether the metric file has been rolled, only the last file is still written
+     */
+    private long findOffset(long beginTime, String metricFileName, boolean rolled) throws Exception {
+        String idxFileName = MetricWriter.formIndexFileName(metricFileName);
         if (!new File(idxFileName).exists()) {
             return -1;
         }
-        long beginSecond = beginTime / 1000;
-        FileInputStream in = new FileInputStream(idxFileName);
-        in.getChannel().position(offsetInIndex);
-        DataInputStream indexIn = new DataInputStream(in);
-        long offset;
-        try {
-            long second;
-            lastPosition.offsetInIndex = in.getChannel().position();
-            while ((second = indexIn.readLong()) < beginSecond) {
-                offset = indexIn.readLong();
-                lastPosition.offsetInIndex = in.getChannel().position();
+        MappedMetricIndex index = indexes.get(idxFileName);
+        if (index == null) {
+            index = new MappedMetricIndex(idxFileName);
+            MappedMetricIndex old = indexes.putIfAbsent(idxFileName, index);
+            if (old != null) {
+                index = old;
             }
-            offset = indexIn.readLong();
-            lastPosition.metricFileName = metricFileName;
-            lastPosition.indexFileName = idxFileName;
-            lastPosition.second = second;
-            return offset;
-        } catch (EOFException ignore) {
-            return -1;
-        } finally {
-            indexIn.close();
+        }
+        return index.findOffset(beginTime / 1000, rolled);
+    }
+
+    private static final class FileList {
+        private final long generation;
+        private final long dirModified;
+        private final List<String> fileNames;
+
+        private FileList(long generation, long dirModified, List<String> fileNames) {
+            this.generation = generation;
+            this.dirModified = dirModified;
+            this.fileNames = fileNames;
         }
     }
 }
@@ -32,8 +32,16 @@ import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
  */
 public class MetricTimerListener implements Runnable {
 
-    private static final MetricWriter metricWriter = new MetricWriter(SentinelConfig.singleMetricFileSize(),
-        SentinelConfig.totalMetricFileCount());
+    private static final boolean binaryFormat = SentinelConfig.METRIC_FILE_FORMAT_BINARY.equals(
+        SentinelConfig.metricFileFormat());
+
+    private static final AsyncMetricWriter asyncMetricWriter = SentinelConfig.metricWriterAsync()
+        ? new AsyncMetricWriter(SentinelConfig.singleMetricFileSize(), SentinelConfig.totalMetricFileCount(),
+        binaryFormat) : null;
+
+    private static final MetricWriter metricWriter = asyncMetricWriter == null
+        ? new MetricWriter(SentinelConfig.singleMetricFileSize(), SentinelConfig.totalMetricFileCount(), binaryFormat)
+        : null;
 
     @Override
     public void run() {
@@ -58,12 +66,32 @@ public class MetricTimerListener implements Runnable {
         if (!maps.isEmpty()) {
             for (Entry<Long, List<MetricNode>> entry : maps.entrySet()) {
                 try {
-                    metricWriter.write(entry.getKey(), entry.getValue());
+                    if (asyncMetricWriter != null) {
+                        asyncMetricWriter.write(entry.getKey(), entry.getValue());
+                    } else {
+                        metricWriter.write(entry.getKey(), entry.getValue());
+                    }
                 } catch (Exception e) {
                     RecordLog.warn("[MetricTimerListener] Write metric error", e);
                 }
             }
+            for (MetricExporter exporter : MetricExporterRegistry.getExporters()) {
+                try {
+                    exporter.export(maps);
+                } catch (Exception e) {
+                    RecordLog.warn("[MetricTimerListener] Export metric error", e);
+                }
+            }
         }
     }
 
+    /**
+     * Get the asynchronous metric writer, which reports its queue depth and dropped batches.
+     *
+     * @return the asynchronous metric writer, or null if metrics are written synchronously
+     * @since 1.4.1
+     */
+    public static AsyncMetricWriter getAsyncMetricWriter() {
+        return asyncMetricWriter;
+    }
 }
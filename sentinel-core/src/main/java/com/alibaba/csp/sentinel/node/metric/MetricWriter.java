@@ -19,6 +19,9 @@ import java.io.BufferedOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -26,6 +29,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.alibaba.csp.sentinel.log.LogBase;
 import com.alibaba.csp.sentinel.util.PidUtil;
@@ -41,6 +45,16 @@ import com.alibaba.csp.sentinel.log.RecordLog;
  * <li>metric of different day should in different file;</li>
  * <li>every metric file is accompanied with an index file, which file name is {@code ${metricFileName}.idx}</li>
  * </ol>
+ * <p>
+ * Metrics are written as text lines ({@link MetricNode#toFatString()}) by default. In binary format, metrics
+ * are written as compact blocks with dictionary-encoded resource names (see {@link BinaryMetricEncoder}),
+ * while file naming, rolling and the index file stay the same. {@link MetricSearcher} reads files in both formats.
+ * </p>
+ * <p>
+ * By default every second is flushed as it is written. In group commit mode (used by {@link AsyncMetricWriter}),
+ * written seconds are staged in a direct buffer and written through the {@link FileChannel} together on
+ * {@link #commit()}, with exactly the same content.
+ * </p>
  *
  * @author leyou
  */
@@ -58,6 +72,14 @@ public class MetricWriter {
     public static final String METRIC_FILE_INDEX_SUFFIX = ".idx";
     public static final Comparator<String> METRIC_FILE_NAME_CMP = new MetricFileNameComparator();
 
+    /**
+     * Incremented whenever a metric file is created or removed by any writer, so that
+     * {@link MetricSearcher} knows when its cached file list is stale.
+     */
+    private static final AtomicLong FILE_GENERATION = new AtomicLong();
+
+    private static final int INITIAL_PENDING_SIZE = 64 * 1024;
+
     private final DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
     /**
      * 排除时差干扰
@@ -74,10 +96,19 @@ public class MetricWriter {
     private FileOutputStream outMetric;
     private DataOutputStream outIndex;
     private BufferedOutputStream outMetricBuf;
+    /**
+     * Staged metrics not committed yet in group commit mode, or null if every second is flushed at once.
+     */
+    private ByteBuffer pending;
+    private final OutputStream pendingOut = new PendingOutputStream();
     private long singleFileSize;
     private int totalFileCount;
     private boolean append = false;
     private final int pid = PidUtil.getPid();
+    /**
+     * Encoder of metric blocks, or null if metrics are written as text.
+     */
+    private final BinaryMetricEncoder binaryEncoder;
 
     /**
      * 秒级统计，忽略毫秒数。
@@ -89,13 +120,34 @@ public class MetricWriter {
     }
 
     public MetricWriter(long singleFileSize, int totalFileCount) {
+        this(singleFileSize, totalFileCount, false);
+    }
+
+    /**
+     * @param singleFileSize max size of single metric file
+     * @param totalFileCount max count of metric files
+     * @param binaryFormat   whether to write metrics in binary format
+     * @since 1.4.1
+     */
+    public MetricWriter(long singleFileSize, int totalFileCount, boolean binaryFormat) {
+        this(METRIC_BASE_DIR, singleFileSize, totalFileCount, binaryFormat);
+    }
+
+    MetricWriter(String baseDir, long singleFileSize, int totalFileCount, boolean binaryFormat) {
+        this(baseDir, singleFileSize, totalFileCount, binaryFormat, false);
+    }
+
+    MetricWriter(String baseDir, long singleFileSize, int totalFileCount, boolean binaryFormat,
+                 boolean groupCommit) {
         if (singleFileSize <= 0 || totalFileCount <= 0) {
             throw new IllegalArgumentException();
         }
         RecordLog.info(
             "[MetricWriter] Creating new MetricWriter, singleFileSize=" + singleFileSize + ", totalFileCount="
-                + totalFileCount);
-        this.baseDir = METRIC_BASE_DIR;
+                + totalFileCount + ", binaryFormat=" + binaryFormat);
+        this.baseDir = baseDir;
+        this.binaryEncoder = binaryFormat ? new BinaryMetricEncoder() : null;
+        this.pending = groupCommit ? ByteBuffer.allocateDirect(INITIAL_PENDING_SIZE) : null;
         File dir = new File(baseDir);
         if (!dir.exists()) {
             dir.mkdirs();
@@ -119,6 +171,16 @@ public class MetricWriter {
      * @param nodes
      */
     public synchronized void write(long time, List<MetricNode> nodes) throws Exception {
+        write(time, nodes, null);
+    }
+
+    /**
+     * Write metrics of the same second, see {@link #write(long, List)}.
+     *
+     * @param formatted the nodes already formatted as text lines, or null to format them here
+     *                  (always null in binary format)
+     */
+    synchronized void write(long time, List<MetricNode> nodes, ByteBuffer formatted) throws Exception {
         if (nodes == null) {
             return;
         }
@@ -143,29 +205,20 @@ public class MetricWriter {
         if (second < lastSecond) {
             // 时间靠前的直接忽略，不应该发生。
         } else if (second == lastSecond) {
-            for (MetricNode node : nodes) {
-                outMetricBuf.write(node.toFatString().getBytes(CHARSET));
-            }
-            outMetricBuf.flush();
+            writeNodes(time, nodes, formatted);
             if (!validSize()) {
                 closeAndNewFile(nextFileNameOfDay(time));
             }
         } else {
-            writeIndex(second, outMetric.getChannel().position());
+            writeIndex(second, position());
             if (isNewDay(lastSecond, second)) {
                 closeAndNewFile(nextFileNameOfDay(time));
-                for (MetricNode node : nodes) {
-                    outMetricBuf.write(node.toFatString().getBytes(CHARSET));
-                }
-                outMetricBuf.flush();
+                writeNodes(time, nodes, formatted);
                 if (!validSize()) {
                     closeAndNewFile(nextFileNameOfDay(time));
                 }
             } else {
-                for (MetricNode node : nodes) {
-                    outMetricBuf.write(node.toFatString().getBytes(CHARSET));
-                }
-                outMetricBuf.flush();
+                writeNodes(time, nodes, formatted);
                 if (!validSize()) {
                     closeAndNewFile(nextFileNameOfDay(time));
                 }
@@ -175,6 +228,7 @@ public class MetricWriter {
     }
 
     public synchronized void close() throws Exception {
+        commit();
         if (outMetricBuf != null) {
             outMetricBuf.close();
         }
@@ -183,10 +237,58 @@ public class MetricWriter {
         }
     }
 
+    /**
+     * Write the staged metrics and index entries to the files, only needed in group commit mode.
+     */
+    synchronized void commit() throws Exception {
+        if (pending == null || outMetric == null) {
+            return;
+        }
+        pending.flip();
+        FileChannel channel = outMetric.getChannel();
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        pending.clear();
+        // The index is written after the metrics it points at.
+        outIndex.flush();
+    }
+
+    private void writeNodes(long time, List<MetricNode> nodes, ByteBuffer formatted) throws Exception {
+        if (pending != null) {
+            if (formatted != null) {
+                ensurePending(formatted.remaining());
+                pending.put(formatted);
+            } else if (binaryEncoder != null) {
+                binaryEncoder.writeBlock(pendingOut, time, nodes);
+            } else {
+                for (MetricNode node : nodes) {
+                    pendingOut.write(node.toFatString().getBytes(CHARSET));
+                }
+            }
+            return;
+        }
+        if (formatted != null) {
+            outMetricBuf.flush();
+            while (formatted.hasRemaining()) {
+                outMetric.getChannel().write(formatted);
+            }
+        } else if (binaryEncoder != null) {
+            binaryEncoder.writeBlock(outMetricBuf, time, nodes);
+        } else {
+            for (MetricNode node : nodes) {
+                outMetricBuf.write(node.toFatString().getBytes(CHARSET));
+            }
+        }
+        outMetricBuf.flush();
+    }
+
     private void writeIndex(long time, long offset) throws Exception {
         outIndex.writeLong(time);
         outIndex.writeLong(offset);
-        outIndex.flush();
+        if (pending == null) {
+            outIndex.flush();
+        }
     }
 
     private String nextFileNameOfDay(long time) {
@@ -309,6 +411,8 @@ public class MetricWriter {
     }
 
     private void closeAndNewFile(String fileName) throws Exception {
+        // Staged metrics belong to the current file.
+        commit();
         removeMoreFiles();
         if (outMetricBuf != null) {
             outMetricBuf.close();
@@ -318,17 +422,65 @@ public class MetricWriter {
         }
         outMetric = new FileOutputStream(fileName, append);
         outMetricBuf = new BufferedOutputStream(outMetric);
+        if (binaryEncoder != null) {
+            binaryEncoder.writeHeader(outMetricBuf);
+            outMetricBuf.flush();
+        }
         curMetricFile = new File(fileName);
         String idxFile = formIndexFileName(fileName);
         ;
         curMetricIndexFile = new File(idxFile);
         outIndex = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(idxFile, append)));
+        FILE_GENERATION.incrementAndGet();
         RecordLog.info("[MetricWriter] New metric file created: " + fileName);
         RecordLog.info("[MetricWriter] New metric index file created: " + idxFile);
     }
 
+    /**
+     * Position in current metric file, including the staged metrics.
+     */
+    private long position() throws Exception {
+        return outMetric.getChannel().position() + pendingSize();
+    }
+
+    private int pendingSize() {
+        return pending == null ? 0 : pending.position();
+    }
+
+    private void ensurePending(int length) {
+        if (pending.remaining() >= length) {
+            return;
+        }
+        ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(pending.capacity() * 2, pending.position() + length));
+        pending.flip();
+        larger.put(pending);
+        pending = larger;
+    }
+
+    /**
+     * Output stream appending to the staged metrics.
+     */
+    private final class PendingOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+            ensurePending(1);
+            pending.put((byte)b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensurePending(len);
+            pending.put(b, off, len);
+        }
+    }
+
+    static long fileGeneration() {
+        return FILE_GENERATION.get();
+    }
+
     private boolean validSize() throws Exception {
-        long size = outMetric.getChannel().size();
+        long size = outMetric.getChannel().size() + pendingSize();
         return size < singleFileSize;
     }
 
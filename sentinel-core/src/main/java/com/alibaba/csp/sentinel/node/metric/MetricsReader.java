@@ -16,14 +16,18 @@
 package com.alibaba.csp.sentinel.node.metric;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Reads metrics data from log file.
+ * Reads metrics data from log file. Reads can be performed concurrently.
  */
 class MetricsReader {
 
@@ -34,10 +38,51 @@ class MetricsReader {
 
     private final Charset charset;
 
+    /**
+     * Metric file name -> reader of the binary file.
+     */
+    private final ConcurrentHashMap<String, BinaryMetricFile> binaryFiles
+        = new ConcurrentHashMap<String, BinaryMetricFile>();
+    /**
+     * Names of the metric files in text format.
+     */
+    private final Set<String> textFiles = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
     public MetricsReader(Charset charset) {
         this.charset = charset;
     }
 
+    /**
+     * Get the reader of given metric file if it is in binary format.
+     *
+     * @return the reader of the binary file, or null if the file is in text format
+     */
+    private BinaryMetricFile getBinaryFile(String fileName) throws Exception {
+        BinaryMetricFile file = binaryFiles.get(fileName);
+        if (file != null || textFiles.contains(fileName)) {
+            return file;
+        }
+        if (new File(fileName).length() < BinaryMetricEncoder.HEADER_LENGTH) {
+            // Format is unknown yet.
+            return null;
+        }
+        if (!BinaryMetricEncoder.isBinaryFile(fileName)) {
+            textFiles.add(fileName);
+            return null;
+        }
+        file = new BinaryMetricFile(fileName);
+        BinaryMetricFile old = binaryFiles.putIfAbsent(fileName, file);
+        return old != null ? old : file;
+    }
+
+    /**
+     * Drop the cached state of the metric files which have been removed.
+     */
+    private void retainFiles(List<String> fileNames) {
+        binaryFiles.keySet().retainAll(fileNames);
+        textFiles.retainAll(fileNames);
+    }
+
     /**
      * @return if should continue read, return true, else false.
      */
@@ -45,6 +90,10 @@ class MetricsReader {
                                           long offset, long endTimeMs, String identity) throws Exception {
         FileInputStream in = null;
         long endSecond = endTimeMs / 1000;
+        BinaryMetricFile binaryFile = getBinaryFile(fileName);
+        if (binaryFile != null) {
+            return binaryFile.readByEndTime(list, offset, endSecond, identity, MAX_LINES_RETURN);
+        }
         try {
             in = new FileInputStream(fileName);
             in.getChannel().position(offset);
@@ -80,6 +129,11 @@ class MetricsReader {
         //if(list.size() >= recommendLines){
         //    return;
         //}
+        BinaryMetricFile binaryFile = getBinaryFile(fileName);
+        if (binaryFile != null) {
+            binaryFile.read(list, offset, recommendLines);
+            return;
+        }
         long lastSecond = -1;
         if (list.size() > 0) {
             lastSecond = list.get(list.size() - 1).getTimestamp() / 1000;
@@ -116,6 +170,7 @@ class MetricsReader {
      */
     List<MetricNode> readMetricsByEndTime(List<String> fileNames, int pos,
                                           long offset, long endTimeMs, String identity) throws Exception {
+        retainFiles(fileNames);
         List<MetricNode> list = new ArrayList<MetricNode>(1024);
         if (readMetricsInOneFileByEndTime(list, fileNames.get(pos++), offset, endTimeMs, identity)) {
             while (pos < fileNames.size()
@@ -127,6 +182,7 @@ class MetricsReader {
 
     List<MetricNode> readMetrics(List<String> fileNames, int pos,
                                  long offset, int recommendLines) throws Exception {
+        retainFiles(fileNames);
         List<MetricNode> list = new ArrayList<MetricNode>(recommendLines);
         readMetricsInOneFile(list, fileNames.get(pos++), offset, recommendLines);
         while (list.size() < recommendLines && pos < fileNames.size()) {
@@ -19,6 +19,7 @@ import com.alibaba.csp.sentinel.slotchain.DefaultProcessorSlotChain;
 import com.alibaba.csp.sentinel.slotchain.ProcessorSlotChain;
 import com.alibaba.csp.sentinel.slotchain.SlotChainBuilder;
 import com.alibaba.csp.sentinel.slots.block.authority.AuthoritySlot;
+import com.alibaba.csp.sentinel.slots.block.concurrency.AdaptiveConcurrencySlot;
 import com.alibaba.csp.sentinel.slots.block.degrade.DegradeSlot;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowSlot;
 import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
@@ -46,6 +47,7 @@ public class DefaultSlotChainBuilder implements SlotChainBuilder {
         chain.addLast(new AuthoritySlot());
         chain.addLast(new FlowSlot());
         chain.addLast(new DegradeSlot());
+        chain.addLast(new AdaptiveConcurrencySlot());
 
         return chain;
     }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.concurrency;
+
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+
+/**
+ * Thrown when the in-flight requests of a resource reach the adaptive limit.
+ *
+ * @since 1.4.1
+ */
+public class AdaptiveConcurrencyException extends BlockException {
+
+    public AdaptiveConcurrencyException(String ruleLimitApp) {
+        super(ruleLimitApp);
+    }
+
+    public AdaptiveConcurrencyException(String ruleLimitApp, String message) {
+        super(ruleLimitApp, message);
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.concurrency;
+
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.node.DefaultNode;
+import com.alibaba.csp.sentinel.slots.block.AbstractRule;
+
+/**
+ * <p>
+ * Adaptive concurrency rule limits the amount of in-flight requests of a resource without a fixed threshold.
+ * The limit is tuned continuously with the gradient between the long-term (no-load) RT and the RT of
+ * recently completed requests:
+ * </p>
+ *
+ * <pre>
+ * gradient = max(0.5, min(1.0, tolerance * longTermRt / recentRt))
+ * newLimit = limit * gradient + sqrt(limit)
+ * </pre>
+ *
+ * <p>
+ * While the RT stays flat, the limit grows by the square root of itself as headroom; once requests start to
+ * queue up and the RT rises, the limit shrinks accordingly. So the latency keeps flat during overload,
+ * without hand-tuning QPS thresholds.
+ * </p>
+ *
+ * @since 1.4.1
+ * @see AdaptiveConcurrencyRuleManager
+ */
+public class AdaptiveConcurrencyRule extends AbstractRule {
+
+    public AdaptiveConcurrencyRule() {}
+
+    public AdaptiveConcurrencyRule(String resourceName) {
+        setResource(resourceName);
+    }
+
+    /**
+     * The limit to start with.
+     */
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 1000;
+
+    /**
+     * How many times the recent RT may exceed the long-term RT before the limit shrinks.
+     */
+    private double tolerance = 2.0d;
+
+    /**
+     * Weight of the newly estimated limit, in (0, 1]. Smaller value makes the limit change slower.
+     */
+    private double smoothing = 0.2d;
+
+    private volatile GradientConcurrencyLimiter limiter;
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public AdaptiveConcurrencyRule setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+        return this;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public AdaptiveConcurrencyRule setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+        return this;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public AdaptiveConcurrencyRule setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+        return this;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public AdaptiveConcurrencyRule setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public AdaptiveConcurrencyRule setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+        return this;
+    }
+
+    GradientConcurrencyLimiter getLimiter() {
+        GradientConcurrencyLimiter l = limiter;
+        if (l == null) {
+            synchronized (this) {
+                l = limiter;
+                if (l == null) {
+                    l = limiter = new GradientConcurrencyLimiter(this);
+                }
+            }
+        }
+        return l;
+    }
+
+    /**
+     * Get the current in-flight limit of the resource.
+     *
+     * @return current limit
+     */
+    public int getCurrentLimit() {
+        return getLimiter().getLimit();
+    }
+
+    @Override
+    public boolean passCheck(Context context, DefaultNode node, int count, Object... args) {
+        return getLimiter().tryAcquire(count);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AdaptiveConcurrencyRule)) {
+            return false;
+        }
+        if (!super.equals(o)) {
+            return false;
+        }
+
+        AdaptiveConcurrencyRule that = (AdaptiveConcurrencyRule)o;
+
+        if (initialLimit != that.initialLimit) {
+            return false;
+        }
+        if (minLimit != that.minLimit) {
+            return false;
+        }
+        if (maxLimit != that.maxLimit) {
+            return false;
+        }
+        if (Double.compare(that.tolerance, tolerance) != 0) {
+            return false;
+        }
+        return Double.compare(that.smoothing, smoothing) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        long temp;
+        result = 31 * result + initialLimit;
+        result = 31 * result + minLimit;
+        result = 31 * result + maxLimit;
+        temp = Double.doubleToLongBits(tolerance);
+        result = 31 * result + (int)(temp ^ (temp >>> 32));
+        temp = Double.doubleToLongBits(smoothing);
+        result = 31 * result + (int)(temp ^ (temp >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveConcurrencyRule{" +
+            "resource=" + getResource() +
+            ", initialLimit=" + initialLimit +
+            ", minLimit=" + minLimit +
+            ", maxLimit=" + maxLimit +
+            ", tolerance=" + tolerance +
+            ", smoothing=" + smoothing +
+            "}";
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.node.DefaultNode;
+import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
+import com.alibaba.csp.sentinel.property.PropertyListener;
+import com.alibaba.csp.sentinel.property.SentinelProperty;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * Manager of {@link AdaptiveConcurrencyRule}s. At most one rule takes effect for each resource,
+ * the latter one will be ignored.
+ *
+ * @since 1.4.1
+ */
+public final class AdaptiveConcurrencyRuleManager {
+
+    private static volatile Map<String, AdaptiveConcurrencyRule> ruleMap
+        = new ConcurrentHashMap<String, AdaptiveConcurrencyRule>();
+
+    private final static RulePropertyListener listener = new RulePropertyListener();
+    private static SentinelProperty<List<AdaptiveConcurrencyRule>> currentProperty
+        = new DynamicSentinelProperty<List<AdaptiveConcurrencyRule>>();
+
+    static {
+        currentProperty.addListener(listener);
+    }
+
+    /**
+     * Listen to the {@link SentinelProperty} for {@link AdaptiveConcurrencyRule}s. The property is the source
+     * of {@link AdaptiveConcurrencyRule}s. Rules can also be set by {@link #loadRules(List)} directly.
+     *
+     * @param property the property to listen.
+     */
+    public static void register2Property(SentinelProperty<List<AdaptiveConcurrencyRule>> property) {
+        synchronized (listener) {
+            RecordLog.info("[AdaptiveConcurrencyRuleManager] Registering new property to adaptive concurrency "
+                + "rule manager");
+            currentProperty.removeListener(listener);
+            property.addListener(listener);
+            currentProperty = property;
+        }
+    }
+
+    /**
+     * Load {@link AdaptiveConcurrencyRule}s, former rules will be replaced.
+     *
+     * @param rules new rules to load.
+     */
+    public static void loadRules(List<AdaptiveConcurrencyRule> rules) {
+        try {
+            currentProperty.updateValue(rules);
+        } catch (Throwable e) {
+            RecordLog.info(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get a copy of the rules.
+     *
+     * @return a new copy of the rules.
+     */
+    public static List<AdaptiveConcurrencyRule> getRules() {
+        return new ArrayList<AdaptiveConcurrencyRule>(ruleMap.values());
+    }
+
+    public static boolean hasConfig(String resource) {
+        return ruleMap.containsKey(resource);
+    }
+
+    static AdaptiveConcurrencyRule getRuleOfResource(String resource) {
+        return ruleMap.get(resource);
+    }
+
+    /**
+     * Acquire in-flight permits of the resource.
+     *
+     * @param resource the resource
+     * @param context  current context
+     * @param node     current node
+     * @param count    count to acquire
+     * @throws BlockException when the adaptive limit of the resource is reached
+     */
+    static void checkConcurrency(ResourceWrapper resource, Context context, DefaultNode node, int count)
+        throws BlockException {
+        AdaptiveConcurrencyRule rule = ruleMap.get(resource.getName());
+        if (rule == null) {
+            return;
+        }
+        if (!rule.passCheck(context, node, count)) {
+            throw new AdaptiveConcurrencyException(rule.getLimitApp());
+        }
+    }
+
+    public static boolean isValidRule(AdaptiveConcurrencyRule rule) {
+        return rule != null && !StringUtil.isBlank(rule.getResource())
+            && rule.getMinLimit() > 0 && rule.getMaxLimit() >= rule.getMinLimit()
+            && rule.getInitialLimit() > 0 && rule.getTolerance() >= 1
+            && rule.getSmoothing() > 0 && rule.getSmoothing() <= 1;
+    }
+
+    private static final class RulePropertyListener implements PropertyListener<List<AdaptiveConcurrencyRule>> {
+
+        @Override
+        public void configUpdate(List<AdaptiveConcurrencyRule> conf) {
+            ruleMap = loadRuleMap(conf);
+            RecordLog.info("[AdaptiveConcurrencyRuleManager] Adaptive concurrency rules received: " + ruleMap);
+        }
+
+        @Override
+        public void configLoad(List<AdaptiveConcurrencyRule> conf) {
+            ruleMap = loadRuleMap(conf);
+            RecordLog.info("[AdaptiveConcurrencyRuleManager] Adaptive concurrency rules loaded: " + ruleMap);
+        }
+
+        private Map<String, AdaptiveConcurrencyRule> loadRuleMap(List<AdaptiveConcurrencyRule> list) {
+            Map<String, AdaptiveConcurrencyRule> newRuleMap = new ConcurrentHashMap<String, AdaptiveConcurrencyRule>();
+            if (list == null || list.isEmpty()) {
+                return newRuleMap;
+            }
+
+            for (AdaptiveConcurrencyRule rule : list) {
+                if (!isValidRule(rule)) {
+                    RecordLog.warn("[AdaptiveConcurrencyRuleManager] Ignoring invalid rule when loading new rules: "
+                        + rule);
+                    continue;
+                }
+                if (StringUtil.isBlank(rule.getLimitApp())) {
+                    rule.setLimitApp(RuleConstant.LIMIT_APP_DEFAULT);
+                }
+                if (newRuleMap.containsKey(rule.getResource())) {
+                    RecordLog.warn("[AdaptiveConcurrencyRuleManager] Ignoring duplicate rule of resource: " + rule);
+                    continue;
+                }
+                newRuleMap.put(rule.getResource(), rule);
+            }
+            return newRuleMap;
+        }
+    }
+
+    private AdaptiveConcurrencyRuleManager() {}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.concurrency;
+
+import com.alibaba.csp.sentinel.Constants;
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.node.DefaultNode;
+import com.alibaba.csp.sentinel.slotchain.AbstractLinkedProcessorSlot;
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlot;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>A {@link ProcessorSlot} dedicates to {@link AdaptiveConcurrencyRule} checking.</p>
+ *
+ * <p>
+ * This slot acquires in-flight permits, so it should be the last slot that may block, otherwise
+ * the permits will not be released for requests blocked by slots after it.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+public class AdaptiveConcurrencySlot extends AbstractLinkedProcessorSlot<DefaultNode> {
+
+    @Override
+    public void entry(Context context, ResourceWrapper resourceWrapper, DefaultNode node, int count,
+                      boolean prioritized, Object... args) throws Throwable {
+        AdaptiveConcurrencyRuleManager.checkConcurrency(resourceWrapper, context, node, count);
+        fireEntry(context, resourceWrapper, node, count, prioritized, args);
+    }
+
+    @Override
+    public void exit(Context context, ResourceWrapper resourceWrapper, int count, Object... args) {
+        AdaptiveConcurrencyRule rule = AdaptiveConcurrencyRuleManager.getRuleOfResource(resourceWrapper.getName());
+        Entry entry = context.getCurEntry();
+        // Requests with error are blocked, so permits are not acquired.
+        if (rule != null && entry != null && entry.getError() == null) {
+            // Same RT as recorded by StatisticSlot.
+            long rt = Math.min(TimeUtil.currentTimeMillis() - entry.getCreateTime(), Constants.TIME_DROP_VALVE);
+            rule.getLimiter().onComplete(count, rt);
+        }
+        fireExit(context, resourceWrapper, count, args);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>The in-flight limiter of an {@link AdaptiveConcurrencyRule}.</p>
+ *
+ * <p>
+ * The limiter keeps two exponential moving averages of the RT: a short-term one over the last few
+ * completed requests and a long-term one approximating the RT without load. The limit is re-estimated
+ * on every completed request from the gradient between them, see {@link AdaptiveConcurrencyRule}.
+ * </p>
+ *
+ * <p>
+ * Neither acquiring nor estimating takes a lock. Estimations racing with each other may overwrite
+ * one another, which only drops a few samples.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+final class GradientConcurrencyLimiter {
+
+    /**
+     * Weights of the newest sample in the short-term and long-term RT averages.
+     */
+    private static final double SHORT_RT_WEIGHT = 0.1d;
+    private static final double LONG_RT_WEIGHT = 1.0d / 600;
+
+    /**
+     * When the long-term RT exceeds the short-term one by this factor, the long-term RT is stale and decays.
+     */
+    private static final double LONG_RT_DRIFT = 2.0d;
+    private static final double LONG_RT_DECAY = 0.95d;
+
+    private static final double MIN_GRADIENT = 0.5d;
+
+    private final AdaptiveConcurrencyRule rule;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private volatile double limit;
+    private volatile double shortRt = -1;
+    private volatile double longRt = -1;
+
+    GradientConcurrencyLimiter(AdaptiveConcurrencyRule rule) {
+        this.rule = rule;
+        this.limit = clamp(rule.getInitialLimit());
+    }
+
+    int getLimit() {
+        return (int)limit;
+    }
+
+    int getInflight() {
+        return inflight.get();
+    }
+
+    boolean tryAcquire(int count) {
+        while (true) {
+            int current = inflight.get();
+            if (current + count > (int)limit) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + count)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(int count) {
+        while (true) {
+            int current = inflight.get();
+            // Rules may be reloaded between entry and exit, so never go below zero.
+            int next = Math.max(current - count, 0);
+            if (inflight.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Release the acquired permits and re-estimate the limit with the RT of the completed request.
+     *
+     * @param count permits acquired by the request
+     * @param rt    response time of the request
+     */
+    void onComplete(int count, long rt) {
+        // Inflight of the moment the request completes, which tells whether the limit is reached.
+        int currentInflight = inflight.get();
+        release(count);
+
+        double sample = Math.max(rt, 1);
+        double s = shortRt;
+        double l = longRt;
+        if (s < 0) {
+            s = l = sample;
+        } else {
+            s = s + (sample - s) * SHORT_RT_WEIGHT;
+            l = l + (sample - l) * LONG_RT_WEIGHT;
+            if (l / s > LONG_RT_DRIFT) {
+                l = l * LONG_RT_DECAY;
+            }
+        }
+        shortRt = s;
+        longRt = l;
+
+        double current = limit;
+        // Don't grow the limit while it is far from being reached, otherwise it grows unbounded.
+        if (currentInflight * 2 < current) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0d, rule.getTolerance() * l / s));
+        double estimated = current * gradient + Math.sqrt(current);
+        limit = clamp(current * (1 - rule.getSmoothing()) + estimated * rule.getSmoothing());
+    }
+
+    private double clamp(double value) {
+        return Math.max(rule.getMinLimit(), Math.min(rule.getMaxLimit(), value));
+    }
+}
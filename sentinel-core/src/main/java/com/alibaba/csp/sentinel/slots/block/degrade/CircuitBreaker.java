@@ -0,0 +1,173 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.degrade;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>The circuit breaker of a {@link DegradeRule}.</p>
+ *
+ * <p>
+ * The breaker starts {@link State#CLOSED}, recording the outcome of every completed request in its own
+ * {@link CircuitBreakerWindow}. When the window exceeds the threshold of the rule, the breaker turns
+ * {@link State#OPEN} and blocks all requests for {@code timeWindow} seconds. After that, the first request
+ * turns the breaker {@link State#HALF_OPEN} and passes as a probe while the others are still blocked.
+ * The breaker closes as soon as the probe completes successfully, or opens again otherwise.
+ * </p>
+ *
+ * <p>
+ * All transitions are driven by requests entering ({@link #tryPass(Context)}) and completing
+ * ({@link #onRequestComplete(Entry, long)}), with CAS on the state, so there are neither locks
+ * nor timer threads.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Min amount of requests in the window before the breaker could be opened by average RT or exception ratio.
+     */
+    static final int MIN_REQUEST_AMOUNT = 5;
+
+    private final DegradeRule rule;
+    private final CircuitBreakerWindow window;
+
+    private final AtomicReference<State> state = new AtomicReference<State>(State.CLOSED);
+    private volatile long nextRetryTime;
+
+    private final AtomicLong probeTime = new AtomicLong();
+    private volatile Entry probe;
+
+    CircuitBreaker(DegradeRule rule) {
+        this.rule = rule;
+        if (rule.getGrade() == RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT) {
+            // Exceptions are counted in the last minute.
+            this.window = new CircuitBreakerWindow(60, 1000);
+        } else {
+            this.window = new CircuitBreakerWindow(10, 100);
+        }
+    }
+
+    State getState() {
+        return state.get();
+    }
+
+    boolean tryPass(Context context) {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        long now = TimeUtil.currentTimeMillis();
+        Entry entry = context == null ? null : context.getCurEntry();
+        if (current == State.OPEN) {
+            if (now < nextRetryTime) {
+                return false;
+            }
+            probeTime.set(now);
+            if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                probe = entry;
+                return true;
+            }
+            return false;
+        }
+        // Half-open: probe again if the former probe has not come back in a whole time window.
+        long lastProbeTime = probeTime.get();
+        if (now - lastProbeTime >= retryTimeoutInMs() && probeTime.compareAndSet(lastProbeTime, now)) {
+            probe = entry;
+            return true;
+        }
+        return false;
+    }
+
+    void onRequestComplete(Entry entry, long now) {
+        if (entry == null) {
+            return;
+        }
+        State current = state.get();
+        boolean isProbe = current == State.HALF_OPEN && entry == probe;
+        if (entry.getError() != null) {
+            // Blocked by other rules, so the resource is not called at all. Probe with the next request.
+            if (isProbe) {
+                probe = null;
+                nextRetryTime = now;
+                state.compareAndSet(State.HALF_OPEN, State.OPEN);
+            }
+            return;
+        }
+
+        long rt = now - entry.getCreateTime();
+        boolean failed = isFailure(entry, rt);
+        if (isProbe) {
+            probe = null;
+            if (failed) {
+                nextRetryTime = now + retryTimeoutInMs();
+                state.compareAndSet(State.HALF_OPEN, State.OPEN);
+            } else {
+                window.reset();
+                state.compareAndSet(State.HALF_OPEN, State.CLOSED);
+            }
+            return;
+        }
+        if (current != State.CLOSED) {
+            // Requests passed before the breaker opened, which say nothing new.
+            return;
+        }
+
+        window.add(now, rt, failed);
+        if (exceedsThreshold(window.sum(now))) {
+            nextRetryTime = now + retryTimeoutInMs();
+            state.compareAndSet(State.CLOSED, State.OPEN);
+        }
+    }
+
+    private boolean isFailure(Entry entry, long rt) {
+        if (rule.getGrade() == RuleConstant.DEGRADE_GRADE_RT) {
+            return rt >= rule.getCount();
+        }
+        return entry.getTracedError() != null;
+    }
+
+    private boolean exceedsThreshold(CircuitBreakerWindow.Counts counts) {
+        switch (rule.getGrade()) {
+            case RuleConstant.DEGRADE_GRADE_RT:
+                return counts.total >= MIN_REQUEST_AMOUNT && counts.avgRt() >= rule.getCount();
+            case RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO:
+                return counts.total >= MIN_REQUEST_AMOUNT && counts.errors > 0
+                    && counts.errorRatio() >= rule.getCount();
+            case RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT:
+                return counts.errors > 0 && counts.errors >= rule.getCount();
+            default:
+                return false;
+        }
+    }
+
+    private long retryTimeoutInMs() {
+        return rule.getTimeWindow() * 1000L;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.degrade;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>A compact sliding window of request outcomes for a {@link CircuitBreaker}.</p>
+ *
+ * <p>
+ * The window is a ring of {@code bucketCount} buckets. An outdated bucket is replaced by a fresh one
+ * with CAS instead of being reset in place, so neither recording nor reading takes a lock.
+ * An update racing with the replacement may land in the outdated bucket and get lost,
+ * which only happens at bucket boundaries and is fine for a circuit breaker.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+final class CircuitBreakerWindow {
+
+    private static final int TOTAL = 0;
+    private static final int ERROR = 1;
+    private static final int RT = 2;
+
+    private final int bucketLengthInMs;
+    private final int intervalInMs;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    CircuitBreakerWindow(int bucketCount, int bucketLengthInMs) {
+        this.bucketLengthInMs = bucketLengthInMs;
+        this.intervalInMs = bucketCount * bucketLengthInMs;
+        this.ring = new AtomicReferenceArray<Bucket>(bucketCount);
+    }
+
+    void add(long now, long rt, boolean error) {
+        AtomicLongArray values = currentBucket(now).values;
+        values.incrementAndGet(TOTAL);
+        if (error) {
+            values.incrementAndGet(ERROR);
+        }
+        values.addAndGet(RT, rt);
+    }
+
+    private Bucket currentBucket(long now) {
+        int idx = (int)((now / bucketLengthInMs) % ring.length());
+        long start = now - now % bucketLengthInMs;
+        while (true) {
+            Bucket bucket = ring.get(idx);
+            if (bucket != null && bucket.start == start) {
+                return bucket;
+            }
+            if (bucket != null && bucket.start > start) {
+                // The clock went back, record into the newer bucket.
+                return bucket;
+            }
+            Bucket fresh = new Bucket(start);
+            if (ring.compareAndSet(idx, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    /**
+     * @param now current time
+     * @return sums of the buckets within the interval
+     */
+    Counts sum(long now) {
+        Counts counts = new Counts();
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket == null || now - bucket.start >= intervalInMs) {
+                continue;
+            }
+            counts.total += bucket.values.get(TOTAL);
+            counts.errors += bucket.values.get(ERROR);
+            counts.rtSum += bucket.values.get(RT);
+        }
+        return counts;
+    }
+
+    void reset() {
+        for (int i = 0; i < ring.length(); i++) {
+            ring.set(i, null);
+        }
+    }
+
+    static final class Counts {
+        long total;
+        long errors;
+        long rtSum;
+
+        double avgRt() {
+            return total == 0 ? 0 : (double)rtSum / total;
+        }
+
+        double errorRatio() {
+            return total == 0 ? 0 : (double)errors / total;
+        }
+    }
+
+    private static final class Bucket {
+        private final long start;
+        private final AtomicLongArray values = new AtomicLongArray(3);
+
+        private Bucket(long start) {
+            this.start = start;
+        }
+    }
+}
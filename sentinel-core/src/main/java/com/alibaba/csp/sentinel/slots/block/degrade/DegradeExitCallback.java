@@ -0,0 +1,43 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.degrade;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlotExitCallback;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * Feeds the outcome of completed requests to the {@link CircuitBreaker}s of the {@link DegradeRule}s.
+ *
+ * @since 1.4.1
+ */
+final class DegradeExitCallback implements ProcessorSlotExitCallback {
+
+    @Override
+    public void onExit(Context context, ResourceWrapper resourceWrapper, int count, Object... args) {
+        List<DegradeRule> rules = DegradeRuleManager.getRulesOfResource(resourceWrapper.getName());
+        if (rules == null || context.getCurEntry() == null) {
+            return;
+        }
+        long now = TimeUtil.currentTimeMillis();
+        for (int i = 0; i < rules.size(); i++) {
+            rules.get(i).getCircuitBreaker().onRequestComplete(context.getCurEntry(), now);
+        }
+    }
+}
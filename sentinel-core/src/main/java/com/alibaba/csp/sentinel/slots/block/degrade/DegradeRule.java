@@ -15,18 +15,12 @@
  */
 package com.alibaba.csp.sentinel.slots.block.degrade;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
-import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
 import com.alibaba.csp.sentinel.context.Context;
-import com.alibaba.csp.sentinel.node.ClusterNode;
 import com.alibaba.csp.sentinel.node.DefaultNode;
 import com.alibaba.csp.sentinel.slots.block.AbstractRule;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
-import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
 
 /**
  * <p>
@@ -37,28 +31,31 @@ import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
  * <ul>
  * <li>
  * Average response time ({@code DEGRADE_GRADE_RT}): When
- * the average RT exceeds the threshold ('count' in 'DegradeRule', in milliseconds), the
- * resource enters a quasi-degraded state. If the RT of next coming 5
- * requests still exceed this threshold, this resource will be downgraded, which
+ * the average RT of at least 5 requests in the last second exceeds the threshold
+ * ('count' in 'DegradeRule', in milliseconds), this resource will be downgraded, which
  * means that in the next time window (defined in 'timeWindow', in seconds) all the
  * access to this resource will be blocked.
  * </li>
  * <li>
- * Exception ratio: When the ratio of exception count per second and the
- * success qps exceeds the threshold, access to the resource will be blocked in
+ * Exception ratio: When the ratio of traced exceptions to the requests completed
+ * in the last second exceeds the threshold, access to the resource will be blocked in
  * the coming window.
  * </li>
+ * <li>
+ * Exception count: When the amount of traced exceptions in the last minute exceeds
+ * the threshold, access to the resource will be blocked in the coming window.
+ * </li>
  * </ul>
+ * <p>
+ * After the time window, a single request is let through as a probe. If it completes
+ * fine, the resource recovers at once, otherwise it is blocked for another time window.
+ * See {@link CircuitBreaker} for details.
+ * </p>
  *
  * @author jialiang.linjl
  */
 public class DegradeRule extends AbstractRule {
 
-    private static final int RT_MAX_EXCEED_N = 5;
-
-    private static ScheduledExecutorService pool = Executors.newScheduledThreadPool(
-        Runtime.getRuntime().availableProcessors(), new NamedThreadFactory("sentinel-degrade-reset-task", true));
-
     public DegradeRule() {}
 
     public DegradeRule(String resourceName) {
@@ -80,7 +77,9 @@ public class DegradeRule extends AbstractRule {
      */
     private int grade = RuleConstant.DEGRADE_GRADE_RT;
 
-    private volatile boolean cut = false;
+    private volatile CircuitBreaker circuitBreaker;
+
+    private final AtomicLong passCount = new AtomicLong(0);
 
     public int getGrade() {
         return grade;
@@ -91,10 +90,6 @@ public class DegradeRule extends AbstractRule {
         return this;
     }
 
-    private AtomicLong passCount = new AtomicLong(0);
-
-    private final Object lock = new Object();
-
     public double getCount() {
         return count;
     }
@@ -105,17 +100,35 @@ public class DegradeRule extends AbstractRule {
     }
 
     public boolean isCut() {
-        return cut;
-    }
-
-    private void setCut(boolean cut) {
-        this.cut = cut;
+        CircuitBreaker breaker = circuitBreaker;
+        return breaker != null && breaker.getState() != CircuitBreaker.State.CLOSED;
     }
 
+    /**
+     * Kept for compatibility only.
+     *
+     * @return a counter that is no longer updated
+     * @deprecated the count of consecutive slow requests is replaced by the sliding-window statistics
+     * of {@link CircuitBreaker}, and it's no longer tracked by the rule
+     */
+    @Deprecated
     public AtomicLong getPassCount() {
         return passCount;
     }
 
+    CircuitBreaker getCircuitBreaker() {
+        CircuitBreaker breaker = circuitBreaker;
+        if (breaker == null) {
+            synchronized (this) {
+                breaker = circuitBreaker;
+                if (breaker == null) {
+                    breaker = circuitBreaker = new CircuitBreaker(this);
+                }
+            }
+        }
+        return breaker;
+    }
+
     public int getTimeWindow() {
         return timeWindow;
     }
@@ -162,60 +175,7 @@ public class DegradeRule extends AbstractRule {
 
     @Override
     public boolean passCheck(Context context, DefaultNode node, int acquireCount, Object... args) {
-        if (cut) {
-            return false;
-        }
-
-        ClusterNode clusterNode = ClusterBuilderSlot.getClusterNode(this.getResource());
-        if (clusterNode == null) {
-            return true;
-        }
-
-        if (grade == RuleConstant.DEGRADE_GRADE_RT) {
-            double rt = clusterNode.avgRt();
-            if (rt < this.count) {
-                passCount.set(0);
-                return true;
-            }
-
-            // Sentinel will degrade the service only if count exceeds.
-            if (passCount.incrementAndGet() < RT_MAX_EXCEED_N) {
-                return true;
-            }
-        } else if (grade == RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO) {
-            double exception = clusterNode.exceptionQps();
-            double success = clusterNode.successQps();
-            long total = clusterNode.totalQps();
-            // if total qps less than RT_MAX_EXCEED_N, pass.
-            if (total < RT_MAX_EXCEED_N) {
-                return true;
-            }
-
-            double realSuccess = success - exception;
-            if (realSuccess <= 0 && exception < RT_MAX_EXCEED_N) {
-                return true;
-            }
-
-            if (exception / success < count) {
-                return true;
-            }
-        } else if (grade == RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT) {
-            double exception = clusterNode.totalException();
-            if (exception < count) {
-                return true;
-            }
-        }
-
-        synchronized (lock) {
-            if (!cut) {
-                // Automatically degrade.
-                cut = true;
-                ResetTask resetTask = new ResetTask(this);
-                pool.schedule(resetTask, timeWindow, TimeUnit.SECONDS);
-            }
-
-            return false;
-        }
+        return getCircuitBreaker().tryPass(context);
     }
 
     @Override
@@ -228,20 +188,4 @@ public class DegradeRule extends AbstractRule {
             ", timeWindow=" + timeWindow +
             "}";
     }
-
-    private static final class ResetTask implements Runnable {
-
-        private DegradeRule rule;
-
-        ResetTask(DegradeRule rule) {
-            this.rule = rule;
-        }
-
-        @Override
-        public void run() {
-            rule.getPassCount().set(0);
-            rule.setCut(false);
-        }
-    }
 }
-
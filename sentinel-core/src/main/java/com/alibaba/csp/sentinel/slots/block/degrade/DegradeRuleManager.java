@@ -29,6 +29,7 @@ import com.alibaba.csp.sentinel.property.SentinelProperty;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.statistic.StatisticSlotCallbackRegistry;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
 /***
@@ -46,6 +47,7 @@ public class DegradeRuleManager {
 
     static {
         currentProperty.addListener(listener);
+        StatisticSlotCallbackRegistry.addExitCallback(DegradeExitCallback.class.getName(), new DegradeExitCallback());
     }
 
     /**
@@ -81,6 +83,10 @@ public class DegradeRuleManager {
         }
     }
 
+    static List<DegradeRule> getRulesOfResource(String resource) {
+        return degradeRules.get(resource);
+    }
+
     public static boolean hasConfig(String resource) {
         return degradeRules.containsKey(resource);
     }
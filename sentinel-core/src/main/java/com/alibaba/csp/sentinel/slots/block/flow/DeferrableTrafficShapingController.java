@@ -0,0 +1,47 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow;
+
+import com.alibaba.csp.sentinel.node.Node;
+
+/**
+ * <p>A traffic shaping controller that paces requests by queueing them. Besides the blocking
+ * {@link #canPass(Node, int, boolean)}, which waits on the caller thread until the request may go,
+ * it can reserve the admission without waiting, so that asynchronous callers can schedule the work
+ * at the admission time themselves.</p>
+ *
+ * <p>Both ways take the same place in the queue, so the pacing is the same.</p>
+ *
+ * @since 1.4.1
+ */
+public interface DeferrableTrafficShapingController extends TrafficShapingController {
+
+    /**
+     * Returned by {@link #reserve(Node, int, boolean)} when the request is not admitted.
+     */
+    long NOT_ADMITTED = -1;
+
+    /**
+     * Reserve the admission of given request without waiting.
+     *
+     * @param node         resource node
+     * @param acquireCount count to acquire
+     * @param prioritized  whether the request is prioritized
+     * @return the time in milliseconds to wait before the request is admitted ({@code 0} for now),
+     * or {@link #NOT_ADMITTED} if it should be blocked
+     */
+    long reserve(Node node, int acquireCount, boolean prioritized);
+}
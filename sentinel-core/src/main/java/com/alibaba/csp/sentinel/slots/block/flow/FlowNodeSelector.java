@@ -0,0 +1,104 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow;
+
+import java.util.Set;
+
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.node.DefaultNode;
+import com.alibaba.csp.sentinel.node.Node;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * Node selection of a loaded {@link FlowRule}, resolved from its limit app and strategy when the rules
+ * of the resource are compiled into a {@link FlowRulePlan}. Selects the same node as
+ * {@link FlowRuleChecker#selectNodeByRequesterAndStrategy(FlowRule, Context, DefaultNode)} without
+ * comparing against the reserved limit apps or looking up the rules of the resource again.
+ *
+ * @since 1.4.1
+ */
+final class FlowNodeSelector {
+
+    /**
+     * The rule limits a specific origin.
+     */
+    static final int MATCH_ORIGIN = 0;
+    /**
+     * The rule limits all origins ({@link RuleConstant#LIMIT_APP_DEFAULT}).
+     */
+    static final int MATCH_ALL = 1;
+    /**
+     * The rule limits origins not limited by any other rule of the resource
+     * ({@link RuleConstant#LIMIT_APP_OTHER}).
+     */
+    static final int MATCH_OTHER = 2;
+
+    private final int match;
+    private final String limitApp;
+    private final Set<String> limitApps;
+    private final int strategy;
+    private final String refResource;
+
+    /**
+     * @param rule      a valid rule with non-null limit app
+     * @param limitApps limit apps of all rules of the resource
+     */
+    FlowNodeSelector(FlowRule rule, Set<String> limitApps) {
+        this.limitApp = rule.getLimitApp();
+        if (RuleConstant.LIMIT_APP_DEFAULT.equals(limitApp)) {
+            this.match = MATCH_ALL;
+        } else if (RuleConstant.LIMIT_APP_OTHER.equals(limitApp)) {
+            this.match = MATCH_OTHER;
+        } else {
+            this.match = MATCH_ORIGIN;
+        }
+        this.limitApps = limitApps;
+        this.strategy = rule.getStrategy();
+        this.refResource = StringUtil.isEmpty(rule.getRefResource()) ? null : rule.getRefResource();
+    }
+
+    /**
+     * Whether the rule applies to the given origin.
+     */
+    boolean matches(String origin) {
+        switch (match) {
+            case MATCH_ALL:
+                return true;
+            case MATCH_OTHER:
+                return !StringUtil.isEmpty(origin) && !limitApps.contains(origin);
+            default:
+                return limitApp.equals(origin);
+        }
+    }
+
+    Node select(Context context, DefaultNode node) {
+        if (!matches(context.getOrigin())) {
+            return null;
+        }
+        switch (strategy) {
+            case RuleConstant.STRATEGY_DIRECT:
+                return match == MATCH_ALL ? node.getClusterNode() : context.getOriginNode();
+            case RuleConstant.STRATEGY_RELATE:
+                return refResource == null ? null : ClusterBuilderSlot.getClusterNode(refResource);
+            case RuleConstant.STRATEGY_CHAIN:
+                return refResource != null && refResource.equals(context.getName()) ? node : null;
+            default:
+                return null;
+        }
+    }
+}
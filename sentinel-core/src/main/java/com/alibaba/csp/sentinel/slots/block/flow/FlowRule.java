@@ -96,6 +96,11 @@ public class FlowRule extends AbstractRule {
      */
     private TrafficShapingController controller;
 
+    /**
+     * Node selection resolved when the rule is loaded to {@link FlowRuleManager}.
+     */
+    private FlowNodeSelector selector;
+
     public int getControlBehavior() {
         return controlBehavior;
     }
@@ -123,6 +128,15 @@ public class FlowRule extends AbstractRule {
         return controller;
     }
 
+    FlowRule setSelector(FlowNodeSelector selector) {
+        this.selector = selector;
+        return this;
+    }
+
+    FlowNodeSelector getSelector() {
+        return selector;
+    }
+
     public int getWarmUpPeriodSec() {
         return warmUpPeriodSec;
     }
@@ -15,6 +15,8 @@
  */
 package com.alibaba.csp.sentinel.slots.block.flow;
 
+import com.alibaba.csp.sentinel.AsyncEntry;
+import com.alibaba.csp.sentinel.Entry;
 import com.alibaba.csp.sentinel.cluster.ClusterStateManager;
 import com.alibaba.csp.sentinel.cluster.server.EmbeddedClusterTokenServerProvider;
 import com.alibaba.csp.sentinel.cluster.client.TokenClientProvider;
@@ -61,7 +63,31 @@ final class FlowRuleChecker {
             return true;
         }
 
-        return rule.getRater().canPass(selectedNode, acquireCount);
+        TrafficShapingController rater = rule.getRater();
+        AsyncEntry deferrableEntry;
+        if (rater instanceof DeferrableTrafficShapingController
+            && (deferrableEntry = deferrableEntryOf(context)) != null) {
+            // Reserve the admission, the caller will schedule the work instead of waiting.
+            long waitMs = ((DeferrableTrafficShapingController)rater).reserve(selectedNode, acquireCount,
+                prioritized);
+            if (waitMs == DeferrableTrafficShapingController.NOT_ADMITTED) {
+                return false;
+            }
+            deferrableEntry.deferAdmission(waitMs);
+            return true;
+        }
+        return rater.canPass(selectedNode, acquireCount);
+    }
+
+    /**
+     * Get the entry being checked if its admission may be deferred.
+     */
+    private static AsyncEntry deferrableEntryOf(Context context) {
+        Entry entry = context.getCurEntry();
+        if (entry instanceof AsyncEntry && ((AsyncEntry)entry).isAdmissionDeferrable()) {
+            return (AsyncEntry)entry;
+        }
+        return null;
     }
 
     static Node selectReferenceNode(FlowRule rule, Context context, DefaultNode node) {
@@ -92,6 +118,11 @@ final class FlowRuleChecker {
     }
 
     static Node selectNodeByRequesterAndStrategy(/*@NonNull*/ FlowRule rule, Context context, DefaultNode node) {
+        FlowNodeSelector selector = rule.getSelector();
+        if (selector != null) {
+            // Resolved when the rule was loaded.
+            return selector.select(context, node);
+        }
         // The limit app should not be empty.
         String limitApp = rule.getLimitApp();
         int strategy = rule.getStrategy();
@@ -168,6 +199,11 @@ final class FlowRuleChecker {
             case TokenResultStatus.OK:
                 return true;
             case TokenResultStatus.SHOULD_WAIT:
+                AsyncEntry deferrableEntry = deferrableEntryOf(context);
+                if (deferrableEntry != null) {
+                    deferrableEntry.deferAdmission(result.getWaitInMs());
+                    return true;
+                }
                 // Wait for next tick.
                 try {
                     Thread.sleep(result.getWaitInMs());
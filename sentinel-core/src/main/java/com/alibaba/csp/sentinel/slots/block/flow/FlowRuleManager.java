@@ -16,6 +16,7 @@
 package com.alibaba.csp.sentinel.slots.block.flow;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -46,6 +47,10 @@ import com.alibaba.csp.sentinel.property.SentinelProperty;
 public class FlowRuleManager {
 
     private static final Map<String, List<FlowRule>> flowRules = new ConcurrentHashMap<String, List<FlowRule>>();
+    /**
+     * Compiled plans of the rules by resource, replaced as a whole when rules are loaded.
+     */
+    private static volatile Map<String, FlowRulePlan> flowRulePlans = Collections.emptyMap();
 
     private static final FlowPropertyListener LISTENER = new FlowPropertyListener();
     private static SentinelProperty<List<FlowRule>> currentProperty = new DynamicSentinelProperty<List<FlowRule>>();
@@ -99,6 +104,16 @@ public class FlowRuleManager {
         return flowRules;
     }
 
+    /**
+     * Get the compiled plans of the rules by resource. The map is replaced as a whole when rules
+     * change, so callers may cache what they derive from it as long as it stays the same instance.
+     *
+     * @return unmodifiable plans by resource
+     */
+    static Map<String, FlowRulePlan> getFlowRulePlanMap() {
+        return flowRulePlans;
+    }
+
     public static boolean hasConfig(String resource) {
         return flowRules.containsKey(resource);
     }
@@ -108,17 +123,8 @@ public class FlowRuleManager {
             return false;
         }
 
-        List<FlowRule> rules = flowRules.get(resourceName);
-
-        if (rules != null) {
-            for (FlowRule rule : rules) {
-                if (origin.equals(rule.getLimitApp())) {
-                    return false;
-                }
-            }
-        }
-
-        return true;
+        FlowRulePlan plan = flowRulePlans.get(resourceName);
+        return plan == null || plan.isOtherOrigin(origin);
     }
 
     private static final class FlowPropertyListener implements PropertyListener<List<FlowRule>> {
@@ -129,6 +135,7 @@ public class FlowRuleManager {
             if (rules != null) {
                 flowRules.clear();
                 flowRules.putAll(rules);
+                flowRulePlans = FlowRulePlan.compile(rules);
             }
             RecordLog.info("[FlowRuleManager] Flow rules received: " + flowRules);
         }
@@ -139,6 +146,7 @@ public class FlowRuleManager {
             if (rules != null) {
                 flowRules.clear();
                 flowRules.putAll(rules);
+                flowRulePlans = FlowRulePlan.compile(rules);
             }
             RecordLog.info("[FlowRuleManager] Flow rules loaded: " + flowRules);
         }
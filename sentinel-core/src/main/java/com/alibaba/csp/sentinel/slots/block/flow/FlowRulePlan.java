@@ -0,0 +1,162 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * <p>
+ * Immutable evaluation plan of the flow rules of one resource, compiled when rules are loaded.
+ * </p>
+ * <p>
+ * The rules are pre-partitioned by origin: for each origin named in a limit app, the plan holds the rules
+ * that apply to it (its own rules, rules of {@link RuleConstant#LIMIT_APP_DEFAULT} and cluster rules,
+ * which apply to every origin), keeping the order of the loaded rules. Requests from other origins get
+ * the rules of {@link RuleConstant#LIMIT_APP_OTHER} instead of the ones for specific origins.
+ * So the per-entry work is a single lookup by origin, and rules that could never select a node
+ * for the origin are not visited at all.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+final class FlowRulePlan {
+
+    private static final FlowRule[] EMPTY_RULES = new FlowRule[0];
+
+    private final Map<String, FlowRule[]> originRules;
+    private final Set<String> limitApps;
+    /**
+     * Rules for requests without an origin.
+     */
+    private final FlowRule[] noOriginRules;
+    /**
+     * Rules for origins not named in any limit app.
+     */
+    private final FlowRule[] otherOriginRules;
+
+    private FlowRulePlan(Map<String, FlowRule[]> originRules, Set<String> limitApps, FlowRule[] noOriginRules,
+                         FlowRule[] otherOriginRules) {
+        this.originRules = originRules;
+        this.limitApps = limitApps;
+        this.noOriginRules = noOriginRules;
+        this.otherOriginRules = otherOriginRules;
+    }
+
+    /**
+     * Compile plans for all resources.
+     *
+     * @param ruleMap sorted rules by resource
+     * @return unmodifiable plans by resource
+     */
+    static Map<String, FlowRulePlan> compile(Map<String, List<FlowRule>> ruleMap) {
+        if (ruleMap == null || ruleMap.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, FlowRulePlan> plans = new HashMap<String, FlowRulePlan>(ruleMap.size() * 2);
+        for (Map.Entry<String, List<FlowRule>> entry : ruleMap.entrySet()) {
+            plans.put(entry.getKey(), compile(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(plans);
+    }
+
+    /**
+     * Compile the plan of one resource and resolve the node selection of each rule.
+     *
+     * @param rules sorted rules of the resource
+     * @return the plan
+     */
+    static FlowRulePlan compile(List<FlowRule> rules) {
+        List<FlowRule> activeRules = new ArrayList<FlowRule>(rules.size());
+        Set<String> limitApps = new HashSet<String>();
+        for (FlowRule rule : rules) {
+            // Rules without limit app always pass.
+            if (rule.getLimitApp() != null) {
+                activeRules.add(rule);
+                limitApps.add(rule.getLimitApp());
+            }
+        }
+        limitApps = Collections.unmodifiableSet(limitApps);
+        for (FlowRule rule : activeRules) {
+            rule.setSelector(new FlowNodeSelector(rule, limitApps));
+        }
+
+        Map<String, FlowRule[]> originRules = new HashMap<String, FlowRule[]>();
+        for (String limitApp : limitApps) {
+            if (isSpecificOrigin(limitApp)) {
+                originRules.put(limitApp, rulesFor(activeRules, limitApp));
+            }
+        }
+        return new FlowRulePlan(originRules, limitApps, rulesFor(activeRules, null),
+            rulesFor(activeRules, pickOtherOrigin(limitApps)));
+    }
+
+    private static boolean isSpecificOrigin(String limitApp) {
+        return !RuleConstant.LIMIT_APP_DEFAULT.equals(limitApp) && !RuleConstant.LIMIT_APP_OTHER.equals(limitApp);
+    }
+
+    /**
+     * Any origin that is not a limit app, to resolve the rules of "other" origins.
+     */
+    private static String pickOtherOrigin(Set<String> limitApps) {
+        String origin = "$other";
+        while (limitApps.contains(origin)) {
+            origin = origin + "$";
+        }
+        return origin;
+    }
+
+    private static FlowRule[] rulesFor(List<FlowRule> rules, String origin) {
+        List<FlowRule> matched = new ArrayList<FlowRule>(rules.size());
+        for (FlowRule rule : rules) {
+            // Cluster rules request tokens no matter which origin the request comes from.
+            if (rule.isClusterMode() || rule.getSelector().matches(origin)) {
+                matched.add(rule);
+            }
+        }
+        return matched.isEmpty() ? EMPTY_RULES : matched.toArray(new FlowRule[matched.size()]);
+    }
+
+    /**
+     * Get the rules to check for requests from the given origin, in order.
+     *
+     * @param origin origin of the request, may be empty
+     * @return the rules to check, never null
+     */
+    FlowRule[] rulesFor(String origin) {
+        if (StringUtil.isEmpty(origin)) {
+            return noOriginRules;
+        }
+        FlowRule[] rules = originRules.get(origin);
+        if (rules != null) {
+            return rules;
+        }
+        // Reserved names used as origin are not specific, but are no "other" origin if they are a limit app.
+        return limitApps.contains(origin) ? noOriginRules : otherOriginRules;
+    }
+
+    boolean isOtherOrigin(String origin) {
+        return !StringUtil.isEmpty(origin) && !limitApps.contains(origin);
+    }
+}
@@ -15,7 +15,6 @@
  */
 package com.alibaba.csp.sentinel.slots.block.flow;
 
-import java.util.List;
 import java.util.Map;
 
 import com.alibaba.csp.sentinel.context.Context;
@@ -135,6 +134,8 @@ import com.alibaba.csp.sentinel.slots.block.BlockException;
  */
 public class FlowSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
 
+    private volatile CachedPlan cachedPlan;
+
     @Override
     public void entry(Context context, ResourceWrapper resourceWrapper, DefaultNode node, int count,
                       boolean prioritized, Object... args) throws Throwable {
@@ -144,12 +145,10 @@ public class FlowSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
     }
 
     void checkFlow(ResourceWrapper resource, Context context, DefaultNode node, int count, boolean prioritized) throws BlockException {
-        // Flow rule map cannot be null.
-        Map<String, List<FlowRule>> flowRules = FlowRuleManager.getFlowRuleMap();
-
-        List<FlowRule> rules = flowRules.get(resource.getName());
-        if (rules != null) {
-            for (FlowRule rule : rules) {
+        FlowRulePlan plan = getPlan(resource.getName());
+        if (plan != null) {
+            // Only the rules that may apply to the origin, in the order of loaded rules.
+            for (FlowRule rule : plan.rulesFor(context.getOrigin())) {
                 if (!canPassCheck(rule, context, node, count, prioritized)) {
                     throw new FlowException(rule.getLimitApp());
                 }
@@ -157,6 +156,20 @@ public class FlowSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
         }
     }
 
+    /**
+     * One slot chain serves one resource, so the plan of the resource is cached here
+     * until the rules are loaded again.
+     */
+    private FlowRulePlan getPlan(String resourceName) {
+        Map<String, FlowRulePlan> plans = FlowRuleManager.getFlowRulePlanMap();
+        CachedPlan cached = cachedPlan;
+        if (cached == null || cached.plans != plans || !cached.resourceName.equals(resourceName)) {
+            cached = new CachedPlan(plans, resourceName, plans.get(resourceName));
+            cachedPlan = cached;
+        }
+        return cached.plan;
+    }
+
     boolean canPassCheck(FlowRule rule, Context context, DefaultNode node, int count, boolean prioritized) {
         return FlowRuleChecker.passCheck(rule, context, node, count, prioritized);
     }
@@ -165,4 +178,17 @@ public class FlowSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
     public void exit(Context context, ResourceWrapper resourceWrapper, int count, Object... args) {
         fireExit(context, resourceWrapper, count, args);
     }
+
+    private static final class CachedPlan {
+
+        private final Map<String, FlowRulePlan> plans;
+        private final String resourceName;
+        private final FlowRulePlan plan;
+
+        CachedPlan(Map<String, FlowRulePlan> plans, String resourceName, FlowRulePlan plan) {
+            this.plans = plans;
+            this.resourceName = resourceName;
+            this.plan = plan;
+        }
+    }
 }
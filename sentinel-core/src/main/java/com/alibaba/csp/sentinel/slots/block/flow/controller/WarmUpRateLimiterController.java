@@ -18,12 +18,13 @@ package com.alibaba.csp.sentinel.slots.block.flow.controller;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.alibaba.csp.sentinel.node.Node;
+import com.alibaba.csp.sentinel.slots.block.flow.DeferrableTrafficShapingController;
 import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
  * @author jialiang.linjl
  */
-public class WarmUpRateLimiterController extends WarmUpController {
+public class WarmUpRateLimiterController extends WarmUpController implements DeferrableTrafficShapingController {
 
     final int timeOutInMs;
     final AtomicLong latestPassedTime = new AtomicLong(-1);
@@ -44,6 +45,22 @@ public class WarmUpRateLimiterController extends WarmUpController {
 
     @Override
     public boolean canPass(Node node, int acquireCount, boolean prioritized) {
+        long waitTime = reserve(node, acquireCount, prioritized);
+        if (waitTime == NOT_ADMITTED) {
+            return false;
+        }
+        if (waitTime > 0) {
+            try {
+                Thread.sleep(waitTime);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long reserve(Node node, int acquireCount, boolean prioritized) {
         long previousQps = node.previousPassQps();
         syncToken(previousQps);
 
@@ -65,26 +82,21 @@ public class WarmUpRateLimiterController extends WarmUpController {
 
         if (expectedTime <= currentTime) {
             latestPassedTime.set(currentTime);
-            return true;
+            return 0;
         } else {
             long waitTime = costTime + latestPassedTime.get() - currentTime;
             if (waitTime >= timeOutInMs) {
-                return false;
+                return NOT_ADMITTED;
             } else {
                 long oldTime = latestPassedTime.addAndGet(costTime);
-                try {
-                    waitTime = oldTime - TimeUtil.currentTimeMillis();
-                    if (waitTime >= timeOutInMs) {
-                        latestPassedTime.addAndGet(-costTime);
-                        return false;
-                    }
-                    Thread.sleep(waitTime);
-                    return true;
-                } catch (InterruptedException e) {
+                waitTime = oldTime - TimeUtil.currentTimeMillis();
+                if (waitTime >= timeOutInMs) {
+                    latestPassedTime.addAndGet(-costTime);
+                    return NOT_ADMITTED;
                 }
+                return Math.max(waitTime, 0);
             }
         }
-        return false;
     }
 }
 
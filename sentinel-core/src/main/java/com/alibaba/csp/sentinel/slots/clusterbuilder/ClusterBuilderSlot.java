@@ -15,8 +15,8 @@
  */
 package com.alibaba.csp.sentinel.slots.clusterbuilder;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.Env;
 import com.alibaba.csp.sentinel.EntryType;
@@ -61,12 +61,13 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
      * </p>
      * <p>
      * The longer the application runs, the more stable this mapping will
-     * become. so we don't concurrent map but a lock. as this lock only happens
-     * at the very beginning while concurrent map will hold the lock all the time.
+     * become. Reads never lock, and the lock below is only taken when the
+     * cluster node of a new resource is created. The map is never copied,
+     * so registering thousands of resources at startup stays cheap.
      * </p>
      */
-    private static volatile Map<ResourceWrapper, ClusterNode> clusterNodeMap
-        = new HashMap<ResourceWrapper, ClusterNode>();
+    private static final Map<ResourceWrapper, ClusterNode> clusterNodeMap
+        = new ConcurrentHashMap<ResourceWrapper, ClusterNode>(256);
 
     private static final Object lock = new Object();
 
@@ -81,11 +82,7 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
                 if (clusterNode == null) {
                     // Create the cluster node.
                     clusterNode = Env.nodeBuilder.buildClusterNode();
-                    HashMap<ResourceWrapper, ClusterNode> newMap = new HashMap<ResourceWrapper, ClusterNode>(16);
-                    newMap.putAll(clusterNodeMap);
-                    newMap.put(node.getId(), clusterNode);
-
-                    clusterNodeMap = newMap;
+                    clusterNodeMap.put(node.getId(), clusterNode);
                 }
             }
         }
@@ -18,7 +18,6 @@ package com.alibaba.csp.sentinel.slots.statistic.base;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReferenceArray;
-import java.util.concurrent.locks.ReentrantLock;
 
 import com.alibaba.csp.sentinel.util.AssertUtil;
 import com.alibaba.csp.sentinel.util.TimeUtil;
@@ -46,11 +45,6 @@ public abstract class LeapArray<T> {
 
     protected final AtomicReferenceArray<WindowWrap<T>> array;
 
-    /**
-     * The conditional (predicate) update lock is used only when current bucket is deprecated.
-     */
-    private final ReentrantLock updateLock = new ReentrantLock();
-
     /**
      * The total bucket count is: {@code sampleCount = intervalInMs / windowLengthInMs}.
      *
@@ -89,13 +83,27 @@ public abstract class LeapArray<T> {
     public abstract T newEmptyBucket();
 
     /**
-     * Reset given bucket to provided start time and reset the value.
+     * Get a clean bucket at provided start time in place of given bucket.
      *
      * @param startTime  the start time of the bucket in milliseconds
      * @param windowWrap current bucket
      * @return new clean bucket at given start time
+     * @deprecated window rotation always publishes a new bucket, as a replaced bucket may still be
+     * held by other threads, so this is no longer invoked by {@link #currentWindow(long)}
      */
-    protected abstract WindowWrap<T> resetWindowTo(WindowWrap<T> windowWrap, long startTime);
+    @Deprecated
+    protected WindowWrap<T> resetWindowTo(WindowWrap<T> windowWrap, long startTime) {
+        return new WindowWrap<T>(windowLengthInMs, startTime, newEmptyBucket());
+    }
+
+    /**
+     * Callback after a deprecated bucket has been replaced by provided bucket in the array.
+     * It's invoked only by the thread that succeeded to rotate the window, and the bucket might
+     * have already been updated by other threads.
+     *
+     * @param windowWrap the new bucket at current window
+     */
+    protected void onWindowRotated(WindowWrap<T> windowWrap) {}
 
     protected int calculateTimeIdx(/*@Valid*/ long timeMillis) {
         long timeId = timeMillis / windowLengthInMs;
@@ -142,16 +150,14 @@ public abstract class LeapArray<T> {
                  *
                  * If the old bucket is absent, then we create a new bucket at {@code windowStart},
                  * then try to update circular array via a CAS operation. Only one thread can
-                 * succeed to update, while other threads yield its time slice.
+                 * succeed to update, while other threads just read the bucket again.
                  */
                 WindowWrap<T> window = new WindowWrap<T>(windowLengthInMs, windowStart, newEmptyBucket());
                 if (array.compareAndSet(idx, null, window)) {
                     // Successfully updated, return the created bucket.
                     return window;
-                } else {
-                    // Contention failed, the thread will yield its time slice to wait for bucket available.
-                    Thread.yield();
                 }
+                // Contention failed, so another thread has created the bucket. Read it again.
             } else if (windowStart == old.windowStart()) {
                 /*
                  *     B0       B1      B2     B3      B4
@@ -176,24 +182,20 @@ public abstract class LeapArray<T> {
                  *          startTime of Bucket 2: 400, deprecated, should be reset
                  *
                  * If the start timestamp of old bucket is behind provided time, that means
-                 * the bucket is deprecated. We have to reset the bucket to current {@code windowStart}.
-                 * Note that the reset and clean-up operations are hard to be atomic,
-                 * so we need a update lock to guarantee the correctness of bucket update.
-                 *
-                 * The update lock is conditional (tiny scope) and will take effect only when
-                 * bucket is deprecated, so in most cases it won't lead to performance loss.
+                 * the bucket is deprecated. Instead of resetting the bucket in place, we create
+                 * a new bucket at current {@code windowStart} and replace the deprecated bucket via
+                 * a CAS operation. Only one thread can succeed to rotate the window, while other
+                 * threads just read the new bucket again, so no thread will be blocked or yield
+                 * at the bucket boundary. The deprecated bucket is never reused, as other threads
+                 * may still hold it.
                  */
-                if (updateLock.tryLock()) {
-                    try {
-                        // Successfully get the update lock, now we reset the bucket.
-                        return resetWindowTo(old, windowStart);
-                    } finally {
-                        updateLock.unlock();
-                    }
-                } else {
-                    // Contention failed, the thread will yield its time slice to wait for bucket available.
-                    Thread.yield();
+                WindowWrap<T> window = new WindowWrap<T>(windowLengthInMs, windowStart, newEmptyBucket());
+                if (array.compareAndSet(idx, old, window)) {
+                    // Successfully rotated.
+                    onWindowRotated(window);
+                    return window;
                 }
+                // Contention failed, so another thread has rotated the window. Read it again.
             } else if (windowStart < old.windowStart()) {
                 // Should not go through here, as the provided time is already behind.
                 return new WindowWrap<T>(windowLengthInMs, windowStart, newEmptyBucket());
@@ -0,0 +1,33 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.data;
+
+/**
+ * The default {@link MetricBucketFactory}, which keeps one {@code LongAdder} for each event.
+ *
+ * @since 1.4.1
+ */
+public final class DefaultMetricBucketFactory implements MetricBucketFactory {
+
+    public static final DefaultMetricBucketFactory INSTANCE = new DefaultMetricBucketFactory();
+
+    @Override
+    public MetricBucket newEmptyBucket() {
+        return new MetricBucket();
+    }
+
+    private DefaultMetricBucketFactory() {}
+}
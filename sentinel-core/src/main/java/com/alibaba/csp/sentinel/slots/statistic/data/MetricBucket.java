@@ -40,6 +40,19 @@ public class MetricBucket {
         initMinRt();
     }
 
+    /**
+     * Constructor for subclasses that keep the counters in their own layout, in which case
+     * {@link #get(MetricEvent)}, {@link #add(MetricEvent, long)} and {@link #resetCounters()}
+     * should be overridden.
+     *
+     * @param counters counters of each {@link MetricEvent}, may be null
+     * @since 1.4.1
+     */
+    protected MetricBucket(LongAdder[] counters) {
+        this.counters = counters;
+        initMinRt();
+    }
+
     private void initMinRt() {
         this.minRt = Constants.TIME_DROP_VALVE;
     }
@@ -50,11 +63,15 @@ public class MetricBucket {
      * @return new metric bucket in initial state
      */
     public MetricBucket reset() {
+        resetCounters();
+        initMinRt();
+        return this;
+    }
+
+    protected void resetCounters() {
         for (MetricEvent event : MetricEvent.values()) {
             counters[event.ordinal()].reset();
         }
-        initMinRt();
-        return this;
     }
 
     public long get(MetricEvent event) {
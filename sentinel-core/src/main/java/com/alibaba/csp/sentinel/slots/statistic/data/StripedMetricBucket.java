@@ -0,0 +1,104 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.data;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.alibaba.csp.sentinel.slots.statistic.MetricEvent;
+
+/**
+ * <p>A compact {@link MetricBucket} that keeps all counters in a single {@link AtomicLongArray}.</p>
+ *
+ * <p>
+ * The array is divided into one or more stripes, each of which holds one counter for every {@link MetricEvent}.
+ * Updating threads are spread over the stripes by thread ID, while reading sums up all stripes.
+ * With a single stripe, the whole bucket is two objects, compared with one {@code LongAdder}
+ * (and its lazily inflated cells) per event of the default layout. When there are more than one stripe,
+ * each stripe is padded to its own cache lines, so threads updating different stripes won't contend.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+public class StripedMetricBucket extends MetricBucket {
+
+    private static final int EVENT_COUNT = MetricEvent.values().length;
+
+    /**
+     * Amount of longs in a cache line.
+     */
+    private static final int LONGS_PER_CACHE_LINE = 8;
+
+    private final AtomicLongArray cells;
+    private final int stripeMask;
+    private final int stride;
+
+    /**
+     * @param stripes amount of stripes, which should be a power of two
+     */
+    public StripedMetricBucket(int stripes) {
+        super(null);
+        if (stripes <= 0 || (stripes & (stripes - 1)) != 0) {
+            throw new IllegalArgumentException("stripes should be a positive power of two: " + stripes);
+        }
+        this.stripeMask = stripes - 1;
+        if (stripes == 1) {
+            this.stride = EVENT_COUNT;
+            this.cells = new AtomicLongArray(EVENT_COUNT);
+        } else {
+            // Leave at least a whole cache line between the counters of two stripes.
+            this.stride = roundUpToCacheLine(EVENT_COUNT) + LONGS_PER_CACHE_LINE;
+            this.cells = new AtomicLongArray(stripes * stride);
+        }
+    }
+
+    private static int roundUpToCacheLine(int longs) {
+        return (longs + LONGS_PER_CACHE_LINE - 1) / LONGS_PER_CACHE_LINE * LONGS_PER_CACHE_LINE;
+    }
+
+    private int stripeBase() {
+        if (stripeMask == 0) {
+            return 0;
+        }
+        return ((int)Thread.currentThread().getId() & stripeMask) * stride;
+    }
+
+    public int stripes() {
+        return stripeMask + 1;
+    }
+
+    @Override
+    protected void resetCounters() {
+        for (int i = 0; i < cells.length(); i++) {
+            cells.set(i, 0);
+        }
+    }
+
+    @Override
+    public long get(MetricEvent event) {
+        int offset = event.ordinal();
+        long sum = 0;
+        for (int base = 0; base < cells.length(); base += stride) {
+            sum += cells.get(base + offset);
+        }
+        return sum;
+    }
+
+    @Override
+    public MetricBucket add(MetricEvent event, long n) {
+        cells.addAndGet(stripeBase() + event.ordinal(), n);
+        return this;
+    }
+}
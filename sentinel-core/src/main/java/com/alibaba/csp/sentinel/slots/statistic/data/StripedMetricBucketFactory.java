@@ -0,0 +1,56 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.data;
+
+/**
+ * {@link MetricBucketFactory} of {@link StripedMetricBucket}.
+ *
+ * @since 1.4.1
+ */
+public class StripedMetricBucketFactory implements MetricBucketFactory {
+
+    private final int stripes;
+
+    /**
+     * @param stripes amount of stripes of each bucket; will be rounded up to a power of two
+     */
+    public StripedMetricBucketFactory(int stripes) {
+        this.stripes = roundUpToPowerOfTwo(stripes);
+    }
+
+    static int roundUpToPowerOfTwo(int n) {
+        if (n <= 1) {
+            return 1;
+        }
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    @Override
+    public MetricBucket newEmptyBucket() {
+        return new StripedMetricBucket(stripes);
+    }
+
+    @Override
+    public String toString() {
+        return "StripedMetricBucketFactory{" +
+            "stripes=" + stripes +
+            '}';
+    }
+}
@@ -21,6 +21,7 @@ import java.util.List;
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.node.metric.MetricNode;
 import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
+import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucketFactory;
 import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
 
 /**
@@ -41,6 +42,16 @@ public class ArrayMetric implements Metric {
         this.data = new MetricsLeapArray(windowLengthInMs, intervalInSec);
     }
 
+    /**
+     * @param windowLengthInMs a single window bucket's time length in milliseconds.
+     * @param intervalInSec    the total time span of this {@link ArrayMetric} in seconds.
+     * @param bucketFactory    factory of the buckets
+     * @since 1.4.1
+     */
+    public ArrayMetric(int windowLengthInMs, int intervalInSec, MetricBucketFactory bucketFactory) {
+        this.data = new MetricsLeapArray(windowLengthInMs, intervalInSec, bucketFactory);
+    }
+
     /**
      * For unit test.
      */
@@ -16,8 +16,10 @@
 package com.alibaba.csp.sentinel.slots.statistic.metric;
 
 import com.alibaba.csp.sentinel.slots.statistic.base.LeapArray;
+import com.alibaba.csp.sentinel.slots.statistic.data.DefaultMetricBucketFactory;
 import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
-import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
+import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucketFactory;
+import com.alibaba.csp.sentinel.util.AssertUtil;
 
 /**
  * The fundamental data structure for metric statistics in a time span.
@@ -28,24 +30,30 @@ import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
  */
 public class MetricsLeapArray extends LeapArray<MetricBucket> {
 
+    private final MetricBucketFactory bucketFactory;
+
     /**
      * @param windowLengthInMs a single window bucket's time length in milliseconds.
      * @param intervalInSec    the total time span of this {@link MetricsLeapArray} in seconds.
      */
     public MetricsLeapArray(int windowLengthInMs, int intervalInSec) {
-        super(windowLengthInMs, intervalInSec);
+        this(windowLengthInMs, intervalInSec, DefaultMetricBucketFactory.INSTANCE);
     }
 
-    @Override
-    public MetricBucket newEmptyBucket() {
-        return new MetricBucket();
+    /**
+     * @param windowLengthInMs a single window bucket's time length in milliseconds.
+     * @param intervalInSec    the total time span of this {@link MetricsLeapArray} in seconds.
+     * @param bucketFactory    factory of the buckets
+     * @since 1.4.1
+     */
+    public MetricsLeapArray(int windowLengthInMs, int intervalInSec, MetricBucketFactory bucketFactory) {
+        super(windowLengthInMs, intervalInSec);
+        AssertUtil.notNull(bucketFactory, "bucketFactory cannot be null");
+        this.bucketFactory = bucketFactory;
     }
 
     @Override
-    protected WindowWrap<MetricBucket> resetWindowTo(WindowWrap<MetricBucket> w, long startTime) {
-        // Update the start time and reset value.
-        w.resetTo(startTime);
-        w.value().reset();
-        return w;
+    public MetricBucket newEmptyBucket() {
+        return bucketFactory.newEmptyBucket();
     }
 }
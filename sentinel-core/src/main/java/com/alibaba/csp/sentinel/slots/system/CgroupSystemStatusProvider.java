@@ -0,0 +1,426 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.system;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+/**
+ * <p>{@link SystemStatusProvider} reading the CPU and memory accounting of the cgroup of current process,
+ * so that limits of containers are respected. The cgroup is resolved from {@code /proc/self/cgroup}
+ * and the mount points in {@code /proc/self/mountinfo}.</p>
+ *
+ * <p>
+ * Both cgroup v2 (the unified hierarchy, detected by {@code cgroup.controllers}) and cgroup v1 are supported:
+ * </p>
+ * <ul>
+ * <li>CPU usage: usage time ({@code cpu.stat} or {@code cpuacct.usage}) in the sampling interval,
+ * divided by the CPU quota ({@code cpu.max} or {@code cpu.cfs_quota_us}); by all processors if unlimited
+ * or absent (e.g. the root cgroup).</li>
+ * <li>CPU throttled ratio: throttled periods in the sampling interval ({@code cpu.stat}).</li>
+ * <li>Memory usage: {@code memory.current} / {@code memory.max}, or {@code memory.usage_in_bytes} /
+ * {@code memory.limit_in_bytes}; unavailable if unlimited.</li>
+ * </ul>
+ * <p>
+ * The cgroup does not provide a load average, so the load of the host is kept for the load dimension.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+public class CgroupSystemStatusProvider implements SystemStatusProvider {
+
+    public static final String PROC_SELF_CGROUP = "/proc/self/cgroup";
+    public static final String PROC_SELF_MOUNTINFO = "/proc/self/mountinfo";
+
+    /**
+     * Memory limits of cgroup v1 greater than this value are considered as unlimited.
+     */
+    private static final long UNLIMITED_MEMORY_THRESHOLD = Long.MAX_VALUE / 2;
+
+    private final OsSystemStatusProvider hostProvider = new OsSystemStatusProvider();
+    private final boolean v2;
+    private final File cpuDir;
+    private final File cpuAcctDir;
+    private final File memoryDir;
+
+    private long lastSampleNanos = -1;
+    private long lastUsageNanos;
+    private long lastPeriods;
+    private long lastThrottledPeriods;
+
+    private volatile double cpuUsage = -1;
+    private volatile double cpuThrottledRatio = -1;
+    private volatile double memoryUsage = -1;
+    private volatile boolean cpuFailing;
+
+    private CgroupSystemStatusProvider(boolean v2, File cpuDir, File cpuAcctDir, File memoryDir) {
+        this.v2 = v2;
+        this.cpuDir = cpuDir;
+        this.cpuAcctDir = cpuAcctDir;
+        this.memoryDir = memoryDir;
+    }
+
+    /**
+     * Create a provider for the cgroup of current process.
+     *
+     * @return the provider, or null if cgroup CPU accounting is unavailable
+     */
+    public static CgroupSystemStatusProvider create() {
+        return create(new File(PROC_SELF_CGROUP), new File(PROC_SELF_MOUNTINFO));
+    }
+
+    /**
+     * Create a provider for the cgroup of current process.
+     *
+     * @param cgroupFile    the {@code /proc/self/cgroup} file
+     * @param mountInfoFile the {@code /proc/self/mountinfo} file
+     * @return the provider, or null if cgroup CPU accounting is unavailable
+     */
+    static CgroupSystemStatusProvider create(File cgroupFile, File mountInfoFile) {
+        Map<String, String> cgroupPaths;
+        List<String[]> mounts;
+        try {
+            cgroupPaths = readCgroupPaths(cgroupFile);
+            mounts = readCgroupMounts(mountInfoFile);
+        } catch (IOException ex) {
+            return null;
+        }
+        String unifiedPath = cgroupPaths.get("");
+        for (String[] mount : mounts) {
+            // cgroup v2, where all controllers are in the unified hierarchy.
+            if (unifiedPath != null && "cgroup2".equals(mount[2])) {
+                File dir = resolveDir(mount, unifiedPath);
+                CgroupSystemStatusProvider provider = create(true, dir, dir, dir);
+                if (provider != null) {
+                    return provider;
+                }
+                // Hybrid mode, where CPU controllers are still in cgroup v1 hierarchies.
+                break;
+            }
+        }
+        File cpuDir = controllerDir(mounts, cgroupPaths, "cpu");
+        File cpuAcctDir = controllerDir(mounts, cgroupPaths, "cpuacct");
+        File memoryDir = controllerDir(mounts, cgroupPaths, "memory");
+        if (cpuDir == null || cpuAcctDir == null) {
+            return null;
+        }
+        return create(false, cpuDir, cpuAcctDir, memoryDir == null ? cpuDir : memoryDir);
+    }
+
+    /**
+     * Create a provider for the cgroup of given directory (for cgroup v2), or the directory holding
+     * the controller hierarchies of the cgroup (for cgroup v1).
+     *
+     * @param root directory of the cgroup
+     * @return the provider, or null if cgroup CPU accounting is unavailable
+     */
+    static CgroupSystemStatusProvider create(String root) {
+        File rootDir = new File(root);
+        if (new File(rootDir, "cgroup.controllers").isFile()) {
+            return create(true, rootDir, rootDir, rootDir);
+        }
+        File cpuDir = firstDirectory(new File(rootDir, "cpu"), new File(rootDir, "cpu,cpuacct"));
+        File cpuAcctDir = firstDirectory(new File(rootDir, "cpuacct"), new File(rootDir, "cpu,cpuacct"));
+        if (cpuDir == null || cpuAcctDir == null) {
+            return null;
+        }
+        return create(false, cpuDir, cpuAcctDir, new File(rootDir, "memory"));
+    }
+
+    private static CgroupSystemStatusProvider create(boolean v2, File cpuDir, File cpuAcctDir, File memoryDir) {
+        if (v2 ? !new File(cpuDir, "cpu.stat").isFile() : !new File(cpuAcctDir, "cpuacct.usage").isFile()) {
+            return null;
+        }
+        return new CgroupSystemStatusProvider(v2, cpuDir, cpuAcctDir, memoryDir);
+    }
+
+    /**
+     * Take the first sample to check whether the cgroup can be read.
+     *
+     * @return true if the CPU accounting of the cgroup is readable
+     */
+    boolean probe() {
+        refresh(System.nanoTime());
+        return !cpuFailing;
+    }
+
+    @Override
+    public void refresh() {
+        hostProvider.refresh();
+        refresh(System.nanoTime());
+    }
+
+    void refresh(long nowNanos) {
+        try {
+            refreshCpu(nowNanos);
+            cpuFailing = false;
+        } catch (Throwable ex) {
+            cpuUsage = -1;
+            cpuThrottledRatio = -1;
+            // Sampled more than once a second, so only log when it starts failing.
+            if (!cpuFailing) {
+                cpuFailing = true;
+                RecordLog.info("[CgroupSystemStatusProvider] Failed to read cgroup CPU status", ex);
+            }
+        }
+        try {
+            memoryUsage = readMemoryUsage();
+        } catch (Throwable ex) {
+            memoryUsage = -1;
+        }
+    }
+
+    private void refreshCpu(long nowNanos) throws IOException {
+        Map<String, Long> stat = readKeyValues(new File(cpuDir, "cpu.stat"));
+        long usageNanos = v2 ? valueOf(stat, "usage_usec") * 1000
+            : Long.parseLong(readFirstLine(new File(cpuAcctDir, "cpuacct.usage")));
+        long periods = valueOf(stat, "nr_periods");
+        long throttledPeriods = valueOf(stat, "nr_throttled");
+        // Also read on the first sample, so that an unreadable quota fails early.
+        double cpus = availableCpus();
+
+        if (lastSampleNanos >= 0 && nowNanos > lastSampleNanos) {
+            double usage = (usageNanos - lastUsageNanos) / ((nowNanos - lastSampleNanos) * cpus);
+            cpuUsage = Math.max(0, Math.min(1, usage));
+            long deltaPeriods = periods - lastPeriods;
+            cpuThrottledRatio = deltaPeriods > 0 ? (double)(throttledPeriods - lastThrottledPeriods) / deltaPeriods
+                : 0;
+        }
+        lastSampleNanos = nowNanos;
+        lastUsageNanos = usageNanos;
+        lastPeriods = periods;
+        lastThrottledPeriods = throttledPeriods;
+    }
+
+    double availableCpus() throws IOException {
+        long quota;
+        long period;
+        File maxFile = new File(cpuDir, "cpu.max");
+        File quotaFile = new File(cpuDir, "cpu.cfs_quota_us");
+        if (v2 && maxFile.isFile()) {
+            // Format: $MAX $PERIOD, where $MAX may be "max".
+            String[] max = readFirstLine(maxFile).trim().split("\\s+");
+            quota = "max".equals(max[0]) ? -1 : Long.parseLong(max[0]);
+            period = Long.parseLong(max[1]);
+        } else if (!v2 && quotaFile.isFile()) {
+            quota = Long.parseLong(readFirstLine(quotaFile).trim());
+            period = Long.parseLong(readFirstLine(new File(cpuDir, "cpu.cfs_period_us")).trim());
+        } else {
+            // No quota file (e.g. the root cgroup), so it's unlimited.
+            return SystemStatusListener.processor;
+        }
+        if (quota > 0 && period > 0) {
+            return (double)quota / period;
+        }
+        return SystemStatusListener.processor;
+    }
+
+    private double readMemoryUsage() throws IOException {
+        String usage;
+        String limit;
+        if (v2) {
+            usage = readFirstLine(new File(memoryDir, "memory.current")).trim();
+            limit = readFirstLine(new File(memoryDir, "memory.max")).trim();
+            if ("max".equals(limit)) {
+                return -1;
+            }
+        } else {
+            usage = readFirstLine(new File(memoryDir, "memory.usage_in_bytes")).trim();
+            limit = readFirstLine(new File(memoryDir, "memory.limit_in_bytes")).trim();
+        }
+        long limitBytes = Long.parseLong(limit);
+        if (limitBytes <= 0 || limitBytes > UNLIMITED_MEMORY_THRESHOLD) {
+            return -1;
+        }
+        return (double)Long.parseLong(usage) / limitBytes;
+    }
+
+    @Override
+    public double getSystemLoad() {
+        return hostProvider.getSystemLoad();
+    }
+
+    @Override
+    public double getCpuUsage() {
+        return cpuUsage;
+    }
+
+    @Override
+    public double getCpuThrottledRatio() {
+        return cpuThrottledRatio;
+    }
+
+    @Override
+    public double getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    boolean isV2() {
+        return v2;
+    }
+
+    /**
+     * Read {@code /proc/self/cgroup}, whose lines are {@code hierarchy-ID:controller-list:cgroup-path}.
+     *
+     * @return controller -> path of the cgroup, where the unified hierarchy of cgroup v2 has an empty controller
+     */
+    private static Map<String, String> readCgroupPaths(File file) throws IOException {
+        Map<String, String> paths = new HashMap<String, String>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(":", 3);
+                if (fields.length < 3) {
+                    continue;
+                }
+                if (fields[1].length() == 0) {
+                    paths.put("", fields[2]);
+                    continue;
+                }
+                for (String controller : fields[1].split(",")) {
+                    paths.put(controller, fields[2]);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return paths;
+    }
+
+    /**
+     * Read the cgroup mounts in {@code /proc/self/mountinfo}, whose lines are
+     * {@code id parent major:minor root mount-point options [optional-fields] - fs-type source super-options}.
+     *
+     * @return {@code [root, mount point, fs type, super options]} of the cgroup mounts
+     */
+    private static List<String[]> readCgroupMounts(File file) throws IOException {
+        List<String[]> mounts = new ArrayList<String[]>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(" ");
+                int separator = -1;
+                for (int i = 6; i < fields.length; i++) {
+                    if ("-".equals(fields[i])) {
+                        separator = i;
+                        break;
+                    }
+                }
+                if (fields.length < 5 || separator < 0 || separator + 3 >= fields.length) {
+                    continue;
+                }
+                String fsType = fields[separator + 1];
+                if ("cgroup".equals(fsType) || "cgroup2".equals(fsType)) {
+                    mounts.add(new String[] {fields[3], fields[4], fsType, fields[separator + 3]});
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return mounts;
+    }
+
+    private static File controllerDir(List<String[]> mounts, Map<String, String> cgroupPaths, String controller) {
+        String path = cgroupPaths.get(controller);
+        if (path == null) {
+            return null;
+        }
+        for (String[] mount : mounts) {
+            if ("cgroup".equals(mount[2]) && Arrays.asList(mount[3].split(",")).contains(controller)) {
+                return resolveDir(mount, path);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolve the directory of the cgroup path under the mount. The root of the mount is a prefix
+     * of the path when the cgroup namespace is not used (e.g. a container bind-mounting its own cgroup).
+     */
+    private static File resolveDir(String[] mount, String path) {
+        String root = mount[0];
+        String relative = path;
+        if ("/".equals(root)) {
+            relative = path;
+        } else if (path.equals(root)) {
+            relative = "";
+        } else if (path.startsWith(root + "/")) {
+            relative = path.substring(root.length());
+        }
+        File dir = new File(mount[1], relative);
+        // The path may be outside of the mount, e.g. moved into another cgroup namespace.
+        return dir.isDirectory() ? dir : new File(mount[1]);
+    }
+
+    private static File firstDirectory(File... candidates) {
+        for (File candidate : candidates) {
+            if (candidate.isDirectory()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static long valueOf(Map<String, Long> values, String key) {
+        Long value = values.get(key);
+        return value == null ? 0 : value;
+    }
+
+    private static String readFirstLine(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Empty file: " + file);
+            }
+            return line;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static Map<String, Long> readKeyValues(File file) throws IOException {
+        Map<String, Long> values = new HashMap<String, Long>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] kv = line.trim().split("\\s+");
+                if (kv.length == 2) {
+                    try {
+                        values.put(kv[0], Long.parseLong(kv[1]));
+                    } catch (NumberFormatException ex) {
+                        // Ignore non-numeric values.
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.system;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * <p>{@link SystemStatusProvider} based on the {@link OperatingSystemMXBean} of the JVM.</p>
+ *
+ * <p>
+ * The load average and the CPU usage are host-wide, so this provider is not aware of container limits.
+ * The CPU usage is only available on JVMs providing {@code com.sun.management.OperatingSystemMXBean}.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+public class OsSystemStatusProvider implements SystemStatusProvider {
+
+    private final OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+    private final Method systemCpuLoadMethod = resolveSystemCpuLoadMethod(osBean);
+
+    private volatile double systemLoad = -1;
+    private volatile double cpuUsage = -1;
+
+    @Override
+    public void refresh() {
+        systemLoad = osBean.getSystemLoadAverage();
+        if (systemCpuLoadMethod != null) {
+            try {
+                cpuUsage = ((Number)systemCpuLoadMethod.invoke(osBean)).doubleValue();
+            } catch (Throwable ex) {
+                cpuUsage = -1;
+            }
+        }
+    }
+
+    @Override
+    public double getSystemLoad() {
+        return systemLoad;
+    }
+
+    @Override
+    public double getCpuUsage() {
+        return cpuUsage;
+    }
+
+    @Override
+    public double getCpuThrottledRatio() {
+        return -1;
+    }
+
+    @Override
+    public double getMemoryUsage() {
+        return -1;
+    }
+
+    private static Method resolveSystemCpuLoadMethod(OperatingSystemMXBean osBean) {
+        try {
+            Class<?> clazz = Class.forName("com.sun.management.OperatingSystemMXBean");
+            if (!clazz.isInstance(osBean)) {
+                return null;
+            }
+            Method method = clazz.getMethod("getSystemCpuLoad");
+            return method;
+        } catch (Throwable ex) {
+            return null;
+        }
+    }
+}
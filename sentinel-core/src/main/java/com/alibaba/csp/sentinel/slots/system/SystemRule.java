@@ -26,8 +26,8 @@ import com.alibaba.csp.sentinel.slots.block.AbstractRule;
  * provides a measurement of system's load, but only available on Linux.
  * </p>
  * <p>
- * We recommend to coordinate {@link #highestSystemLoad}, {@link #qps}, {@link #avgRt}
- * and {@link #maxThread} to make sure your system run in safety level.
+ * We recommend to coordinate {@link #highestSystemLoad}, {@link #highestCpuUsage}, {@link #qps},
+ * {@link #avgRt} and {@link #maxThread} to make sure your system run in safety level.
  * </p>
  * <p>
  * To set the threshold appropriately, performance test may be needed.
@@ -42,6 +42,10 @@ public class SystemRule extends AbstractRule {
      * negative value means no threshold checking.
      */
     private double highestSystemLoad = -1;
+    /**
+     * CPU usage ratio in [0, 1], respecting the CPU quota in containers.
+     */
+    private double highestCpuUsage = -1;
     private double qps = -1;
     private long avgRt = -1;
     private long maxThread = -1;
@@ -110,6 +114,21 @@ public class SystemRule extends AbstractRule {
         this.highestSystemLoad = highestSystemLoad;
     }
 
+    public double getHighestCpuUsage() {
+        return highestCpuUsage;
+    }
+
+    /**
+     * Set highest CPU usage. The usage is the ratio of the CPUs available, sampled from the cgroup
+     * in containers (see {@link SystemStatusProvider}).
+     *
+     * @param highestCpuUsage highest CPU usage in [0, 1], negative values are special for clearing the threshold.
+     * @since 1.4.1
+     */
+    public void setHighestCpuUsage(double highestCpuUsage) {
+        this.highestCpuUsage = highestCpuUsage;
+    }
+
     @Override
     public boolean passCheck(Context context, DefaultNode node, int count, Object... args) {
         return true;
@@ -133,6 +152,10 @@ public class SystemRule extends AbstractRule {
             return false;
         }
 
+        if (Double.compare(that.highestCpuUsage, highestCpuUsage) != 0) {
+            return false;
+        }
+
         if (Double.compare(that.qps, qps) != 0) {
             return false;
         }
@@ -150,6 +173,9 @@ public class SystemRule extends AbstractRule {
         temp = Double.doubleToLongBits(highestSystemLoad);
         result = 31 * result + (int)(temp ^ (temp >>> 32));
 
+        temp = Double.doubleToLongBits(highestCpuUsage);
+        result = 31 * result + (int)(temp ^ (temp >>> 32));
+
         temp = Double.doubleToLongBits(qps);
         result = 31 * result + (int)(temp ^ (temp >>> 32));
 
@@ -162,6 +188,7 @@ public class SystemRule extends AbstractRule {
     public String toString() {
         return "SystemRule{" +
             "highestSystemLoad=" + highestSystemLoad +
+            ", highestCpuUsage=" + highestCpuUsage +
             ", qps=" + qps +
             ", avgRt=" + avgRt +
             ", maxThread=" + maxThread +
@@ -25,6 +25,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.SentinelProperty;
@@ -66,6 +67,7 @@ import com.alibaba.csp.sentinel.slots.block.BlockException;
 public class SystemRuleManager {
 
     private static volatile double highestSystemLoad = Double.MAX_VALUE;
+    private static volatile double highestCpuUsage = Double.MAX_VALUE;
     private static volatile double qps = Double.MAX_VALUE;
     private static volatile long maxRt = Long.MAX_VALUE;
     private static volatile long maxThread = Long.MAX_VALUE;
@@ -73,6 +75,7 @@ public class SystemRuleManager {
      * mark whether the threshold are set by user.
      */
     private static volatile boolean highestSystemLoadIsSet = false;
+    private static volatile boolean highestCpuUsageIsSet = false;
     private static volatile boolean qpsIsSet = false;
     private static volatile boolean maxRtIsSet = false;
     private static volatile boolean maxThreadIsSet = false;
@@ -89,7 +92,8 @@ public class SystemRuleManager {
     static {
         checkSystemStatus.set(false);
         statusListener = new SystemStatusListener();
-        scheduler.scheduleAtFixedRate(statusListener, 5, 1, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(statusListener, 5000, SentinelConfig.systemStatusIntervalMs(),
+            TimeUnit.MILLISECONDS);
         currentProperty.addListener(listener);
     }
 
@@ -134,6 +138,12 @@ public class SystemRuleManager {
             result.add(loadRule);
         }
 
+        if (highestCpuUsageIsSet) {
+            SystemRule cpuRule = new SystemRule();
+            cpuRule.setHighestCpuUsage(highestCpuUsage);
+            result.add(cpuRule);
+        }
+
         if (maxRtIsSet) {
             SystemRule rtRule = new SystemRule();
             rtRule.setAvgRt(maxRt);
@@ -187,7 +197,7 @@ public class SystemRuleManager {
 
 
             RecordLog.info(String.format("[SystemRuleManager] Current system check status: %s, highestSystemLoad: "
-                + highestSystemLoad + ", " + "maxRt: %d, maxThread: %d, maxQps: " + qps, checkSystemStatus.get(), maxRt, maxThread));
+                + highestSystemLoad + ", highestCpuUsage: " + highestCpuUsage + ", " + "maxRt: %d, maxThread: %d, maxQps: " + qps, checkSystemStatus.get(), maxRt, maxThread));
         }
 
         protected void restoreSetting() {
@@ -195,11 +205,13 @@ public class SystemRuleManager {
 
             // should restore changes
             highestSystemLoad = Double.MAX_VALUE;
+            highestCpuUsage = Double.MAX_VALUE;
             maxRt = Long.MAX_VALUE;
             maxThread = Long.MAX_VALUE;
             qps = Double.MAX_VALUE;
 
             highestSystemLoadIsSet = false;
+            highestCpuUsageIsSet = false;
             maxRtIsSet = false;
             maxThreadIsSet = false;
             qpsIsSet = false;
@@ -219,6 +231,14 @@ public class SystemRuleManager {
         SystemRuleManager.highestSystemLoad = highestSystemLoad;
     }
 
+    /**
+     * @return the CPU usage threshold in [0, 1], or {@link Double#MAX_VALUE} if not set
+     * @since 1.4.1
+     */
+    public static double getHighestCpuUsage() {
+        return highestCpuUsage;
+    }
+
     public static void loadSystemConf(SystemRule rule) {
         boolean checkStatus = false;
         // Check if it's valid.
@@ -229,6 +249,12 @@ public class SystemRuleManager {
             checkStatus = true;
         }
 
+        if (rule.getHighestCpuUsage() >= 0) {
+            highestCpuUsage = Math.min(highestCpuUsage, rule.getHighestCpuUsage());
+            highestCpuUsageIsSet = true;
+            checkStatus = true;
+        }
+
         if (rule.getAvgRt() >= 0) {
             maxRt = Math.min(maxRt, rule.getAvgRt());
             maxRtIsSet = true;
@@ -284,6 +310,11 @@ public class SystemRuleManager {
             throw new SystemBlockException(resourceWrapper.getName(), "rt");
         }
 
+        // CPU usage (of the container if cgroup is available).
+        if (highestCpuUsageIsSet && getCurrentCpuUsage() > highestCpuUsage) {
+            throw new SystemBlockException(resourceWrapper.getName(), "cpu");
+        }
+
         // BBR algorithm.
         if (highestSystemLoadIsSet && getCurrentSystemAvgLoad() > highestSystemLoad) {
             if (currentThread > 1 &&
@@ -297,4 +328,12 @@ public class SystemRuleManager {
     public static double getCurrentSystemAvgLoad() {
         return statusListener.getSystemAverageLoad();
     }
+
+    /**
+     * @return CPU usage in [0, 1] of the latest sample, or negative value if unavailable
+     * @since 1.4.1
+     */
+    public static double getCurrentCpuUsage() {
+        return statusListener.getCpuUsage();
+    }
 }
@@ -16,27 +16,56 @@
 package com.alibaba.csp.sentinel.slots.system;
 
 import java.lang.management.ManagementFactory;
-import java.lang.management.OperatingSystemMXBean;
 
+import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.SpiLoader;
 import com.alibaba.csp.sentinel.util.StringUtil;
 import com.alibaba.csp.sentinel.Constants;
 
 /**
+ * Samples the system status from the {@link SystemStatusProvider} periodically.
+ *
  * @author jialiang.linjl
  */
 public class SystemStatusListener implements Runnable {
 
+    private static final long LOG_INTERVAL_MS = 1000;
+
     volatile double currentLoad = -1;
+    volatile double currentCpuUsage = -1;
 
     volatile String reason = StringUtil.EMPTY;
 
     static final int processor = ManagementFactory.getOperatingSystemMXBean().getAvailableProcessors();
 
+    private final SystemStatusProvider provider;
+    private long lastLogTime;
+
+    public SystemStatusListener() {
+        this(resolveProvider());
+    }
+
+    SystemStatusListener(SystemStatusProvider provider) {
+        this.provider = provider;
+    }
+
     public double getSystemAverageLoad() {
         return currentLoad;
     }
 
+    /**
+     * @return CPU usage in [0, 1] of the latest sample, or negative value if unavailable
+     * @since 1.4.1
+     */
+    public double getCpuUsage() {
+        return currentCpuUsage;
+    }
+
+    public SystemStatusProvider getProvider() {
+        return provider;
+    }
+
     @Override
     public void run() {
         try {
@@ -44,13 +73,21 @@ public class SystemStatusListener implements Runnable {
                 return;
             }
 
-            // system average load
-            OperatingSystemMXBean operatingSystemMXBean = ManagementFactory.getOperatingSystemMXBean();
-            currentLoad = operatingSystemMXBean.getSystemLoadAverage();
+            provider.refresh();
+            currentLoad = provider.getSystemLoad();
+            currentCpuUsage = provider.getCpuUsage();
 
-            StringBuilder sb = new StringBuilder();
-            if (currentLoad > SystemRuleManager.getHighestSystemLoad()) {
+            boolean exceeded = currentLoad > SystemRuleManager.getHighestSystemLoad()
+                || currentCpuUsage > SystemRuleManager.getHighestCpuUsage();
+            long now = System.currentTimeMillis();
+            // Sampled more than once a second, so log at most once a second.
+            if (exceeded && now - lastLogTime >= LOG_INTERVAL_MS) {
+                lastLogTime = now;
+                StringBuilder sb = new StringBuilder();
                 sb.append("load:").append(currentLoad).append(";");
+                sb.append("cpu:").append(currentCpuUsage).append(";");
+                sb.append("throttled:").append(provider.getCpuThrottledRatio()).append(";");
+                sb.append("memory:").append(provider.getMemoryUsage()).append(";");
                 sb.append("qps:").append(Constants.ENTRY_NODE.passQps()).append(";");
                 sb.append("rt:").append(Constants.ENTRY_NODE.avgRt()).append(";");
                 sb.append("thread:").append(Constants.ENTRY_NODE.curThreadNum()).append(";");
@@ -65,4 +102,25 @@ public class SystemStatusListener implements Runnable {
         }
     }
 
+    private static SystemStatusProvider resolveProvider() {
+        SystemStatusProvider spiProvider = SpiLoader.loadFirstInstance(SystemStatusProvider.class);
+        if (spiProvider != null) {
+            RecordLog.info("[SystemStatusListener] Resolved system status provider from SPI: "
+                + spiProvider.getClass().getCanonicalName());
+            return spiProvider;
+        }
+        String type = SentinelConfig.systemStatusProvider();
+        if (SentinelConfig.SYSTEM_STATUS_PROVIDER_OS.equals(type)) {
+            return new OsSystemStatusProvider();
+        }
+        CgroupSystemStatusProvider cgroupProvider = CgroupSystemStatusProvider.create();
+        if (cgroupProvider != null && cgroupProvider.probe()) {
+            RecordLog.info("[SystemStatusListener] Using cgroup system status provider, v2: " + cgroupProvider.isV2());
+            return cgroupProvider;
+        }
+        if (SentinelConfig.SYSTEM_STATUS_PROVIDER_CGROUP.equals(type)) {
+            RecordLog.warn("[SystemStatusListener] cgroup is unavailable, using OS system status provider");
+        }
+        return new OsSystemStatusProvider();
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.system;
+
+/**
+ * <p>Provides the status of the system (or the container) for {@link SystemRule} checking.</p>
+ *
+ * <p>
+ * The provider is resolved from the SPI first, otherwise by the {@code csp.sentinel.system.status.provider}
+ * property (see {@link com.alibaba.csp.sentinel.config.SentinelConfig#systemStatusProvider()}).
+ * {@link #refresh()} is invoked periodically by a single sampling thread, while the getters may be
+ * invoked by any thread and should only return the latest sampled values.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+public interface SystemStatusProvider {
+
+    /**
+     * Sample the current status.
+     */
+    void refresh();
+
+    /**
+     * Get the system load average.
+     *
+     * @return the load average, or negative value if unavailable
+     */
+    double getSystemLoad();
+
+    /**
+     * Get the CPU usage in the last sampling interval, as the ratio of the CPUs available
+     * (the CPU quota in containers).
+     *
+     * @return the CPU usage in [0, 1], or negative value if unavailable
+     */
+    double getCpuUsage();
+
+    /**
+     * Get the ratio of scheduling periods in which the CPU was throttled by the quota in the last
+     * sampling interval.
+     *
+     * @return the throttled ratio in [0, 1], or negative value if unavailable
+     */
+    double getCpuThrottledRatio();
+
+    /**
+     * Get the ratio of memory used to the memory limit.
+     *
+     * @return the memory usage in [0, 1], or negative value if unavailable
+     */
+    double getMemoryUsage();
+}
@@ -15,38 +15,78 @@
  */
 package com.alibaba.csp.sentinel.util;
 
-import java.util.concurrent.TimeUnit;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.clock.AbstractTickingClock;
+import com.alibaba.csp.sentinel.util.clock.AdaptiveTickingClock;
+import com.alibaba.csp.sentinel.util.clock.Clock;
+import com.alibaba.csp.sentinel.util.clock.SystemClock;
+import com.alibaba.csp.sentinel.util.clock.TickingClock;
 
 /**
- * Provides millisecond-level time of OS.
+ * <p>Provides millisecond-level time of OS.</p>
+ *
+ * <p>The time comes from a {@link Clock}, which is resolved from the SPI first, otherwise by
+ * the {@code csp.sentinel.clock.mode} property (see {@link SentinelConfig#clockMode()}).
+ * The clock can be replaced via {@link #setClock(Clock)} (e.g. a
+ * {@link com.alibaba.csp.sentinel.util.clock.ManualClock} in tests).</p>
  *
  * @author qinan.qn
  */
 public final class TimeUtil {
 
-    private static volatile long currentTimeMillis;
+    private static volatile Clock clock;
 
     static {
-        currentTimeMillis = System.currentTimeMillis();
-        Thread daemon = new Thread(new Runnable() {
-            @Override
-            public void run() {
-                while (true) {
-                    currentTimeMillis = System.currentTimeMillis();
-                    try {
-                        TimeUnit.MILLISECONDS.sleep(1);
-                    } catch (Throwable e) {
-
-                    }
-                }
-            }
-        });
-        daemon.setDaemon(true);
-        daemon.setName("sentinel-time-tick-thread");
-        daemon.start();
+        setClock(null);
     }
 
     public static long currentTimeMillis() {
-        return currentTimeMillis;
+        return clock.currentTimeMillis();
+    }
+
+    public static Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Replace current clock with provided clock. Ticking clocks will be started,
+     * and the replaced ticking clock will be stopped.
+     *
+     * @param newClock new clock; if null, the default clock will be resolved again
+     */
+    public static synchronized void setClock(Clock newClock) {
+        if (newClock == null) {
+            newClock = resolveDefaultClock();
+        }
+        if (newClock instanceof AbstractTickingClock) {
+            ((AbstractTickingClock)newClock).start();
+        }
+        Clock oldClock = clock;
+        clock = newClock;
+        if (oldClock != newClock && oldClock instanceof AbstractTickingClock) {
+            ((AbstractTickingClock)oldClock).stop();
+        }
+    }
+
+    private static Clock resolveDefaultClock() {
+        Clock spiClock = SpiLoader.loadFirstInstance(Clock.class);
+        if (spiClock != null) {
+            RecordLog.info("[TimeUtil] Resolved clock from SPI: " + spiClock.getClass().getCanonicalName());
+            return spiClock;
+        }
+        String mode = SentinelConfig.clockMode();
+        if (SentinelConfig.CLOCK_MODE_SYSTEM.equals(mode)) {
+            return SystemClock.INSTANCE;
+        }
+        if (SentinelConfig.CLOCK_MODE_ADAPTIVE.equals(mode)) {
+            return new AdaptiveTickingClock();
+        }
+        if (!SentinelConfig.CLOCK_MODE_TICKER.equals(mode)) {
+            RecordLog.warn("[TimeUtil] Unknown clock mode <" + mode + ">, using ticker clock");
+        }
+        return new TickingClock();
     }
+
+    private TimeUtil() {}
 }
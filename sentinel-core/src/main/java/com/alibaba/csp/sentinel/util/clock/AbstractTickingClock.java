@@ -0,0 +1,84 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util.clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base of clocks that update the cached time in a background daemon thread.
+ * The clock should be started via {@link #start()} before use.
+ *
+ * @since 1.4.1
+ */
+public abstract class AbstractTickingClock implements Clock {
+
+    private final String threadName;
+
+    private volatile Thread tickThread;
+
+    protected AbstractTickingClock(String threadName) {
+        this.threadName = threadName;
+    }
+
+    /**
+     * Start the tick thread if it's not running.
+     */
+    public synchronized void start() {
+        if (tickThread != null) {
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Thread self = Thread.currentThread();
+                while (tickThread == self) {
+                    long sleepMs = tick();
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(sleepMs);
+                    } catch (Throwable e) {
+                        // Interrupted when the clock is stopped, or just tick again.
+                    }
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.setName(threadName);
+        tickThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Stop the tick thread. The clock will not be updated any more until it's started again.
+     */
+    public synchronized void stop() {
+        Thread thread = tickThread;
+        if (thread != null) {
+            tickThread = null;
+            thread.interrupt();
+        }
+    }
+
+    public boolean isStarted() {
+        return tickThread != null;
+    }
+
+    /**
+     * Update the cached time. This is invoked only in the tick thread.
+     *
+     * @return time to sleep until next tick in milliseconds
+     */
+    protected abstract long tick();
+}
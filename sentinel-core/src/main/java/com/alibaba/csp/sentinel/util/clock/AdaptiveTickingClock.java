@@ -0,0 +1,141 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util.clock;
+
+/**
+ * <p>A clock that ticks every millisecond only when the clock is read frequently.</p>
+ *
+ * <p>The activity is measured by the amount of "active" milliseconds (during which the clock has been read)
+ * in each check interval. When the clock is idle, it reads {@link System#currentTimeMillis()} directly
+ * and the background thread only wakes up once per check interval. When the activity reaches
+ * the busy threshold, the clock switches to cached ticking like {@link TickingClock},
+ * and it backs off to direct reads again when the activity drops below the idle threshold.</p>
+ *
+ * <p>The activity is counted approximately (racy updates may be lost), which is enough for the decision.</p>
+ *
+ * @since 1.4.1
+ */
+public class AdaptiveTickingClock extends AbstractTickingClock {
+
+    public static final int DEFAULT_CHECK_INTERVAL_MS = 1000;
+    public static final int DEFAULT_BUSY_THRESHOLD = 500;
+    public static final int DEFAULT_IDLE_THRESHOLD = 100;
+
+    private final int checkIntervalMs;
+    private final int busyThreshold;
+    private final int idleThreshold;
+
+    private volatile boolean ticking = false;
+    private volatile long now = System.currentTimeMillis();
+
+    /**
+     * Whether the clock has been read since last tick (in ticking mode).
+     */
+    private volatile boolean accessed = false;
+    /**
+     * The latest millisecond observed by readers (in idle mode).
+     */
+    private volatile long lastObserved = 0;
+    /**
+     * Approximate amount of distinct milliseconds observed by readers (in idle mode).
+     */
+    private volatile int observedCount = 0;
+
+    /**
+     * State of the tick thread.
+     */
+    private long periodStart = System.currentTimeMillis();
+    private int activeTicks = 0;
+
+    public AdaptiveTickingClock() {
+        this(DEFAULT_CHECK_INTERVAL_MS, DEFAULT_BUSY_THRESHOLD, DEFAULT_IDLE_THRESHOLD);
+    }
+
+    /**
+     * @param checkIntervalMs interval to check the activity in milliseconds
+     * @param busyThreshold   active milliseconds per check interval to start ticking
+     * @param idleThreshold   active milliseconds per check interval to stop ticking
+     */
+    public AdaptiveTickingClock(int checkIntervalMs, int busyThreshold, int idleThreshold) {
+        super("sentinel-time-adaptive-tick-thread");
+        if (checkIntervalMs <= 0 || busyThreshold < idleThreshold) {
+            throw new IllegalArgumentException("Invalid adaptive clock thresholds");
+        }
+        this.checkIntervalMs = checkIntervalMs;
+        this.busyThreshold = busyThreshold;
+        this.idleThreshold = idleThreshold;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        if (ticking) {
+            if (!accessed) {
+                accessed = true;
+            }
+            return now;
+        }
+        long time = System.currentTimeMillis();
+        if (time != lastObserved) {
+            lastObserved = time;
+            observedCount++;
+        }
+        return time;
+    }
+
+    @Override
+    protected long tick() {
+        long time = System.currentTimeMillis();
+        if (!ticking) {
+            int active = observedCount;
+            observedCount = 0;
+            if (active >= busyThreshold) {
+                startTicking(time);
+                return 1;
+            }
+            return checkIntervalMs;
+        }
+
+        now = time;
+        if (accessed) {
+            accessed = false;
+            activeTicks++;
+        }
+        if (time - periodStart >= checkIntervalMs) {
+            if (activeTicks < idleThreshold) {
+                ticking = false;
+                return checkIntervalMs;
+            }
+            periodStart = time;
+            activeTicks = 0;
+        }
+        return 1;
+    }
+
+    private void startTicking(long time) {
+        now = time;
+        accessed = false;
+        periodStart = time;
+        activeTicks = 0;
+        ticking = true;
+    }
+
+    /**
+     * Check whether the clock is caching time in the tick thread. Package-private for test.
+     */
+    boolean isTicking() {
+        return ticking;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util.clock;
+
+/**
+ * <p>Source of the current time used by Sentinel statistics and flow controllers.</p>
+ *
+ * <p>The default clock is resolved by {@link com.alibaba.csp.sentinel.util.TimeUtil} from the SPI
+ * ({@code META-INF/services/com.alibaba.csp.sentinel.util.clock.Clock}) or the
+ * {@code csp.sentinel.clock.mode} property. Implementations should be thread-safe and cheap,
+ * as the clock is read several times for each entry.</p>
+ *
+ * @since 1.4.1
+ */
+public interface Clock {
+
+    /**
+     * Get the current time in milliseconds.
+     *
+     * @return the current time in milliseconds
+     */
+    long currentTimeMillis();
+}
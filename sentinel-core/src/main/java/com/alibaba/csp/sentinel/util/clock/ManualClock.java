@@ -0,0 +1,57 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util.clock;
+
+/**
+ * A clock that only moves when told to, so that time-based components (e.g. sliding windows
+ * and flow controllers) can be tested deterministically via
+ * {@link com.alibaba.csp.sentinel.util.TimeUtil#setClock(Clock)}.
+ *
+ * @since 1.4.1
+ */
+public class ManualClock implements Clock {
+
+    private volatile long now;
+
+    public ManualClock() {
+        this(System.currentTimeMillis());
+    }
+
+    public ManualClock(long now) {
+        this.now = now;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    public ManualClock setCurrentTimeMillis(long now) {
+        this.now = now;
+        return this;
+    }
+
+    /**
+     * Move the clock forward.
+     *
+     * @param deltaMs time to move in milliseconds
+     * @return the new time in milliseconds
+     */
+    public synchronized long advance(long deltaMs) {
+        now = now + deltaMs;
+        return now;
+    }
+}
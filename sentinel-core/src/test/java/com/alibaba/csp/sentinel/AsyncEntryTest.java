@@ -4,6 +4,14 @@ import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.context.ContextTestUtil;
 import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.clock.ManualClock;
+
+import java.util.Collections;
 
 import org.junit.After;
 import org.junit.Test;
@@ -98,4 +106,59 @@ public class AsyncEntryTest {
     public void tearDown() {
         ContextTestUtil.cleanUpContext();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDeferredAdmission() throws Exception {
+        String resourceName = "testDeferredAdmission";
+        FlowRule rule = new FlowRule(resourceName).setCount(10)
+            .setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER)
+            .setMaxQueueingTimeMs(250);
+        FlowRuleManager.loadRules(Collections.singletonList(rule));
+        ManualClock clock = new ManualClock(10000);
+        TimeUtil.setClock(clock);
+        try {
+            AsyncEntry first = SphU.asyncEntryWithDeferredAdmission(resourceName, EntryType.OUT);
+            assertTrue(first.isAdmissionDeferrable());
+            assertEquals(0, first.getAdmissionDelayMs());
+
+            // Queued behind the first entry, but the caller does not wait.
+            AsyncEntry second = SphU.asyncEntryWithDeferredAdmission(resourceName, EntryType.OUT);
+            assertEquals(10100, second.getAdmissionTime());
+            assertEquals(100, second.getAdmissionDelayMs());
+            AsyncEntry third = SphU.asyncEntryWithDeferredAdmission(resourceName, EntryType.OUT);
+            assertEquals(200, third.getAdmissionDelayMs());
+
+            // The queue is full.
+            try {
+                SphU.asyncEntryWithDeferredAdmission(resourceName, EntryType.OUT);
+                fail("Should be blocked");
+            } catch (BlockException expected) {
+            }
+
+            clock.advance(150);
+            assertEquals(0, second.getAdmissionDelayMs());
+            assertEquals(50, third.getAdmissionDelayMs());
+
+            first.exit();
+            second.exit();
+            third.exit();
+        } finally {
+            TimeUtil.setClock(null);
+            FlowRuleManager.loadRules(null);
+            ContextTestUtil.cleanUpContext();
+        }
+    }
+
+    @Test
+    public void testAdmissionNotDeferrableByDefault() throws Exception {
+        AsyncEntry entry = SphU.asyncEntry("testAdmissionNotDeferrableByDefault");
+        try {
+            assertFalse(entry.isAdmissionDeferrable());
+            assertEquals(entry.getCreateTime(), entry.getAdmissionTime());
+            assertEquals(0, entry.getAdmissionDelayMs());
+        } finally {
+            entry.exit();
+            ContextTestUtil.cleanUpContext();
+        }
+    }
+}
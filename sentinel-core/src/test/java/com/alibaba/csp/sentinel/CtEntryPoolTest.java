@@ -0,0 +1,118 @@
+package com.alibaba.csp.sentinel;
+
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.context.ContextTestUtil;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link CtEntryPool}.
+ */
+public class CtEntryPoolTest {
+
+    private final CtSph ctSph = new CtSph();
+
+    @Test
+    public void testEntryRecycledAfterExit() throws BlockException {
+        ContextUtil.enter("testEntryRecycledAfterExit");
+        try {
+            Entry entry1 = ctSph.entry("res1", EntryType.IN);
+            entry1.exit();
+            assertEquals(1, CtEntryPool.current().size());
+
+            Entry entry2 = ctSph.entry("res1", EntryType.IN);
+            assertSame("The recycled entry should be re-used", entry1, entry2);
+            assertNull(entry2.getError());
+            entry2.exit();
+        } finally {
+            ContextUtil.exit();
+        }
+    }
+
+    @Test
+    public void testNestedEntriesKeepDepth() throws BlockException {
+        ContextUtil.enter("testNestedEntriesKeepDepth");
+        Context context = ContextUtil.getContext();
+        try {
+            Entry outer = ctSph.entry("outerRes", EntryType.IN);
+            Entry inner = ctSph.entry("innerRes", EntryType.IN);
+            assertSame(inner, context.getCurEntry());
+            inner.exit();
+            assertSame(outer, context.getCurEntry());
+            outer.exit();
+            assertNull(context.getCurEntry());
+            assertEquals(2, CtEntryPool.current().size());
+
+            Entry outer2 = ctSph.entry("outerRes", EntryType.IN);
+            Entry inner2 = ctSph.entry("innerRes", EntryType.IN);
+            assertSame(outer, outer2);
+            assertSame(inner, inner2);
+            assertSame("The resource wrapper should be re-used at the same depth",
+                outer.getResourceWrapper(), outer2.getResourceWrapper());
+            assertEquals("outerRes", outer2.getResourceWrapper().getName());
+            assertEquals("innerRes", inner2.getResourceWrapper().getName());
+            assertSame(outer2, ((CtEntry)inner2).parent);
+            inner2.exit();
+            outer2.exit();
+        } finally {
+            ContextUtil.exit();
+        }
+    }
+
+    @Test
+    public void testDifferentResourceNotSharingWrapper() throws BlockException {
+        ContextUtil.enter("testDifferentResourceNotSharingWrapper");
+        try {
+            Entry entry1 = ctSph.entry("res1", EntryType.IN);
+            entry1.exit();
+            Entry entry2 = ctSph.entry("res2", EntryType.IN);
+            assertSame(entry1, entry2);
+            assertEquals("res2", entry2.getResourceWrapper().getName());
+            entry2.exit();
+            Entry entry3 = ctSph.entry("res2", EntryType.OUT);
+            assertEquals(EntryType.OUT, entry3.getResourceWrapper().getType());
+            entry3.exit();
+        } finally {
+            ContextUtil.exit();
+        }
+    }
+
+    @Test
+    public void testExitNotMatchCurEntryWithPool() throws BlockException {
+        ContextUtil.enter("testExitNotMatchCurEntryWithPool");
+        Context context = ContextUtil.getContext();
+        try {
+            Entry entry1 = ctSph.entry("res1", EntryType.IN);
+            ctSph.entry("res2", EntryType.IN);
+            try {
+                // Forget to exit for entry 2.
+                entry1.exit();
+                fail("Mismatch entry-exit should throw an ErrorEntryFreeException");
+            } catch (ErrorEntryFreeException ex) {
+                assertNull(context.getCurEntry());
+                assertEquals(2, CtEntryPool.current().size());
+            }
+        } finally {
+            ContextUtil.exit();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        ContextTestUtil.cleanUpContext();
+        CtEntryPool.setEnabled(true);
+        CtEntryPool.current().clear();
+    }
+
+    @After
+    public void tearDown() {
+        CtEntryPool.setEnabled(false);
+        ContextTestUtil.cleanUpContext();
+    }
+}
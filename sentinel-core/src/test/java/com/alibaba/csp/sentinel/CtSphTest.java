@@ -1,5 +1,11 @@
 package com.alibaba.csp.sentinel;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.context.ContextTestUtil;
 import com.alibaba.csp.sentinel.context.ContextUtil;
@@ -269,6 +275,38 @@ public class CtSphTest {
         assertNull(ctSph.lookProcessChain(r2));
     }
 
+    @Test
+    public void testLookUpSlotChainConcurrently() throws Exception {
+        final int threadCount = 8;
+        final int resourceCount = 500;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch doneLatch = new CountDownLatch(threadCount);
+        final Set<ProcessorSlot<Object>> chains = Collections.newSetFromMap(
+            new ConcurrentHashMap<ProcessorSlot<Object>, Boolean>());
+        for (int t = 0; t < threadCount; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        for (int i = 0; i < resourceCount; i++) {
+                            chains.add(ctSph.lookProcessChain(
+                                new StringResourceWrapper("concurrentRes-" + i, EntryType.IN)));
+                        }
+                    } catch (InterruptedException ignore) {
+                    } finally {
+                        doneLatch.countDown();
+                    }
+                }
+            }).start();
+        }
+        startLatch.countDown();
+        assertTrue(doneLatch.await(10, TimeUnit.SECONDS));
+
+        assertEquals("Each resource should share one slot chain among threads", resourceCount, chains.size());
+        assertEquals(resourceCount, CtSph.entrySize());
+    }
+
     private void fillFullContext() {
         for (int i = 0; i < Constants.MAX_CONTEXT_NAME_SIZE; i++) {
             ContextUtil.enter("test-context-" + i);
@@ -0,0 +1,84 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link TokenResultFuture}.
+ */
+public class TokenResultFutureTest {
+
+    @Test
+    public void testCompleteOnlyOnce() throws Exception {
+        TokenResultFuture future = new TokenResultFuture();
+        assertFalse(future.isDone());
+        TokenResult fallback = new TokenResult(TokenResultStatus.FAIL);
+        assertSame(fallback, future.getNow(fallback));
+
+        TokenResult ok = new TokenResult(TokenResultStatus.OK);
+        assertTrue(future.complete(ok));
+        assertFalse(future.complete(new TokenResult(TokenResultStatus.BLOCKED)));
+        assertTrue(future.isDone());
+        assertSame(ok, future.get());
+        assertSame(ok, future.get(1, TimeUnit.MILLISECONDS));
+        assertFalse(future.cancel(true));
+    }
+
+    @Test
+    public void testListenerNotifiedBeforeAndAfterCompletion() {
+        final AtomicInteger notified = new AtomicInteger();
+        TokenResultListener listener = new TokenResultListener() {
+            @Override
+            public void onComplete(TokenResult result) {
+                assertEquals(TokenResultStatus.OK, (int)result.getStatus());
+                notified.incrementAndGet();
+            }
+        };
+        TokenResultFuture future = new TokenResultFuture().addListener(listener);
+        assertEquals(0, notified.get());
+        future.complete(new TokenResult(TokenResultStatus.OK));
+        assertEquals(1, notified.get());
+
+        TokenResultFuture.completed(new TokenResult(TokenResultStatus.OK)).addListener(listener);
+        assertEquals(2, notified.get());
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testGetTimeout() throws Exception {
+        new TokenResultFuture().get(10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testCompleteFromAnotherThread() throws Exception {
+        final TokenResultFuture future = new TokenResultFuture();
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                future.complete(new TokenResult(TokenResultStatus.SHOULD_WAIT).setWaitInMs(20));
+            }
+        }).start();
+        TokenResult result = future.get(5, TimeUnit.SECONDS);
+        assertEquals(TokenResultStatus.SHOULD_WAIT, (int)result.getStatus());
+        assertEquals(20, result.getWaitInMs());
+    }
+}
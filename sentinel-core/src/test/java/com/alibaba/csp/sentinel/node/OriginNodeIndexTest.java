@@ -0,0 +1,132 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link OriginNodeIndex}.
+ */
+public class OriginNodeIndexTest {
+
+    @Test
+    public void testGetOrCreateReturnsSameNode() {
+        OriginNodeIndex index = new OriginNodeIndex(10);
+        StatisticNode node = index.getOrCreate("app1");
+        assertSame(node, index.getOrCreate("app1"));
+        assertNotSame(node, index.getOrCreate("app2"));
+        assertEquals(2, index.size());
+        assertSame(node, index.asMap().get("app1"));
+        assertEquals(0, index.evictedCount());
+    }
+
+    @Test
+    public void testCapacityIsBounded() {
+        OriginNodeIndex index = new OriginNodeIndex(100);
+        for (int i = 0; i < 10000; i++) {
+            index.getOrCreate("app" + i);
+            assertTrue(index.size() <= 100);
+        }
+        // The latest origin is always kept.
+        assertTrue(index.asMap().containsKey("app9999"));
+        assertEquals(10000 - index.size(), index.evictedCount());
+    }
+
+    @Test
+    public void testLeastUsedOriginsEvictedFirst() {
+        OriginNodeIndex index = new OriginNodeIndex(10);
+        for (int i = 0; i < 10; i++) {
+            StatisticNode node = index.getOrCreate("app" + i);
+            if (i % 2 == 0) {
+                node.addPassRequest();
+            }
+        }
+        index.getOrCreate("newApp");
+
+        assertEquals(9, index.size());
+        assertEquals(2, index.evictedCount());
+        for (int i = 0; i < 10; i += 2) {
+            assertTrue(index.asMap().containsKey("app" + i));
+        }
+        assertTrue(index.asMap().containsKey("newApp"));
+    }
+
+    @Test
+    public void testNewOriginKeptWhenCapacityIsOne() {
+        OriginNodeIndex index = new OriginNodeIndex(1);
+        StatisticNode busy = index.getOrCreate("busy");
+        busy.increaseThreadNum();
+        index.getOrCreate("idle");
+        // Capacity is one, so the busy origin has to go in favour of the new one.
+        assertFalse(index.asMap().containsKey("busy"));
+        assertTrue(index.asMap().containsKey("idle"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testConcurrentGetOrCreate() throws Exception {
+        final OriginNodeIndex index = new OriginNodeIndex(1000);
+        final int threads = 4;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicInteger mismatch = new AtomicInteger();
+        final List<List<StatisticNode>> results = new ArrayList<List<StatisticNode>>();
+        for (int t = 0; t < threads; t++) {
+            final List<StatisticNode> result = new ArrayList<StatisticNode>();
+            results.add(result);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 500; i++) {
+                            StatisticNode node = index.getOrCreate("app" + i);
+                            if (node != index.getOrCreate("app" + i)) {
+                                mismatch.incrementAndGet();
+                            }
+                            result.add(node);
+                        }
+                    } catch (InterruptedException ignore) {
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+
+        assertEquals(0, mismatch.get());
+        assertEquals(500, index.size());
+        for (int t = 1; t < threads; t++) {
+            for (int i = 0; i < 500; i++) {
+                assertSame(results.get(0).get(i), results.get(t).get(i));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalCapacity() {
+        new OriginNodeIndex(0);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link AsyncMetricWriter}.
+ */
+public class AsyncMetricWriterTest {
+
+    private static final int SECONDS = 40;
+
+    private File syncDir;
+    private File asyncDir;
+
+    private final long beginTime = (System.currentTimeMillis() / 1000 + 2) * 1000;
+
+    @Before
+    public void setUp() throws Exception {
+        syncDir = createTempDir("sync");
+        asyncDir = createTempDir("async");
+    }
+
+    @After
+    public void tearDown() {
+        deleteDir(syncDir);
+        deleteDir(asyncDir);
+    }
+
+    @Test
+    public void testSameFilesAsSyncWriterInTextFormat() throws Exception {
+        assertSameFiles(false);
+    }
+
+    @Test
+    public void testSameFilesAsSyncWriterInBinaryFormat() throws Exception {
+        assertSameFiles(true);
+    }
+
+    private void assertSameFiles(boolean binaryFormat) throws Exception {
+        // Small files to cover rolling of files.
+        MetricWriter syncWriter = new MetricWriter(syncDir.getAbsolutePath() + File.separator, 1024, 100,
+            binaryFormat);
+        AsyncMetricWriter asyncWriter = new AsyncMetricWriter(new MetricWriter(
+            asyncDir.getAbsolutePath() + File.separator, 1024, 100, binaryFormat, true), binaryFormat,
+            AsyncMetricWriter.DEFAULT_QUEUE_CAPACITY);
+        for (int s = 0; s < SECONDS; s++) {
+            syncWriter.write(beginTime + s * 1000, newNodes(s));
+            assertTrue(asyncWriter.write(beginTime + s * 1000, newNodes(s)));
+        }
+        syncWriter.close();
+        asyncWriter.close();
+        assertEquals(SECONDS, asyncWriter.getWrittenBatches());
+        assertEquals(0, asyncWriter.getDroppedBatches());
+        assertEquals(0, asyncWriter.getQueueDepth());
+
+        String[] names = syncDir.list();
+        Arrays.sort(names);
+        String[] asyncNames = asyncDir.list();
+        Arrays.sort(asyncNames);
+        assertArrayEquals(names, asyncNames);
+        assertTrue(names.length > 2);
+        for (String name : names) {
+            assertArrayEquals(name, readFile(new File(syncDir, name)), readFile(new File(asyncDir, name)));
+        }
+    }
+
+    @Test
+    public void testDropBatchesWhenQueueIsFull() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        MetricWriter slowWriter = new MetricWriter(asyncDir.getAbsolutePath() + File.separator, 1024, 100,
+            false, true) {
+            @Override
+            synchronized void write(long time, List<MetricNode> nodes, ByteBuffer formatted) throws Exception {
+                blocked.countDown();
+                release.await();
+                super.write(time, nodes, formatted);
+            }
+        };
+        AsyncMetricWriter asyncWriter = new AsyncMetricWriter(slowWriter, false, 2);
+        assertTrue(asyncWriter.write(beginTime, newNodes(0)));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        // The first batch is being written, two more fill the queue.
+        assertTrue(asyncWriter.write(beginTime + 1000, newNodes(1)));
+        assertTrue(asyncWriter.write(beginTime + 2000, newNodes(2)));
+        assertEquals(2, asyncWriter.getQueueDepth());
+        assertFalse(asyncWriter.write(beginTime + 3000, newNodes(3)));
+        assertEquals(1, asyncWriter.getDroppedBatches());
+
+        release.countDown();
+        asyncWriter.close();
+        assertEquals(3, asyncWriter.getWrittenBatches());
+        // The queued batches are committed together.
+        assertEquals(2, asyncWriter.getCommits());
+
+        MetricSearcher searcher = new MetricSearcher(asyncDir.getAbsolutePath(), asyncDir.list()[0].split("\\.")[0]);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(beginTime, beginTime + 3000, null);
+        assertEquals(3 * 5, nodes.size());
+    }
+
+    private static List<MetricNode> newNodes(int s) {
+        List<MetricNode> nodes = new ArrayList<MetricNode>();
+        for (int r = 0; r < 5; r++) {
+            MetricNode node = new MetricNode();
+            node.setResource("资源-" + r);
+            node.setPassQps(11 * r + s);
+            node.setBlockQps(r);
+            node.setSuccessQps(11 * r + s);
+            node.setExceptionQps(s % 3);
+            node.setRt(1000 + r);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private static byte[] readFile(File file) throws Exception {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            byte[] bytes = new byte[(int)in.length()];
+            in.readFully(bytes);
+            return bytes;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static File createTempDir(String prefix) throws Exception {
+        File dir = File.createTempFile("sentinel-metric-" + prefix, "");
+        assertTrue(dir.delete());
+        assertTrue(dir.mkdirs());
+        return dir;
+    }
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link MappedMetricIndex}.
+ */
+public class MappedMetricIndexTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("metrics", MetricWriter.METRIC_FILE_INDEX_SUFFIX);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testFindOffsetWhileGrowing() throws IOException {
+        MappedMetricIndex index = new MappedMetricIndex(file.getAbsolutePath());
+        assertEquals(-1, index.findOffset(100, false));
+        for (int s = 0; s < 50; s++) {
+            append(100 + 2 * s, 1000 * s);
+            assertEquals(1000 * s, index.findOffset(100 + 2 * s, false));
+            assertEquals(1000 * s, index.findOffset(100 + 2 * s - 1, false));
+            assertEquals(-1, index.findOffset(100 + 2 * s + 1, false));
+        }
+        assertEquals(0, index.findOffset(0, false));
+    }
+
+    @Test
+    public void testFindOffsetInRolledFile() throws IOException {
+        for (int s = 0; s < 50; s++) {
+            append(100 + 2 * s, 1000 * s);
+        }
+        // A partially written entry is ignored.
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true));
+        out.writeLong(1000);
+        out.close();
+
+        MappedMetricIndex index = new MappedMetricIndex(file.getAbsolutePath());
+        assertEquals(0, index.findOffset(0, true));
+        assertEquals(1000 * 20, index.findOffset(139, true));
+        assertEquals(1000 * 49, index.findOffset(198, true));
+        assertEquals(-1, index.findOffset(199, true));
+    }
+
+    @Test
+    public void testFindOffsetOfRemovedFile() throws IOException {
+        MappedMetricIndex index = new MappedMetricIndex(file.getAbsolutePath());
+        file.delete();
+        assertEquals(-1, index.findOffset(100, false));
+    }
+
+    private void append(long second, long offset) throws IOException {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true));
+        try {
+            out.writeLong(second);
+            out.writeLong(offset);
+        } finally {
+            out.close();
+        }
+    }
+}
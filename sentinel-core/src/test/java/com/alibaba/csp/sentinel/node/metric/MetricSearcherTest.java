@@ -0,0 +1,235 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.util.PidUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link MetricSearcher} with metric files in text and binary format.
+ */
+public class MetricSearcherTest {
+
+    private static final int RESOURCE_COUNT = 20;
+    private static final int SECONDS = 30;
+
+    private File textDir;
+    private File binaryDir;
+
+    private final long beginTime = (System.currentTimeMillis() / 1000 + 2) * 1000;
+
+    @Before
+    public void setUp() throws Exception {
+        textDir = createTempDir("text");
+        binaryDir = createTempDir("binary");
+    }
+
+    @After
+    public void tearDown() {
+        deleteDir(textDir);
+        deleteDir(binaryDir);
+    }
+
+    @Test
+    public void testBinaryFormatSameAsText() throws Exception {
+        // Small files to cover rolling of files.
+        long fileSize = 4096;
+        writeMetrics(new MetricWriter(textDir.getAbsolutePath() + File.separator, fileSize, 100, false));
+        writeMetrics(new MetricWriter(binaryDir.getAbsolutePath() + File.separator, fileSize, 100, true));
+
+        MetricSearcher textSearcher = newSearcher(textDir);
+        MetricSearcher binarySearcher = newSearcher(binaryDir);
+
+        List<MetricNode> all = binarySearcher.findByTimeAndResource(beginTime, beginTime + SECONDS * 1000, null);
+        assertEquals(SECONDS * RESOURCE_COUNT, all.size());
+        assertSameNodes(textSearcher.findByTimeAndResource(beginTime, beginTime + SECONDS * 1000, null), all);
+
+        long from = beginTime + 10 * 1000;
+        long to = beginTime + 19 * 1000;
+        List<MetricNode> one = binarySearcher.findByTimeAndResource(from, to, "resource|7");
+        assertEquals(10, one.size());
+        for (MetricNode node : one) {
+            assertEquals("resource|7", node.getResource());
+        }
+        assertEquals(from, one.get(0).getTimestamp());
+        assertEquals(11 * 7 + 10, one.get(0).getPassQps());
+        assertTrue(binarySearcher.findByTimeAndResource(from, to, "absent").isEmpty());
+
+        // Same second is never split.
+        List<MetricNode> lines = binarySearcher.find(from, 25);
+        assertEquals(2 * RESOURCE_COUNT, lines.size());
+        assertSameNodes(textSearcher.find(from, 25), lines);
+
+        assertTrue(totalSize(binaryDir) * 2 < totalSize(textDir));
+    }
+
+    @Test
+    public void testReadBinaryFileWithSmallWindow() throws Exception {
+        writeMetrics(new MetricWriter(binaryDir.getAbsolutePath() + File.separator, 1024 * 1024, 100, true));
+        File metricFile = null;
+        for (File file : binaryDir.listFiles()) {
+            if (!file.getName().endsWith(MetricWriter.METRIC_FILE_INDEX_SUFFIX) && !file.getName().endsWith(".lck")) {
+                metricFile = file;
+            }
+        }
+        assertNotNull(metricFile);
+
+        // Blocks are larger than the window, so the window is moved and extended.
+        BinaryMetricFile small = new BinaryMetricFile(metricFile.getAbsolutePath(), 16);
+        BinaryMetricFile large = new BinaryMetricFile(metricFile.getAbsolutePath());
+        List<MetricNode> expected = new ArrayList<MetricNode>();
+        large.read(expected, 0, Integer.MAX_VALUE);
+        assertEquals(SECONDS * RESOURCE_COUNT, expected.size());
+        List<MetricNode> actual = new ArrayList<MetricNode>();
+        small.read(actual, 0, Integer.MAX_VALUE);
+        assertSameNodes(expected, actual);
+
+        List<MetricNode> one = new ArrayList<MetricNode>();
+        assertFalse(small.readByEndTime(one, 0, beginTime / 1000 + 9, "resource|7", Integer.MAX_VALUE));
+        assertEquals(10, one.size());
+        assertEquals(11 * 7 + 9, one.get(9).getPassQps());
+    }
+
+    @Test
+    public void testSearchWhileWriting() throws Exception {
+        MetricWriter writer = new MetricWriter(binaryDir.getAbsolutePath() + File.separator, 4096, 100, true);
+        MetricSearcher searcher = newSearcher(binaryDir);
+        try {
+            for (int s = 0; s < SECONDS; s++) {
+                writer.write(beginTime + s * 1000, newNodes(s));
+                // New seconds and rolled files are visible to the searcher.
+                List<MetricNode> nodes = searcher.findByTimeAndResource(beginTime, beginTime + s * 1000, "resource|0");
+                assertEquals(s + 1, nodes.size());
+                assertEquals(beginTime + s * 1000, nodes.get(s).getTimestamp());
+                assertNull(searcher.find(beginTime + (s + 1) * 1000, 10));
+            }
+        } finally {
+            writer.close();
+        }
+        assertTrue(binaryDir.listFiles().length > 2);
+    }
+
+    @Test
+    public void testConcurrentSearch() throws Exception {
+        writeMetrics(new MetricWriter(textDir.getAbsolutePath() + File.separator, 4096, 100, false));
+        writeMetrics(new MetricWriter(binaryDir.getAbsolutePath() + File.separator, 4096, 100, true));
+        final MetricSearcher[] searchers = {newSearcher(textDir), newSearcher(binaryDir)};
+        final AtomicInteger failures = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 200; i++) {
+                            int from = (seed + i) % SECONDS;
+                            int to = Math.min(SECONDS - 1, from + i % 7);
+                            List<MetricNode> nodes = searchers[i % 2].findByTimeAndResource(
+                                beginTime + from * 1000, beginTime + to * 1000, null);
+                            if (nodes.size() != (to - from + 1) * RESOURCE_COUNT
+                                || nodes.get(0).getTimestamp() != beginTime + from * 1000) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failures.get());
+    }
+
+    private void writeMetrics(MetricWriter writer) throws Exception {
+        try {
+            for (int s = 0; s < SECONDS; s++) {
+                writer.write(beginTime + s * 1000, newNodes(s));
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static List<MetricNode> newNodes(int s) {
+        List<MetricNode> nodes = new ArrayList<MetricNode>();
+        for (int r = 0; r < RESOURCE_COUNT; r++) {
+            MetricNode node = new MetricNode();
+            node.setResource("resource|" + r);
+            node.setPassQps(11 * r + s);
+            node.setBlockQps(r);
+            node.setSuccessQps(11 * r + s);
+            node.setExceptionQps(s % 3);
+            node.setRt(1000 + r);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private MetricSearcher newSearcher(File dir) {
+        String appName = SentinelConfig.getAppName();
+        return new MetricSearcher(dir.getAbsolutePath(),
+            MetricWriter.formMetricFileName(appName == null ? "" : appName, PidUtil.getPid()));
+    }
+
+    private void assertSameNodes(List<MetricNode> expected, List<MetricNode> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            // Text format replaces "|" in resource names.
+            assertEquals(expected.get(i).toThinString(), actual.get(i).toThinString());
+        }
+    }
+
+    private static long totalSize(File dir) {
+        long size = 0;
+        for (File file : dir.listFiles()) {
+            size += file.length();
+        }
+        return size;
+    }
+
+    private static File createTempDir(String prefix) throws Exception {
+        File dir = File.createTempFile("sentinel-metric-" + prefix, "");
+        assertTrue(dir.delete());
+        assertTrue(dir.mkdirs());
+        return dir;
+    }
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+}
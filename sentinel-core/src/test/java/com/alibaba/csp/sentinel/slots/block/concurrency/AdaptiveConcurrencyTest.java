@@ -0,0 +1,78 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.concurrency;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link AdaptiveConcurrencySlot} and {@link AdaptiveConcurrencyRuleManager}.
+ */
+public class AdaptiveConcurrencyTest {
+
+    @After
+    public void tearDown() {
+        AdaptiveConcurrencyRuleManager.loadRules(null);
+    }
+
+    @Test
+    public void testBlockWhenLimitReached() throws BlockException {
+        String resource = "test_adaptive_concurrency";
+        AdaptiveConcurrencyRule rule = new AdaptiveConcurrencyRule(resource).setInitialLimit(2);
+        AdaptiveConcurrencyRuleManager.loadRules(Collections.singletonList(rule));
+
+        List<Entry> entries = new ArrayList<Entry>();
+        entries.add(SphU.entry(resource));
+        entries.add(SphU.entry(resource));
+        try {
+            SphU.entry(resource);
+            fail("should be blocked");
+        } catch (BlockException ex) {
+            assertTrue(ex instanceof AdaptiveConcurrencyException);
+        }
+        assertEquals(2, rule.getLimiter().getInflight());
+
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            entries.get(i).exit();
+        }
+        assertEquals(0, rule.getLimiter().getInflight());
+        SphU.entry(resource).exit();
+    }
+
+    @Test
+    public void testLoadRules() {
+        AdaptiveConcurrencyRuleManager.loadRules(Arrays.asList(
+            new AdaptiveConcurrencyRule("a"),
+            new AdaptiveConcurrencyRule("a").setInitialLimit(5),
+            new AdaptiveConcurrencyRule("b").setMinLimit(10).setMaxLimit(5)
+        ));
+        assertTrue(AdaptiveConcurrencyRuleManager.hasConfig("a"));
+        assertFalse(AdaptiveConcurrencyRuleManager.hasConfig("b"));
+        assertEquals(20, AdaptiveConcurrencyRuleManager.getRuleOfResource("a").getInitialLimit());
+        assertEquals(1, AdaptiveConcurrencyRuleManager.getRules().size());
+    }
+}
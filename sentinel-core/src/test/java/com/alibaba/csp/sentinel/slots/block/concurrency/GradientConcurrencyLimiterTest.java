@@ -0,0 +1,89 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.concurrency;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link GradientConcurrencyLimiter}.
+ */
+public class GradientConcurrencyLimiterTest {
+
+    @Test
+    public void testAcquireUpToLimit() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(
+            new AdaptiveConcurrencyRule("abc").setInitialLimit(3));
+
+        assertTrue(limiter.tryAcquire(2));
+        assertFalse(limiter.tryAcquire(2));
+        assertTrue(limiter.tryAcquire(1));
+        assertFalse(limiter.tryAcquire(1));
+        assertEquals(3, limiter.getInflight());
+
+        limiter.onComplete(1, 10);
+        assertEquals(2, limiter.getInflight());
+        assertTrue(limiter.tryAcquire(1));
+    }
+
+    @Test
+    public void testLimitGrowsWithFlatRt() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(
+            new AdaptiveConcurrencyRule("abc").setInitialLimit(10).setMaxLimit(100));
+
+        for (int i = 0; i < 200; i++) {
+            saturateAndComplete(limiter, 10);
+        }
+        assertEquals(100, limiter.getLimit());
+    }
+
+    @Test
+    public void testLimitShrinksWhenRtRises() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(
+            new AdaptiveConcurrencyRule("abc").setInitialLimit(50).setMaxLimit(50).setMinLimit(5));
+
+        for (int i = 0; i < 20; i++) {
+            saturateAndComplete(limiter, 10);
+        }
+        assertEquals(50, limiter.getLimit());
+        for (int i = 0; i < 50; i++) {
+            saturateAndComplete(limiter, 100);
+        }
+        int shrunk = limiter.getLimit();
+        assertTrue(shrunk < 25);
+        assertTrue(shrunk >= 5);
+    }
+
+    @Test
+    public void testLimitNotGrowWhenFarFromReached() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(
+            new AdaptiveConcurrencyRule("abc").setInitialLimit(10));
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire(1));
+            limiter.onComplete(1, 10);
+        }
+        assertEquals(10, limiter.getLimit());
+        assertEquals(0, limiter.getInflight());
+    }
+
+    private void saturateAndComplete(GradientConcurrencyLimiter limiter, long rt) {
+        while (limiter.tryAcquire(1)) {
+        }
+        limiter.onComplete(1, rt);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.degrade;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowException;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.clock.ManualClock;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test cases for {@link CircuitBreaker}.
+ */
+public class CircuitBreakerTest {
+
+    private ManualClock clock;
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock(1000000L);
+        TimeUtil.setClock(clock);
+    }
+
+    @After
+    public void tearDown() {
+        TimeUtil.setClock(null);
+    }
+
+    @Test
+    public void testOpenByAverageRt() {
+        CircuitBreaker breaker = new CircuitBreaker(new DegradeRule("abc").setCount(10).setTimeWindow(1));
+
+        for (int i = 0; i < CircuitBreaker.MIN_REQUEST_AMOUNT - 1; i++) {
+            complete(breaker, 50, null);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        complete(breaker, 50, null);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryPass(contextOf(entryOf(null))));
+    }
+
+    @Test
+    public void testSlowRequestsSlideOut() {
+        CircuitBreaker breaker = new CircuitBreaker(new DegradeRule("abc").setCount(10).setTimeWindow(1));
+
+        for (int i = 0; i < CircuitBreaker.MIN_REQUEST_AMOUNT - 1; i++) {
+            complete(breaker, 50, null);
+        }
+        // Out of the one-second window.
+        clock.advance(1000);
+        complete(breaker, 50, null);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testOnlyOneProbeInHalfOpen() {
+        CircuitBreaker breaker = openedBreaker();
+
+        clock.advance(999);
+        assertFalse(breaker.tryPass(contextOf(entryOf(null))));
+        clock.advance(1);
+        Entry probe = entryOf(null);
+        assertTrue(breaker.tryPass(contextOf(probe)));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryPass(contextOf(entryOf(null))));
+
+        // Requests that passed before the breaker opened don't close it.
+        breaker.onRequestComplete(entryOf(null), clock.currentTimeMillis());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onRequestComplete(probe, clock.currentTimeMillis());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryPass(contextOf(entryOf(null))));
+    }
+
+    @Test
+    public void testFailedProbe() {
+        CircuitBreaker breaker = openedBreaker();
+
+        clock.advance(1000);
+        Entry probe = entryOf(null);
+        assertTrue(breaker.tryPass(contextOf(probe)));
+        clock.advance(20);
+        breaker.onRequestComplete(probe, clock.currentTimeMillis());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        clock.advance(999);
+        assertFalse(breaker.tryPass(contextOf(entryOf(null))));
+        clock.advance(1);
+        assertTrue(breaker.tryPass(contextOf(entryOf(null))));
+    }
+
+    @Test
+    public void testBlockedProbe() {
+        CircuitBreaker breaker = openedBreaker();
+
+        clock.advance(1000);
+        Entry probe = entryOf(new FlowException("default"));
+        assertTrue(breaker.tryPass(contextOf(probe)));
+        breaker.onRequestComplete(probe, clock.currentTimeMillis());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        // Probe again at once.
+        assertTrue(breaker.tryPass(contextOf(entryOf(null))));
+    }
+
+    @Test
+    public void testLostProbe() {
+        CircuitBreaker breaker = openedBreaker();
+
+        clock.advance(1000);
+        assertTrue(breaker.tryPass(contextOf(entryOf(null))));
+        clock.advance(999);
+        assertFalse(breaker.tryPass(contextOf(entryOf(null))));
+        clock.advance(1);
+        assertTrue(breaker.tryPass(contextOf(entryOf(null))));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    public void testExceptionRatioIgnoresFewRequests() {
+        CircuitBreaker breaker = new CircuitBreaker(new DegradeRule("abc").setCount(0.1).setTimeWindow(1)
+            .setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO));
+        Throwable error = new IllegalStateException();
+
+        for (int i = 0; i < CircuitBreaker.MIN_REQUEST_AMOUNT - 1; i++) {
+            complete(breaker, 1, error);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        complete(breaker, 1, error);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private CircuitBreaker openedBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker(new DegradeRule("abc").setCount(10).setTimeWindow(1));
+        for (int i = 0; i < CircuitBreaker.MIN_REQUEST_AMOUNT; i++) {
+            complete(breaker, 50, null);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    private void complete(CircuitBreaker breaker, long rt, Throwable tracedError) {
+        Entry entry = entryOf(null);
+        when(entry.getCreateTime()).thenReturn(clock.currentTimeMillis() - rt);
+        when(entry.getTracedError()).thenReturn(tracedError);
+        breaker.onRequestComplete(entry, clock.currentTimeMillis());
+    }
+
+    private Entry entryOf(Throwable error) {
+        Entry entry = mock(Entry.class);
+        when(entry.getCreateTime()).thenReturn(clock.currentTimeMillis());
+        when(entry.getError()).thenReturn(error);
+        return entry;
+    }
+
+    private Context contextOf(Entry entry) {
+        Context context = mock(Context.class);
+        when(context.getCurEntry()).thenReturn(entry);
+        return context;
+    }
+}
@@ -16,115 +16,122 @@
 package com.alibaba.csp.sentinel.slots.block.degrade;
 
 import static org.junit.Assert.*;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Collections;
 
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
-import com.alibaba.csp.sentinel.EntryType;
-import com.alibaba.csp.sentinel.context.Context;
-import com.alibaba.csp.sentinel.node.ClusterNode;
-import com.alibaba.csp.sentinel.node.DefaultNode;
-import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.Tracer;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
-import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.clock.ManualClock;
 
 /**
  * @author jialiang.linjl
  */
 public class DegradeTest {
 
-    @Test
-    public void testAverageRtDegrade() throws InterruptedException {
-        String key = "test_degrade_average_rt";
-        ClusterNode cn = mock(ClusterNode.class);
-        ClusterBuilderSlot.getClusterNodeMap().put(new StringResourceWrapper(key, EntryType.IN), cn);
+    private ManualClock clock;
 
-        Context context = mock(Context.class);
-        DefaultNode node = mock(DefaultNode.class);
-        when(node.getClusterNode()).thenReturn(cn);
-        when(cn.avgRt()).thenReturn(2L);
+    @Before
+    public void setUp() {
+        clock = new ManualClock(1000000L);
+        TimeUtil.setClock(clock);
+    }
 
-        DegradeRule rule = new DegradeRule();
-        rule.setCount(1);
-        rule.setResource(key);
-        rule.setTimeWindow(5);
+    @After
+    public void tearDown() {
+        DegradeRuleManager.loadRules(null);
+        TimeUtil.setClock(null);
+    }
 
-        for (int i = 0; i < 4; i++) {
-            assertTrue(rule.passCheck(context, node, 1));
-        }
+    @Test
+    public void testAverageRtDegrade() throws Exception {
+        String key = "test_degrade_average_rt";
+        DegradeRuleManager.loadRules(Collections.singletonList(new DegradeRule(key)
+            .setCount(10)
+            .setTimeWindow(5)));
 
-        // The third time will fail.
-        assertFalse(rule.passCheck(context, node, 1));
-        assertFalse(rule.passCheck(context, node, 1));
+        for (int i = 0; i < CircuitBreaker.MIN_REQUEST_AMOUNT; i++) {
+            assertTrue(call(key, 20, false));
+        }
+        // Degraded by the fifth slow request.
+        assertFalse(call(key, 1, false));
 
-        // Restore.
-        TimeUnit.SECONDS.sleep(6);
-        assertTrue(rule.passCheck(context, node, 1));
+        clock.advance(5000);
+        // The probe recovers the resource at once.
+        assertTrue(call(key, 1, false));
+        assertTrue(call(key, 1, false));
     }
 
     @Test
-    public void testExceptionRatioModeDegrade() throws Throwable {
+    public void testExceptionRatioModeDegrade() throws Exception {
         String key = "test_degrade_exception_ratio";
-        ClusterNode cn = mock(ClusterNode.class);
-        when(cn.exceptionQps()).thenReturn(2L);
-        // Indicates that there are QPS more than min threshold.
-        when(cn.totalQps()).thenReturn(12L);
-        ClusterBuilderSlot.getClusterNodeMap().put(new StringResourceWrapper(key, EntryType.IN), cn);
-
-        Context context = mock(Context.class);
-        DefaultNode node = mock(DefaultNode.class);
-        when(node.getClusterNode()).thenReturn(cn);
-
-        DegradeRule rule = new DegradeRule();
-        rule.setCount(0.15);
-        rule.setResource(key);
-        rule.setTimeWindow(5);
-        rule.setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO);
-
-        when(cn.successQps()).thenReturn(8L);
-
-        // Will fail.
-        assertFalse(rule.passCheck(context, node, 1));
-
-        // Restore from the degrade timeout.
-        TimeUnit.SECONDS.sleep(6);
-
-        when(cn.successQps()).thenReturn(20L);
-        // Will pass.
-        assertTrue(rule.passCheck(context, node, 1));
+        DegradeRuleManager.loadRules(Collections.singletonList(new DegradeRule(key)
+            .setCount(0.5)
+            .setTimeWindow(5)
+            .setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO)));
+
+        assertTrue(call(key, 1, false));
+        assertTrue(call(key, 1, true));
+        assertTrue(call(key, 1, false));
+        assertTrue(call(key, 1, true));
+        // Degraded when the fifth request makes the ratio 0.6.
+        assertTrue(call(key, 1, true));
+        assertFalse(call(key, 1, false));
+
+        // The probe fails, so wait for another time window.
+        clock.advance(5000);
+        assertTrue(call(key, 1, true));
+        assertFalse(call(key, 1, false));
+
+        clock.advance(5000);
+        assertTrue(call(key, 1, false));
+        assertTrue(call(key, 1, false));
     }
 
     @Test
-    public void testExceptionCountModeDegrade() throws Throwable {
+    public void testExceptionCountModeDegrade() throws Exception {
         String key = "test_degrade_exception_count";
-        ClusterNode cn = mock(ClusterNode.class);
-        when(cn.totalException()).thenReturn(10L);
-        ClusterBuilderSlot.getClusterNodeMap().put(new StringResourceWrapper(key, EntryType.IN), cn);
-
-        Context context = mock(Context.class);
-        DefaultNode node = mock(DefaultNode.class);
-        when(node.getClusterNode()).thenReturn(cn);
-
-        DegradeRule rule = new DegradeRule();
-        rule.setCount(4);
-        rule.setResource(key);
-        rule.setTimeWindow(2);
-        rule.setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT);
-
-        when(cn.totalException()).thenReturn(4L);
-
-        // Will fail.
-        assertFalse(rule.passCheck(context, node, 1));
-
-        // Restore from the degrade timeout.
-        TimeUnit.SECONDS.sleep(3);
-
-        when(cn.totalException()).thenReturn(0L);
-        // Will pass.
-        assertTrue(rule.passCheck(context, node, 1));
+        DegradeRuleManager.loadRules(Collections.singletonList(new DegradeRule(key)
+            .setCount(3)
+            .setTimeWindow(2)
+            .setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT)));
+
+        assertTrue(call(key, 1, true));
+        // Exceptions are counted in the whole minute.
+        clock.advance(20000);
+        assertTrue(call(key, 1, true));
+        clock.advance(20000);
+        assertTrue(call(key, 1, true));
+        assertFalse(call(key, 1, false));
+
+        clock.advance(2000);
+        assertTrue(call(key, 1, false));
+        assertTrue(call(key, 1, false));
     }
 
+    /**
+     * @return false if blocked
+     */
+    private boolean call(String resource, long rt, boolean error) {
+        Entry entry;
+        try {
+            entry = SphU.entry(resource);
+        } catch (BlockException ex) {
+            assertTrue(ex instanceof DegradeException);
+            return false;
+        }
+        clock.advance(rt);
+        if (error) {
+            Tracer.trace(new IllegalStateException("biz error"));
+        }
+        entry.exit();
+        return true;
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link FlowRulePlan}.
+ */
+public class FlowRulePlanTest {
+
+    private static final String RESOURCE = "testFlowRulePlan";
+
+    @After
+    public void tearDown() {
+        FlowRuleManager.loadRules(null);
+    }
+
+    private static FlowRule rule(String limitApp) {
+        FlowRule rule = new FlowRule(RESOURCE).setCount(10);
+        rule.setLimitApp(limitApp);
+        return rule;
+    }
+
+    private static FlowRulePlan compile(FlowRule... rules) {
+        Map<String, List<FlowRule>> ruleMap = FlowRuleUtil.buildFlowRuleMap(Arrays.asList(rules));
+        return FlowRulePlan.compile(ruleMap).get(RESOURCE);
+    }
+
+    @Test
+    public void testRulesPartitionedByOrigin() {
+        FlowRule appA = rule("appA");
+        FlowRule appB = rule("appB");
+        FlowRule defaultRule = rule(RuleConstant.LIMIT_APP_DEFAULT);
+        FlowRule other = rule(RuleConstant.LIMIT_APP_OTHER);
+        FlowRulePlan plan = compile(defaultRule, other, appA, appB);
+
+        assertArrayEquals(new FlowRule[] {appA, defaultRule}, plan.rulesFor("appA"));
+        assertArrayEquals(new FlowRule[] {appB, defaultRule}, plan.rulesFor("appB"));
+        assertArrayEquals(new FlowRule[] {defaultRule}, plan.rulesFor(""));
+        assertArrayEquals(new FlowRule[] {defaultRule}, plan.rulesFor(null));
+        assertArrayEquals(new FlowRule[] {other, defaultRule}, plan.rulesFor("appC"));
+        // Reserved names are never specific origins.
+        assertArrayEquals(new FlowRule[] {defaultRule}, plan.rulesFor(RuleConstant.LIMIT_APP_DEFAULT));
+        assertArrayEquals(new FlowRule[] {defaultRule}, plan.rulesFor(RuleConstant.LIMIT_APP_OTHER));
+    }
+
+    @Test
+    public void testOtherOrigin() {
+        FlowRulePlan plan = compile(rule("appA"), rule(RuleConstant.LIMIT_APP_OTHER));
+
+        assertFalse(plan.isOtherOrigin("appA"));
+        assertFalse(plan.isOtherOrigin(""));
+        assertTrue(plan.isOtherOrigin("appB"));
+        assertEquals(0, plan.rulesFor("").length);
+        assertEquals(1, plan.rulesFor("appA").length);
+        // Without a default rule, the reserved name is an "other" origin as well.
+        assertEquals(1, plan.rulesFor(RuleConstant.LIMIT_APP_DEFAULT).length);
+    }
+
+    @Test
+    public void testClusterRulesApplyToAllOrigins() {
+        FlowRule cluster = rule("appA").setClusterMode(true)
+            .setClusterConfig(new ClusterFlowConfig().setFlowId(1L));
+        FlowRule defaultRule = rule(RuleConstant.LIMIT_APP_DEFAULT);
+        FlowRulePlan plan = compile(cluster, defaultRule);
+
+        assertArrayEquals(new FlowRule[] {defaultRule, cluster}, plan.rulesFor("appA"));
+        assertArrayEquals(new FlowRule[] {defaultRule, cluster}, plan.rulesFor("appB"));
+        assertArrayEquals(new FlowRule[] {defaultRule, cluster}, plan.rulesFor(""));
+    }
+
+    @Test
+    public void testPlansReplacedWhenRulesLoaded() {
+        FlowRuleManager.loadRules(Arrays.asList(rule("appA")));
+        Map<String, FlowRulePlan> plans = FlowRuleManager.getFlowRulePlanMap();
+        assertNotNull(plans.get(RESOURCE));
+        assertFalse(FlowRuleManager.isOtherOrigin("appA", RESOURCE));
+        assertTrue(FlowRuleManager.isOtherOrigin("appB", RESOURCE));
+
+        FlowRuleManager.loadRules(null);
+        assertNotSame(plans, FlowRuleManager.getFlowRulePlanMap());
+        assertNull(FlowRuleManager.getFlowRulePlanMap().get(RESOURCE));
+        assertTrue(FlowRuleManager.isOtherOrigin("appA", RESOURCE));
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.alibaba.csp.sentinel.slots.block.flow.controller;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -24,6 +26,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 
 import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.clock.ManualClock;
 import com.alibaba.csp.sentinel.node.Node;
 import com.alibaba.csp.sentinel.slots.block.flow.controller.RateLimiterController;
 
@@ -85,4 +88,46 @@ public class RateLimiterControllerTest {
 
     }
 
+    @Test
+    public void testPaceControllerWithManualClock() {
+        ManualClock clock = new ManualClock(10000);
+        TimeUtil.setClock(clock);
+        try {
+            // No queueing, so the controller never sleeps.
+            RateLimiterController paceController = new RateLimiterController(0, 10d);
+            Node node = mock(Node.class);
+
+            assertTrue(paceController.canPass(node, 1));
+            assertFalse(paceController.canPass(node, 1));
+            clock.advance(99);
+            assertFalse(paceController.canPass(node, 1));
+            clock.advance(1);
+            assertTrue(paceController.canPass(node, 1));
+            assertFalse(paceController.canPass(node, 1));
+        } finally {
+            TimeUtil.setClock(null);
+        }
+    }
+
+    @Test
+    public void testReserveWithManualClock() {
+        ManualClock clock = new ManualClock(10000);
+        TimeUtil.setClock(clock);
+        try {
+            RateLimiterController paceController = new RateLimiterController(500, 10d);
+            Node node = mock(Node.class);
+
+            assertEquals(0, paceController.reserve(node, 1, false));
+            // Reserved admissions are paced the same as the blocking ones, without waiting.
+            for (int i = 1; i < 5; i++) {
+                assertEquals(i * 100, paceController.reserve(node, 1, false));
+            }
+            assertEquals(RateLimiterController.NOT_ADMITTED, paceController.reserve(node, 1, false));
+
+            clock.advance(100);
+            assertEquals(400, paceController.reserve(node, 1, false));
+        } finally {
+            TimeUtil.setClock(null);
+        }
+    }
 }
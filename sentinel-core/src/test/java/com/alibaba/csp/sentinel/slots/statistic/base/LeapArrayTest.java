@@ -15,7 +15,13 @@
  */
 package com.alibaba.csp.sentinel.slots.statistic.base;
 
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.clock.ManualClock;
 
 import org.junit.Test;
 
@@ -36,13 +42,6 @@ public class LeapArrayTest {
             public AtomicInteger newEmptyBucket() {
                 return new AtomicInteger(0);
             }
-
-            @Override
-            protected WindowWrap<AtomicInteger> resetWindowTo(WindowWrap<AtomicInteger> windowWrap, long startTime) {
-                windowWrap.resetTo(startTime);
-                windowWrap.value().set(0);
-                return windowWrap;
-            }
         };
         WindowWrap<AtomicInteger> expected1 = leapArray.currentWindow();
         expected1.value().addAndGet(1);
@@ -59,6 +58,120 @@ public class LeapArrayTest {
         assertSame(expected2, leapArray.getValidHead());
     }
 
+    @Test
+    public void testGetValidHeadWithManualClock() {
+        ManualClock clock = new ManualClock(10000);
+        TimeUtil.setClock(clock);
+        try {
+            int windowLengthInMs = 100;
+            LeapArray<AtomicInteger> leapArray = new LeapArray<AtomicInteger>(windowLengthInMs, 1) {
+                @Override
+                public AtomicInteger newEmptyBucket() {
+                    return new AtomicInteger(0);
+                }
+            };
+            WindowWrap<AtomicInteger> expected1 = leapArray.currentWindow();
+            clock.advance(windowLengthInMs);
+            WindowWrap<AtomicInteger> expected2 = leapArray.currentWindow();
+            for (int i = 0; i < leapArray.getSampleCount() - 2; i++) {
+                clock.advance(windowLengthInMs);
+                leapArray.currentWindow();
+            }
+
+            assertSame(expected1, leapArray.getValidHead());
+            assertEquals(leapArray.getSampleCount(), leapArray.list().size());
+            clock.advance(windowLengthInMs);
+            assertSame(expected2, leapArray.getValidHead());
+            assertEquals(leapArray.getSampleCount() - 1, leapArray.list().size());
+        } finally {
+            TimeUtil.setClock(null);
+        }
+    }
+
+    @Test
+    public void testConcurrentRotationNoLostUpdate() throws Exception {
+        final int windowLengthInMs = 100;
+        final int threadCount = 16;
+        final int rounds = 200;
+        final int addPerRound = 100;
+        final AtomicInteger rotateCount = new AtomicInteger(0);
+        final LeapArray<AtomicInteger> leapArray = new LeapArray<AtomicInteger>(windowLengthInMs, 1) {
+            @Override
+            public AtomicInteger newEmptyBucket() {
+                return new AtomicInteger(0);
+            }
+
+            @Override
+            protected void onWindowRotated(WindowWrap<AtomicInteger> windowWrap) {
+                rotateCount.incrementAndGet();
+            }
+        };
+        final AtomicReferenceArray<WindowWrap<AtomicInteger>> observed
+            = new AtomicReferenceArray<WindowWrap<AtomicInteger>>(rounds);
+        final AtomicInteger mismatchCount = new AtomicInteger(0);
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int r = 0; r < rounds; r++) {
+                            // All threads cross the bucket boundary at the same time.
+                            barrier.await(10, TimeUnit.SECONDS);
+                            long time = 1000L + r * windowLengthInMs;
+                            WindowWrap<AtomicInteger> w = leapArray.currentWindow(time);
+                            if (!observed.compareAndSet(r, null, w) && observed.get(r) != w) {
+                                mismatchCount.incrementAndGet();
+                            }
+                            if (w.windowStart() != time) {
+                                mismatchCount.incrementAndGet();
+                            }
+                            for (int j = 0; j < addPerRound; j++) {
+                                leapArray.currentWindow(time).value().incrementAndGet();
+                            }
+                            barrier.await(10, TimeUnit.SECONDS);
+                            if (leapArray.currentWindow(time).value().get() != threadCount * addPerRound) {
+                                mismatchCount.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception ex) {
+                        mismatchCount.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals("All threads should see the same bucket with complete count", 0, mismatchCount.get());
+        int sampleCount = leapArray.getSampleCount();
+        assertEquals("Each deprecated bucket should be rotated exactly once", rounds - sampleCount, rotateCount.get());
+    }
+
+    @Test
+    public void testRotatedBucketIsNotReused() {
+        LeapArray<AtomicInteger> leapArray = new LeapArray<AtomicInteger>(100, 1) {
+            @Override
+            public AtomicInteger newEmptyBucket() {
+                return new AtomicInteger(0);
+            }
+        };
+        // A thread may still hold the bucket after it has been replaced.
+        WindowWrap<AtomicInteger> held = leapArray.currentWindow(1000);
+        held.value().incrementAndGet();
+        WindowWrap<AtomicInteger> second = leapArray.currentWindow(2000);
+        WindowWrap<AtomicInteger> third = leapArray.currentWindow(3000);
+
+        assertNotSame(held, third);
+        assertNotSame(second, third);
+        assertEquals(1000, held.windowStart());
+        assertEquals(1, held.value().get());
+        assertEquals(0, third.value().get());
+    }
+
     private void sleep(int t) {
         try {
             Thread.sleep(t);
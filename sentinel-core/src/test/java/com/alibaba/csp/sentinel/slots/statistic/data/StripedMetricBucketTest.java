@@ -0,0 +1,115 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.data;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Constants;
+import com.alibaba.csp.sentinel.slots.statistic.MetricEvent;
+import com.alibaba.csp.sentinel.slots.statistic.metric.ArrayMetric;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link StripedMetricBucket}.
+ */
+public class StripedMetricBucketTest {
+
+    @Test
+    public void testSingleStripeAddAndReset() {
+        StripedMetricBucket bucket = new StripedMetricBucket(1);
+        bucket.addPass();
+        bucket.addPass();
+        bucket.addBlock();
+        bucket.addSuccess();
+        bucket.addException();
+        bucket.addRT(20);
+        bucket.addRT(5);
+        bucket.add(MetricEvent.OCCUPIED_PASS, 3);
+
+        assertEquals(2, bucket.pass());
+        assertEquals(1, bucket.block());
+        assertEquals(1, bucket.success());
+        assertEquals(1, bucket.exception());
+        assertEquals(25, bucket.rt());
+        assertEquals(5, bucket.minRt());
+        assertEquals(3, bucket.get(MetricEvent.OCCUPIED_PASS));
+
+        bucket.reset();
+        for (MetricEvent event : MetricEvent.values()) {
+            assertEquals(0, bucket.get(event));
+        }
+        assertEquals(Constants.TIME_DROP_VALVE, bucket.minRt());
+    }
+
+    @Test
+    public void testConcurrentAddWithMultipleStripes() throws Exception {
+        final StripedMetricBucket bucket = new StripedMetricBucket(4);
+        final int threadCount = 8;
+        final int addPerThread = 10000;
+        final CountDownLatch latch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < addPerThread; j++) {
+                        bucket.addPass();
+                        bucket.addRT(2);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        assertEquals(threadCount * addPerThread, bucket.pass());
+        assertEquals(threadCount * addPerThread * 2, bucket.rt());
+        assertEquals(0, bucket.block());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalStripes() {
+        new StripedMetricBucket(3);
+    }
+
+    @Test
+    public void testFactoryRoundsStripes() {
+        assertEquals(1, new StripedMetricBucketFactory(0).getStripes());
+        assertEquals(1, new StripedMetricBucketFactory(1).getStripes());
+        assertEquals(4, new StripedMetricBucketFactory(3).getStripes());
+        assertEquals(8, new StripedMetricBucketFactory(8).getStripes());
+        assertEquals(16, ((StripedMetricBucket)new StripedMetricBucketFactory(9).newEmptyBucket()).stripes());
+    }
+
+    @Test
+    public void testArrayMetricWithStripedBucket() {
+        ArrayMetric metric = new ArrayMetric(500, 1, new StripedMetricBucketFactory(2));
+        metric.addPass();
+        metric.addPass();
+        metric.addBlock();
+        metric.addRT(10);
+
+        assertEquals(2, metric.pass());
+        assertEquals(1, metric.block());
+        assertEquals(10, metric.rt());
+        for (MetricBucket bucket : metric.windows()) {
+            assertTrue(bucket instanceof StripedMetricBucket);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.system;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link CgroupSystemStatusProvider}.
+ */
+public class CgroupSystemStatusProviderTest {
+
+    private File root;
+
+    @Before
+    public void setUp() throws Exception {
+        root = File.createTempFile("sentinel-cgroup", "");
+        assertTrue(root.delete());
+        assertTrue(root.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        deleteDir(root);
+    }
+
+    @Test
+    public void testUnavailable() {
+        assertNull(CgroupSystemStatusProvider.create(root.getPath()));
+        assertNull(CgroupSystemStatusProvider.create(new File(root, "absent").getPath()));
+    }
+
+    @Test
+    public void testCgroupV2() throws Exception {
+        write(root, "cgroup.controllers", "cpu memory");
+        // Two CPUs.
+        write(root, "cpu.max", "200000 100000");
+        write(root, "cpu.stat", "usage_usec 1000000\nuser_usec 800000\nnr_periods 100\nnr_throttled 0");
+        write(root, "memory.current", "256");
+        write(root, "memory.max", "1024");
+
+        CgroupSystemStatusProvider provider = CgroupSystemStatusProvider.create(root.getPath());
+        assertNotNull(provider);
+        assertTrue(provider.isV2());
+
+        long start = TimeUnit.SECONDS.toNanos(10);
+        provider.refresh(start);
+        // Not available until the second sample.
+        assertTrue(provider.getCpuUsage() < 0);
+        assertEquals(0.25, provider.getMemoryUsage(), 0.001);
+
+        // 0.5s of CPU time in 0.5s wall time with two CPUs.
+        write(root, "cpu.stat", "usage_usec 1500000\nuser_usec 1200000\nnr_periods 105\nnr_throttled 2");
+        provider.refresh(start + TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(0.5, provider.getCpuUsage(), 0.001);
+        assertEquals(0.4, provider.getCpuThrottledRatio(), 0.001);
+
+        write(root, "memory.max", "max");
+        provider.refresh(start + TimeUnit.MILLISECONDS.toNanos(1000));
+        assertEquals(0, provider.getCpuUsage(), 0.001);
+        assertTrue(provider.getMemoryUsage() < 0);
+    }
+
+    @Test
+    public void testCgroupV1() throws Exception {
+        File cpu = new File(root, "cpu,cpuacct");
+        assertTrue(cpu.mkdirs());
+        File memory = new File(root, "memory");
+        assertTrue(memory.mkdirs());
+        // Half a CPU.
+        write(cpu, "cpu.cfs_quota_us", "50000");
+        write(cpu, "cpu.cfs_period_us", "100000");
+        write(cpu, "cpu.stat", "nr_periods 10\nnr_throttled 1\nthrottled_time 1000");
+        write(cpu, "cpuacct.usage", "1000000000");
+        write(memory, "memory.usage_in_bytes", "100");
+        write(memory, "memory.limit_in_bytes", "9223372036854771712");
+
+        CgroupSystemStatusProvider provider = CgroupSystemStatusProvider.create(root.getPath());
+        assertNotNull(provider);
+        assertFalse(provider.isV2());
+
+        long start = TimeUnit.SECONDS.toNanos(10);
+        provider.refresh(start);
+        // Unlimited.
+        assertTrue(provider.getMemoryUsage() < 0);
+
+        // Exhausting the quota: 0.1s of CPU time in 0.2s.
+        write(cpu, "cpu.stat", "nr_periods 12\nnr_throttled 3\nthrottled_time 2000");
+        write(cpu, "cpuacct.usage", "1100000000");
+        provider.refresh(start + TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(1.0, provider.getCpuUsage(), 0.001);
+        assertEquals(1.0, provider.getCpuThrottledRatio(), 0.001);
+    }
+
+    @Test
+    public void testCgroupV2WithoutCpuMax() throws Exception {
+        // The root cgroup has no cpu.max.
+        write(root, "cgroup.controllers", "cpu memory");
+        write(root, "cpu.stat", "usage_usec 0\nuser_usec 0");
+
+        CgroupSystemStatusProvider provider = CgroupSystemStatusProvider.create(root.getPath());
+        assertNotNull(provider);
+        assertTrue(provider.probe());
+
+        long start = TimeUnit.SECONDS.toNanos(10);
+        provider.refresh(start);
+        long usedMicros = 500000L * SystemStatusListener.processor;
+        write(root, "cpu.stat", "usage_usec " + usedMicros + "\nuser_usec 0");
+        provider.refresh(start + TimeUnit.SECONDS.toNanos(1));
+        // Unlimited, so divided by all processors.
+        assertEquals(0.5, provider.getCpuUsage(), 0.001);
+    }
+
+    @Test
+    public void testResolveCgroupV2OfProcess() throws Exception {
+        File mount = new File(root, "fs");
+        File own = new File(mount, "kubepods/pod1");
+        assertTrue(own.mkdirs());
+        write(mount, "cgroup.controllers", "cpu memory");
+        write(mount, "cpu.stat", "usage_usec 0");
+        write(own, "cgroup.controllers", "cpu memory");
+        write(own, "cpu.stat", "usage_usec 0");
+        write(own, "cpu.max", "100000 100000");
+
+        File cgroupFile = write(root, "cgroup", "0::/kubepods/pod1");
+        File mountInfo = write(root, "mountinfo", "22 1 0:21 / / rw - ext4 /dev/vda rw\n"
+            + "30 22 0:26 / " + mount.getPath() + " rw,nosuid shared:4 - cgroup2 cgroup2 rw,nsdelegate");
+        CgroupSystemStatusProvider provider = CgroupSystemStatusProvider.create(cgroupFile, mountInfo);
+        assertNotNull(provider);
+        assertTrue(provider.isV2());
+        assertEquals(1, provider.availableCpus(), 0.001);
+
+        // Inside a cgroup namespace, where the path is relative to the mounted root.
+        write(cgroupFile.getParentFile(), "cgroup", "0::/");
+        provider = CgroupSystemStatusProvider.create(cgroupFile, mountInfo);
+        assertNotNull(provider);
+        assertEquals(SystemStatusListener.processor, provider.availableCpus(), 0.001);
+    }
+
+    @Test
+    public void testResolveCgroupV1OfProcess() throws Exception {
+        File cpuMount = new File(root, "cpu,cpuacct");
+        File own = new File(cpuMount, "docker/abc");
+        assertTrue(own.mkdirs());
+        write(own, "cpuacct.usage", "0");
+        write(own, "cpu.cfs_quota_us", "300000");
+        write(own, "cpu.cfs_period_us", "100000");
+        File memoryMount = new File(root, "memory");
+        assertTrue(memoryMount.mkdirs());
+
+        File cgroupFile = write(root, "cgroup", "12:memory:/docker/abc\n4:cpu,cpuacct:/docker/abc\n0::/");
+        File mountInfo = write(root, "mountinfo",
+            "40 30 0:33 / " + cpuMount.getPath() + " rw,nosuid - cgroup cgroup rw,cpu,cpuacct\n"
+                + "41 30 0:34 / " + memoryMount.getPath() + " rw,nosuid - cgroup cgroup rw,memory");
+        CgroupSystemStatusProvider provider = CgroupSystemStatusProvider.create(cgroupFile, mountInfo);
+        assertNotNull(provider);
+        assertFalse(provider.isV2());
+        assertEquals(3, provider.availableCpus(), 0.001);
+
+        // The container bind-mounts its own cgroup, so the mount root is the cgroup path.
+        mountInfo = write(root, "mountinfo",
+            "40 30 0:33 /docker/abc " + own.getPath() + " ro,nosuid - cgroup cgroup rw,cpu,cpuacct\n"
+                + "41 30 0:34 /docker/abc " + memoryMount.getPath() + " ro,nosuid - cgroup cgroup rw,memory");
+        provider = CgroupSystemStatusProvider.create(cgroupFile, mountInfo);
+        assertNotNull(provider);
+        assertEquals(3, provider.availableCpus(), 0.001);
+
+        assertNull(CgroupSystemStatusProvider.create(new File(root, "absent"), mountInfo));
+    }
+
+    @Test
+    public void testProbeFailure() throws Exception {
+        write(root, "cgroup.controllers", "cpu memory");
+        write(root, "cpu.stat", "usage_usec 0");
+        write(root, "cpu.max", "illegal");
+
+        CgroupSystemStatusProvider provider = CgroupSystemStatusProvider.create(root.getPath());
+        assertNotNull(provider);
+        assertFalse(provider.probe());
+        assertTrue(provider.getCpuUsage() < 0);
+    }
+
+    private static File write(File dir, String name, String content) throws IOException {
+        FileWriter writer = new FileWriter(new File(dir, name));
+        try {
+            writer.write(content + "\n");
+        } finally {
+            writer.close();
+        }
+        return new File(dir, name);
+    }
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    deleteDir(file);
+                } else {
+                    file.delete();
+                }
+            }
+        }
+        dir.delete();
+    }
+}
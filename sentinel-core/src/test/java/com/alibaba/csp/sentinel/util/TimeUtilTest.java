@@ -0,0 +1,61 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util;
+
+import com.alibaba.csp.sentinel.util.clock.AbstractTickingClock;
+import com.alibaba.csp.sentinel.util.clock.ManualClock;
+import com.alibaba.csp.sentinel.util.clock.TickingClock;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link TimeUtil}.
+ */
+public class TimeUtilTest {
+
+    @Test
+    public void testSetClock() {
+        ManualClock clock = new ManualClock(1000);
+        TimeUtil.setClock(clock);
+        try {
+            assertSame(clock, TimeUtil.getClock());
+            assertEquals(1000, TimeUtil.currentTimeMillis());
+            clock.advance(500);
+            assertEquals(1500, TimeUtil.currentTimeMillis());
+        } finally {
+            TimeUtil.setClock(null);
+        }
+        assertTrue(Math.abs(TimeUtil.currentTimeMillis() - System.currentTimeMillis()) < 1000);
+    }
+
+    @Test
+    public void testReplacedTickingClockStopped() {
+        TickingClock ticking = new TickingClock();
+        TimeUtil.setClock(ticking);
+        try {
+            assertTrue(ticking.isStarted());
+            TimeUtil.setClock(new ManualClock());
+            assertFalse(ticking.isStarted());
+        } finally {
+            TimeUtil.setClock(null);
+        }
+        if (TimeUtil.getClock() instanceof AbstractTickingClock) {
+            assertTrue(((AbstractTickingClock)TimeUtil.getClock()).isStarted());
+        }
+    }
+}
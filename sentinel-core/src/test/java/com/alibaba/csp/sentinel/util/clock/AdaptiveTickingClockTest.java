@@ -0,0 +1,58 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util.clock;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link AdaptiveTickingClock}.
+ */
+public class AdaptiveTickingClockTest {
+
+    @Test
+    public void testSwitchTickingByActivity() throws Exception {
+        AdaptiveTickingClock clock = new AdaptiveTickingClock(50, 20, 5);
+        clock.start();
+        try {
+            assertFalse(clock.isTicking());
+            assertEquals(System.currentTimeMillis(), clock.currentTimeMillis(), 5);
+            // Read the clock continuously until it starts ticking.
+            long deadline = System.currentTimeMillis() + 3000;
+            while (!clock.isTicking() && System.currentTimeMillis() < deadline) {
+                clock.currentTimeMillis();
+            }
+            assertTrue("The clock should tick when it's read frequently", clock.isTicking());
+            long now = clock.currentTimeMillis();
+            assertEquals(System.currentTimeMillis(), now, 1000);
+
+            // Then keep idle until it backs off.
+            deadline = System.currentTimeMillis() + 3000;
+            while (clock.isTicking() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse("The clock should back off when it's idle", clock.isTicking());
+        } finally {
+            clock.stop();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalThresholds() {
+        new AdaptiveTickingClock(1000, 10, 100);
+    }
+}
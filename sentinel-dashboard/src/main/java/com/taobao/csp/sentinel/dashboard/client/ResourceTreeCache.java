@@ -0,0 +1,127 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.taobao.csp.sentinel.dashboard.client;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.command.vo.NodeTreeDelta;
+import com.alibaba.csp.sentinel.command.vo.NodeVo;
+
+/**
+ * Resource tree of a machine rebuilt from the incremental snapshots of the {@code jsonTreeDelta} command.
+ *
+ * @since 1.4.1
+ */
+public class ResourceTreeCache {
+
+    /**
+     * Interval to check again whether a machine supports the {@code jsonTreeDelta} command,
+     * in case it is upgraded on the same address.
+     */
+    static final long DELTA_UNSUPPORTED_RECHECK_MS = 10 * 60 * 1000;
+    /**
+     * A cache not accessed for this long is evicted, as the machine is probably gone (e.g. a pod with a churned IP).
+     */
+    static final long IDLE_EXPIRE_MS = 10 * 60 * 1000;
+
+    private String version;
+    /**
+     * Until when the machine is treated as not supporting the {@code jsonTreeDelta} command.
+     */
+    private long deltaUnsupportedUntil = -1;
+    /**
+     * Nodes in preorder, keyed by the stable node ID.
+     */
+    private final Map<String, NodeVo> nodes = new LinkedHashMap<>();
+
+    private volatile long lastAccessTime = System.currentTimeMillis();
+
+    /**
+     * Record an access to the cache, which keeps it from expiring.
+     *
+     * @param now current time in milliseconds
+     */
+    public void touch(long now) {
+        lastAccessTime = now;
+    }
+
+    /**
+     * @param now current time in milliseconds
+     * @return true if the cache has not been accessed for {@link #IDLE_EXPIRE_MS}
+     */
+    public boolean isExpired(long now) {
+        return now - lastAccessTime >= IDLE_EXPIRE_MS;
+    }
+
+    /**
+     * @return version token to be sent with the next request, or null if a full snapshot is needed
+     */
+    public synchronized String getVersion() {
+        return version;
+    }
+
+    /**
+     * @param now current time in milliseconds
+     * @return false if the machine did not support the {@code jsonTreeDelta} command recently
+     */
+    public synchronized boolean isDeltaSupported(long now) {
+        return now >= deltaUnsupportedUntil;
+    }
+
+    /**
+     * Remember that the machine does not support the {@code jsonTreeDelta} command (e.g. clients before 1.4.1),
+     * so that the full tree is fetched directly in a while.
+     *
+     * @param now current time in milliseconds
+     */
+    public synchronized void markDeltaUnsupported(long now) {
+        deltaUnsupportedUntil = now + DELTA_UNSUPPORTED_RECHECK_MS;
+        version = null;
+        nodes.clear();
+    }
+
+    /**
+     * Merge an incremental snapshot into the cached tree.
+     *
+     * @param delta the snapshot returned by the machine
+     * @return the whole tree in preorder, or null if the snapshot could not be merged, in which case
+     * the cache is reset and the next request fetches a full snapshot
+     */
+    public synchronized List<NodeVo> apply(NodeTreeDelta delta) {
+        if (delta == null || delta.getNodes() == null) {
+            return null;
+        }
+        if (delta.isFull()) {
+            nodes.clear();
+        }
+        for (List<Object> row : delta.getNodes()) {
+            String id = String.valueOf(row.get(0));
+            NodeVo known = nodes.get(id);
+            if (known == null && !NodeTreeDelta.isNewNode(row)) {
+                // Out of sync with the machine.
+                nodes.clear();
+                version = null;
+                return null;
+            }
+            nodes.put(id, NodeTreeDelta.fromRow(row, known, delta.getTimestamp()));
+        }
+        version = delta.getVersion();
+        return new ArrayList<>(nodes.values());
+    }
+}
@@ -21,15 +21,18 @@ import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.command.vo.NodeTreeDelta;
 import com.alibaba.csp.sentinel.command.vo.NodeVo;
 import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRule;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
@@ -76,6 +79,7 @@ public class SentinelApiClient {
     private static final Charset DEFAULT_CHARSET = Charset.forName(SentinelConfig.charset());
 
     private static final String RESOURCE_URL_PATH = "jsonTree";
+    private static final String RESOURCE_DELTA_URL_PATH = "jsonTreeDelta";
     private static final String CLUSTER_NODE_PATH = "clusterNode";
     private static final String GET_RULES_PATH = "getRules";
     private static final String SET_RULES_PATH = "setRules";
@@ -103,6 +107,17 @@ public class SentinelApiClient {
 
     private final boolean enableHttps = false;
 
+    /**
+     * Interval to evict the resource trees of machines that are no longer fetched.
+     */
+    private static final long RESOURCE_TREE_EVICT_INTERVAL_MS = 60 * 1000;
+
+    /**
+     * Cached resource trees of machines, keyed by {@code ip:port}.
+     */
+    private final Map<String, ResourceTreeCache> resourceTreeCaches = new ConcurrentHashMap<>();
+    private volatile long lastResourceTreeEvictTime = System.currentTimeMillis();
+
     public SentinelApiClient() {
         IOReactorConfig ioConfig = IOReactorConfig.custom().setConnectTimeout(3000).setSoTimeout(3000)
             .setIoThreadCount(Runtime.getRuntime().availableProcessors() * 2).build();
@@ -116,6 +131,10 @@ public class SentinelApiClient {
     }
 
     public List<NodeVo> fetchResourceOfMachine(String ip, int port, String type) {
+        List<NodeVo> nodes = fetchResourceDeltaOfMachine(ip, port);
+        if (nodes != null) {
+            return nodes;
+        }
         String url = "http://" + ip + ":" + port + "/" + RESOURCE_URL_PATH + "?type=" + type;
         String body = httpGetContent(url);
         if (body == null) {
@@ -129,6 +148,55 @@ public class SentinelApiClient {
         }
     }
 
+    /**
+     * Fetch the resource tree incrementally, only the nodes changed since the last fetch are transferred.
+     *
+     * @param ip   machine client IP
+     * @param port machine client port
+     * @return the whole resource tree, or null if the machine does not support incremental snapshots
+     * (which is remembered for a while, see {@link ResourceTreeCache#markDeltaUnsupported(long)})
+     * @since 1.4.1
+     */
+    private List<NodeVo> fetchResourceDeltaOfMachine(String ip, int port) {
+        long now = System.currentTimeMillis();
+        evictExpiredResourceTrees(now);
+        ResourceTreeCache cache = resourceTreeCaches.computeIfAbsent(ip + ":" + port, k -> new ResourceTreeCache());
+        cache.touch(now);
+        if (!cache.isDeltaSupported(now)) {
+            return null;
+        }
+        String url = "http://" + ip + ":" + port + "/" + RESOURCE_DELTA_URL_PATH;
+        String version = cache.getVersion();
+        if (version != null) {
+            url += "?version=" + version;
+        }
+        String body = httpGetContent(url);
+        if (body == null) {
+            return null;
+        }
+        try {
+            return cache.apply(JSON.parseObject(body, NodeTreeDelta.class));
+        } catch (Exception e) {
+            // Clients before 1.4.1 respond with an unknown command message.
+            logger.info("Machine {}:{} does not support {}, fall back to full tree", ip, port,
+                RESOURCE_DELTA_URL_PATH);
+            cache.markDeltaUnsupported(System.currentTimeMillis());
+            return null;
+        }
+    }
+
+    /**
+     * Drop the cached trees of machines that have not been fetched for a while (e.g. dead machines),
+     * so that the caches don't pile up when machine addresses churn.
+     */
+    private void evictExpiredResourceTrees(long now) {
+        if (now - lastResourceTreeEvictTime < RESOURCE_TREE_EVICT_INTERVAL_MS) {
+            return;
+        }
+        lastResourceTreeEvictTime = now;
+        resourceTreeCaches.values().removeIf(cache -> cache.isExpired(now));
+    }
+
     /**
      * Fetch cluster node.
      *
@@ -0,0 +1,143 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.taobao.csp.sentinel.dashboard.metric;
+
+/**
+ * Fetch latency and outcome of metric fetching rounds of one app.
+ *
+ * @since 1.4.1
+ */
+public class AppMetricFetchStat {
+
+    private final String app;
+
+    private long rounds;
+    private long totalCostMs;
+    private long maxCostMs;
+
+    private long lastFetchTime;
+    private long lastCostMs;
+    private long lastSlowestMachineCostMs;
+    private int lastMachines;
+    private int lastPushing;
+    private int lastSuccess;
+    private int lastFail;
+    private int lastDead;
+    private int lastMetricCount;
+
+    public AppMetricFetchStat(String app) {
+        this.app = app;
+    }
+
+    /**
+     * Record a finished fetching round.
+     *
+     * @param fetchTime            start time of the round
+     * @param costMs               time taken from sending the requests until all machines responded or timed out
+     * @param slowestMachineCostMs latency of the slowest machine that responded
+     * @param machines             total machines of the app
+     * @param pushing              machines skipped for pushing metrics by themselves
+     * @param success              machines fetched successfully
+     * @param fail                 machines failed or timed out
+     * @param dead                 machines skipped for not sending heartbeat
+     * @param metricCount          metric lines fetched in the round
+     */
+    public synchronized void record(long fetchTime, long costMs, long slowestMachineCostMs, int machines,
+                                    int pushing, int success, int fail, int dead, int metricCount) {
+        rounds++;
+        totalCostMs += costMs;
+        maxCostMs = Math.max(maxCostMs, costMs);
+        lastFetchTime = fetchTime;
+        lastCostMs = costMs;
+        lastSlowestMachineCostMs = slowestMachineCostMs;
+        lastMachines = machines;
+        lastPushing = pushing;
+        lastSuccess = success;
+        lastFail = fail;
+        lastDead = dead;
+        lastMetricCount = metricCount;
+    }
+
+    public String getApp() {
+        return app;
+    }
+
+    public synchronized long getRounds() {
+        return rounds;
+    }
+
+    public synchronized long getAvgCostMs() {
+        return rounds == 0 ? 0 : totalCostMs / rounds;
+    }
+
+    public synchronized long getMaxCostMs() {
+        return maxCostMs;
+    }
+
+    public synchronized long getLastFetchTime() {
+        return lastFetchTime;
+    }
+
+    public synchronized long getLastCostMs() {
+        return lastCostMs;
+    }
+
+    public synchronized long getLastSlowestMachineCostMs() {
+        return lastSlowestMachineCostMs;
+    }
+
+    public synchronized int getLastMachines() {
+        return lastMachines;
+    }
+
+    public synchronized int getLastPushing() {
+        return lastPushing;
+    }
+
+    public synchronized int getLastSuccess() {
+        return lastSuccess;
+    }
+
+    public synchronized int getLastFail() {
+        return lastFail;
+    }
+
+    public synchronized int getLastDead() {
+        return lastDead;
+    }
+
+    public synchronized int getLastMetricCount() {
+        return lastMetricCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AppMetricFetchStat{" +
+            "app='" + app + '\'' +
+            ", rounds=" + rounds +
+            ", avgCostMs=" + getAvgCostMs() +
+            ", maxCostMs=" + maxCostMs +
+            ", lastCostMs=" + lastCostMs +
+            ", lastSlowestMachineCostMs=" + lastSlowestMachineCostMs +
+            ", lastMachines=" + lastMachines +
+            ", lastPushing=" + lastPushing +
+            ", lastSuccess=" + lastSuccess +
+            ", lastFail=" + lastFail +
+            ", lastDead=" + lastDead +
+            ", lastMetricCount=" + lastMetricCount +
+            '}';
+    }
+}
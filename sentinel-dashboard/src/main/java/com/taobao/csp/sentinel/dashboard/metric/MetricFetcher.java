@@ -16,7 +16,8 @@
 package com.taobao.csp.sentinel.dashboard.metric;
 
 import java.nio.charset.Charset;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -35,22 +36,17 @@ import java.util.concurrent.atomic.AtomicLong;
 import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.node.metric.MetricNode;
-import com.alibaba.csp.sentinel.util.StringUtil;
 
-import com.taobao.csp.sentinel.dashboard.datasource.entity.MetricEntity;
 import com.taobao.csp.sentinel.dashboard.discovery.AppManagement;
 import com.taobao.csp.sentinel.dashboard.discovery.MachineInfo;
-import com.taobao.csp.sentinel.dashboard.repository.metric.MetricsRepository;
-import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.concurrent.FutureCallback;
-import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.DefaultRedirectStrategy;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.impl.nio.client.HttpAsyncClients;
 import org.apache.http.impl.nio.reactor.IOReactorConfig;
-import org.apache.http.protocol.HTTP;
-import org.apache.http.util.EntityUtils;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -66,7 +62,10 @@ public class MetricFetcher {
 
     public static final long MAX_CLIENT_LIVE_TIME_MS = 1000 * 60 * 5;
     public static final String NO_METRICS = "No metrics";
-    private static final int HTTP_OK = 200;
+    /**
+     * Idle connections to the machines are kept for reuse no longer than this.
+     */
+    private static final long MAX_KEEP_ALIVE_MS = 1000 * 30;
     private static final long MAX_LAST_FETCH_INTERVAL_MS = 1000 * 15;
     private static final long FETCH_INTERVAL_SECOND = 6;
     private static final Charset DEFAULT_CHARSET = Charset.forName(SentinelConfig.charset());
@@ -75,11 +74,12 @@ public class MetricFetcher {
     private final long intervalSecond = 1;
 
     private Map<String, AtomicLong> appLastFetchTime = new ConcurrentHashMap<>();
+    private final Map<String, AppMetricFetchStat> appFetchStats = new ConcurrentHashMap<>();
 
-    @Autowired
-    private MetricsRepository<MetricEntity> metricStore;
     @Autowired
     private AppManagement appManagement;
+    @Autowired
+    private MetricPushReceiver metricPushReceiver;
 
     private CloseableHttpAsyncClient httpclient;
     private ScheduledExecutorService fetchScheduleService = Executors.newScheduledThreadPool(1,
@@ -112,6 +112,10 @@ public class MetricFetcher {
                 }
             }).setMaxConnTotal(4000)
             .setMaxConnPerRoute(1000)
+            .setKeepAliveStrategy((response, context) -> {
+                long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return keepAlive > 0 ? Math.min(keepAlive, MAX_KEEP_ALIVE_MS) : MAX_KEEP_ALIVE_MS;
+            })
             .setDefaultIOReactorConfig(ioConfig)
             .build();
         httpclient.start();
@@ -128,16 +132,14 @@ public class MetricFetcher {
         }, 10, intervalSecond, TimeUnit.SECONDS);
     }
 
-    private void writeMetric(Map<String, MetricEntity> map) {
-        if (map.isEmpty()) {
-            return;
-        }
-        Date date = new Date();
-        for (MetricEntity entity : map.values()) {
-            entity.setGmtCreate(date);
-            entity.setGmtModified(date);
-        }
-        metricStore.saveAll(map.values());
+    /**
+     * Get the fetch latency statistics of all apps.
+     *
+     * @return app name -> fetch statistics
+     * @since 1.4.1
+     */
+    public Map<String, AppMetricFetchStat> getAppFetchStats() {
+        return Collections.unmodifiableMap(appFetchStats);
     }
 
     /**
@@ -174,35 +176,57 @@ public class MetricFetcher {
         }
         final String msg = "fetch";
         AtomicLong dead = new AtomicLong();
+        int pushing = 0;
         final AtomicLong success = new AtomicLong();
         final AtomicLong fail = new AtomicLong();
+        final AtomicLong slowest = new AtomicLong();
 
-        long start = System.currentTimeMillis();
-        /** app_resource_timeSecond -> metric */
-        final Map<String, MetricEntity> metricMap = new ConcurrentHashMap<>(16);
-        final CountDownLatch latch = new CountDownLatch(machines.size());
+        final long start = System.currentTimeMillis();
+        final AtomicLong metricCount = new AtomicLong();
+        List<MachineInfo> fetchedMachines = new ArrayList<>(machines.size());
         for (final MachineInfo machine : machines) {
             // dead
             if (System.currentTimeMillis() - machine.getTimestamp().getTime() > MAX_CLIENT_LIVE_TIME_MS) {
-                latch.countDown();
                 dead.incrementAndGet();
                 continue;
             }
+            // Metrics of the machine are pushed to the dashboard.
+            if (metricPushReceiver.isPushing(machine)) {
+                pushing++;
+                continue;
+            }
+            fetchedMachines.add(machine);
+        }
+        if (fetchedMachines.isEmpty()) {
+            appFetchStats.computeIfAbsent(app, AppMetricFetchStat::new).record(start, 0, 0,
+                machines.size(), pushing, 0, 0, (int)dead.get(), 0);
+            return;
+        }
+        // Fetched metrics are merged with the pushed ones of the same seconds before saving.
+        metricPushReceiver.beginFetch(app, startTime);
+        final FetchRound round = new FetchRound(app);
+        final CountDownLatch latch = new CountDownLatch(fetchedMachines.size());
+        for (final MachineInfo machine : fetchedMachines) {
             final String url = "http://" + machine.getIp() + ":" + machine.getPort() + "/" + METRIC_URL_PATH
                 + "?startTime=" + startTime + "&endTime=" + endTime + "&refetch=" + false;
             final HttpGet httpGet = new HttpGet(url);
-            httpGet.setHeader(HTTP.CONN_DIRECTIVE, HTTP.CONN_CLOSE);
-            httpclient.execute(httpGet, new FutureCallback<HttpResponse>() {
+            // Lines are parsed as the response streams in, but merged only once the whole response
+            // is received, so that a response failing partway leaves no partial sums behind.
+            final List<MetricNode> nodes = new ArrayList<>();
+            MetricResponseConsumer consumer = new MetricResponseConsumer(DEFAULT_CHARSET,
+                line -> handleLine(line, machine, nodes));
+            httpclient.execute(HttpAsyncMethods.create(httpGet), consumer, new FutureCallback<Integer>() {
                 @Override
-                public void completed(final HttpResponse response) {
-                    try {
-                        handleResponse(response, machine, metricMap);
+                public void completed(final Integer lines) {
+                    long cost = System.currentTimeMillis() - start;
+                    slowest.accumulateAndGet(cost, Math::max);
+                    if (lines >= 0 && round.merge(nodes)) {
                         success.incrementAndGet();
-                    } catch (Exception e) {
-                        logger.error(msg + " metric " + url + " error:", e);
-                    } finally {
-                        latch.countDown();
+                        metricCount.addAndGet(nodes.size());
+                    } else {
+                        fail.incrementAndGet();
                     }
+                    latch.countDown();
                 }
 
                 @Override
@@ -221,16 +245,22 @@ public class MetricFetcher {
                 }
             });
         }
+        boolean allDone = false;
         try {
-            latch.await(maxWaitSeconds, TimeUnit.SECONDS);
+            allDone = latch.await(maxWaitSeconds, TimeUnit.SECONDS);
         } catch (Exception e) {
             logger.info(msg + " metric, wait http client error:", e);
         }
+        // Machines that have not finished within the wait time are counted as failed.
+        long timeout = allDone ? 0 : latch.getCount();
+        // Responses completing from now on are dropped as a whole.
+        round.close();
+        // The merged results are saved by the receiver once the seconds are complete.
+        metricPushReceiver.endFetch(app, startTime, endTime);
         long cost = System.currentTimeMillis() - start;
-        //logger.info("finished " + msg + " metric for " + app + ", time intervalMs [" + startTime + ", " + endTime
-        //    + "], total machines=" + machines.size() + ", dead=" + dead + ", fetch success="
-        //    + success + ", fetch fail=" + fail + ", time cost=" + cost + " ms");
-        writeMetric(metricMap);
+        appFetchStats.computeIfAbsent(app, AppMetricFetchStat::new).record(start, cost, slowest.get(),
+            machines.size(), pushing, (int)success.get(), (int)(fail.get() + timeout), (int)dead.get(),
+            (int)metricCount.get());
     }
 
     private void doFetchAppMetric(final String app) {
@@ -264,70 +294,46 @@ public class MetricFetcher {
         }
     }
 
-    private void handleResponse(final HttpResponse response, MachineInfo machine,
-                                Map<String, MetricEntity> metricMap) throws Exception {
-        int code = response.getStatusLine().getStatusCode();
-        if (code != HTTP_OK) {
+    private void handleLine(String line, MachineInfo machine, List<MetricNode> nodes) {
+        if (line.startsWith(NO_METRICS)) {
             return;
         }
-        Charset charset = null;
+        final MetricNode node;
         try {
-            String contentTypeStr = response.getFirstHeader("Content-type").getValue();
-            ContentType contentType = ContentType.parse(contentTypeStr);
-            charset = contentType.getCharset();
-        } catch (Exception ignore) {
-        }
-        String body = EntityUtils.toString(response.getEntity(), charset != null ? charset : DEFAULT_CHARSET);
-        if (StringUtil.isEmpty(body) || body.startsWith(NO_METRICS)) {
-            //logger.info(machine.getApp() + ":" + machine.getIp() + ":" + machine.getPort() + ", bodyStr is empty");
+            node = MetricNode.fromThinString(line);
+        } catch (Exception e) {
+            logger.warn("handleBody line exception, machine: {}, line: {}", machine.toLogString(), line);
             return;
         }
-        String[] lines = body.split("\n");
-        //logger.info(machine.getApp() + ":" + machine.getIp() + ":" + machine.getPort() +
-        //    ", bodyStr.length()=" + body.length() + ", lines=" + lines.length);
-        handleBody(lines, machine, metricMap);
+        nodes.add(node);
     }
 
-    private void handleBody(String[] lines, MachineInfo machine, Map<String, MetricEntity> map) {
-        //logger.info("handleBody() lines=" + lines.length + ", machine=" + machine);
-        if (lines.length < 1) {
-            return;
+    /**
+     * A fetching round of an app, which merges the complete responses received before the round is closed.
+     */
+    private final class FetchRound {
+
+        private final String app;
+        private boolean closed;
+
+        private FetchRound(String app) {
+            this.app = app;
         }
 
-        for (String line : lines) {
-            try {
-                MetricNode node = MetricNode.fromThinString(line);
-                /**
-                 * aggregation metrics by app_resource_timeSecond, ignore ip and port.
-                 */
-                String key = buildMetricKey(machine.getApp(), node.getResource(), node.getTimestamp());
-                MetricEntity entity = map.get(key);
-                if (entity != null) {
-                    entity.addPassQps(node.getPassQps());
-                    entity.addBlockQps(node.getBlockQps());
-                    entity.addRtAndSuccessQps(node.getRt(), node.getSuccessQps());
-                    entity.addExceptionQps(node.getExceptionQps());
-                    entity.addCount(1);
-                } else {
-                    entity = new MetricEntity();
-                    entity.setApp(machine.getApp());
-                    entity.setTimestamp(new Date(node.getTimestamp()));
-                    entity.setPassQps(node.getPassQps());
-                    entity.setBlockQps(node.getBlockQps());
-                    entity.setRtAndSuccessQps(node.getRt(), node.getSuccessQps());
-                    entity.setExceptionQps(node.getExceptionQps());
-                    entity.setCount(1);
-                    entity.setResource(node.getResource());
-                    map.put(key, entity);
-                }
-            } catch (Exception e) {
-                logger.warn("handleBody line exception, machine: {}, line: {}", machine.toLogString(), line);
+        synchronized boolean merge(List<MetricNode> nodes) {
+            if (closed) {
+                return false;
             }
+            for (MetricNode node : nodes) {
+                // Aggregated by app, resource and second, ignoring ip and port.
+                metricPushReceiver.receiveFetched(app, node);
+            }
+            return true;
         }
-    }
 
-    private String buildMetricKey(String app, String resource, long timestamp) {
-        return app + "__" + resource + "__" + (timestamp / 1000);
+        synchronized void close() {
+            closed = true;
+        }
     }
 
 }
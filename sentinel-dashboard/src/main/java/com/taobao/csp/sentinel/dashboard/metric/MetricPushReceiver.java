@@ -0,0 +1,301 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.taobao.csp.sentinel.dashboard.metric;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.transport.metric.MetricFrame;
+
+import com.taobao.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import com.taobao.csp.sentinel.dashboard.discovery.MachineInfo;
+import com.taobao.csp.sentinel.dashboard.repository.metric.MetricsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>Receiver of the metric frames pushed by the machines, as well as the metrics fetched by
+ * {@link MetricFetcher}. Metrics of the same app, resource and second from different machines are merged,
+ * and each second is saved in one batch per app once it is older than {@link #FLUSH_DELAY_MS}.
+ * Metrics arriving after their second has been saved are dropped.</p>
+ *
+ * <p>The repositories keep one value per app, resource and second, so pushed and fetched metrics of an app
+ * have to be merged before saving, or one partial sum would overwrite the other (e.g. during a rolling
+ * enablement of push). While an app has machines being fetched, its seconds are saved only after the
+ * fetching rounds covering them have finished.</p>
+ *
+ * @since 1.4.1
+ */
+@Component
+public class MetricPushReceiver {
+
+    /**
+     * Seconds are saved once they are older than this, so that all machines have had time to push them.
+     */
+    static final long FLUSH_DELAY_MS = 1000 * 3;
+    /**
+     * Machines that have pushed within this interval are not fetched by {@link MetricFetcher}.
+     */
+    static final long PUSH_ALIVE_MS = 1000 * 15;
+
+    private static Logger logger = LoggerFactory.getLogger(MetricPushReceiver.class);
+
+    private final Map<String, AppBuffer> appBuffers = new ConcurrentHashMap<>();
+    /**
+     * app|ip|port -> last push time
+     */
+    private final Map<String, Long> machinePushTime = new ConcurrentHashMap<>();
+
+    private final AtomicLong receivedFrames = new AtomicLong();
+    private final AtomicLong fetchedMetrics = new AtomicLong();
+    private final AtomicLong lateMetrics = new AtomicLong();
+
+    private final MetricsRepository<MetricEntity> metricStore;
+    private final ScheduledExecutorService flushService;
+
+    @Autowired
+    public MetricPushReceiver(MetricsRepository<MetricEntity> metricStore) {
+        this(metricStore, true);
+    }
+
+    MetricPushReceiver(MetricsRepository<MetricEntity> metricStore, boolean scheduleFlush) {
+        this.metricStore = metricStore;
+        if (scheduleFlush) {
+            this.flushService = Executors.newSingleThreadScheduledExecutor(
+                new NamedThreadFactory("sentinel-dashboard-metrics-push-flush", true));
+            this.flushService.scheduleAtFixedRate(() -> {
+                try {
+                    flush(System.currentTimeMillis());
+                } catch (Exception e) {
+                    logger.error("Flush pushed metrics error", e);
+                }
+            }, 1, 1, TimeUnit.SECONDS);
+        } else {
+            this.flushService = null;
+        }
+    }
+
+    /**
+     * Merge a pushed frame into the pending metrics.
+     *
+     * @param frame decoded metric frame
+     */
+    public void receive(MetricFrame frame) {
+        receivedFrames.incrementAndGet();
+        machinePushTime.put(machineKey(frame.getApp(), frame.getIp(), frame.getPort()), System.currentTimeMillis());
+        AppBuffer buffer = appBuffers.computeIfAbsent(frame.getApp(), a -> new AppBuffer());
+        synchronized (buffer) {
+            for (Entry<Long, List<MetricNode>> entry : frame.getMetrics().entrySet()) {
+                long time = entry.getKey() / 1000 * 1000;
+                if (time <= buffer.flushedTime) {
+                    lateMetrics.addAndGet(entry.getValue().size());
+                    continue;
+                }
+                for (MetricNode node : entry.getValue()) {
+                    merge(buffer.entities, frame.getApp(), time, node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Start a fetching round of the app, seconds from given start time won't be saved until the round ends.
+     *
+     * @param app       the app
+     * @param startTime start time of the fetched metrics
+     */
+    void beginFetch(String app, long startTime) {
+        AppBuffer buffer = appBuffers.computeIfAbsent(app, a -> new AppBuffer());
+        synchronized (buffer) {
+            buffer.pendingFetches.merge(startTime, 1, Integer::sum);
+            buffer.fetchedUntil = Math.max(buffer.fetchedUntil, startTime - 1);
+            buffer.fetchAliveUntil = System.currentTimeMillis() + PUSH_ALIVE_MS;
+        }
+    }
+
+    /**
+     * Merge a metric fetched from a machine of the app.
+     *
+     * @param app  the app
+     * @param node fetched metric
+     */
+    void receiveFetched(String app, MetricNode node) {
+        fetchedMetrics.incrementAndGet();
+        long time = node.getTimestamp() / 1000 * 1000;
+        AppBuffer buffer = appBuffers.computeIfAbsent(app, a -> new AppBuffer());
+        synchronized (buffer) {
+            if (time <= buffer.flushedTime) {
+                lateMetrics.incrementAndGet();
+                return;
+            }
+            merge(buffer.entities, app, time, node);
+        }
+    }
+
+    /**
+     * Finish a fetching round of the app started by {@link #beginFetch(String, long)}.
+     *
+     * @param app       the app
+     * @param startTime start time of the fetched metrics
+     * @param endTime   end time of the fetched metrics (inclusive)
+     */
+    void endFetch(String app, long startTime, long endTime) {
+        AppBuffer buffer = appBuffers.computeIfAbsent(app, a -> new AppBuffer());
+        synchronized (buffer) {
+            Integer rounds = buffer.pendingFetches.get(startTime);
+            if (rounds == null || rounds <= 1) {
+                buffer.pendingFetches.remove(startTime);
+            } else {
+                buffer.pendingFetches.put(startTime, rounds - 1);
+            }
+            buffer.fetchedUntil = Math.max(buffer.fetchedUntil, endTime);
+        }
+    }
+
+    private void merge(Map<String, MetricEntity> entities, String app, long time, MetricNode node) {
+        String key = node.getResource() + "__" + time;
+        MetricEntity entity = entities.get(key);
+        if (entity != null) {
+            entity.addPassQps(node.getPassQps());
+            entity.addBlockQps(node.getBlockQps());
+            entity.addRtAndSuccessQps(node.getRt(), node.getSuccessQps());
+            entity.addExceptionQps(node.getExceptionQps());
+            entity.addCount(1);
+        } else {
+            entity = new MetricEntity();
+            entity.setApp(app);
+            entity.setResource(node.getResource());
+            entity.setTimestamp(new Date(time));
+            entity.setPassQps(node.getPassQps());
+            entity.setBlockQps(node.getBlockQps());
+            entity.setRtAndSuccessQps(node.getRt(), node.getSuccessQps());
+            entity.setExceptionQps(node.getExceptionQps());
+            entity.setCount(1);
+            entities.put(key, entity);
+        }
+    }
+
+    /**
+     * Save the pending seconds older than {@link #FLUSH_DELAY_MS}, one batch per app.
+     *
+     * @param now current time
+     */
+    void flush(long now) {
+        long flushTime = (now - FLUSH_DELAY_MS) / 1000 * 1000;
+        Date date = new Date(now);
+        for (AppBuffer buffer : appBuffers.values()) {
+            List<MetricEntity> batch = new ArrayList<>();
+            synchronized (buffer) {
+                long limit = flushTime;
+                if (buffer.fetchAliveUntil >= now) {
+                    // Wait for the metrics of the fetched machines.
+                    long fetched = buffer.pendingFetches.isEmpty() ? buffer.fetchedUntil
+                        : Math.min(buffer.fetchedUntil, buffer.pendingFetches.firstKey() - 1);
+                    limit = Math.min(limit, fetched / 1000 * 1000);
+                }
+                if (limit <= buffer.flushedTime) {
+                    continue;
+                }
+                buffer.flushedTime = limit;
+                Iterator<MetricEntity> iterator = buffer.entities.values().iterator();
+                while (iterator.hasNext()) {
+                    MetricEntity entity = iterator.next();
+                    if (entity.getTimestamp().getTime() <= limit) {
+                        entity.setGmtCreate(date);
+                        entity.setGmtModified(date);
+                        batch.add(entity);
+                        iterator.remove();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                metricStore.saveAll(batch);
+            }
+        }
+        machinePushTime.values().removeIf(time -> now - time > PUSH_ALIVE_MS);
+    }
+
+    /**
+     * Check whether the machine pushes its metrics, in which case it need not be fetched.
+     *
+     * @param machine the machine
+     * @return whether the machine has pushed metrics recently
+     */
+    public boolean isPushing(MachineInfo machine) {
+        Long time = machinePushTime.get(machineKey(machine.getApp(), machine.getIp(), machine.getPort()));
+        return time != null && System.currentTimeMillis() - time <= PUSH_ALIVE_MS;
+    }
+
+    public long getReceivedFrames() {
+        return receivedFrames.get();
+    }
+
+    public long getFetchedMetrics() {
+        return fetchedMetrics.get();
+    }
+
+    public long getLateMetrics() {
+        return lateMetrics.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flushService != null) {
+            flushService.shutdownNow();
+        }
+    }
+
+    private static String machineKey(String app, String ip, int port) {
+        return app + "|" + ip + "|" + port;
+    }
+
+    private static class AppBuffer {
+        /**
+         * resource__timestamp -> merged metric
+         */
+        private final Map<String, MetricEntity> entities = new HashMap<>();
+        /**
+         * start time -> amount of unfinished fetching rounds
+         */
+        private final TreeMap<Long, Integer> pendingFetches = new TreeMap<>();
+        /**
+         * Seconds up to this time have been fetched.
+         */
+        private long fetchedUntil;
+        /**
+         * The app is considered fetched until this time, when its seconds are saved only after being fetched.
+         */
+        private long fetchAliveUntil;
+        private long flushedTime;
+    }
+}
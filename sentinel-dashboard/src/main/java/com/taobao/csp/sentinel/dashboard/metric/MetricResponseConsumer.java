@@ -0,0 +1,146 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.taobao.csp.sentinel.dashboard.metric;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Response consumer that hands the lines of a metric response to a line handler as the
+ * content streams in, so the whole body never needs to be buffered. The result is the
+ * number of lines handled, or {@code -1} if the status code is not {@code 200}.
+ *
+ * @since 1.4.1
+ */
+public class MetricResponseConsumer extends AbstractAsyncResponseConsumer<Integer> {
+
+    private static final int HTTP_OK = 200;
+
+    private final Consumer<String> lineHandler;
+    private final ByteBuffer readBuffer;
+
+    private Charset charset;
+    private boolean ok;
+    private int lines;
+
+    /**
+     * Bytes of the line that has not been terminated yet.
+     */
+    private byte[] pending = new byte[256];
+    private int pendingLength;
+
+    public MetricResponseConsumer(Charset defaultCharset, Consumer<String> lineHandler) {
+        this(defaultCharset, lineHandler, 8 * 1024);
+    }
+
+    MetricResponseConsumer(Charset defaultCharset, Consumer<String> lineHandler, int bufferSize) {
+        this.charset = defaultCharset;
+        this.lineHandler = lineHandler;
+        this.readBuffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        this.ok = response.getStatusLine().getStatusCode() == HTTP_OK;
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+        if (contentType != null && contentType.getCharset() != null) {
+            this.charset = contentType.getCharset();
+        }
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        // Always drain the decoder, otherwise the connection could not be reused.
+        while (decoder.read(readBuffer) > 0) {
+            readBuffer.flip();
+            if (ok) {
+                consume(readBuffer);
+            }
+            readBuffer.clear();
+        }
+    }
+
+    private void consume(ByteBuffer buffer) {
+        byte[] array = buffer.array();
+        int start = buffer.position();
+        int limit = buffer.limit();
+        for (int i = start; i < limit; i++) {
+            if (array[i] == '\n') {
+                if (pendingLength > 0) {
+                    append(array, start, i - start);
+                    emit(pending, 0, pendingLength);
+                    pendingLength = 0;
+                } else {
+                    emit(array, start, i - start);
+                }
+                start = i + 1;
+            }
+        }
+        if (start < limit) {
+            append(array, start, limit - start);
+        }
+    }
+
+    private void append(byte[] bytes, int offset, int length) {
+        if (pendingLength + length > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + length));
+        }
+        System.arraycopy(bytes, offset, pending, pendingLength, length);
+        pendingLength += length;
+    }
+
+    private void emit(byte[] bytes, int offset, int length) {
+        if (length > 0 && bytes[offset + length - 1] == '\r') {
+            length--;
+        }
+        if (length <= 0) {
+            return;
+        }
+        lines++;
+        lineHandler.accept(new String(bytes, offset, length, charset));
+    }
+
+    @Override
+    protected Integer buildResult(HttpContext context) {
+        if (!ok) {
+            return -1;
+        }
+        if (pendingLength > 0) {
+            emit(pending, 0, pendingLength);
+            pendingLength = 0;
+        }
+        return lines;
+    }
+
+    @Override
+    protected void releaseResources() {
+        pending = null;
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.taobao.csp.sentinel.dashboard.repository.metric;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+import com.taobao.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>File-backed metrics store, enabled by {@code sentinel.dashboard.metric.store=file}.</p>
+ *
+ * <p>Metrics are partitioned by time into hourly segments (see {@link MetricSegment}) under
+ * {@code sentinel.dashboard.metric.store.dir}, and segments older than
+ * {@code sentinel.dashboard.metric.store.retentionHours} are removed. Recent points of every resource are
+ * buffered in a compressed chunk (see {@link MetricChunk}), which is appended to the segment when it is full,
+ * when the hour changes or periodically, so the heap usage is bounded by the amount of resources rather than
+ * by the length of history.</p>
+ *
+ * <p>Resources are indexed by app and resource name in memory, and the names are persisted in
+ * {@code series.dat}. Writes of a resource only lock that resource and the segment while appending a chunk,
+ * so range queries are not blocked by concurrent writes of other resources.</p>
+ *
+ * @since 1.4.1
+ */
+@Component
+@ConditionalOnProperty(name = "sentinel.dashboard.metric.store", havingValue = "file")
+public class FileMetricsRepository implements MetricsRepository<MetricEntity> {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileMetricsRepository.class);
+
+    static final long SEGMENT_DURATION_MS = 1000 * 60 * 60;
+    /**
+     * Max amount of points buffered for each resource.
+     */
+    static final int MAX_CHUNK_POINTS = 60;
+    /**
+     * Buffered points older than this are appended to the segment by the maintenance task.
+     */
+    private static final long MAX_CHUNK_AGE_MS = 1000 * 60 * 2;
+    /**
+     * A segment is sealed after it has ended for this period, late metrics of the segment are dropped then.
+     */
+    private static final long SEAL_DELAY_MS = 1000 * 60 * 10;
+    private static final long MAINTAIN_INTERVAL_MS = 1000 * 60;
+
+    private static final String SERIES_FILE = "series.dat";
+
+    private final File baseDir;
+    private final long retentionMs;
+
+    /**
+     * {@code app -> resource -> series}
+     */
+    private final Map<String, Map<String, MetricSeries>> allSeries = new ConcurrentHashMap<>();
+    private final List<MetricSeries> seriesById = new ArrayList<>();
+    private final Object seriesLock = new Object();
+    private DataOutputStream seriesOut;
+
+    /**
+     * {@code start time -> segment}
+     */
+    private final NavigableMap<Long, MetricSegment> segments = new ConcurrentSkipListMap<>();
+
+    private final ScheduledExecutorService maintainService = Executors.newSingleThreadScheduledExecutor(
+        new NamedThreadFactory("sentinel-dashboard-metrics-store-task", true));
+
+    public FileMetricsRepository(
+        @Value("${sentinel.dashboard.metric.store.dir:${user.home}/logs/csp/dashboard-metrics}") String baseDir,
+        @Value("${sentinel.dashboard.metric.store.retentionHours:72}") int retentionHours) {
+        if (retentionHours <= 0) {
+            throw new IllegalArgumentException("retentionHours should be positive");
+        }
+        this.baseDir = new File(baseDir);
+        this.retentionMs = retentionHours * SEGMENT_DURATION_MS;
+        try {
+            open();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to open metrics store: " + baseDir, ex);
+        }
+        maintainService.scheduleWithFixedDelay(() -> {
+            try {
+                maintain(System.currentTimeMillis());
+            } catch (Throwable e) {
+                logger.warn("Failed to maintain metrics store", e);
+            }
+        }, MAINTAIN_INTERVAL_MS, MAINTAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void open() throws IOException {
+        if (!baseDir.exists() && !baseDir.mkdirs()) {
+            throw new IOException("Cannot create directory");
+        }
+        File seriesFile = new File(baseDir, SERIES_FILE);
+        if (seriesFile.exists()) {
+            byte[] data = Files.readAllBytes(seriesFile.toPath());
+            int validLength = 0;
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+                while (validLength < data.length) {
+                    String app = in.readUTF();
+                    String resource = in.readUTF();
+                    addSeries(app, resource);
+                    validLength = data.length - in.available();
+                }
+            } catch (EOFException ignore) {
+                // Drop the truncated record, chunks of the series have not been written.
+                try (RandomAccessFile file = new RandomAccessFile(seriesFile, "rw")) {
+                    file.setLength(validLength);
+                }
+            }
+        }
+        seriesOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(seriesFile, true)));
+        File[] files = baseDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(MetricSegment.FILE_PREFIX) && name.endsWith(MetricSegment.DATA_SUFFIX)) {
+                    long startTime = Long.parseLong(name.substring(MetricSegment.FILE_PREFIX.length(),
+                        name.length() - MetricSegment.DATA_SUFFIX.length()));
+                    segments.put(startTime, MetricSegment.load(baseDir, startTime));
+                }
+            }
+        }
+        logger.info("Metrics store opened: dir={}, series={}, segments={}", baseDir, seriesById.size(),
+            segments.size());
+    }
+
+    private MetricSeries addSeries(String app, String resource) {
+        MetricSeries series = new MetricSeries(seriesById.size(), app, resource);
+        seriesById.add(series);
+        allSeries.computeIfAbsent(app, e -> new ConcurrentHashMap<>(16)).put(resource, series);
+        return series;
+    }
+
+    private MetricSeries getOrCreateSeries(String app, String resource) throws IOException {
+        Map<String, MetricSeries> resourceMap = allSeries.get(app);
+        MetricSeries series = resourceMap == null ? null : resourceMap.get(resource);
+        if (series != null) {
+            return series;
+        }
+        synchronized (seriesLock) {
+            resourceMap = allSeries.get(app);
+            series = resourceMap == null ? null : resourceMap.get(resource);
+            if (series == null) {
+                seriesOut.writeUTF(app);
+                seriesOut.writeUTF(resource);
+                seriesOut.flush();
+                series = addSeries(app, resource);
+            }
+            return series;
+        }
+    }
+
+    private MetricSegment getOrCreateSegment(long startTime) throws IOException {
+        MetricSegment segment = segments.get(startTime);
+        if (segment != null) {
+            return segment;
+        }
+        synchronized (segments) {
+            segment = segments.get(startTime);
+            if (segment == null) {
+                segment = MetricSegment.create(baseDir, startTime);
+                segments.put(startTime, segment);
+            }
+            return segment;
+        }
+    }
+
+    @Override
+    public void save(MetricEntity entity) {
+        if (entity == null || StringUtil.isBlank(entity.getApp()) || entity.getTimestamp() == null) {
+            return;
+        }
+        long timestamp = entity.getTimestamp().getTime();
+        if (timestamp < System.currentTimeMillis() - retentionMs) {
+            return;
+        }
+        try {
+            MetricSeries series = getOrCreateSeries(entity.getApp(), entity.getResource());
+            long segmentStart = timestamp - timestamp % SEGMENT_DURATION_MS;
+            synchronized (series) {
+                if (!series.chunk.isEmpty() && series.segmentStart != segmentStart) {
+                    flush(series);
+                }
+                series.segmentStart = segmentStart;
+                series.chunk.append(entity);
+                if (series.chunk.getPointCount() >= MAX_CHUNK_POINTS) {
+                    flush(series);
+                }
+            }
+        } catch (IOException ex) {
+            logger.warn("Failed to save metric: " + entity, ex);
+        }
+    }
+
+    @Override
+    public void saveAll(Iterable<MetricEntity> metrics) {
+        if (metrics == null) {
+            return;
+        }
+        metrics.forEach(this::save);
+    }
+
+    /**
+     * Append the buffered points of the series to the segment, should be called with the lock of the series.
+     */
+    private void flush(MetricSeries series) throws IOException {
+        if (series.chunk.isEmpty()) {
+            return;
+        }
+        try {
+            MetricSegment segment = getOrCreateSegment(series.segmentStart);
+            if (!segment.append(series.id, series.chunk)) {
+                logger.debug("Metrics of sealed segment dropped: {}/{}", series.app, series.resource);
+            }
+        } finally {
+            series.chunk.reset();
+        }
+    }
+
+    @Override
+    public List<MetricEntity> queryByAppAndResourceBetween(String app, String resource, long startTime,
+                                                           long endTime) {
+        List<MetricEntity> results = new ArrayList<>();
+        if (StringUtil.isBlank(app)) {
+            return results;
+        }
+        Map<String, MetricSeries> resourceMap = allSeries.get(app);
+        MetricSeries series = resourceMap == null ? null : resourceMap.get(resource);
+        if (series == null) {
+            return results;
+        }
+        // Timestamp -> metric, points appended during the query may be read twice.
+        Map<Long, MetricEntity> metrics = new TreeMap<>();
+        byte[] payload = null;
+        int pointCount = 0;
+        long firstTimestamp = 0;
+        synchronized (series) {
+            MetricChunk chunk = series.chunk;
+            if (!chunk.isEmpty() && chunk.getMaxTimestamp() >= startTime && chunk.getMinTimestamp() <= endTime) {
+                payload = chunk.copyPayload();
+                pointCount = chunk.getPointCount();
+                firstTimestamp = chunk.getFirstTimestamp();
+            }
+        }
+        Long from = segments.floorKey(startTime);
+        for (MetricSegment segment : segments.subMap(from == null ? startTime : from, true, endTime, true).values()) {
+            try {
+                segment.read(series.id, app, resource, startTime, endTime, metrics);
+            } catch (IOException ex) {
+                logger.warn("Failed to read metrics from segment " + segment.getStartTime(), ex);
+            }
+        }
+        if (payload != null) {
+            MetricChunk.decode(app, resource, payload, payload.length, pointCount, firstTimestamp, startTime, endTime,
+                metrics);
+        }
+        results.addAll(metrics.values());
+        return results;
+    }
+
+    @Override
+    public List<String> listResourcesOfApp(String app) {
+        List<String> results = new ArrayList<>();
+        if (StringUtil.isBlank(app)) {
+            return results;
+        }
+        Map<String, MetricSeries> resourceMap = allSeries.get(app);
+        if (resourceMap == null) {
+            return results;
+        }
+        final long now = System.currentTimeMillis();
+        final long minTimeMs = now - 1000 * 60;
+        Map<String, MetricEntity> resourceCount = new HashMap<>(32);
+        for (String resource : resourceMap.keySet()) {
+            for (MetricEntity newEntity : queryByAppAndResourceBetween(app, resource, minTimeMs, now)) {
+                MetricEntity oldEntity = resourceCount.get(resource);
+                if (oldEntity != null) {
+                    oldEntity.addPassQps(newEntity.getPassQps());
+                    oldEntity.addRtAndSuccessQps(newEntity.getRt(), newEntity.getSuccessQps());
+                    oldEntity.addBlockQps(newEntity.getBlockQps());
+                    oldEntity.addExceptionQps(newEntity.getExceptionQps());
+                    oldEntity.addCount(1);
+                } else {
+                    resourceCount.put(resource, newEntity);
+                }
+            }
+        }
+        // Order by last minute b_qps DESC.
+        return resourceCount.entrySet()
+            .stream()
+            .sorted((o1, o2) -> {
+                MetricEntity e1 = o1.getValue();
+                MetricEntity e2 = o2.getValue();
+                int t = e2.getBlockQps().compareTo(e1.getBlockQps());
+                if (t != 0) {
+                    return t;
+                }
+                return e2.getPassQps().compareTo(e1.getPassQps());
+            })
+            .map(Entry::getKey)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Flush stale buffered points, seal ended segments and remove expired segments.
+     */
+    void maintain(long now) throws IOException {
+        flushSeries(now - MAX_CHUNK_AGE_MS);
+        for (MetricSegment segment : segments.values()) {
+            long endTime = segment.getStartTime() + SEGMENT_DURATION_MS;
+            if (endTime < now - retentionMs) {
+                segments.remove(segment.getStartTime());
+                segment.delete();
+                logger.info("Expired metric segment removed: {}", segment.getStartTime());
+            } else if (endTime < now - SEAL_DELAY_MS && !segment.isSealed()) {
+                flushSeries(endTime);
+                segment.seal();
+            }
+        }
+    }
+
+    /**
+     * Flush the buffered points of all series whose first point is earlier than given time.
+     */
+    private void flushSeries(long beforeTime) throws IOException {
+        List<MetricSeries> snapshot;
+        synchronized (seriesLock) {
+            snapshot = new ArrayList<>(seriesById);
+        }
+        for (MetricSeries series : snapshot) {
+            synchronized (series) {
+                if (!series.chunk.isEmpty() && series.chunk.getFirstTimestamp() < beforeTime) {
+                    flush(series);
+                }
+            }
+        }
+    }
+
+    /**
+     * Flush all buffered points and close the store.
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        maintainService.shutdown();
+        flushSeries(Long.MAX_VALUE);
+        for (MetricSegment segment : segments.values()) {
+            segment.close();
+        }
+        synchronized (seriesLock) {
+            seriesOut.close();
+        }
+    }
+
+    /**
+     * @return total size of the segment files in bytes
+     */
+    long diskSize() {
+        long size = 0;
+        for (MetricSegment segment : segments.values()) {
+            size += segment.diskSize();
+        }
+        return size;
+    }
+
+    /**
+     * Metrics of a resource of an app, along with the points not appended to the segment yet.
+     */
+    private static final class MetricSeries {
+        private final int id;
+        private final String app;
+        private final String resource;
+
+        private final MetricChunk chunk = new MetricChunk();
+        private long segmentStart;
+
+        MetricSeries(int id, String app, String resource) {
+            this.id = id;
+            this.app = app;
+            this.resource = resource;
+        }
+    }
+}
@@ -16,52 +16,78 @@
 package com.taobao.csp.sentinel.dashboard.repository.metric;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import com.alibaba.csp.sentinel.util.StringUtil;
 
 import com.taobao.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 /**
- * Caches metrics data in a period of time in memory.
+ * <p>Caches metrics data in a period of time in memory.</p>
+ *
+ * <p>Metrics of each resource are kept in a ring buffer of primitive arrays with one slot per second,
+ * along with the rolling sum of the last minute used for ordering resources. Resources are guarded
+ * by striped read-write locks, so writes and queries of different resources do not block each other.</p>
  *
  * @author Carpenter Lee
  * @author Eric Zhao
  */
 @Component
+@ConditionalOnProperty(name = "sentinel.dashboard.metric.store", havingValue = "memory", matchIfMissing = true)
 public class InMemoryMetricsRepository implements MetricsRepository<MetricEntity> {
 
     private static final long MAX_METRIC_LIVE_TIME_MS = 1000 * 60 * 5;
 
     /**
-     * {@code app -> resource -> timestamp -> metric}
+     * One slot per second of {@link #MAX_METRIC_LIVE_TIME_MS}.
+     */
+    static final int SLOT_COUNT = (int)(MAX_METRIC_LIVE_TIME_MS / 1000);
+    /**
+     * Length of the rolling aggregation for ordering resources in seconds.
+     */
+    private static final int AGGREGATE_SECONDS = 60;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ReadWriteLock[] locks = new ReadWriteLock[LOCK_STRIPES];
+
+    /**
+     * {@code app -> resource -> metrics}
      */
-    private Map<String, Map<String, LinkedHashMap<Long, MetricEntity>>> allMetrics = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, ResourceMetrics>> allMetrics = new ConcurrentHashMap<>();
+
+    public InMemoryMetricsRepository() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
 
     @Override
-    public synchronized void save(MetricEntity entity) {
-        if (entity == null || StringUtil.isBlank(entity.getApp())) {
+    public void save(MetricEntity entity) {
+        if (entity == null || StringUtil.isBlank(entity.getApp()) || entity.getTimestamp() == null) {
             return;
         }
-        allMetrics.computeIfAbsent(entity.getApp(), e -> new HashMap<>(16))
-            .computeIfAbsent(entity.getResource(), e -> new LinkedHashMap<Long, MetricEntity>() {
-                @Override
-                protected boolean removeEldestEntry(Entry<Long, MetricEntity> eldest) {
-                    // Metric older than {@link #MAX_METRIC_LIVE_TIME_MS} will be removed.
-                    return eldest.getKey() < System.currentTimeMillis() - MAX_METRIC_LIVE_TIME_MS;
-                }
-            }).put(entity.getTimestamp().getTime(), entity);
+        ResourceMetrics metrics = allMetrics.computeIfAbsent(entity.getApp(), e -> new ConcurrentHashMap<>(16))
+            .computeIfAbsent(entity.getResource(), e -> new ResourceMetrics(lockOf(entity.getApp(), e)));
+        metrics.lock.writeLock().lock();
+        try {
+            metrics.put(entity);
+        } finally {
+            metrics.lock.writeLock().unlock();
+        }
     }
 
     @Override
-    public synchronized void saveAll(Iterable<MetricEntity> metrics) {
+    public void saveAll(Iterable<MetricEntity> metrics) {
         if (metrics == null) {
             return;
         }
@@ -69,24 +95,25 @@ public class InMemoryMetricsRepository implements MetricsRepository<MetricEntity
     }
 
     @Override
-    public synchronized List<MetricEntity> queryByAppAndResourceBetween(String app, String resource,
-                                                                        long startTime, long endTime) {
+    public List<MetricEntity> queryByAppAndResourceBetween(String app, String resource,
+                                                           long startTime, long endTime) {
         List<MetricEntity> results = new ArrayList<>();
         if (StringUtil.isBlank(app)) {
             return results;
         }
-        Map<String, LinkedHashMap<Long, MetricEntity>> resourceMap = allMetrics.get(app);
+        Map<String, ResourceMetrics> resourceMap = allMetrics.get(app);
         if (resourceMap == null) {
             return results;
         }
-        LinkedHashMap<Long, MetricEntity> metricsMap = resourceMap.get(resource);
-        if (metricsMap == null) {
+        ResourceMetrics metrics = resourceMap.get(resource);
+        if (metrics == null) {
             return results;
         }
-        for (Entry<Long, MetricEntity> entry : metricsMap.entrySet()) {
-            if (entry.getKey() >= startTime && entry.getKey() <= endTime) {
-                results.add(entry.getValue());
-            }
+        metrics.lock.readLock().lock();
+        try {
+            metrics.query(app, resource, startTime, endTime, results);
+        } finally {
+            metrics.lock.readLock().unlock();
         }
         return results;
     }
@@ -97,45 +124,194 @@ public class InMemoryMetricsRepository implements MetricsRepository<MetricEntity
         if (StringUtil.isBlank(app)) {
             return results;
         }
-        // resource -> timestamp -> metric
-        Map<String, LinkedHashMap<Long, MetricEntity>> resourceMap = allMetrics.get(app);
+        // resource -> metrics
+        Map<String, ResourceMetrics> resourceMap = allMetrics.get(app);
         if (resourceMap == null) {
             return results;
         }
-        final long minTimeMs = System.currentTimeMillis() - 1000 * 60;
-        Map<String, MetricEntity> resourceCount = new HashMap<>(32);
-
-        for (Entry<String, LinkedHashMap<Long, MetricEntity>> resourceMetrics : resourceMap.entrySet()) {
-            for (Entry<Long, MetricEntity> metrics : resourceMetrics.getValue().entrySet()) {
-                if (metrics.getKey() < minTimeMs) {
+        final long now = System.currentTimeMillis();
+        final long nowSecond = now / 1000;
+        List<ResourceSummary> summaries = new ArrayList<>(resourceMap.size());
+        for (Iterator<Map.Entry<String, ResourceMetrics>> it = resourceMap.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, ResourceMetrics> entry = it.next();
+            ResourceMetrics metrics = entry.getValue();
+            metrics.lock.writeLock().lock();
+            try {
+                if (metrics.latestSecond == ResourceMetrics.EMPTY) {
+                    // Being created.
                     continue;
                 }
-                MetricEntity newEntity = metrics.getValue();
-                if (resourceCount.containsKey(resourceMetrics.getKey())) {
-                    MetricEntity oldEntity = resourceCount.get(resourceMetrics.getKey());
-                    oldEntity.addPassQps(newEntity.getPassQps());
-                    oldEntity.addRtAndSuccessQps(newEntity.getRt(), newEntity.getSuccessQps());
-                    oldEntity.addBlockQps(newEntity.getBlockQps());
-                    oldEntity.addExceptionQps(newEntity.getExceptionQps());
-                    oldEntity.addCount(1);
-                } else {
-                    resourceCount.put(resourceMetrics.getKey(), MetricEntity.copyOf(newEntity));
+                if (metrics.latestSecond * 1000 < now - MAX_METRIC_LIVE_TIME_MS) {
+                    // No metrics any more.
+                    it.remove();
+                    continue;
+                }
+                metrics.advanceTo(nowSecond);
+                if (metrics.aggregateCount > 0) {
+                    summaries.add(new ResourceSummary(entry.getKey(), metrics.aggregatePass,
+                        metrics.aggregateBlock));
                 }
+            } finally {
+                metrics.lock.writeLock().unlock();
             }
         }
         // Order by last minute b_qps DESC.
-        return resourceCount.entrySet()
-            .stream()
-            .sorted((o1, o2) -> {
-                MetricEntity e1 = o1.getValue();
-                MetricEntity e2 = o2.getValue();
-                int t = e2.getBlockQps().compareTo(e1.getBlockQps());
-                if (t != 0) {
-                    return t;
+        summaries.sort((o1, o2) -> {
+            int t = Long.compare(o2.blockQps, o1.blockQps);
+            if (t != 0) {
+                return t;
+            }
+            return Long.compare(o2.passQps, o1.passQps);
+        });
+        for (ResourceSummary summary : summaries) {
+            results.add(summary.resource);
+        }
+        return results;
+    }
+
+    private ReadWriteLock lockOf(String app, String resource) {
+        int h = app.hashCode() * 31 + (resource == null ? 0 : resource.hashCode());
+        h ^= h >>> 16;
+        return locks[h & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Metrics of a resource in the last {@link #SLOT_COUNT} seconds. The slot of a second is
+     * {@code second % SLOT_COUNT}, and is valid only if it holds that second.
+     */
+    private static final class ResourceMetrics {
+
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private final ReadWriteLock lock;
+
+        private final long[] seconds = new long[SLOT_COUNT];
+        private final long[] timestamps = new long[SLOT_COUNT];
+        private final long[] gmtCreates = new long[SLOT_COUNT];
+        private final long[] passQps = new long[SLOT_COUNT];
+        private final long[] successQps = new long[SLOT_COUNT];
+        private final long[] blockQps = new long[SLOT_COUNT];
+        private final long[] exceptionQps = new long[SLOT_COUNT];
+        private final double[] rt = new double[SLOT_COUNT];
+        private final int[] counts = new int[SLOT_COUNT];
+
+        /**
+         * The rolling aggregation covers the seconds in {@code (latestSecond - AGGREGATE_SECONDS, latestSecond]}.
+         */
+        private long latestSecond = EMPTY;
+        private long aggregatePass;
+        private long aggregateBlock;
+        private int aggregateCount;
+
+        ResourceMetrics(ReadWriteLock lock) {
+            this.lock = lock;
+            Arrays.fill(seconds, EMPTY);
+        }
+
+        void put(MetricEntity entity) {
+            long timestamp = entity.getTimestamp().getTime();
+            long second = Math.floorDiv(timestamp, 1000);
+            if (latestSecond != EMPTY && second <= latestSecond - SLOT_COUNT) {
+                // Too old.
+                return;
+            }
+            advanceTo(second);
+            int slot = slotOf(second);
+            if (seconds[slot] != EMPTY && inAggregate(seconds[slot])) {
+                // The slot is overwritten.
+                aggregate(slot, -1);
+            }
+            seconds[slot] = second;
+            timestamps[slot] = timestamp;
+            gmtCreates[slot] = entity.getGmtCreate() == null ? timestamp : entity.getGmtCreate().getTime();
+            passQps[slot] = valueOf(entity.getPassQps());
+            successQps[slot] = valueOf(entity.getSuccessQps());
+            blockQps[slot] = valueOf(entity.getBlockQps());
+            exceptionQps[slot] = valueOf(entity.getExceptionQps());
+            rt[slot] = entity.getRt();
+            counts[slot] = entity.getCount();
+            if (inAggregate(second)) {
+                aggregate(slot, 1);
+            }
+        }
+
+        /**
+         * Move the rolling aggregation forward to given second, removing the seconds sliding out.
+         */
+        void advanceTo(long second) {
+            if (latestSecond == EMPTY) {
+                latestSecond = second;
+                return;
+            }
+            if (second <= latestSecond) {
+                return;
+            }
+            long from = latestSecond - AGGREGATE_SECONDS + 1;
+            long to = Math.min(second - AGGREGATE_SECONDS, latestSecond);
+            for (long s = from; s <= to; s++) {
+                int slot = slotOf(s);
+                if (seconds[slot] == s) {
+                    aggregate(slot, -1);
+                }
+            }
+            latestSecond = second;
+        }
+
+        void query(String app, String resource, long startTime, long endTime, List<MetricEntity> results) {
+            if (latestSecond == EMPTY) {
+                return;
+            }
+            long from = Math.max(Math.floorDiv(startTime, 1000), latestSecond - SLOT_COUNT + 1);
+            long to = Math.min(Math.floorDiv(endTime, 1000), latestSecond);
+            for (long s = from; s <= to; s++) {
+                int slot = slotOf(s);
+                if (seconds[slot] != s || timestamps[slot] < startTime || timestamps[slot] > endTime) {
+                    continue;
                 }
-                return e2.getPassQps().compareTo(e1.getPassQps());
-            })
-            .map(Entry::getKey)
-            .collect(Collectors.toList());
+                MetricEntity entity = new MetricEntity();
+                entity.setApp(app);
+                entity.setResource(resource);
+                entity.setTimestamp(new Date(timestamps[slot]));
+                entity.setGmtCreate(new Date(gmtCreates[slot]));
+                entity.setGmtModified(entity.getGmtCreate());
+                entity.setPassQps(passQps[slot]);
+                entity.setSuccessQps(successQps[slot]);
+                entity.setBlockQps(blockQps[slot]);
+                entity.setExceptionQps(exceptionQps[slot]);
+                entity.setRt(rt[slot]);
+                entity.setCount(counts[slot]);
+                results.add(entity);
+            }
+        }
+
+        private boolean inAggregate(long second) {
+            return second > latestSecond - AGGREGATE_SECONDS && second <= latestSecond;
+        }
+
+        private void aggregate(int slot, int sign) {
+            aggregatePass += sign * passQps[slot];
+            aggregateBlock += sign * blockQps[slot];
+            aggregateCount += sign;
+        }
+
+        private static int slotOf(long second) {
+            return (int)Math.floorMod(second, (long)SLOT_COUNT);
+        }
+
+        private static long valueOf(Long value) {
+            return value == null ? 0 : value;
+        }
+    }
+
+    private static final class ResourceSummary {
+        private final String resource;
+        private final long passQps;
+        private final long blockQps;
+
+        ResourceSummary(String resource, long passQps, long blockQps) {
+            this.resource = resource;
+            this.passQps = passQps;
+            this.blockQps = blockQps;
+        }
     }
 }
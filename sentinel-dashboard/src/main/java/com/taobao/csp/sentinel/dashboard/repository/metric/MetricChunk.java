@@ -0,0 +1,245 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.taobao.csp.sentinel.dashboard.repository.metric;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+import com.taobao.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+
+/**
+ * <p>Compressed chunk of the metrics of a single resource. Points are appended in place, each field is encoded
+ * against its value in the previous point:</p>
+ * <ul>
+ * <li>timestamp: delta-of-delta, as zigzag varint;</li>
+ * <li>creation time (relative to the timestamp) and the counters: delta, as zigzag varint;</li>
+ * <li>rt: XOR of the IEEE 754 bits, as the count of trailing zeros followed by the remaining bits as varint.</li>
+ * </ul>
+ * <p>Metrics fetched every second mostly take a few bytes per point.</p>
+ *
+ * @since 1.4.1
+ */
+final class MetricChunk {
+
+    private byte[] buf = new byte[64];
+    private int size = 0;
+
+    private int pointCount = 0;
+    private long firstTimestamp;
+    private long minTimestamp;
+    private long maxTimestamp;
+
+    private final Values last = new Values();
+
+    void append(MetricEntity entity) {
+        long timestamp = entity.getTimestamp().getTime();
+        if (pointCount == 0) {
+            firstTimestamp = minTimestamp = maxTimestamp = timestamp;
+            last.reset(timestamp);
+        } else {
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+        }
+        long delta = timestamp - last.timestamp;
+        writeSigned(delta - last.timestampDelta);
+        last.timestampDelta = delta;
+        last.timestamp = timestamp;
+
+        long createDelay = entity.getGmtCreate() == null ? 0 : entity.getGmtCreate().getTime() - timestamp;
+        writeSigned(createDelay - last.createDelay);
+        last.createDelay = createDelay;
+
+        long pass = valueOf(entity.getPassQps());
+        long success = valueOf(entity.getSuccessQps());
+        long block = valueOf(entity.getBlockQps());
+        long exception = valueOf(entity.getExceptionQps());
+        writeSigned(pass - last.pass);
+        writeSigned(success - last.success);
+        writeSigned(block - last.block);
+        writeSigned(exception - last.exception);
+        writeSigned(entity.getCount() - last.count);
+        last.pass = pass;
+        last.success = success;
+        last.block = block;
+        last.exception = exception;
+        last.count = entity.getCount();
+
+        long rtBits = Double.doubleToRawLongBits(entity.getRt());
+        long xor = rtBits ^ last.rtBits;
+        int trailingZeros = Long.numberOfTrailingZeros(xor);
+        ensureCapacity(1);
+        buf[size++] = (byte)trailingZeros;
+        if (xor != 0) {
+            writeUnsigned(xor >>> trailingZeros);
+        }
+        last.rtBits = rtBits;
+
+        pointCount++;
+    }
+
+    void reset() {
+        size = 0;
+        pointCount = 0;
+        if (buf.length > 4096) {
+            buf = new byte[64];
+        }
+    }
+
+    boolean isEmpty() {
+        return pointCount == 0;
+    }
+
+    int getPointCount() {
+        return pointCount;
+    }
+
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    byte[] getBuffer() {
+        return buf;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    byte[] copyPayload() {
+        return Arrays.copyOf(buf, size);
+    }
+
+    /**
+     * Decode the points of a chunk in the given time range.
+     *
+     * @param payload        encoded points
+     * @param length         length of the payload
+     * @param pointCount     count of points in the chunk
+     * @param firstTimestamp timestamp of the first point
+     * @param startTime      start of the time range (inclusive)
+     * @param endTime        end of the time range (inclusive)
+     * @param results        timestamp -> metric
+     */
+    static void decode(String app, String resource, byte[] payload, int length, int pointCount, long firstTimestamp,
+                       long startTime, long endTime, Map<Long, MetricEntity> results) {
+        Values last = new Values();
+        last.reset(firstTimestamp);
+        int[] pos = new int[1];
+        for (int i = 0; i < pointCount && pos[0] < length; i++) {
+            last.timestampDelta += readSigned(payload, pos);
+            last.timestamp += last.timestampDelta;
+            last.createDelay += readSigned(payload, pos);
+            last.pass += readSigned(payload, pos);
+            last.success += readSigned(payload, pos);
+            last.block += readSigned(payload, pos);
+            last.exception += readSigned(payload, pos);
+            last.count += readSigned(payload, pos);
+            int trailingZeros = payload[pos[0]++];
+            if (trailingZeros < 64) {
+                last.rtBits ^= readUnsigned(payload, pos) << trailingZeros;
+            }
+            if (last.timestamp < startTime || last.timestamp > endTime) {
+                continue;
+            }
+            MetricEntity entity = new MetricEntity();
+            entity.setApp(app);
+            entity.setResource(resource);
+            entity.setTimestamp(new Date(last.timestamp));
+            Date gmtCreate = new Date(last.timestamp + last.createDelay);
+            entity.setGmtCreate(gmtCreate);
+            entity.setGmtModified(gmtCreate);
+            entity.setPassQps(last.pass);
+            entity.setSuccessQps(last.success);
+            entity.setBlockQps(last.block);
+            entity.setExceptionQps(last.exception);
+            entity.setCount((int)last.count);
+            entity.setRt(Double.longBitsToDouble(last.rtBits));
+            results.put(last.timestamp, entity);
+        }
+    }
+
+    private static long valueOf(Long value) {
+        return value == null ? 0 : value;
+    }
+
+    private void writeSigned(long value) {
+        writeUnsigned((value << 1) ^ (value >> 63));
+    }
+
+    private void writeUnsigned(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buf[size++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[size++] = (byte)value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+        }
+    }
+
+    private static long readSigned(byte[] payload, int[] pos) {
+        long value = readUnsigned(payload, pos);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readUnsigned(byte[] payload, int[] pos) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = payload[pos[0]++];
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Values of the previous point.
+     */
+    private static final class Values {
+        long timestamp;
+        long timestampDelta;
+        long createDelay;
+        long pass;
+        long success;
+        long block;
+        long exception;
+        long count;
+        long rtBits;
+
+        void reset(long firstTimestamp) {
+            timestamp = firstTimestamp;
+            timestampDelta = 0;
+            createDelay = 0;
+            pass = success = block = exception = count = 0;
+            rtBits = 0;
+        }
+    }
+}
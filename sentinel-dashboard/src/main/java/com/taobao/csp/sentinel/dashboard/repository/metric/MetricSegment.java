@@ -0,0 +1,331 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.taobao.csp.sentinel.dashboard.repository.metric;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.taobao.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+
+/**
+ * <p>A time partition of the metrics store. Chunks of all resources in the partition are appended to the data
+ * file ({@code segment-${startTime}.dat}). Each chunk has a fixed header:</p>
+ * <pre>
+ * seriesId(int) previousChunkOffset(long) firstTimestamp(long) minTimestamp(long) maxTimestamp(long)
+ * pointCount(int) payloadLength(int)
+ * </pre>
+ * <p>Chunks of the same resource are linked backwards through {@code previousChunkOffset}, so only the offset of
+ * the last chunk of every resource has to be indexed. When the partition is sealed, the index is written to
+ * {@code segment-${startTime}.idx} and loaded on demand afterwards.</p>
+ *
+ * @since 1.4.1
+ */
+final class MetricSegment {
+
+    static final String FILE_PREFIX = "segment-";
+    static final String DATA_SUFFIX = ".dat";
+    static final String INDEX_SUFFIX = ".idx";
+
+    static final int HEADER_LENGTH = 4 + 8 * 4 + 4 + 4;
+
+    private static final long NO_CHUNK = -1;
+
+    private final long startTime;
+    private final File dataFile;
+    private final File indexFile;
+
+    /**
+     * Only present while the segment is open.
+     */
+    private FileChannel channel;
+    private long size;
+    /**
+     * seriesId -> offset of the last chunk, only present while the segment is open.
+     */
+    private long[] lastOffsets;
+
+    /**
+     * Index of the sealed segment, which can be reloaded from the index file.
+     */
+    private volatile SoftReference<SealedIndex> sealedIndex = new SoftReference<>(null);
+
+    private MetricSegment(File dir, long startTime) {
+        this.startTime = startTime;
+        this.dataFile = new File(dir, FILE_PREFIX + startTime + DATA_SUFFIX);
+        this.indexFile = new File(dir, FILE_PREFIX + startTime + INDEX_SUFFIX);
+    }
+
+    /**
+     * Create a new segment for writing.
+     */
+    static MetricSegment create(File dir, long startTime) throws IOException {
+        MetricSegment segment = new MetricSegment(dir, startTime);
+        segment.openChannel();
+        segment.lastOffsets = newOffsets(16);
+        return segment;
+    }
+
+    /**
+     * Load an existing segment. A segment without the index file is recovered by scanning the chunk headers,
+     * and a truncated chunk at the end (e.g. crashed while writing) is dropped.
+     */
+    static MetricSegment load(File dir, long startTime) throws IOException {
+        MetricSegment segment = new MetricSegment(dir, startTime);
+        if (segment.indexFile.exists()) {
+            return segment;
+        }
+        segment.openChannel();
+        segment.lastOffsets = newOffsets(16);
+        long fileSize = segment.channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        long offset = 0;
+        while (offset + HEADER_LENGTH <= fileSize) {
+            header.clear();
+            readFully(segment.channel, header, offset);
+            header.flip();
+            int seriesId = header.getInt();
+            header.position(HEADER_LENGTH - 4);
+            int payloadLength = header.getInt();
+            if (seriesId < 0 || payloadLength < 0 || offset + HEADER_LENGTH + payloadLength > fileSize) {
+                break;
+            }
+            segment.setLastOffset(seriesId, offset);
+            offset += HEADER_LENGTH + payloadLength;
+        }
+        if (offset < fileSize) {
+            segment.channel.truncate(offset);
+        }
+        segment.size = offset;
+        return segment;
+    }
+
+    private void openChannel() throws IOException {
+        this.channel = new RandomAccessFile(dataFile, "rw").getChannel();
+        this.size = channel.size();
+    }
+
+    long getStartTime() {
+        return startTime;
+    }
+
+    synchronized boolean isSealed() {
+        return channel == null;
+    }
+
+    /**
+     * Append a chunk of given series.
+     *
+     * @return false if the segment has been sealed
+     */
+    synchronized boolean append(int seriesId, MetricChunk chunk) throws IOException {
+        if (channel == null) {
+            return false;
+        }
+        long previous = seriesId < lastOffsets.length ? lastOffsets[seriesId] : NO_CHUNK;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + chunk.getSize());
+        buffer.putInt(seriesId)
+            .putLong(previous)
+            .putLong(chunk.getFirstTimestamp())
+            .putLong(chunk.getMinTimestamp())
+            .putLong(chunk.getMaxTimestamp())
+            .putInt(chunk.getPointCount())
+            .putInt(chunk.getSize())
+            .put(chunk.getBuffer(), 0, chunk.getSize());
+        buffer.flip();
+        long offset = size;
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+        size += buffer.limit();
+        setLastOffset(seriesId, offset);
+        return true;
+    }
+
+    private void setLastOffset(int seriesId, long offset) {
+        if (seriesId >= lastOffsets.length) {
+            int oldLength = lastOffsets.length;
+            lastOffsets = Arrays.copyOf(lastOffsets, Math.max(oldLength * 2, seriesId + 1));
+            Arrays.fill(lastOffsets, oldLength, lastOffsets.length, NO_CHUNK);
+        }
+        lastOffsets[seriesId] = offset;
+    }
+
+    private long lastOffset(int seriesId) throws IOException {
+        synchronized (this) {
+            if (channel != null) {
+                return seriesId < lastOffsets.length ? lastOffsets[seriesId] : NO_CHUNK;
+            }
+        }
+        return loadSealedIndex().lastOffset(seriesId);
+    }
+
+    /**
+     * Read the metrics of given series in the time range. Chunks of a series are appended chronologically,
+     * so the chunks are visited backwards until a chunk ends before the start time.
+     */
+    void read(int seriesId, String app, String resource, long startTime, long endTime,
+              Map<Long, MetricEntity> results) throws IOException {
+        long offset = lastOffset(seriesId);
+        if (offset == NO_CHUNK) {
+            return;
+        }
+        try (FileChannel in = new RandomAccessFile(dataFile, "r").getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            while (offset != NO_CHUNK) {
+                header.clear();
+                readFully(in, header, offset);
+                header.flip();
+                header.getInt();
+                long previous = header.getLong();
+                long firstTimestamp = header.getLong();
+                long minTimestamp = header.getLong();
+                long maxTimestamp = header.getLong();
+                int pointCount = header.getInt();
+                int payloadLength = header.getInt();
+                if (maxTimestamp < startTime) {
+                    break;
+                }
+                if (minTimestamp <= endTime) {
+                    ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+                    readFully(in, payload, offset + HEADER_LENGTH);
+                    MetricChunk.decode(app, resource, payload.array(), payloadLength, pointCount, firstTimestamp,
+                        startTime, endTime, results);
+                }
+                offset = previous;
+            }
+        }
+    }
+
+    /**
+     * Seal the segment: no more chunks can be appended, and the index is written to the index file.
+     */
+    synchronized void seal() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < lastOffsets.length; i++) {
+            if (lastOffsets[i] != NO_CHUNK) {
+                ids.add(i);
+            }
+        }
+        SealedIndex index = new SealedIndex(ids.size());
+        File tmpFile = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                int id = ids.get(i);
+                index.seriesIds[i] = id;
+                index.offsets[i] = lastOffsets[id];
+                out.writeInt(id);
+                out.writeLong(lastOffsets[id]);
+            }
+        }
+        channel.force(false);
+        channel.close();
+        if (!tmpFile.renameTo(indexFile)) {
+            throw new IOException("Failed to write index file: " + indexFile);
+        }
+        channel = null;
+        lastOffsets = null;
+        sealedIndex = new SoftReference<>(index);
+    }
+
+    /**
+     * Close the channel without sealing, the segment can be recovered when loaded again.
+     */
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    synchronized void delete() throws IOException {
+        close();
+        sealedIndex = new SoftReference<>(null);
+        dataFile.delete();
+        indexFile.delete();
+    }
+
+    long diskSize() {
+        return dataFile.length() + indexFile.length();
+    }
+
+    private SealedIndex loadSealedIndex() throws IOException {
+        SealedIndex index = sealedIndex.get();
+        if (index != null) {
+            return index;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            int count = in.readInt();
+            index = new SealedIndex(count);
+            for (int i = 0; i < count; i++) {
+                index.seriesIds[i] = in.readInt();
+                index.offsets[i] = in.readLong();
+            }
+        }
+        sealedIndex = new SoftReference<>(index);
+        return index;
+    }
+
+    private static long[] newOffsets(int length) {
+        long[] offsets = new long[length];
+        Arrays.fill(offsets, NO_CHUNK);
+        return offsets;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of metric segment");
+            }
+        }
+    }
+
+    /**
+     * Sorted seriesId -> offset of the last chunk.
+     */
+    private static final class SealedIndex {
+        final int[] seriesIds;
+        final long[] offsets;
+
+        SealedIndex(int count) {
+            this.seriesIds = new int[count];
+            this.offsets = new long[count];
+        }
+
+        long lastOffset(int seriesId) {
+            int i = Arrays.binarySearch(seriesIds, seriesId);
+            return i < 0 ? NO_CHUNK : offsets[i];
+        }
+    }
+}
@@ -24,15 +24,21 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.taobao.csp.sentinel.dashboard.metric.AppMetricFetchStat;
+import com.taobao.csp.sentinel.dashboard.metric.MetricFetcher;
+import com.taobao.csp.sentinel.dashboard.metric.MetricPushReceiver;
 import com.taobao.csp.sentinel.dashboard.repository.metric.MetricsRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import com.alibaba.csp.sentinel.transport.metric.MetricFrameCodec;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
 import com.taobao.csp.sentinel.dashboard.datasource.entity.MetricEntity;
@@ -51,6 +57,10 @@ public class MetricController {
 
     @Autowired
     private MetricsRepository<MetricEntity> metricStore;
+    @Autowired
+    private MetricFetcher metricFetcher;
+    @Autowired
+    private MetricPushReceiver metricPushReceiver;
 
     @ResponseBody
     @RequestMapping("/queryTopResourceMetric.json")
@@ -158,6 +168,38 @@ public class MetricController {
         return Result.ofSuccess(sortMetricVoAndDistinct(vos));
     }
 
+    /**
+     * Receive a metric frame pushed by a machine.
+     */
+    @ResponseBody
+    @RequestMapping(value = "/push", method = RequestMethod.POST)
+    public Result<?> receivePushedMetric(@RequestBody byte[] frame) {
+        try {
+            metricPushReceiver.receive(MetricFrameCodec.decode(frame));
+            return Result.ofSuccessMsg("success");
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid metric frame: {}", e.getMessage());
+            return Result.ofFail(-1, e.getMessage());
+        }
+    }
+
+    /**
+     * Fetch latency statistics of the given app, or of all apps if the app is absent.
+     */
+    @ResponseBody
+    @RequestMapping("/fetchStats.json")
+    public Result<?> queryFetchStats(String app) {
+        Map<String, AppMetricFetchStat> stats = metricFetcher.getAppFetchStats();
+        if (StringUtil.isEmpty(app)) {
+            return Result.ofSuccess(new ArrayList<>(stats.values()));
+        }
+        AppMetricFetchStat stat = stats.get(app);
+        if (stat == null) {
+            return Result.ofSuccess(Collections.emptyList());
+        }
+        return Result.ofSuccess(Collections.singletonList(stat));
+    }
+
     private Iterable<MetricVo> sortMetricVoAndDistinct(List<MetricVo> vos) {
         if (vos == null) {
             return null;
@@ -0,0 +1,124 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.taobao.csp.sentinel.dashboard.client;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.command.vo.NodeTreeDelta;
+import com.alibaba.csp.sentinel.command.vo.NodeVo;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link ResourceTreeCache}.
+ */
+public class ResourceTreeCacheTest {
+
+    @Test
+    public void testApplyFullAndIncrementalSnapshots() {
+        ResourceTreeCache cache = new ResourceTreeCache();
+        assertNull(cache.getVersion());
+
+        NodeTreeDelta full = newDelta("e-1", true);
+        full.getNodes().add(NodeTreeDelta.toRow("0", null, "machine-root", stats(0)));
+        full.getNodes().add(NodeTreeDelta.toRow("1", "0", "resA", stats(0)));
+        List<NodeVo> nodes = cache.apply(full);
+        assertEquals(2, nodes.size());
+        assertEquals("e-1", cache.getVersion());
+
+        NodeTreeDelta delta = newDelta("e-2", false);
+        delta.getNodes().add(NodeTreeDelta.toRow("1", null, null, stats(5)));
+        delta.getNodes().add(NodeTreeDelta.toRow("2", "1", "resB", stats(1)));
+        nodes = cache.apply(delta);
+        assertEquals("e-2", cache.getVersion());
+        assertEquals(3, nodes.size());
+
+        NodeVo resA = nodes.get(1);
+        assertEquals("1", resA.getId());
+        assertEquals("0", resA.getParentId());
+        assertEquals("resA", resA.getResource());
+        assertEquals(5L, resA.getPassQps().longValue());
+        NodeVo resB = nodes.get(2);
+        assertEquals("1", resB.getParentId());
+        assertEquals("resB", resB.getResource());
+        // Unchanged nodes are kept.
+        assertEquals("machine-root", nodes.get(0).getResource());
+    }
+
+    @Test
+    public void testResetWhenOutOfSync() {
+        ResourceTreeCache cache = new ResourceTreeCache();
+        NodeTreeDelta full = newDelta("e-1", true);
+        full.getNodes().add(NodeTreeDelta.toRow("0", null, "machine-root", stats(0)));
+        assertNotNull(cache.apply(full));
+
+        NodeTreeDelta delta = newDelta("e-2", false);
+        delta.getNodes().add(NodeTreeDelta.toRow("7", null, null, stats(1)));
+        assertNull(cache.apply(delta));
+        assertNull(cache.getVersion());
+
+        // A full snapshot replaces the previous tree.
+        NodeTreeDelta other = newDelta("f-1", true);
+        other.getNodes().add(NodeTreeDelta.toRow("0", null, "machine-root2", stats(0)));
+        List<NodeVo> nodes = cache.apply(other);
+        assertEquals(1, nodes.size());
+        assertEquals("machine-root2", nodes.get(0).getResource());
+    }
+
+    @Test
+    public void testDeltaUnsupported() {
+        ResourceTreeCache cache = new ResourceTreeCache();
+        NodeTreeDelta full = newDelta("e-1", true);
+        full.getNodes().add(NodeTreeDelta.toRow("0", null, "machine-root", stats(0)));
+        assertNotNull(cache.apply(full));
+
+        long now = 100000;
+        assertTrue(cache.isDeltaSupported(now));
+        cache.markDeltaUnsupported(now);
+        assertNull(cache.getVersion());
+        assertFalse(cache.isDeltaSupported(now + 1000));
+        // Checked again later, as the machine may have been upgraded.
+        assertTrue(cache.isDeltaSupported(now + ResourceTreeCache.DELTA_UNSUPPORTED_RECHECK_MS));
+    }
+
+    @Test
+    public void testExpiredWhenIdle() {
+        ResourceTreeCache cache = new ResourceTreeCache();
+        long now = System.currentTimeMillis();
+        cache.touch(now);
+        assertFalse(cache.isExpired(now + ResourceTreeCache.IDLE_EXPIRE_MS - 1));
+        assertTrue(cache.isExpired(now + ResourceTreeCache.IDLE_EXPIRE_MS));
+
+        cache.touch(now + ResourceTreeCache.IDLE_EXPIRE_MS);
+        assertFalse(cache.isExpired(now + ResourceTreeCache.IDLE_EXPIRE_MS + 1000));
+    }
+
+    private static NodeTreeDelta newDelta(String version, boolean full) {
+        NodeTreeDelta delta = new NodeTreeDelta();
+        delta.setVersion(version);
+        delta.setFull(full);
+        delta.setTimestamp(System.currentTimeMillis());
+        return delta;
+    }
+
+    private static long[] stats(long passQps) {
+        long[] stats = new long[NodeTreeDelta.STAT_COUNT];
+        stats[1] = passQps;
+        stats[3] = passQps;
+        return stats;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.taobao.csp.sentinel.dashboard.metric;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.transport.metric.MetricFrame;
+
+import com.taobao.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import com.taobao.csp.sentinel.dashboard.discovery.MachineInfo;
+import com.taobao.csp.sentinel.dashboard.repository.metric.InMemoryMetricsRepository;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link MetricPushReceiver}.
+ */
+public class MetricPushReceiverTest {
+
+    private final InMemoryMetricsRepository repository = new InMemoryMetricsRepository();
+    private final MetricPushReceiver receiver = new MetricPushReceiver(repository, false);
+
+    private final long now = System.currentTimeMillis() / 1000 * 1000;
+
+    @Test
+    public void testMergeMachinesAndFlush() {
+        long time = now - 5000;
+        receiver.receive(newFrame("127.0.0.1", time, newNode("res", time, 10), newNode("res2", time, 1)));
+        receiver.receive(newFrame("127.0.0.2", time, newNode("res", time, 20)));
+        receiver.receive(newFrame("127.0.0.2", now, newNode("res", now, 5)));
+        receiver.flush(now);
+
+        List<MetricEntity> results = repository.queryByAppAndResourceBetween("app", "res", 0, now);
+        assertEquals(1, results.size());
+        MetricEntity entity = results.get(0);
+        assertEquals(time, entity.getTimestamp().getTime());
+        assertEquals(30, entity.getPassQps().longValue());
+        assertEquals(2, entity.getCount());
+        assertEquals(1, repository.queryByAppAndResourceBetween("app", "res2", 0, now).size());
+
+        // The recent second is saved once it is old enough.
+        receiver.flush(now + MetricPushReceiver.FLUSH_DELAY_MS);
+        assertEquals(2, repository.queryByAppAndResourceBetween("app", "res", 0, now).size());
+    }
+
+    @Test
+    public void testDropLateMetrics() {
+        receiver.receive(newFrame("127.0.0.1", now, newNode("res", now, 5)));
+        receiver.flush(now + MetricPushReceiver.FLUSH_DELAY_MS);
+        receiver.receive(newFrame("127.0.0.2", now, newNode("res", now, 7)));
+        receiver.flush(now + MetricPushReceiver.FLUSH_DELAY_MS + 1000);
+
+        List<MetricEntity> results = repository.queryByAppAndResourceBetween("app", "res", 0, now);
+        assertEquals(1, results.size());
+        assertEquals(5, results.get(0).getPassQps().longValue());
+        assertEquals(1, receiver.getLateMetrics());
+    }
+
+    @Test
+    public void testMergePushedAndFetchedMachines() {
+        long time = now - 5000;
+        long fetchStart = time - 1000;
+        receiver.receive(newFrame("127.0.0.1", time, newNode("res", time, 10)));
+        receiver.beginFetch("app", fetchStart);
+        receiver.receiveFetched("app", newNode("res", time, 20));
+        // The second is not saved until the fetching round covering it has finished.
+        receiver.flush(now);
+        assertTrue(repository.queryByAppAndResourceBetween("app", "res", 0, now).isEmpty());
+
+        receiver.endFetch("app", fetchStart, time);
+        receiver.flush(now);
+        List<MetricEntity> results = repository.queryByAppAndResourceBetween("app", "res", 0, now);
+        assertEquals(1, results.size());
+        assertEquals(30, results.get(0).getPassQps().longValue());
+        assertEquals(2, results.get(0).getCount());
+        assertEquals(1, receiver.getFetchedMetrics());
+    }
+
+    @Test
+    public void testOverlappingFetchRounds() {
+        long first = now - 8000;
+        long second = now - 5000;
+        receiver.beginFetch("app", first);
+        receiver.beginFetch("app", second);
+        receiver.receiveFetched("app", newNode("res", second, 3));
+        // The later round finishes first, the earlier one still holds its seconds back.
+        receiver.endFetch("app", second, second + 1000);
+        receiver.flush(now);
+        assertTrue(repository.queryByAppAndResourceBetween("app", "res", 0, now).isEmpty());
+
+        receiver.receiveFetched("app", newNode("res", first, 4));
+        receiver.endFetch("app", first, second - 1000);
+        receiver.flush(now);
+        assertEquals(2, repository.queryByAppAndResourceBetween("app", "res", 0, now).size());
+        assertEquals(0, receiver.getLateMetrics());
+    }
+
+    @Test
+    public void testIsPushing() {
+        MachineInfo machine = new MachineInfo();
+        machine.setApp("app");
+        machine.setIp("127.0.0.1");
+        machine.setPort(8719);
+        machine.setTimestamp(new Date());
+        assertFalse(receiver.isPushing(machine));
+        receiver.receive(newFrame("127.0.0.1", now, newNode("res", now, 1)));
+        assertTrue(receiver.isPushing(machine));
+        machine.setPort(8720);
+        assertFalse(receiver.isPushing(machine));
+    }
+
+    private static MetricFrame newFrame(String ip, long time, MetricNode... nodes) {
+        Map<Long, List<MetricNode>> metrics = new TreeMap<>(Collections.singletonMap(time, Arrays.asList(nodes)));
+        return new MetricFrame("app", ip, 8719, metrics);
+    }
+
+    private static MetricNode newNode(String resource, long timestamp, long pass) {
+        MetricNode node = new MetricNode();
+        node.setResource(resource);
+        node.setTimestamp(timestamp);
+        node.setPassQps(pass);
+        node.setSuccessQps(pass);
+        node.setRt(5);
+        return node;
+    }
+}
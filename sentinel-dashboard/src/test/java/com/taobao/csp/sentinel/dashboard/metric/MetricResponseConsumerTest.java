@@ -0,0 +1,123 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.taobao.csp.sentinel.dashboard.metric;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link MetricResponseConsumer}.
+ */
+public class MetricResponseConsumerTest {
+
+    @Test
+    public void testLinesSplitAcrossChunks() throws Exception {
+        List<String> lines = new ArrayList<>();
+        MetricResponseConsumer consumer = new MetricResponseConsumer(StandardCharsets.UTF_8, lines::add, 4);
+        consumer.responseReceived(newResponse(200, null));
+        consumer.consumeContent(new ChunkedDecoder(StandardCharsets.UTF_8, "a\nbb", "b\r\n\nc", "cc"), null);
+        consumer.responseCompleted(new BasicHttpContext());
+
+        assertEquals(3, consumer.getResult().intValue());
+        assertEquals(Arrays.asList("a", "bbb", "ccc"), lines);
+    }
+
+    @Test
+    public void testCharsetOfResponse() throws Exception {
+        Charset gbk = Charset.forName("GBK");
+        List<String> lines = new ArrayList<>();
+        MetricResponseConsumer consumer = new MetricResponseConsumer(StandardCharsets.UTF_8, lines::add, 3);
+        consumer.responseReceived(newResponse(200, ContentType.create("text/plain", gbk)));
+        consumer.consumeContent(new ChunkedDecoder(gbk, "资源一|1\n资源二|2\n"), null);
+        consumer.responseCompleted(new BasicHttpContext());
+
+        assertEquals(Arrays.asList("资源一|1", "资源二|2"), lines);
+    }
+
+    @Test
+    public void testNotOkResponse() throws Exception {
+        List<String> lines = new ArrayList<>();
+        MetricResponseConsumer consumer = new MetricResponseConsumer(StandardCharsets.UTF_8, lines::add);
+        consumer.responseReceived(newResponse(400, null));
+        ChunkedDecoder decoder = new ChunkedDecoder(StandardCharsets.UTF_8, "Unknown command\n");
+        consumer.consumeContent(decoder, null);
+        consumer.responseCompleted(new BasicHttpContext());
+
+        assertEquals(-1, consumer.getResult().intValue());
+        assertTrue(lines.isEmpty());
+        // The content is drained all the same.
+        assertTrue(decoder.isCompleted());
+    }
+
+    private static BasicHttpResponse newResponse(int code, ContentType contentType) {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, code, null);
+        if (contentType != null) {
+            response.setEntity(new StringEntity("", contentType));
+        }
+        return response;
+    }
+
+    /**
+     * Decoder that hands out at most one chunk per read.
+     */
+    private static class ChunkedDecoder implements ContentDecoder {
+
+        private final List<byte[]> chunks = new ArrayList<>();
+        private int index;
+        private int offset;
+
+        ChunkedDecoder(Charset charset, String... chunks) {
+            for (String chunk : chunks) {
+                this.chunks.add(chunk.getBytes(charset));
+            }
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (isCompleted()) {
+                return -1;
+            }
+            byte[] chunk = chunks.get(index);
+            int length = Math.min(dst.remaining(), chunk.length - offset);
+            dst.put(chunk, offset, length);
+            offset += length;
+            if (offset == chunk.length) {
+                index++;
+                offset = 0;
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return index >= chunks.size();
+        }
+    }
+}
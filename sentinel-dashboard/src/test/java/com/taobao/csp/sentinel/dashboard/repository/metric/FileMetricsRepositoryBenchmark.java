@@ -0,0 +1,128 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.taobao.csp.sentinel.dashboard.repository.metric;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.taobao.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+
+/**
+ * <p>Ingest benchmark of the metrics repositories: {@code apps * resources} metrics per second (100 apps
+ * and 500 resources by default) are saved for {@code seconds} seconds of metric time as fast as possible,
+ * in batches per app like {@code MetricFetcher} does, while another thread keeps querying the last minute
+ * of random resources.</p>
+ *
+ * <p>Usage: {@code FileMetricsRepositoryBenchmark [file|memory] [seconds] [apps] [resources]}. Ingesting
+ * faster than {@code apps * resources} points per second means the store keeps up with fetching at 1 Hz.</p>
+ */
+public class FileMetricsRepositoryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String type = args.length > 0 ? args[0] : "file";
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 120;
+        int apps = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int resources = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+
+        File dir = Files.createTempDirectory("sentinel-metrics-benchmark").toFile();
+        MetricsRepository<MetricEntity> repository = "memory".equals(type) ? new InMemoryMetricsRepository()
+            : new FileMetricsRepository(dir.getAbsolutePath(), 24);
+        long baseTime = (System.currentTimeMillis() / 1000 - seconds) * 1000;
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong queryCount = new AtomicLong();
+        AtomicLong queryNanos = new AtomicLong();
+        AtomicLong maxQueryNanos = new AtomicLong();
+        AtomicLong ingestedTime = new AtomicLong(baseTime);
+        Thread queryThread = new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running.get()) {
+                long end = ingestedTime.get();
+                long begin = System.nanoTime();
+                repository.queryByAppAndResourceBetween("app" + random.nextInt(apps),
+                    "resource" + random.nextInt(resources), end - 60 * 1000, end);
+                long cost = System.nanoTime() - begin;
+                queryCount.incrementAndGet();
+                queryNanos.addAndGet(cost);
+                maxQueryNanos.accumulateAndGet(cost, Math::max);
+            }
+        });
+        queryThread.start();
+
+        long begin = System.nanoTime();
+        for (int s = 0; s < seconds; s++) {
+            long timestamp = baseTime + s * 1000L;
+            for (int a = 0; a < apps; a++) {
+                List<MetricEntity> batch = new ArrayList<>(resources);
+                for (int r = 0; r < resources; r++) {
+                    batch.add(newMetric("app" + a, "resource" + r, timestamp));
+                }
+                repository.saveAll(batch);
+            }
+            ingestedTime.set(timestamp);
+        }
+        long cost = System.nanoTime() - begin;
+        running.set(false);
+        queryThread.join();
+
+        long points = (long)seconds * apps * resources;
+        System.out.printf("%s: %d points in %d ms, %.0f points/s (%.1fx of 1 Hz fetching)%n", type, points,
+            cost / 1000000, points * 1e9 / cost, points * 1e9 / cost / (apps * resources));
+        System.out.printf("queries: %d, avg %.3f ms, max %.3f ms%n", queryCount.get(),
+            queryNanos.get() / 1e6 / Math.max(1, queryCount.get()), maxQueryNanos.get() / 1e6);
+        if (repository instanceof FileMetricsRepository) {
+            FileMetricsRepository fileRepository = (FileMetricsRepository)repository;
+            fileRepository.close();
+            System.out.printf("disk: %d bytes, %.2f bytes/point%n", fileRepository.diskSize(),
+                fileRepository.diskSize() / (double)points);
+        }
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("heap used after GC: %d MB%n", (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+        // Keep the repository reachable until the heap is measured.
+        System.out.println(repository.getClass().getSimpleName());
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static MetricEntity newMetric(String app, String resource, long timestamp) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        MetricEntity entity = new MetricEntity();
+        entity.setApp(app);
+        entity.setResource(resource);
+        entity.setTimestamp(new Date(timestamp));
+        entity.setGmtCreate(new Date(timestamp + 2000 + random.nextInt(100)));
+        entity.setGmtModified(entity.getGmtCreate());
+        long pass = 100 + random.nextInt(20);
+        entity.setPassQps(pass);
+        entity.setBlockQps((long)random.nextInt(3));
+        entity.setExceptionQps(0L);
+        entity.setRtAndSuccessQps(5 + random.nextInt(10), pass);
+        entity.setCount(1);
+        return entity;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.taobao.csp.sentinel.dashboard.repository.metric;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import com.taobao.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link FileMetricsRepository}.
+ */
+public class FileMetricsRepositoryTest {
+
+    private static final String APP = "testApp";
+
+    private File dir;
+    private FileMetricsRepository repository;
+
+    /**
+     * Start of the segment of one hour ago.
+     */
+    private final long baseTime = (System.currentTimeMillis() / FileMetricsRepository.SEGMENT_DURATION_MS - 1)
+        * FileMetricsRepository.SEGMENT_DURATION_MS;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("sentinel-dashboard-metrics").toFile();
+        repository = new FileMetricsRepository(dir.getAbsolutePath(), 24);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        repository.close();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testSaveAndQueryAcrossSegments() {
+        // 100 seconds across the boundary of segments, partly flushed to the segments.
+        long start = baseTime + FileMetricsRepository.SEGMENT_DURATION_MS - 50 * 1000;
+        for (int i = 0; i < 100; i++) {
+            repository.saveAll(Arrays.asList(newMetric("res1", start + i * 1000, i),
+                newMetric("res2", start + i * 1000, 1000 - i)));
+        }
+        List<MetricEntity> all = repository.queryByAppAndResourceBetween(APP, "res1", start, start + 99 * 1000);
+        assertEquals(100, all.size());
+        for (int i = 0; i < 100; i++) {
+            assertMetric(all.get(i), "res1", start + i * 1000, i);
+        }
+
+        List<MetricEntity> part = repository.queryByAppAndResourceBetween(APP, "res2", start + 30 * 1000,
+            start + 69 * 1000);
+        assertEquals(40, part.size());
+        assertMetric(part.get(0), "res2", start + 30 * 1000, 970);
+        assertMetric(part.get(39), "res2", start + 69 * 1000, 931);
+
+        assertTrue(repository.queryByAppAndResourceBetween(APP, "res3", start, start + 99 * 1000).isEmpty());
+        assertTrue(repository.queryByAppAndResourceBetween("otherApp", "res1", start, start + 99 * 1000).isEmpty());
+    }
+
+    @Test
+    public void testReopenAndRecoverTruncatedSegment() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            repository.save(newMetric("res1", baseTime + i * 1000, i));
+        }
+        repository.close();
+        File segmentFile = new File(dir, MetricSegment.FILE_PREFIX + baseTime + MetricSegment.DATA_SUFFIX);
+        long size = segmentFile.length();
+        // Partly written chunk.
+        try (FileOutputStream out = new FileOutputStream(segmentFile, true)) {
+            out.write(new byte[] {0, 0, 0, 0, 1, 2, 3});
+        }
+
+        repository = new FileMetricsRepository(dir.getAbsolutePath(), 24);
+        assertEquals(size, segmentFile.length());
+        List<MetricEntity> all = repository.queryByAppAndResourceBetween(APP, "res1", baseTime, baseTime + 199 * 1000);
+        assertEquals(200, all.size());
+        assertMetric(all.get(199), "res1", baseTime + 199 * 1000, 199);
+
+        // Appending to the recovered segment.
+        repository.save(newMetric("res1", baseTime + 200 * 1000, 200));
+        repository.save(newMetric("res2", baseTime + 200 * 1000, 7));
+        assertEquals(201, repository.queryByAppAndResourceBetween(APP, "res1", baseTime, baseTime + 200 * 1000)
+            .size());
+        assertEquals(1, repository.queryByAppAndResourceBetween(APP, "res2", baseTime, baseTime + 200 * 1000)
+            .size());
+    }
+
+    @Test
+    public void testSealAndExpireSegments() throws Exception {
+        for (int i = 0; i < 90; i++) {
+            repository.save(newMetric("res1", baseTime + i * 1000, i));
+        }
+        long now = baseTime + 2 * FileMetricsRepository.SEGMENT_DURATION_MS;
+        repository.maintain(now);
+        assertTrue(new File(dir, MetricSegment.FILE_PREFIX + baseTime + MetricSegment.INDEX_SUFFIX).exists());
+        assertEquals(90, repository.queryByAppAndResourceBetween(APP, "res1", baseTime, baseTime + 89 * 1000).size());
+
+        // Late metrics of the sealed segment are dropped.
+        repository.save(newMetric("res1", baseTime + 100 * 1000, 100));
+        repository.maintain(now);
+        assertEquals(90, repository.queryByAppAndResourceBetween(APP, "res1", baseTime, baseTime + 100 * 1000).size());
+
+        repository.maintain(baseTime + 26 * FileMetricsRepository.SEGMENT_DURATION_MS);
+        assertFalse(new File(dir, MetricSegment.FILE_PREFIX + baseTime + MetricSegment.DATA_SUFFIX).exists());
+        assertTrue(repository.queryByAppAndResourceBetween(APP, "res1", baseTime, baseTime + 100 * 1000).isEmpty());
+    }
+
+    @Test
+    public void testListResourcesOfApp() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            MetricEntity blocked = newMetric("blocked", now - i * 1000, 1);
+            blocked.setBlockQps(10L);
+            repository.save(blocked);
+            repository.save(newMetric("busy", now - i * 1000, 100));
+            repository.save(newMetric("idle", now - i * 1000, 1));
+        }
+        repository.save(newMetric("stale", now - 1000 * 60 * 5, 1000));
+        assertEquals(Arrays.asList("blocked", "busy", "idle"), repository.listResourcesOfApp(APP));
+    }
+
+    private static MetricEntity newMetric(String resource, long timestamp, long pass) {
+        MetricEntity entity = new MetricEntity();
+        entity.setApp(APP);
+        entity.setResource(resource);
+        entity.setTimestamp(new Date(timestamp));
+        entity.setGmtCreate(new Date(timestamp + 1500));
+        entity.setGmtModified(entity.getGmtCreate());
+        entity.setPassQps(pass);
+        entity.setBlockQps(0L);
+        entity.setExceptionQps(pass % 3);
+        entity.setRtAndSuccessQps(pass % 2 == 0 ? 12.5 : 7, pass);
+        entity.setCount(2);
+        return entity;
+    }
+
+    private static void assertMetric(MetricEntity entity, String resource, long timestamp, long pass) {
+        assertEquals(APP, entity.getApp());
+        assertEquals(resource, entity.getResource());
+        assertEquals(timestamp, entity.getTimestamp().getTime());
+        assertEquals(timestamp + 1500, entity.getGmtCreate().getTime());
+        assertEquals(pass, entity.getPassQps().longValue());
+        assertEquals(pass, entity.getSuccessQps().longValue());
+        assertEquals(pass % 3, entity.getExceptionQps().longValue());
+        assertEquals((pass % 2 == 0 ? 12.5 : 7) * pass, entity.getRt(), 0);
+        assertEquals(2, entity.getCount());
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.taobao.csp.sentinel.dashboard.repository.metric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.taobao.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link InMemoryMetricsRepository}.
+ */
+public class InMemoryMetricsRepositoryTest {
+
+    private static final String APP = "testApp";
+
+    private final InMemoryMetricsRepository repository = new InMemoryMetricsRepository();
+
+    private final long now = System.currentTimeMillis() / 1000 * 1000;
+
+    @Test
+    public void testSaveAndQuery() {
+        for (int i = 9; i >= 0; i--) {
+            repository.save(newMetric("res", now - i * 1000, 10 - i, 0));
+        }
+        List<MetricEntity> results = repository.queryByAppAndResourceBetween(APP, "res", now - 5000, now);
+        assertEquals(6, results.size());
+        for (int i = 0; i < 6; i++) {
+            MetricEntity entity = results.get(i);
+            assertEquals(now - (5 - i) * 1000, entity.getTimestamp().getTime());
+            assertEquals(5 + i, entity.getPassQps().longValue());
+            assertEquals(APP, entity.getApp());
+            assertEquals("res", entity.getResource());
+            assertNotNull(entity.getGmtCreate());
+        }
+        // Overwrite the same second.
+        repository.save(newMetric("res", now, 100, 0));
+        results = repository.queryByAppAndResourceBetween(APP, "res", now, now);
+        assertEquals(1, results.size());
+        assertEquals(100, results.get(0).getPassQps().longValue());
+
+        assertTrue(repository.queryByAppAndResourceBetween(APP, "absent", now - 5000, now).isEmpty());
+        assertTrue(repository.queryByAppAndResourceBetween("absent", "res", now - 5000, now).isEmpty());
+    }
+
+    @Test
+    public void testOnlyKeepRecentSlots() {
+        int seconds = InMemoryMetricsRepository.SLOT_COUNT + 50;
+        for (int i = seconds - 1; i >= 0; i--) {
+            repository.save(newMetric("res", now - i * 1000, 1, 0));
+        }
+        List<MetricEntity> results = repository.queryByAppAndResourceBetween(APP, "res", now - seconds * 1000, now);
+        assertEquals(InMemoryMetricsRepository.SLOT_COUNT, results.size());
+        assertEquals(now - (InMemoryMetricsRepository.SLOT_COUNT - 1) * 1000,
+            results.get(0).getTimestamp().getTime());
+        // Older than the ring buffer.
+        repository.save(newMetric("res", now - InMemoryMetricsRepository.SLOT_COUNT * 1000, 1, 0));
+        assertEquals(InMemoryMetricsRepository.SLOT_COUNT,
+            repository.queryByAppAndResourceBetween(APP, "res", now - seconds * 1000, now).size());
+    }
+
+    @Test
+    public void testListResourcesByLastMinute() {
+        for (int i = 0; i < 120; i++) {
+            long timestamp = now - i * 1000;
+            // Blocked a lot but more than a minute ago.
+            repository.save(newMetric("old", timestamp, 1, i >= 60 ? 1000 : 0));
+            repository.save(newMetric("blocked", timestamp, 1, 2));
+            repository.save(newMetric("busy", timestamp, i < 60 ? 100 : 0, 0));
+            repository.save(newMetric("idle", timestamp, 1, 0));
+        }
+        repository.save(newMetric("stale", now - 1000 * 90, 1000, 1000));
+        assertEquals(Arrays.asList("blocked", "busy", "idle", "old"), repository.listResourcesOfApp(APP));
+
+        // Overwriting a second in the last minute.
+        repository.save(newMetric("idle", now - 1000, 10000, 0));
+        assertEquals(Arrays.asList("blocked", "idle", "busy", "old"), repository.listResourcesOfApp(APP));
+        assertTrue(repository.listResourcesOfApp("absent").isEmpty());
+    }
+
+    @Test
+    public void testConcurrentSaveAndQuery() throws Exception {
+        final int writers = 4;
+        final AtomicBoolean failed = new AtomicBoolean(false);
+        final CountDownLatch latch = new CountDownLatch(writers);
+        for (int w = 0; w < writers; w++) {
+            final String resource = "res" + w;
+            new Thread(() -> {
+                for (int i = InMemoryMetricsRepository.SLOT_COUNT - 1; i >= 0; i--) {
+                    List<MetricEntity> batch = new ArrayList<>();
+                    batch.add(newMetric(resource, now - i * 1000, i, 0));
+                    batch.add(newMetric("shared", now - i * 1000, i, 0));
+                    repository.saveAll(batch);
+                    List<MetricEntity> results = repository.queryByAppAndResourceBetween(APP, resource,
+                        now - 1000 * 60, now);
+                    if (results.size() > 61) {
+                        failed.set(true);
+                    }
+                    repository.listResourcesOfApp(APP);
+                }
+                latch.countDown();
+            }).start();
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertFalse(failed.get());
+        for (int w = 0; w < writers; w++) {
+            assertEquals(InMemoryMetricsRepository.SLOT_COUNT,
+                repository.queryByAppAndResourceBetween(APP, "res" + w, 0, now).size());
+        }
+        assertEquals(writers + 1, repository.listResourcesOfApp(APP).size());
+    }
+
+    private static MetricEntity newMetric(String resource, long timestamp, long pass, long block) {
+        MetricEntity entity = new MetricEntity();
+        entity.setApp(APP);
+        entity.setResource(resource);
+        entity.setTimestamp(new Date(timestamp));
+        entity.setGmtCreate(new Date(timestamp + 1000));
+        entity.setPassQps(pass);
+        entity.setBlockQps(block);
+        entity.setExceptionQps(0L);
+        entity.setRtAndSuccessQps(5, pass);
+        entity.setCount(1);
+        return entity;
+    }
+}
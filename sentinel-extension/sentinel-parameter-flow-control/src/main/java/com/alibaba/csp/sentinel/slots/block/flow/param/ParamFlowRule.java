@@ -68,6 +68,12 @@ public class ParamFlowRule extends AbstractRule {
     private boolean clusterMode = false;
     private ParamFlowClusterConfig clusterConfig;
 
+    /**
+     * Whether to admit values into the statistics by a frequency sketch rather than an LRU map,
+     * so that frequent values are not pushed out by floods of cold values.
+     */
+    private boolean sketchEnabled = false;
+
     public int getGrade() {
         return grade;
     }
@@ -138,6 +144,15 @@ public class ParamFlowRule extends AbstractRule {
         return this;
     }
 
+    public boolean isSketchEnabled() {
+        return sketchEnabled;
+    }
+
+    public ParamFlowRule setSketchEnabled(boolean sketchEnabled) {
+        this.sketchEnabled = sketchEnabled;
+        return this;
+    }
+
     @Override
     @Deprecated
     public boolean passCheck(Context context, DefaultNode node, int count, Object... args) {
@@ -155,6 +170,7 @@ public class ParamFlowRule extends AbstractRule {
         if (grade != rule.grade) { return false; }
         if (Double.compare(rule.count, count) != 0) { return false; }
         if (clusterMode != rule.clusterMode) { return false; }
+        if (sketchEnabled != rule.sketchEnabled) { return false; }
         if (paramIdx != null ? !paramIdx.equals(rule.paramIdx) : rule.paramIdx != null) { return false; }
         if (paramFlowItemList != null ? !paramFlowItemList.equals(rule.paramFlowItemList)
             : rule.paramFlowItemList != null) { return false; }
@@ -172,6 +188,7 @@ public class ParamFlowRule extends AbstractRule {
         result = 31 * result + (paramFlowItemList != null ? paramFlowItemList.hashCode() : 0);
         result = 31 * result + (clusterMode ? 1 : 0);
         result = 31 * result + (clusterConfig != null ? clusterConfig.hashCode() : 0);
+        result = 31 * result + (sketchEnabled ? 1 : 0);
         return result;
     }
 
@@ -184,6 +201,7 @@ public class ParamFlowRule extends AbstractRule {
             ", paramFlowItemList=" + paramFlowItemList +
             ", clusterMode=" + clusterMode +
             ", clusterConfig=" + clusterConfig +
+            ", sketchEnabled=" + sketchEnabled +
             '}';
     }
 }
@@ -17,6 +17,7 @@ package com.alibaba.csp.sentinel.slots.block.flow.param;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -26,6 +27,7 @@ import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.PropertyListener;
 import com.alibaba.csp.sentinel.property.SentinelProperty;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
@@ -159,9 +161,26 @@ public final class ParamFlowRuleManager {
                     ParamFlowSlot.clearHotParamMetricForName(resource);
                 }
             }
+            // Switch parameters back to the default statistics if no rule asks for the sketch any more.
+            for (Map.Entry<ResourceWrapper, ParameterMetric> entry : ParamFlowSlot.getMetricsMap().entrySet()) {
+                List<ParamFlowRule> ruleList = newRuleMap.get(entry.getKey().getName());
+                if (ruleList != null) {
+                    entry.getValue().retainSketchIndexes(sketchIndexesOf(ruleList));
+                }
+            }
 
             return newRuleMap;
         }
+
+        private Set<Integer> sketchIndexesOf(List<ParamFlowRule> rules) {
+            Set<Integer> indexes = new HashSet<Integer>();
+            for (ParamFlowRule rule : rules) {
+                if (rule.isSketchEnabled()) {
+                    indexes.add(rule.getParamIdx());
+                }
+            }
+            return indexes;
+        }
     }
 
     private ParamFlowRuleManager() {}
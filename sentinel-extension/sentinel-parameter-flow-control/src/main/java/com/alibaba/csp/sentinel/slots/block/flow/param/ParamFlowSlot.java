@@ -74,7 +74,7 @@ public class ParamFlowSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
 
             for (ParamFlowRule rule : rules) {
                 // Initialize the parameter metrics.
-                initHotParamMetricsFor(resourceWrapper, rule.getParamIdx());
+                initHotParamMetricsFor(resourceWrapper, rule.getParamIdx(), rule.isSketchEnabled());
 
                 if (!ParamFlowChecker.passCheck(resourceWrapper, rule, count, args)) {
 
@@ -108,6 +108,18 @@ public class ParamFlowSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
      * @param index index to initialize, which must be valid
      */
     void initHotParamMetricsFor(ResourceWrapper resourceWrapper, /*@Valid*/ int index) {
+        initHotParamMetricsFor(resourceWrapper, index, false);
+    }
+
+    /**
+     * Init the parameter metric and index map for given resource.
+     * Package-private for test.
+     *
+     * @param resourceWrapper resource to init
+     * @param index           index to initialize, which must be valid
+     * @param sketchEnabled   whether to keep the statistics of the index in sketch buckets
+     */
+    void initHotParamMetricsFor(ResourceWrapper resourceWrapper, /*@Valid*/ int index, boolean sketchEnabled) {
         ParameterMetric metric;
         // Assume that the resource is valid.
         if ((metric = metricsMap.get(resourceWrapper)) == null) {
@@ -119,7 +131,7 @@ public class ParamFlowSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
                 }
             }
         }
-        metric.initializeForIndex(index);
+        metric.initializeForIndex(index, sketchEnabled);
     }
 
     public static ParameterMetric getParamMetric(ResourceWrapper resourceWrapper) {
@@ -19,6 +19,7 @@ import java.lang.reflect.Array;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
@@ -46,17 +47,46 @@ public class ParameterMetric {
     }
 
     public void initializeForIndex(int index) {
-        if (!rollingParameters.containsKey(index)) {
+        initializeForIndex(index, false);
+    }
+
+    /**
+     * Initialize the statistics of the parameter at given index. If any rule of the parameter asks for
+     * the sketch, the statistics will be kept in sketch buckets (former statistics of the index are dropped
+     * when switching), so that rules sharing the parameter won't switch it back and forth.
+     *
+     * @param index         index of the parameter
+     * @param sketchEnabled whether the rule asks for sketch buckets
+     * @since 1.4.1
+     */
+    public void initializeForIndex(int index, boolean sketchEnabled) {
+        HotParameterLeapArray current = rollingParameters.get(index);
+        if (current == null || (sketchEnabled && !current.isSketchEnabled())) {
             synchronized (this) {
-                // putIfAbsent
-                if (rollingParameters.get(index) == null) {
+                current = rollingParameters.get(index);
+                if (current == null || (sketchEnabled && !current.isSketchEnabled())) {
                     rollingParameters.put(index, new HotParameterLeapArray(
-                        1000 / SampleCountProperty.SAMPLE_COUNT, IntervalProperty.INTERVAL));
+                        1000 / SampleCountProperty.SAMPLE_COUNT, IntervalProperty.INTERVAL, sketchEnabled));
                 }
             }
         }
     }
 
+    /**
+     * Drop the sketch statistics of the indexes that are no longer asked for by any rule,
+     * so that they will be initialized again with the default buckets.
+     *
+     * @param sketchIndexes indexes whose rules still ask for the sketch
+     * @since 1.4.1
+     */
+    public synchronized void retainSketchIndexes(Set<Integer> sketchIndexes) {
+        for (Map.Entry<Integer, HotParameterLeapArray> entry : rollingParameters.entrySet()) {
+            if (entry.getValue().isSketchEnabled() && !sketchIndexes.contains(entry.getKey())) {
+                rollingParameters.remove(entry.getKey());
+            }
+        }
+    }
+
     public void addPass(int count, Object... args) {
         add(RollingParamEvent.REQUEST_PASSED, count, args);
     }
@@ -47,6 +47,15 @@ public class ParamMapBucket {
         }
     }
 
+    /**
+     * For subclasses that keep the counters in their own layout.
+     *
+     * @param data per-event counter maps, may be null if all accessors are overridden
+     */
+    protected ParamMapBucket(CacheMap<Object, AtomicInteger>[] data) {
+        this.data = data;
+    }
+
     public void reset() {
         for (RollingParamEvent event : RollingParamEvent.values()) {
             data[event.ordinal()].clear();
@@ -59,8 +68,15 @@ public class ParamMapBucket {
     }
 
     public ParamMapBucket add(RollingParamEvent event, int count, Object value) {
-        data[event.ordinal()].putIfAbsent(value, new AtomicInteger());
         AtomicInteger counter = data[event.ordinal()].get(value);
+        if (counter == null) {
+            // Use the counter put by ourselves, it may be evicted by others before we could get it again.
+            AtomicInteger newCounter = new AtomicInteger();
+            counter = data[event.ordinal()].putIfAbsent(value, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
         counter.addAndGet(count);
         return this;
     }
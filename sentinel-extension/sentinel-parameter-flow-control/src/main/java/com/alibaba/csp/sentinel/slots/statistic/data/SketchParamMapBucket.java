@@ -0,0 +1,298 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.data;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.alibaba.csp.sentinel.slots.block.flow.param.RollingParamEvent;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>A {@link ParamMapBucket} that keeps the statistics of parameter values in fixed memory,
+ * no matter how many distinct values show up in the window.</p>
+ *
+ * <p>
+ * At most {@code capacity} values are tracked with exact counters, which answer
+ * {@link #get(RollingParamEvent, Object)} and back {@link #ascendingKeySet(RollingParamEvent)} and
+ * {@link #descendingKeySet(RollingParamEvent)}. Untracked values read as zero, as in the LRU map of the
+ * default bucket.
+ * </p>
+ *
+ * <p>
+ * Which values to track is decided by a count-min sketch (with conservative update) that estimates the
+ * frequency of every value: when the table is full, a new value replaces the tracked value with the least
+ * count only if its estimated frequency is higher. So a flood of cold values cannot push a hot value out
+ * of the table as in the LRU map, while the estimate error of the sketch never reaches the counters that
+ * are compared with the thresholds. The counter of a value starts when it is admitted, so the events
+ * of a value before its admission are not counted.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+public class SketchParamMapBucket extends ParamMapBucket {
+
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_WIDTH = 1024;
+
+    private static final int EVENT_COUNT = RollingParamEvent.values().length;
+
+    private final int depth;
+    private final int widthMask;
+    private final AtomicIntegerArray cells;
+    private final TrackedTable[] trackedValues;
+
+    public SketchParamMapBucket() {
+        this(DEFAULT_DEPTH, DEFAULT_WIDTH, DEFAULT_MAX_CAPACITY);
+    }
+
+    /**
+     * @param depth    amount of hash rows of the sketch
+     * @param width    amount of counters in each row, which should be a power of two
+     * @param capacity max amount of values to track with exact counters
+     */
+    public SketchParamMapBucket(int depth, int width, int capacity) {
+        super(null);
+        AssertUtil.isTrue(depth > 0, "depth should be positive");
+        AssertUtil.isTrue(width > 0 && (width & (width - 1)) == 0, "width should be a positive power of two");
+        AssertUtil.isTrue(capacity > 0, "capacity should be positive");
+        this.depth = depth;
+        this.widthMask = width - 1;
+        this.cells = new AtomicIntegerArray(EVENT_COUNT * depth * width);
+        this.trackedValues = new TrackedTable[EVENT_COUNT];
+        for (RollingParamEvent event : RollingParamEvent.values()) {
+            trackedValues[event.ordinal()] = new TrackedTable(event, capacity);
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < cells.length(); i++) {
+            cells.set(i, 0);
+        }
+        for (TrackedTable table : trackedValues) {
+            table.clear();
+        }
+    }
+
+    @Override
+    public int get(RollingParamEvent event, Object value) {
+        return trackedValues[event.ordinal()].countOf(value);
+    }
+
+    @Override
+    public ParamMapBucket add(RollingParamEvent event, int count, Object value) {
+        int estimate = addToSketch(event, count, value);
+        trackedValues[event.ordinal()].offer(value, count, estimate);
+        return this;
+    }
+
+    @Override
+    public Set<Object> ascendingKeySet(RollingParamEvent type) {
+        return trackedValues[type.ordinal()].keySet(true);
+    }
+
+    @Override
+    public Set<Object> descendingKeySet(RollingParamEvent type) {
+        return trackedValues[type.ordinal()].keySet(false);
+    }
+
+    /**
+     * Estimate the frequency of given value by the sketch, which never underestimates.
+     * Package-private for test.
+     */
+    int estimate(RollingParamEvent event, Object value) {
+        int h1 = spread(value.hashCode());
+        int h2 = spread(h1) | 1;
+        int base = event.ordinal() * depth * (widthMask + 1);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, cells.get(cellIndex(base, row, h1, h2)));
+        }
+        return min;
+    }
+
+    /**
+     * Conservative update: only the cells below the new estimate are raised to it,
+     * which keeps the overestimate much lower than adding to every cell.
+     *
+     * @return the new estimate of the value
+     */
+    private int addToSketch(RollingParamEvent event, int count, Object value) {
+        int h1 = spread(value.hashCode());
+        int h2 = spread(h1) | 1;
+        int base = event.ordinal() * depth * (widthMask + 1);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, cells.get(cellIndex(base, row, h1, h2)));
+        }
+        int target = min + count;
+        for (int row = 0; row < depth; row++) {
+            int index = cellIndex(base, row, h1, h2);
+            int current;
+            while ((current = cells.get(index)) < target) {
+                if (cells.compareAndSet(index, current, target)) {
+                    break;
+                }
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Double hashing: the {@code row}-th hash is {@code h1 + row * h2}.
+     */
+    private int cellIndex(int base, int row, int h1, int h2) {
+        return base + row * (widthMask + 1) + ((h1 + row * h2) & widthMask);
+    }
+
+    /**
+     * The finalizer of MurmurHash3, so that the low bits also depend on the high bits of the hash code.
+     */
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Exact counters of the tracked values. Entries are kept in a min-heap by count,
+     * so each update costs {@code O(log capacity)}.
+     */
+    private final class TrackedTable {
+
+        private final RollingParamEvent event;
+        private final Object[] keys;
+        private final int[] counts;
+        private final Map<Object, Integer> positions;
+        private int size;
+
+        TrackedTable(RollingParamEvent event, int capacity) {
+            this.event = event;
+            this.keys = new Object[capacity];
+            this.counts = new int[capacity];
+            this.positions = new HashMap<Object, Integer>(capacity * 4 / 3 + 1);
+        }
+
+        /**
+         * @param value    the value
+         * @param count    count to add
+         * @param estimate estimated frequency of the value, including given count
+         */
+        synchronized void offer(Object value, int count, int estimate) {
+            Integer pos = positions.get(value);
+            if (pos != null) {
+                counts[pos] += count;
+                siftDown(pos);
+            } else if (size < keys.length) {
+                keys[size] = value;
+                counts[size] = count;
+                positions.put(value, size);
+                siftUp(size++);
+            } else if (estimate > estimate(event, keys[0])) {
+                // Replace the least counted value only if the new one is more frequent.
+                positions.remove(keys[0]);
+                keys[0] = value;
+                counts[0] = count;
+                positions.put(value, 0);
+                siftDown(0);
+            }
+        }
+
+        synchronized int countOf(Object value) {
+            Integer pos = positions.get(value);
+            return pos == null ? 0 : counts[pos];
+        }
+
+        synchronized void clear() {
+            for (int i = 0; i < size; i++) {
+                keys[i] = null;
+                counts[i] = 0;
+            }
+            positions.clear();
+            size = 0;
+        }
+
+        synchronized Set<Object> keySet(boolean ascending) {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            // Insertion sort by count, the table is small.
+            for (int i = 1; i < size; i++) {
+                int cur = order[i];
+                int j = i - 1;
+                while (j >= 0 && (ascending ? counts[order[j]] > counts[cur] : counts[order[j]] < counts[cur])) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = cur;
+            }
+            Set<Object> result = new LinkedHashSet<Object>(size * 4 / 3 + 1);
+            for (int i : order) {
+                result.add(keys[i]);
+            }
+            return result;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (counts[parent] <= counts[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && counts[left] < counts[smallest]) {
+                    smallest = left;
+                }
+                if (right < size && counts[right] < counts[smallest]) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            Object key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+            int count = counts[i];
+            counts[i] = counts[j];
+            counts[j] = count;
+            positions.put(keys[i], i);
+            positions.put(keys[j], j);
+        }
+    }
+}
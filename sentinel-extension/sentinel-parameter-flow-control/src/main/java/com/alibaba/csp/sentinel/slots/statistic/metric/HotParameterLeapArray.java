@@ -26,8 +26,8 @@ import java.util.Set;
 
 import com.alibaba.csp.sentinel.slots.block.flow.param.RollingParamEvent;
 import com.alibaba.csp.sentinel.slots.statistic.base.LeapArray;
-import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
 import com.alibaba.csp.sentinel.slots.statistic.data.ParamMapBucket;
+import com.alibaba.csp.sentinel.slots.statistic.data.SketchParamMapBucket;
 
 /**
  * The fundamental data structure for frequent parameters statistics in a time window.
@@ -38,28 +38,36 @@ import com.alibaba.csp.sentinel.slots.statistic.data.ParamMapBucket;
 public class HotParameterLeapArray extends LeapArray<ParamMapBucket> {
 
     private int intervalInSec;
+    private final boolean sketchEnabled;
 
     public HotParameterLeapArray(int windowLengthInMs, int intervalInSec) {
+        this(windowLengthInMs, intervalInSec, false);
+    }
+
+    /**
+     * @param sketchEnabled whether to use {@link SketchParamMapBucket} as buckets
+     * @since 1.4.1
+     */
+    public HotParameterLeapArray(int windowLengthInMs, int intervalInSec, boolean sketchEnabled) {
         super(windowLengthInMs, intervalInSec);
         this.intervalInSec = intervalInSec;
+        this.sketchEnabled = sketchEnabled;
     }
 
     public int getIntervalInSec() {
         return intervalInSec;
     }
 
-    @Override
-    public ParamMapBucket newEmptyBucket() {
-        return new ParamMapBucket();
+    public boolean isSketchEnabled() {
+        return sketchEnabled;
     }
 
     @Override
-    protected WindowWrap<ParamMapBucket> resetWindowTo(WindowWrap<ParamMapBucket> w, long startTime) {
-        w.resetTo(startTime);
-        w.value().reset();
-        return w;
+    public ParamMapBucket newEmptyBucket() {
+        return sketchEnabled ? new SketchParamMapBucket() : new ParamMapBucket();
     }
 
+
     /**
      * Add event count for specific parameter value.
      *
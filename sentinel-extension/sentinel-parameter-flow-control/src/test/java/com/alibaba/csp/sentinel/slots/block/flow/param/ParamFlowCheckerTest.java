@@ -129,6 +129,35 @@ public class ParamFlowCheckerTest {
         assertFalse(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, valueD));
     }
 
+    @Test
+    public void testSketchEnabledRulePassesColdValues() {
+        final String resourceName = "testSketchEnabledRulePassesColdValues";
+        final ResourceWrapper resourceWrapper = new StringResourceWrapper(resourceName, EntryType.IN);
+        int paramIdx = 0;
+
+        ParamFlowRule rule = new ParamFlowRule(resourceName)
+            .setParamIdx(paramIdx)
+            .setCount(5)
+            .setSketchEnabled(true);
+        ParameterMetric metric = new ParameterMetric();
+        metric.initializeForIndex(paramIdx, true);
+        ParamFlowSlot.getMetricsMap().put(resourceWrapper, metric);
+
+        int distinct = 200000;
+        for (int i = 0; i < distinct; i++) {
+            metric.addPass(1, "cold-" + i);
+            if (i % 100 == 0) {
+                metric.addPass(1, "hot");
+            }
+        }
+
+        for (int i = 0; i < distinct; i += 1009) {
+            assertTrue(ParamFlowChecker.passCheck(resourceWrapper, rule, 1, "cold-" + i));
+        }
+        assertTrue(ParamFlowChecker.passCheck(resourceWrapper, rule, 1, "never-seen"));
+        assertFalse(ParamFlowChecker.passCheck(resourceWrapper, rule, 1, "hot"));
+    }
+
     @Test
     public void testPassLocalCheckForCollection() {
         final String resourceName = "testPassLocalCheckForCollection";
@@ -15,6 +15,7 @@
  */
 package com.alibaba.csp.sentinel.slots.block.flow.param;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -69,6 +70,29 @@ public class ParameterMetricTest {
         assertEquals(0, metric.getRollingParameters().size());
     }
 
+    @Test
+    public void testSwitchToSketchAndBack() {
+        ParameterMetric metric = new ParameterMetric();
+        int index = 0;
+        metric.initializeForIndex(index);
+        assertFalse(metric.getRollingParameters().get(index).isSketchEnabled());
+
+        // Any rule asking for the sketch wins.
+        metric.initializeForIndex(index, true);
+        HotParameterLeapArray sketch = metric.getRollingParameters().get(index);
+        assertTrue(sketch.isSketchEnabled());
+        metric.initializeForIndex(index, false);
+        assertSame(sketch, metric.getRollingParameters().get(index));
+
+        metric.addPass(3, "a");
+        assertEquals(3, sketch.getRollingSum(RollingParamEvent.REQUEST_PASSED, "a"));
+
+        metric.retainSketchIndexes(Collections.singleton(index));
+        assertSame(sketch, metric.getRollingParameters().get(index));
+        metric.retainSketchIndexes(Collections.<Integer>emptySet());
+        assertNull(metric.getRollingParameters().get(index));
+    }
+
     private static final int PARAM_TYPE_NORMAL = 0;
     private static final int PARAM_TYPE_ARRAY = 1;
     private static final int PARAM_TYPE_COLLECTION = 2;
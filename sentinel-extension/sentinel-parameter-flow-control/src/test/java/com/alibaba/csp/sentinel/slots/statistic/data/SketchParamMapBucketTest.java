@@ -0,0 +1,138 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.data;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import com.alibaba.csp.sentinel.slots.block.flow.param.RollingParamEvent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link SketchParamMapBucket}.
+ */
+public class SketchParamMapBucketTest {
+
+    @Test
+    public void testAddGetReset() {
+        SketchParamMapBucket bucket = new SketchParamMapBucket();
+        bucket.add(RollingParamEvent.REQUEST_PASSED, 3, "a");
+        bucket.add(RollingParamEvent.REQUEST_PASSED, 2, "a");
+        bucket.add(RollingParamEvent.REQUEST_BLOCKED, 4, "a");
+        bucket.add(RollingParamEvent.REQUEST_PASSED, 1, 42L);
+
+        assertEquals(5, bucket.get(RollingParamEvent.REQUEST_PASSED, "a"));
+        assertEquals(4, bucket.get(RollingParamEvent.REQUEST_BLOCKED, "a"));
+        assertEquals(1, bucket.get(RollingParamEvent.REQUEST_PASSED, 42L));
+        assertEquals(0, bucket.get(RollingParamEvent.REQUEST_BLOCKED, 42L));
+        assertEquals(0, bucket.get(RollingParamEvent.REQUEST_PASSED, "b"));
+
+        bucket.reset();
+        assertEquals(0, bucket.get(RollingParamEvent.REQUEST_PASSED, "a"));
+        assertEquals(0, bucket.get(RollingParamEvent.REQUEST_BLOCKED, "a"));
+        assertTrue(bucket.ascendingKeySet(RollingParamEvent.REQUEST_PASSED).isEmpty());
+    }
+
+    @Test
+    public void testHotValueTrackedAmongManyColdValues() {
+        SketchParamMapBucket bucket = new SketchParamMapBucket(4, 1024, 16);
+        RollingParamEvent event = RollingParamEvent.REQUEST_PASSED;
+        int distinct = 100000;
+        int hot = 0;
+        for (int i = 0; i < distinct; i++) {
+            bucket.add(event, 1, "cold-" + i);
+            if (i % 100 == 0) {
+                bucket.add(event, 1, "hot");
+                hot++;
+            }
+        }
+        int count = bucket.get(event, "hot");
+        // Exact once admitted, only the events before the admission are missed.
+        assertTrue(count <= hot);
+        assertTrue(count >= hot - 20);
+        assertTrue(bucket.descendingKeySet(event).contains("hot"));
+        // The estimate of the sketch never reaches the counters.
+        assertTrue(bucket.estimate(event, "cold-0") >= 1);
+        for (int i = 0; i < distinct; i += 997) {
+            assertTrue(bucket.get(event, "cold-" + i) <= 1);
+        }
+    }
+
+    @Test
+    public void testEstimateNeverUnderestimates() {
+        SketchParamMapBucket bucket = new SketchParamMapBucket(4, 64, 4);
+        RollingParamEvent event = RollingParamEvent.REQUEST_PASSED;
+        for (int i = 0; i < 1000; i++) {
+            bucket.add(event, 1, i % 100);
+        }
+        for (int i = 0; i < 100; i++) {
+            assertTrue(bucket.estimate(event, i) >= 10);
+        }
+    }
+
+    @Test
+    public void testTopValues() {
+        SketchParamMapBucket bucket = new SketchParamMapBucket(4, 256, 16);
+        RollingParamEvent event = RollingParamEvent.REQUEST_PASSED;
+        for (int i = 0; i < 1000; i++) {
+            bucket.add(event, 1, "noise-" + i);
+            if (i % 2 == 0) {
+                bucket.add(event, 1, "first");
+            }
+            if (i % 4 == 0) {
+                bucket.add(event, 1, "second");
+            }
+        }
+
+        Set<Object> descending = bucket.descendingKeySet(event);
+        assertEquals(16, descending.size());
+        Iterator<Object> it = descending.iterator();
+        assertEquals("first", it.next());
+        assertEquals("second", it.next());
+
+        Set<Object> ascending = bucket.ascendingKeySet(event);
+        assertEquals(16, ascending.size());
+        Object[] keys = ascending.toArray();
+        assertEquals("second", keys[14]);
+        assertEquals("first", keys[15]);
+    }
+
+    @Test
+    public void testAdmitOnlyMoreFrequentValues() {
+        SketchParamMapBucket bucket = new SketchParamMapBucket(4, 1024, 2);
+        RollingParamEvent event = RollingParamEvent.REQUEST_PASSED;
+        bucket.add(event, 5, "a");
+        bucket.add(event, 2, "b");
+        // Not more frequent than "b", so it's not tracked.
+        bucket.add(event, 1, "c");
+        assertEquals(0, bucket.get(event, "c"));
+        assertEquals(2, bucket.get(event, "b"));
+
+        // Now more frequent than "b", so it takes the place of "b" with its own count.
+        bucket.add(event, 2, "c");
+        assertEquals(5, bucket.get(event, "a"));
+        assertEquals(0, bucket.get(event, "b"));
+        assertEquals(2, bucket.get(event, "c"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalWidth() {
+        new SketchParamMapBucket(4, 1000, 10);
+    }
+}
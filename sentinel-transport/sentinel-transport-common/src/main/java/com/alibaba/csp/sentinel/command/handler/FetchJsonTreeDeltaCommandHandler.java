@@ -0,0 +1,159 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.command.handler;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.alibaba.csp.sentinel.Constants;
+import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.annotation.CommandMapping;
+import com.alibaba.csp.sentinel.command.vo.NodeTreeDelta;
+import com.alibaba.csp.sentinel.node.DefaultNode;
+import com.alibaba.csp.sentinel.node.Node;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+import com.alibaba.fastjson.JSON;
+
+/**
+ * <p>Incremental version of {@link FetchJsonTreeCommandHandler}.</p>
+ *
+ * <p>
+ * Every snapshot gets a version token. When the client provides the token of its last snapshot,
+ * only the nodes whose statistics changed since then are returned (see {@link NodeTreeDelta}).
+ * Unlike the full tree, node IDs are stable across snapshots, so the client can merge the rows
+ * into its cached tree. A missing or unknown token (e.g. after the application restarted) results
+ * in a full snapshot.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+@CommandMapping(name = "jsonTreeDelta")
+public class FetchJsonTreeDeltaCommandHandler implements CommandHandler<String> {
+
+    static final String VERSION_PARAM = "version";
+
+    /**
+     * Distinguishes tokens issued by this handler from those of a previous process.
+     */
+    private final String epoch = Long.toHexString(new Random().nextLong() & Long.MAX_VALUE);
+
+    private final Map<DefaultNode, NodeState> states = new IdentityHashMap<DefaultNode, NodeState>();
+    private final long[] scratch = new long[NodeTreeDelta.STAT_COUNT];
+    private long currentVersion = 0;
+    private long nextId = 0;
+
+    @Override
+    public CommandResponse<String> handle(CommandRequest request) {
+        NodeTreeDelta delta = snapshot(Constants.ROOT, request.getParam(VERSION_PARAM));
+        return CommandResponse.ofSuccess(JSON.toJSONString(delta));
+    }
+
+    synchronized NodeTreeDelta snapshot(DefaultNode root, String token) {
+        long since = parseVersion(token);
+        long version = ++currentVersion;
+
+        NodeTreeDelta delta = new NodeTreeDelta();
+        delta.setVersion(epoch + "-" + version);
+        delta.setFull(since < 0);
+        delta.setTimestamp(System.currentTimeMillis());
+        visit(root, null, since, version, delta);
+        return delta;
+    }
+
+    /**
+     * Preorder traversal.
+     */
+    private void visit(DefaultNode node, NodeState parent, long since, long version, NodeTreeDelta delta) {
+        fillStats(node, scratch);
+        NodeState state = states.get(node);
+        if (state == null) {
+            state = new NodeState(String.valueOf(nextId++), version);
+            states.put(node, state);
+        }
+        if (state.update(scratch, version) || state.changedVersion > since) {
+            boolean isNew = state.createdVersion > since;
+            delta.getNodes().add(NodeTreeDelta.toRow(state.id, isNew && parent != null ? parent.id : null,
+                isNew ? node.getId().getShowName() : null, state.stats));
+        }
+        for (Node n : node.getChildList()) {
+            visit((DefaultNode)n, state, since, version, delta);
+        }
+    }
+
+    private long parseVersion(String token) {
+        if (StringUtil.isBlank(token)) {
+            return -1;
+        }
+        int index = token.lastIndexOf('-');
+        if (index < 0 || !epoch.equals(token.substring(0, index))) {
+            return -1;
+        }
+        try {
+            long version = Long.parseLong(token.substring(index + 1));
+            return version >= 0 && version <= currentVersion ? version : -1;
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static void fillStats(DefaultNode node, long[] stats) {
+        stats[0] = node.curThreadNum();
+        stats[1] = node.passQps();
+        stats[2] = node.blockQps();
+        stats[3] = node.totalQps();
+        stats[4] = node.avgRt();
+        stats[5] = node.successQps();
+        stats[6] = node.exceptionQps();
+        stats[7] = node.totalRequest() - node.blockRequest();
+        stats[8] = node.blockRequest();
+        stats[9] = node.totalException();
+        stats[10] = node.totalRequest();
+    }
+
+    private static class NodeState {
+        final String id;
+        final long createdVersion;
+        final long[] stats = new long[NodeTreeDelta.STAT_COUNT];
+        long changedVersion;
+
+        NodeState(String id, long createdVersion) {
+            this.id = id;
+            this.createdVersion = createdVersion;
+            this.changedVersion = createdVersion;
+        }
+
+        /**
+         * @return true if the statistics differ from the previous snapshot
+         */
+        boolean update(long[] current, long version) {
+            boolean changed = false;
+            for (int i = 0; i < current.length; i++) {
+                if (stats[i] != current[i]) {
+                    stats[i] = current[i];
+                    changed = true;
+                }
+            }
+            if (changed) {
+                changedVersion = version;
+            }
+            return changed;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.command.vo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Incremental snapshot of the resource tree, which only holds the nodes whose statistics changed
+ * since the version provided by the client.</p>
+ *
+ * <p>
+ * Each node is encoded as a compact row rather than a {@link NodeVo} object:
+ * {@code [id, parentId, resource, threadNum, passQps, blockQps, totalQps, averageRt, successQps, exceptionQps,
+ * oneMinutePass, oneMinuteBlock, oneMinuteException, oneMinuteTotal]}. Node IDs are stable, and
+ * {@code parentId} and {@code resource} are null for nodes the client already knows.
+ * Rows are in preorder, so parents always come before their children.
+ * </p>
+ *
+ * @since 1.4.1
+ */
+public class NodeTreeDelta {
+
+    /**
+     * Amount of statistic values in each row.
+     */
+    public static final int STAT_COUNT = 11;
+
+    private static final int STAT_OFFSET = 3;
+
+    /**
+     * Version token of this snapshot, to be provided by the client in the next request.
+     */
+    private String version;
+    /**
+     * Whether this is a full snapshot, e.g. the provided version is unknown.
+     */
+    private boolean full;
+    private Long timestamp;
+    private List<List<Object>> nodes = new ArrayList<List<Object>>();
+
+    /**
+     * Encode a node into a row.
+     *
+     * @param id       stable ID of the node
+     * @param parentId ID of the parent, or null if the client knows the node
+     * @param resource resource name, or null if the client knows the node
+     * @param stats    statistic values in the order of the row
+     * @return the row
+     */
+    public static List<Object> toRow(String id, String parentId, String resource, long[] stats) {
+        Object[] row = new Object[STAT_OFFSET + STAT_COUNT];
+        row[0] = id;
+        row[1] = parentId;
+        row[2] = resource;
+        for (int i = 0; i < STAT_COUNT; i++) {
+            row[STAT_OFFSET + i] = stats[i];
+        }
+        return Arrays.asList(row);
+    }
+
+    /**
+     * Decode a row into a node view object.
+     *
+     * @param row       the row
+     * @param known     the node view object known by the client, which provides the parent and resource
+     *                  missing in the row; may be null for new nodes
+     * @param timestamp timestamp of the snapshot
+     * @return the node view object
+     */
+    public static NodeVo fromRow(List<Object> row, NodeVo known, Long timestamp) {
+        NodeVo vo = new NodeVo();
+        vo.setId(String.valueOf(row.get(0)));
+        vo.setParentId(row.get(1) != null ? String.valueOf(row.get(1)) : known == null ? null : known.getParentId());
+        vo.setResource(row.get(2) != null ? String.valueOf(row.get(2)) : known == null ? null : known.getResource());
+        vo.setThreadNum((int)statOf(row, 0));
+        vo.setPassQps(statOf(row, 1));
+        vo.setBlockQps(statOf(row, 2));
+        vo.setTotalQps(statOf(row, 3));
+        vo.setAverageRt(statOf(row, 4));
+        vo.setSuccessQps(statOf(row, 5));
+        vo.setExceptionQps(statOf(row, 6));
+        vo.setOneMinutePass(statOf(row, 7));
+        vo.setOneMinuteBlock(statOf(row, 8));
+        vo.setOneMinuteException(statOf(row, 9));
+        vo.setOneMinuteTotal(statOf(row, 10));
+        vo.setTimestamp(timestamp);
+        return vo;
+    }
+
+    /**
+     * @param row a row
+     * @return true if the row carries the parent and resource, i.e. the client did not know the node
+     */
+    public static boolean isNewNode(List<Object> row) {
+        return row.get(2) != null;
+    }
+
+    private static long statOf(List<Object> row, int index) {
+        Object value = row.get(STAT_OFFSET + index);
+        return value == null ? 0 : ((Number)value).longValue();
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public void setFull(boolean full) {
+        this.full = full;
+    }
+
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public List<List<Object>> getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(List<List<Object>> nodes) {
+        this.nodes = nodes;
+    }
+}
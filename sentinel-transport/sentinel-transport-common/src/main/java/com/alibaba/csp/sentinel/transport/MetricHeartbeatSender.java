@@ -0,0 +1,35 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport;
+
+/**
+ * Heartbeat sender that is also able to push metric frames (encoded by
+ * {@link com.alibaba.csp.sentinel.transport.metric.MetricFrameCodec}) to Sentinel Dashboard.
+ * Metric pushing is enabled by {@link com.alibaba.csp.sentinel.transport.config.TransportConfig#METRIC_PUSH_ENABLED}.
+ *
+ * @since 1.4.1
+ */
+public interface MetricHeartbeatSender extends HeartbeatSender {
+
+    /**
+     * Push a metric frame to Sentinel Dashboard.
+     *
+     * @param frame encoded metric frame
+     * @return whether the frame is successfully sent
+     * @throws Exception if any error occurs
+     */
+    boolean sendMetric(byte[] frame) throws Exception;
+}
@@ -28,6 +28,10 @@ public class TransportConfig {
     public static final String SERVER_PORT = "csp.sentinel.api.port";
     public static final String HEARTBEAT_INTERVAL_MS = "csp.sentinel.heartbeat.interval.ms";
     public static final String HEARTBEAT_CLIENT_IP = "csp.sentinel.heartbeat.client.ip";
+    public static final String METRIC_PUSH_ENABLED = "csp.sentinel.metric.push.enabled";
+    public static final String COMMAND_MAX_CONCURRENCY = "csp.sentinel.command.max.concurrency";
+
+    private static final int DEFAULT_COMMAND_MAX_CONCURRENCY = 4;
 
     private static int runtimePort = -1;
 
@@ -36,6 +40,36 @@ public class TransportConfig {
         return interval == null ? null : Long.parseLong(interval);
     }
 
+    /**
+     * Whether to push metrics to Sentinel Dashboard through the heartbeat sender, in addition to
+     * serving them from the metric files. Disabled by default.
+     *
+     * @return whether metric pushing is enabled
+     * @since 1.4.1
+     */
+    public static boolean isMetricPushEnabled() {
+        return Boolean.parseBoolean(SentinelConfig.getConfig(METRIC_PUSH_ENABLED));
+    }
+
+    /**
+     * Get the maximum amount of concurrent executions of each command in the command center.
+     * Requests exceeding it are rejected at once.
+     *
+     * @return max concurrent executions of each command
+     * @since 1.4.1
+     */
+    public static int getCommandMaxConcurrency() {
+        String value = SentinelConfig.getConfig(COMMAND_MAX_CONCURRENCY);
+        try {
+            if (StringUtil.isNotBlank(value) && Integer.parseInt(value) > 0) {
+                return Integer.parseInt(value);
+            }
+        } catch (NumberFormatException ex) {
+            // Use the default value.
+        }
+        return DEFAULT_COMMAND_MAX_CONCURRENCY;
+    }
+
     /**
      * Get ip:port of Sentinel Dashboard.
      *
@@ -24,8 +24,11 @@ import java.util.concurrent.TimeUnit;
 import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
 import com.alibaba.csp.sentinel.init.InitFunc;
 import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.node.metric.MetricExporterRegistry;
 import com.alibaba.csp.sentinel.transport.HeartbeatSender;
+import com.alibaba.csp.sentinel.transport.MetricHeartbeatSender;
 import com.alibaba.csp.sentinel.transport.config.TransportConfig;
+import com.alibaba.csp.sentinel.transport.metric.HeartbeatMetricExporter;
 
 /**
  * Global init function for heartbeat sender.
@@ -70,7 +73,21 @@ public class HeartbeatSenderInitFunc implements InitFunc {
                 }, 10000, interval, TimeUnit.MILLISECONDS);
                 RecordLog.info("[HeartbeatSenderInit] HeartbeatSender started: "
                     + sender.getClass().getCanonicalName());
+                if (TransportConfig.isMetricPushEnabled()) {
+                    initMetricPush(sender);
+                }
             }
         }
     }
+
+    private void initMetricPush(HeartbeatSender sender) {
+        if (sender instanceof MetricHeartbeatSender) {
+            MetricExporterRegistry.addExporter(HeartbeatMetricExporter.class.getName(),
+                new HeartbeatMetricExporter((MetricHeartbeatSender)sender));
+            RecordLog.info("[HeartbeatSenderInit] Metric push enabled");
+        } else {
+            RecordLog.warn("[HeartbeatSenderInit] Metric push is not supported by "
+                + sender.getClass().getCanonicalName());
+        }
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.metric;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.node.metric.MetricExporter;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.transport.MetricHeartbeatSender;
+import com.alibaba.csp.sentinel.transport.config.TransportConfig;
+import com.alibaba.csp.sentinel.util.AppNameUtil;
+
+/**
+ * Metric exporter that pushes the metrics of every run of the metric timer to Sentinel Dashboard
+ * through a {@link MetricHeartbeatSender}. Frames are sent in a separate thread, and the oldest
+ * pending frames are dropped when the dashboard cannot keep up.
+ *
+ * @since 1.4.1
+ */
+public class HeartbeatMetricExporter implements MetricExporter {
+
+    private static final int MAX_PENDING_FRAMES = 16;
+
+    private final MetricHeartbeatSender sender;
+    private final ExecutorService sendExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(MAX_PENDING_FRAMES),
+        new NamedThreadFactory("sentinel-metric-push-task", true), new ThreadPoolExecutor.DiscardOldestPolicy());
+
+    private final AtomicLong sentFrames = new AtomicLong();
+    private final AtomicLong failedFrames = new AtomicLong();
+
+    public HeartbeatMetricExporter(MetricHeartbeatSender sender) {
+        this.sender = sender;
+    }
+
+    @Override
+    public void export(Map<Long, List<MetricNode>> metrics) {
+        int port = TransportConfig.getRuntimePort();
+        if (port <= 0) {
+            // The command center is not ready, so the dashboard could not identify the machine.
+            return;
+        }
+        final byte[] frame = MetricFrameCodec.encode(AppNameUtil.getAppName(),
+            TransportConfig.getHeartbeatClientIp(), port, metrics);
+        sendExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (sender.sendMetric(frame)) {
+                        sentFrames.incrementAndGet();
+                        return;
+                    }
+                } catch (Throwable e) {
+                    RecordLog.info("[HeartbeatMetricExporter] Push metric error", e);
+                }
+                failedFrames.incrementAndGet();
+            }
+        });
+    }
+
+    public long getSentFrames() {
+        return sentFrames.get();
+    }
+
+    public long getFailedFrames() {
+        return failedFrames.get();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.metric;
+
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+
+/**
+ * Decoded metric frame pushed by a machine.
+ *
+ * @since 1.4.1
+ */
+public class MetricFrame {
+
+    private final String app;
+    private final String ip;
+    private final int port;
+    private final Map<Long, List<MetricNode>> metrics;
+
+    public MetricFrame(String app, String ip, int port, Map<Long, List<MetricNode>> metrics) {
+        this.app = app;
+        this.ip = ip;
+        this.port = port;
+        this.metrics = metrics;
+    }
+
+    public String getApp() {
+        return app;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    /**
+     * @return port of the command center of the machine
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return timestamp (second) -> metric nodes of that second, ordered by timestamp
+     */
+    public Map<Long, List<MetricNode>> getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricFrame{" +
+            "app='" + app + '\'' +
+            ", ip='" + ip + '\'' +
+            ", port=" + port +
+            ", seconds=" + metrics.size() +
+            '}';
+    }
+}
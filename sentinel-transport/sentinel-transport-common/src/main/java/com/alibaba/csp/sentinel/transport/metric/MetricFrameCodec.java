@@ -0,0 +1,208 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.metric;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+
+/**
+ * <p>Codec of the metric frames pushed to Sentinel Dashboard. A frame carries the aggregated metrics
+ * of one or more seconds of a machine:</p>
+ * <pre>
+ * frame  := MAGIC version(1 byte) app ip port(varint) nameCount(varint) name* blockCount(varint) block*
+ * block  := timestampDelta(varint) nodeCount(varint) record*
+ * record := resourceId(varint) passQps blockQps successQps exceptionQps rt (varints)
+ * string := length(varint) UTF-8 bytes
+ * </pre>
+ * <p>Resource names are dictionary-encoded within the frame, ids are the index in the name list.
+ * The timestamp of the first block is relative to 0, others are relative to the previous block.</p>
+ *
+ * @since 1.4.1
+ */
+public final class MetricFrameCodec {
+
+    public static final String CONTENT_TYPE = "application/octet-stream";
+
+    static final byte[] MAGIC = {0, 'S', 'M', 'P'};
+    static final byte VERSION = 1;
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * Encode the metrics of a machine as a frame.
+     *
+     * @param app     app name of the machine
+     * @param ip      ip of the machine
+     * @param port    port of the command center of the machine
+     * @param metrics timestamp (second) -> metric nodes of that second
+     * @return encoded frame
+     */
+    public static byte[] encode(String app, String ip, int port, Map<Long, List<MetricNode>> metrics) {
+        Map<String, Integer> dictionary = new HashMap<String, Integer>();
+        ByteArrayOutputStream names = new ByteArrayOutputStream(256);
+        ByteArrayOutputStream blocks = new ByteArrayOutputStream(1024);
+        long lastTime = 0;
+        // Sort by time so that the timestamp deltas are positive.
+        for (Entry<Long, List<MetricNode>> entry : new TreeMap<Long, List<MetricNode>>(metrics).entrySet()) {
+            writeVarLong(blocks, entry.getKey() - lastTime);
+            lastTime = entry.getKey();
+            writeVarLong(blocks, entry.getValue().size());
+            for (MetricNode node : entry.getValue()) {
+                Integer id = dictionary.get(node.getResource());
+                if (id == null) {
+                    id = dictionary.size();
+                    dictionary.put(node.getResource(), id);
+                    writeString(names, node.getResource());
+                }
+                writeVarLong(blocks, id);
+                writeVarLong(blocks, node.getPassQps());
+                writeVarLong(blocks, node.getBlockQps());
+                writeVarLong(blocks, node.getSuccessQps());
+                writeVarLong(blocks, node.getExceptionQps());
+                writeVarLong(blocks, node.getRt());
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + names.size() + blocks.size());
+        out.write(MAGIC, 0, MAGIC.length);
+        out.write(VERSION);
+        writeString(out, app);
+        writeString(out, ip);
+        writeVarLong(out, port);
+        writeVarLong(out, dictionary.size());
+        byte[] nameBytes = names.toByteArray();
+        out.write(nameBytes, 0, nameBytes.length);
+        writeVarLong(out, metrics.size());
+        byte[] blockBytes = blocks.toByteArray();
+        out.write(blockBytes, 0, blockBytes.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a metric frame.
+     *
+     * @param frame encoded frame
+     * @return decoded frame
+     * @throws IllegalArgumentException if the frame is malformed
+     */
+    public static MetricFrame decode(byte[] frame) {
+        if (frame == null || frame.length < MAGIC.length + 1) {
+            throw new IllegalArgumentException("Metric frame is too short");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        for (byte b : MAGIC) {
+            if (buffer.get() != b) {
+                throw new IllegalArgumentException("Not a metric frame");
+            }
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported metric frame version: " + version);
+        }
+        try {
+            String app = readString(buffer);
+            String ip = readString(buffer);
+            int port = (int)readVarLong(buffer);
+            int nameCount = readCount(buffer);
+            String[] names = new String[nameCount];
+            for (int i = 0; i < nameCount; i++) {
+                names[i] = readString(buffer);
+            }
+            int blockCount = readCount(buffer);
+            Map<Long, List<MetricNode>> metrics = new TreeMap<Long, List<MetricNode>>();
+            long time = 0;
+            for (int i = 0; i < blockCount; i++) {
+                time += readVarLong(buffer);
+                int nodeCount = readCount(buffer);
+                List<MetricNode> nodes = new ArrayList<MetricNode>(nodeCount);
+                for (int j = 0; j < nodeCount; j++) {
+                    int id = (int)readVarLong(buffer);
+                    if (id < 0 || id >= nameCount) {
+                        throw new IllegalArgumentException("Unknown resource id: " + id);
+                    }
+                    MetricNode node = new MetricNode();
+                    node.setTimestamp(time);
+                    node.setResource(names[id]);
+                    node.setPassQps(readVarLong(buffer));
+                    node.setBlockQps(readVarLong(buffer));
+                    node.setSuccessQps(readVarLong(buffer));
+                    node.setExceptionQps(readVarLong(buffer));
+                    node.setRt(readVarLong(buffer));
+                    nodes.add(node);
+                }
+                metrics.put(time, nodes);
+            }
+            return new MetricFrame(app, ip, port, metrics);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Metric frame is truncated");
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(CHARSET);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readCount(buffer);
+        String value = new String(buffer.array(), buffer.position(), length, CHARSET);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Read a count or length, which can never exceed the remaining bytes.
+     */
+    private static int readCount(ByteBuffer buffer) {
+        long count = readVarLong(buffer);
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException("Illegal count in metric frame: " + count);
+        }
+        return (int)count;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int)value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in metric frame");
+    }
+
+    private MetricFrameCodec() {}
+}
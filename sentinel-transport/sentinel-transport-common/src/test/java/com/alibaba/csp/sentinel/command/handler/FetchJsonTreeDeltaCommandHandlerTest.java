@@ -0,0 +1,121 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.command.handler;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.command.vo.NodeTreeDelta;
+import com.alibaba.csp.sentinel.command.vo.NodeVo;
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.node.DefaultNode;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link FetchJsonTreeDeltaCommandHandler}.
+ */
+public class FetchJsonTreeDeltaCommandHandlerTest {
+
+    private FetchJsonTreeDeltaCommandHandler handler;
+    private DefaultNode root;
+    private DefaultNode child;
+
+    @Before
+    public void setUp() {
+        handler = new FetchJsonTreeDeltaCommandHandler();
+        root = newNode("machine-root");
+        child = newNode("resA");
+        root.addChild(child);
+    }
+
+    @Test
+    public void testFirstSnapshotIsFull() {
+        NodeTreeDelta delta = handler.snapshot(root, null);
+        assertTrue(delta.isFull());
+        assertNotNull(delta.getVersion());
+        assertEquals(2, delta.getNodes().size());
+
+        NodeVo rootVo = NodeTreeDelta.fromRow(delta.getNodes().get(0), null, delta.getTimestamp());
+        NodeVo childVo = NodeTreeDelta.fromRow(delta.getNodes().get(1), null, delta.getTimestamp());
+        assertNull(rootVo.getParentId());
+        assertEquals("machine-root", rootVo.getResource());
+        assertEquals(rootVo.getId(), childVo.getParentId());
+        assertEquals("resA", childVo.getResource());
+    }
+
+    @Test
+    public void testNoRowsWhenNothingChanged() {
+        NodeTreeDelta first = handler.snapshot(root, null);
+        NodeTreeDelta second = handler.snapshot(root, first.getVersion());
+        assertFalse(second.isFull());
+        assertTrue(second.getNodes().isEmpty());
+        assertFalse(first.getVersion().equals(second.getVersion()));
+    }
+
+    @Test
+    public void testNewNodeCarriesParentAndResource() {
+        NodeTreeDelta first = handler.snapshot(root, null);
+        String childId = String.valueOf(first.getNodes().get(1).get(0));
+
+        DefaultNode grandChild = newNode("resB");
+        child.addChild(grandChild);
+        NodeTreeDelta delta = handler.snapshot(root, first.getVersion());
+        assertEquals(1, delta.getNodes().size());
+        List<Object> row = delta.getNodes().get(0);
+        assertTrue(NodeTreeDelta.isNewNode(row));
+        assertEquals(childId, row.get(1));
+        assertEquals("resB", row.get(2));
+    }
+
+    @Test
+    public void testChangedNodeOnlyCarriesStats() {
+        NodeTreeDelta first = handler.snapshot(root, null);
+        NodeVo known = NodeTreeDelta.fromRow(first.getNodes().get(1), null, first.getTimestamp());
+
+        child.addPassRequest();
+        NodeTreeDelta delta = handler.snapshot(root, first.getVersion());
+        assertEquals(1, delta.getNodes().size());
+        List<Object> row = delta.getNodes().get(0);
+        assertFalse(NodeTreeDelta.isNewNode(row));
+        assertNull(row.get(1));
+
+        NodeVo vo = NodeTreeDelta.fromRow(row, known, delta.getTimestamp());
+        assertEquals(known.getId(), vo.getId());
+        assertEquals(known.getParentId(), vo.getParentId());
+        assertEquals("resA", vo.getResource());
+        assertEquals(1L, vo.getOneMinuteTotal().longValue());
+    }
+
+    @Test
+    public void testUnknownVersionReturnsFullSnapshot() {
+        NodeTreeDelta first = handler.snapshot(root, null);
+        String foreign = new FetchJsonTreeDeltaCommandHandler().snapshot(root, null).getVersion();
+
+        assertTrue(handler.snapshot(root, foreign).isFull());
+        assertTrue(handler.snapshot(root, "bad").isFull());
+        assertTrue(handler.snapshot(root, first.getVersion() + "0").isFull());
+        assertEquals(2, handler.snapshot(root, foreign).getNodes().size());
+    }
+
+    private static DefaultNode newNode(String name) {
+        return new DefaultNode(new StringResourceWrapper(name, EntryType.IN), new ClusterNode());
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.metric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link MetricFrameCodec}.
+ */
+public class MetricFrameCodecTest {
+
+    @Test
+    public void testEncodeAndDecode() {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        Map<Long, List<MetricNode>> metrics = new TreeMap<Long, List<MetricNode>>();
+        metrics.put(now, Arrays.asList(newNode("a", now, 10), newNode("资源", now, 20)));
+        metrics.put(now - 1000, Arrays.asList(newNode("资源", now - 1000, 30)));
+
+        byte[] frame = MetricFrameCodec.encode("app", "127.0.0.1", 8719, metrics);
+        MetricFrame decoded = MetricFrameCodec.decode(frame);
+        assertEquals("app", decoded.getApp());
+        assertEquals("127.0.0.1", decoded.getIp());
+        assertEquals(8719, decoded.getPort());
+        assertEquals(new ArrayList<Long>(metrics.keySet()), new ArrayList<Long>(decoded.getMetrics().keySet()));
+        for (Long time : metrics.keySet()) {
+            List<MetricNode> expected = metrics.get(time);
+            List<MetricNode> actual = decoded.getMetrics().get(time);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).toThinString(), actual.get(i).toThinString());
+            }
+        }
+    }
+
+    @Test
+    public void testDecodeMalformedFrame() {
+        assertMalformed(null);
+        assertMalformed(new byte[] {1, 2, 3, 4, 5, 6});
+        Map<Long, List<MetricNode>> metrics = new TreeMap<Long, List<MetricNode>>();
+        metrics.put(1000L, Arrays.asList(newNode("a", 1000, 10)));
+        byte[] frame = MetricFrameCodec.encode("app", "127.0.0.1", 8719, metrics);
+        assertMalformed(Arrays.copyOf(frame, frame.length - 2));
+        frame[MetricFrameCodec.MAGIC.length] = 2;
+        assertMalformed(frame);
+    }
+
+    private static void assertMalformed(byte[] frame) {
+        try {
+            MetricFrameCodec.decode(frame);
+            fail("Malformed frame should be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static MetricNode newNode(String resource, long timestamp, long pass) {
+        MetricNode node = new MetricNode();
+        node.setResource(resource);
+        node.setTimestamp(timestamp);
+        node.setPassQps(pass);
+        node.setBlockQps(1);
+        node.setSuccessQps(pass);
+        node.setExceptionQps(0);
+        node.setRt(5);
+        return node;
+    }
+}
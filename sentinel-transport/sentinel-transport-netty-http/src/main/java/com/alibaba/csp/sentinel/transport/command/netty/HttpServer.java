@@ -18,9 +18,14 @@ package com.alibaba.csp.sentinel.transport.command.netty;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
 import com.alibaba.csp.sentinel.log.CommandCenterLog;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.transport.config.TransportConfig;
@@ -40,11 +45,25 @@ import io.netty.channel.socket.nio.NioServerSocketChannel;
 public final class HttpServer {
 
     private static final int DEFAULT_PORT = 8719;
+    private static final int BIZ_THREAD_COUNT = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
 
     private Channel channel;
 
     final static Map<String, CommandHandler> handlerMap = new ConcurrentHashMap<String, CommandHandler>();
 
+    /**
+     * Permits of concurrent executions of each command.
+     */
+    final static Map<String, Semaphore> permitMap = new ConcurrentHashMap<String, Semaphore>();
+
+    /**
+     * Command handlers may block (e.g. reading metric files), so they are executed here
+     * instead of on the I/O threads. The queue is bounded by the permits of all commands.
+     */
+    final static ExecutorService bizExecutor = new ThreadPoolExecutor(BIZ_THREAD_COUNT, BIZ_THREAD_COUNT,
+        60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        new NamedThreadFactory("sentinel-netty-command-center-worker", true));
+
     public void start() throws Exception {
         EventLoopGroup bossGroup = new NioEventLoopGroup(1);
         EventLoopGroup workerGroup = new NioEventLoopGroup();
@@ -115,6 +134,7 @@ public final class HttpServer {
             return;
         }
 
+        permitMap.put(commandName, new Semaphore(TransportConfig.getCommandMaxConcurrency()));
         handlerMap.put(commandName, handler);
     }
 
@@ -16,9 +16,13 @@
 package com.alibaba.csp.sentinel.transport.command.netty;
 
 import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 import com.alibaba.csp.sentinel.command.CommandHandler;
 import com.alibaba.csp.sentinel.command.CommandRequest;
@@ -31,6 +35,7 @@ import com.alibaba.csp.sentinel.transport.util.HttpCommandUtils;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -39,19 +44,31 @@ import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.timeout.IdleStateEvent;
 
 import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
 import static io.netty.handler.codec.http.HttpResponseStatus.INTERNAL_SERVER_ERROR;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static io.netty.handler.codec.http.HttpResponseStatus.TOO_MANY_REQUESTS;
 
 /**
- * Netty-based HTTP server handler for command center.
+ * <p>Netty-based HTTP server handler for command center.</p>
  *
- * Note: HTTP chunked is not tested!
+ * <p>
+ * Commands are executed on the biz executor of {@link HttpServer} rather than the I/O thread, and at most
+ * {@link com.alibaba.csp.sentinel.transport.config.TransportConfig#getCommandMaxConcurrency()} executions
+ * of each command may run at the same time; requests exceeding it are answered with 429 at once.
+ * Requests of a keep-alive connection are handled one at a time: reading is paused while a request is
+ * handled, and pipelined requests that have already been decoded are queued, so responses are written
+ * in the order of requests. Command results are encoded as a whole, so each response is written as a single
+ * full response with its content length.
+ * </p>
  *
  * @author Eric Zhao
  */
@@ -59,39 +76,126 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
 
     private final CodecRegistry codecRegistry = new CodecRegistry();
 
+    /**
+     * Requests of this connection waiting for the response of current request, and whether a request
+     * is being handled. Only accessed in the event loop of the connection.
+     */
+    private final Queue<PendingRequest> pendingRequests = new ArrayDeque<PendingRequest>();
+    private boolean handling = false;
+
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
         ctx.flush();
     }
 
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            ctx.close();
+            return;
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        CommandCenterLog.warn("[NettyHttpCommandCenter] Closing connection on error", cause);
+        ctx.close();
+    }
+
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
         FullHttpRequest httpRequest = (FullHttpRequest)msg;
+        boolean keepAlive = HttpUtil.isKeepAlive(httpRequest);
+        // Pause reading until the response is written.
+        ctx.channel().config().setAutoRead(false);
+        CommandRequest request;
+        try {
+            request = parseRequest(httpRequest);
+        } catch (Exception ex) {
+            request = null;
+            CommandCenterLog.warn("Internal error", ex);
+        }
+        if (handling) {
+            // Pipelined request decoded before reading is paused.
+            pendingRequests.offer(new PendingRequest(request, keepAlive));
+            return;
+        }
+        handling = true;
+        handleRequest(request, ctx, keepAlive);
+    }
+
+    private void handleRequest(CommandRequest request, ChannelHandlerContext ctx, boolean keepAlive) {
+        if (request == null) {
+            writeErrorResponse(INTERNAL_SERVER_ERROR.code(), SERVER_ERROR_MESSAGE, ctx, false);
+            return;
+        }
         try {
-            CommandRequest request = parseRequest(httpRequest);
             if (StringUtil.isBlank(HttpCommandUtils.getTarget(request))) {
-                writeErrorResponse(BAD_REQUEST.code(), "Invalid command", ctx);
+                writeErrorResponse(BAD_REQUEST.code(), "Invalid command", ctx, keepAlive);
                 return;
             }
-            handleRequest(request, ctx, HttpUtil.isKeepAlive(httpRequest));
-
+            executeCommand(request, ctx, keepAlive);
         } catch (Exception ex) {
-            writeErrorResponse(INTERNAL_SERVER_ERROR.code(), SERVER_ERROR_MESSAGE, ctx);
+            writeErrorResponse(INTERNAL_SERVER_ERROR.code(), SERVER_ERROR_MESSAGE, ctx, false);
             CommandCenterLog.warn("Internal error", ex);
         }
     }
 
-    private void handleRequest(CommandRequest request, ChannelHandlerContext ctx, boolean keepAlive)
-        throws Exception {
-        String commandName = HttpCommandUtils.getTarget(request);
+    /**
+     * Handle the next pending request after the response of current request is written,
+     * or resume reading if there are none.
+     */
+    private void handleNextRequest(ChannelHandlerContext ctx) {
+        PendingRequest next = pendingRequests.poll();
+        if (next == null) {
+            handling = false;
+            ctx.channel().config().setAutoRead(true);
+            return;
+        }
+        handleRequest(next.request, ctx, next.keepAlive);
+    }
+
+    private void executeCommand(final CommandRequest request, final ChannelHandlerContext ctx,
+                                final boolean keepAlive) throws Exception {
+        final String commandName = HttpCommandUtils.getTarget(request);
         // Find the matching command handler.
-        CommandHandler<?> commandHandler = getHandler(commandName);
-        if (commandHandler != null) {
-            CommandResponse<?> response = commandHandler.handle(request);
-            writeResponse(response, ctx, keepAlive);
-        } else {
+        final CommandHandler<?> commandHandler = getHandler(commandName);
+        if (commandHandler == null) {
             // No matching command handler.
-            writeErrorResponse(BAD_REQUEST.code(), String.format("Unknown command \"%s\"", commandName), ctx);
+            writeErrorResponse(BAD_REQUEST.code(), String.format("Unknown command \"%s\"", commandName), ctx,
+                keepAlive);
+            return;
+        }
+        final Semaphore permits = HttpServer.permitMap.get(commandName);
+        if (permits != null && !permits.tryAcquire()) {
+            writeErrorResponse(TOO_MANY_REQUESTS.code(),
+                String.format("Too many concurrent executions of command \"%s\"", commandName), ctx, keepAlive);
+            return;
+        }
+
+        try {
+            HttpServer.bizExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        CommandResponse<?> response = commandHandler.handle(request);
+                        writeResponse(response, ctx, keepAlive);
+                    } catch (Throwable ex) {
+                        writeErrorResponse(INTERNAL_SERVER_ERROR.code(), SERVER_ERROR_MESSAGE, ctx, false);
+                        CommandCenterLog.warn("Error when executing command: " + commandName, ex);
+                    } finally {
+                        if (permits != null) {
+                            permits.release();
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            if (permits != null) {
+                permits.release();
+            }
+            writeErrorResponse(SERVICE_UNAVAILABLE.code(), SERVER_ERROR_MESSAGE, ctx, false);
         }
     }
 
@@ -107,15 +211,14 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
         return null;
     }
 
-    private void writeErrorResponse(int statusCode, String message, ChannelHandlerContext ctx) {
+    private void writeErrorResponse(int statusCode, String message, ChannelHandlerContext ctx,
+                                    boolean keepAlive) {
         FullHttpResponse httpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
             HttpResponseStatus.valueOf(statusCode),
             Unpooled.copiedBuffer(message, Charset.forName(SentinelConfig.charset())));
 
         httpResponse.headers().set("Content-Type", "text/plain; charset=" + SentinelConfig.charset());
-        ctx.write(httpResponse);
-
-        ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+        writeFullResponse(httpResponse, ctx, keepAlive);
     }
 
     private void writeResponse(CommandResponse response, ChannelHandlerContext ctx, boolean keepAlive)
@@ -127,7 +230,7 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
             } else {
                 Encoder encoder = pickEncoder(response.getResult().getClass());
                 if (encoder == null) {
-                    writeErrorResponse(INTERNAL_SERVER_ERROR.code(), SERVER_ERROR_MESSAGE, ctx);
+                    writeErrorResponse(INTERNAL_SERVER_ERROR.code(), SERVER_ERROR_MESSAGE, ctx, false);
                     CommandCenterLog.warn("Error when encoding object",
                         new IllegalStateException("No compatible encoder"));
                     return;
@@ -141,22 +244,38 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
         HttpResponseStatus status = response.isSuccess() ? OK : BAD_REQUEST;
 
         FullHttpResponse httpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status,
-            Unpooled.copiedBuffer(body));
-
+            Unpooled.wrappedBuffer(body));
         httpResponse.headers().set("Content-Type", "text/plain; charset=" + SentinelConfig.charset());
+        writeFullResponse(httpResponse, ctx, keepAlive);
+    }
 
-        //if (keepAlive) {
-        //    httpResponse.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, httpResponse.content().readableBytes());
-        //    httpResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
-        //}
-        //ctx.write(httpResponse);
-        //if (!keepAlive) {
-        //    ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
-        //}
+    private void writeFullResponse(FullHttpResponse httpResponse, ChannelHandlerContext ctx, boolean keepAlive) {
         httpResponse.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, httpResponse.content().readableBytes());
-        httpResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
-        ctx.write(httpResponse);
-        ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+        setConnectionHeader(httpResponse, keepAlive);
+        completeResponse(ctx.writeAndFlush(httpResponse), ctx, keepAlive);
+    }
+
+    private void setConnectionHeader(HttpResponse httpResponse, boolean keepAlive) {
+        httpResponse.headers().set(HttpHeaderNames.CONNECTION,
+            keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
+    }
+
+    private void completeResponse(ChannelFuture future, final ChannelHandlerContext ctx, boolean keepAlive) {
+        if (!keepAlive) {
+            future.addListener(ChannelFutureListener.CLOSE);
+            return;
+        }
+        future.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture f) {
+                if (f.isSuccess()) {
+                    // Ready for the next request on this connection.
+                    handleNextRequest(ctx);
+                } else {
+                    ctx.close();
+                }
+            }
+        });
     }
 
     private CommandRequest parseRequest(FullHttpRequest request) {
@@ -209,4 +328,17 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
     }
 
     private static final String SERVER_ERROR_MESSAGE = "Command server error";
+
+    private static final class PendingRequest {
+        /**
+         * The parsed request, or null if failed to parse.
+         */
+        private final CommandRequest request;
+        private final boolean keepAlive;
+
+        PendingRequest(CommandRequest request, boolean keepAlive) {
+            this.request = request;
+            this.keepAlive = keepAlive;
+        }
+    }
 }
@@ -18,15 +18,22 @@ package com.alibaba.csp.sentinel.transport.command.netty;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.timeout.IdleStateHandler;
 
 /**
  * @author Eric Zhao
  */
 public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
 
+    /**
+     * Keep-alive connections idle for this long are closed.
+     */
+    private static final int IDLE_TIMEOUT_SEC = 60;
+
     @Override
     protected void initChannel(SocketChannel socketChannel) throws Exception {
         ChannelPipeline p = socketChannel.pipeline();
@@ -34,6 +41,9 @@ public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
         p.addLast(new HttpRequestDecoder());
         p.addLast(new HttpObjectAggregator(1024 * 1024));
         p.addLast(new HttpResponseEncoder());
+        // Compress responses when the client accepts gzip or deflate.
+        p.addLast(new HttpContentCompressor());
+        p.addLast(new IdleStateHandler(0, 0, IDLE_TIMEOUT_SEC));
 
         p.addLast(new HttpServerHandler());
     }
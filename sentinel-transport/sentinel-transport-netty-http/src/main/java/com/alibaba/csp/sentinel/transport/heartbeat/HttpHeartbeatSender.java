@@ -20,14 +20,18 @@ import com.alibaba.csp.sentinel.transport.config.TransportConfig;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.util.AppNameUtil;
 import com.alibaba.csp.sentinel.util.HostNameUtil;
-import com.alibaba.csp.sentinel.transport.HeartbeatSender;
+import com.alibaba.csp.sentinel.transport.MetricHeartbeatSender;
+import com.alibaba.csp.sentinel.transport.metric.MetricFrameCodec;
 import com.alibaba.csp.sentinel.util.PidUtil;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 
@@ -35,7 +39,7 @@ import org.apache.http.impl.client.HttpClients;
  * @author Eric Zhao
  * @author leyou
  */
-public class HttpHeartbeatSender implements HeartbeatSender {
+public class HttpHeartbeatSender implements MetricHeartbeatSender {
 
     private final CloseableHttpClient client;
 
@@ -97,6 +101,25 @@ public class HttpHeartbeatSender implements HeartbeatSender {
         return true;
     }
 
+    @Override
+    public boolean sendMetric(byte[] frame) throws Exception {
+        if (StringUtil.isEmpty(consoleHost)) {
+            return false;
+        }
+        URIBuilder uriBuilder = new URIBuilder();
+        uriBuilder.setScheme("http").setHost(consoleHost).setPort(consolePort)
+            .setPath("/metric/push");
+        HttpPost request = new HttpPost(uriBuilder.build());
+        request.setConfig(requestConfig);
+        request.setEntity(new ByteArrayEntity(frame, ContentType.create(MetricFrameCodec.CONTENT_TYPE)));
+        CloseableHttpResponse response = client.execute(request);
+        try {
+            return response.getStatusLine().getStatusCode() == 200;
+        } finally {
+            response.close();
+        }
+    }
+
     @Override
     public long intervalMs() {
         return 5000;
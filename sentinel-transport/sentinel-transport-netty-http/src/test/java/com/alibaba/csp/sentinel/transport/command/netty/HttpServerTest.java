@@ -0,0 +1,273 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.command.netty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.transport.config.TransportConfig;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for the command center {@link HttpServer}. The throughput is measured by
+ * {@code CommandCenterBenchmark} in sentinel-benchmark.
+ */
+public class HttpServerTest {
+
+    private static final int BIG_BODY_SIZE = 200 * 1024;
+
+    private static final HttpServer server = new HttpServer();
+    private static final CountDownLatch slowLatch = new CountDownLatch(1);
+    private static final AtomicInteger slowStarted = new AtomicInteger();
+    private static int port;
+    private static volatile Exception startFailure;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        ServerSocket socket = new ServerSocket(0);
+        port = socket.getLocalPort();
+        socket.close();
+        SentinelConfig.setConfig(TransportConfig.SERVER_PORT, String.valueOf(port));
+
+        server.registerCommand("echo", new CommandHandler<String>() {
+            @Override
+            public CommandResponse<String> handle(CommandRequest request) {
+                return CommandResponse.ofSuccess("echo:" + request.getParam("msg"));
+            }
+        });
+        server.registerCommand("big", new CommandHandler<String>() {
+            @Override
+            public CommandResponse<String> handle(CommandRequest request) {
+                StringBuilder sb = new StringBuilder(BIG_BODY_SIZE);
+                for (int i = 0; i < BIG_BODY_SIZE; i++) {
+                    sb.append((char)('a' + i % 26));
+                }
+                return CommandResponse.ofSuccess(sb.toString());
+            }
+        });
+        server.registerCommand("delay", new CommandHandler<String>() {
+            @Override
+            public CommandResponse<String> handle(CommandRequest request) {
+                try {
+                    Thread.sleep(Long.parseLong(request.getParam("ms")));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return CommandResponse.ofSuccess("delayed");
+            }
+        });
+        server.registerCommand("slow", new CommandHandler<String>() {
+            @Override
+            public CommandResponse<String> handle(CommandRequest request) {
+                slowStarted.incrementAndGet();
+                try {
+                    slowLatch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return CommandResponse.ofSuccess("done");
+            }
+        });
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    server.start();
+                } catch (Exception ex) {
+                    startFailure = ex;
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (TransportConfig.getRuntimePort() != port && startFailure == null
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull(startFailure);
+        assertEquals(port, TransportConfig.getRuntimePort());
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        slowLatch.countDown();
+        server.close();
+    }
+
+    @Test
+    public void testKeepAlive() throws Exception {
+        Socket socket = new Socket("127.0.0.1", port);
+        try {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+            for (int i = 0; i < 3; i++) {
+                out.write(("GET /echo?msg=" + i + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes("UTF-8"));
+                out.flush();
+                String response = readResponse(in);
+                assertTrue(response.startsWith("HTTP/1.1 200"));
+                assertTrue(response.toLowerCase().contains("connection: keep-alive"));
+                assertTrue(response.endsWith("echo:" + i));
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testLargeResponseAndGzip() throws Exception {
+        HttpURLConnection conn = open("/big");
+        assertEquals(200, conn.getResponseCode());
+        assertEquals(String.valueOf(BIG_BODY_SIZE), conn.getHeaderField("Content-Length"));
+        assertEquals(BIG_BODY_SIZE, readFully(conn.getInputStream()).length);
+
+        conn = open("/big");
+        conn.setRequestProperty("Accept-Encoding", "gzip");
+        assertEquals(200, conn.getResponseCode());
+        assertEquals("gzip", conn.getHeaderField("Content-Encoding"));
+        byte[] body = readFully(new GZIPInputStream(conn.getInputStream()));
+        assertEquals(BIG_BODY_SIZE, body.length);
+        assertEquals('a', body[26]);
+    }
+
+    @Test
+    public void testConcurrencyOfCommandCapped() throws Exception {
+        int max = TransportConfig.getCommandMaxConcurrency();
+        ExecutorService pool = Executors.newFixedThreadPool(max);
+        try {
+            List<Future<Integer>> slowCalls = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < max; i++) {
+                slowCalls.add(pool.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        return open("/slow").getResponseCode();
+                    }
+                }));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (slowStarted.get() < max && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(max, slowStarted.get());
+
+            assertEquals(429, open("/slow").getResponseCode());
+            // Other commands are not affected.
+            assertEquals(200, open("/echo?msg=x").getResponseCode());
+
+            slowLatch.countDown();
+            for (Future<Integer> call : slowCalls) {
+                assertEquals(200, (int)call.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPipelinedRequestsInOrder() throws Exception {
+        Socket socket = new Socket("127.0.0.1", port);
+        try {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+            // Both requests are sent at once, and the first one takes longer.
+            out.write(("GET /delay?ms=300 HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                + "GET /echo?msg=second HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes("UTF-8"));
+            out.flush();
+            assertTrue(readResponse(in).endsWith("delayed"));
+            assertTrue(readResponse(in).endsWith("echo:second"));
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection)new URL("http://127.0.0.1:" + port + path).openConnection();
+        conn.setConnectTimeout(3000);
+        conn.setReadTimeout(10000);
+        return conn;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Read a response with Content-Length from a keep-alive connection.
+     */
+    private static String readResponse(InputStream in) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        while (!header.toString("UTF-8").endsWith("\r\n\r\n")) {
+            int b = in.read();
+            if (b == -1) {
+                throw new IOException("Connection closed");
+            }
+            header.write(b);
+        }
+        String head = header.toString("UTF-8");
+        int length = 0;
+        for (String line : head.split("\r\n")) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                length = Integer.parseInt(line.substring("content-length:".length()).trim());
+            }
+        }
+        byte[] body = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(body, read, length - read);
+            if (n == -1) {
+                throw new IOException("Connection closed");
+            }
+            read += n;
+        }
+        return head + new String(body, "UTF-8");
+    }
+}
@@ -21,11 +21,12 @@ import java.util.List;
 
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.log.RecordLog;
-import com.alibaba.csp.sentinel.transport.HeartbeatSender;
+import com.alibaba.csp.sentinel.transport.MetricHeartbeatSender;
 import com.alibaba.csp.sentinel.transport.config.TransportConfig;
 import com.alibaba.csp.sentinel.transport.heartbeat.client.SimpleHttpClient;
 import com.alibaba.csp.sentinel.transport.heartbeat.client.SimpleHttpRequest;
 import com.alibaba.csp.sentinel.transport.heartbeat.client.SimpleHttpResponse;
+import com.alibaba.csp.sentinel.transport.metric.MetricFrameCodec;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
 /**
@@ -35,9 +36,10 @@ import com.alibaba.csp.sentinel.util.StringUtil;
  * @author Eric Zhao
  * @author leyou
  */
-public class SimpleHttpHeartbeatSender implements HeartbeatSender {
+public class SimpleHttpHeartbeatSender implements MetricHeartbeatSender {
 
     private static final String HEARTBEAT_PATH = "/registry/machine";
+    private static final String METRIC_PUSH_PATH = "/metric/push";
     private static final int OK_STATUS = 200;
 
     private static final long DEFAULT_INTERVAL = 1000 * 10;
@@ -83,6 +85,18 @@ public class SimpleHttpHeartbeatSender implements HeartbeatSender {
         return false;
     }
 
+    @Override
+    public boolean sendMetric(byte[] frame) throws Exception {
+        InetSocketAddress addr = getAvailableAddress();
+        if (addr == null) {
+            return false;
+        }
+        SimpleHttpRequest request = new SimpleHttpRequest(addr, METRIC_PUSH_PATH);
+        request.setBody(frame, MetricFrameCodec.CONTENT_TYPE);
+        SimpleHttpResponse response = httpClient.post(request);
+        return response.getStatusCode() == OK_STATUS;
+    }
+
     @Override
     public long intervalMs() {
         return DEFAULT_INTERVAL;
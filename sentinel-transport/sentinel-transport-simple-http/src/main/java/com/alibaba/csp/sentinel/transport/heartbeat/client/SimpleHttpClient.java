@@ -64,7 +64,7 @@ public class SimpleHttpClient {
         }
         return request(request.getSocketAddress(),
             RequestMethod.GET, request.getRequestPath(), request.getParams(),
-            request.getCharset(), request.getSoTimeout());
+            request.getCharset(), request.getSoTimeout(), null, null);
     }
 
     /**
@@ -81,12 +81,13 @@ public class SimpleHttpClient {
         return request(request.getSocketAddress(),
             RequestMethod.POST, request.getRequestPath(),
             request.getParams(), request.getCharset(),
-            request.getSoTimeout());
+            request.getSoTimeout(), request.getBody(), request.getContentType());
     }
 
     private SimpleHttpResponse request(InetSocketAddress socketAddress,
                                        RequestMethod type, String requestPath,
-                                       Map<String, String> paramsMap, Charset charset, int soTimeout)
+                                       Map<String, String> paramsMap, Charset charset, int soTimeout,
+                                       byte[] body, String contentType)
         throws IOException {
         Socket socket = null;
         BufferedWriter writer;
@@ -98,7 +99,9 @@ public class SimpleHttpClient {
             writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), charset));
             requestPath = getRequestPath(type, requestPath, paramsMap, charset);
             writer.write(getStatusLine(type, requestPath) + "\r\n");
-            if (charset != null) {
+            if (body != null) {
+                writer.write("Content-Type: " + contentType + "\r\n");
+            } else if (charset != null) {
                 writer.write("Content-Type: application/x-www-form-urlencoded; charset=" + charset.name() + "\r\n");
             } else {
                 writer.write("Content-Type: application/x-www-form-urlencoded\r\n");
@@ -107,6 +110,12 @@ public class SimpleHttpClient {
             if (type == RequestMethod.GET) {
                 writer.write("Content-Length: 0\r\n");
                 writer.write("\r\n");
+            } else if (body != null) {
+                // POST method with raw body.
+                writer.write("Content-Length: " + body.length + "\r\n");
+                writer.write("\r\n");
+                writer.flush();
+                socket.getOutputStream().write(body);
             } else {
                 // POST method.
                 String params = encodeRequestParams(paramsMap, charset);
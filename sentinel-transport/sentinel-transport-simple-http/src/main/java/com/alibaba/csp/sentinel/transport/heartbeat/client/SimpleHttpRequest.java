@@ -35,6 +35,8 @@ public class SimpleHttpRequest {
     private int soTimeout = 3000;
     private Map<String, String> params;
     private Charset charset = Charset.forName(SentinelConfig.charset());
+    private byte[] body;
+    private String contentType;
 
     public SimpleHttpRequest(InetSocketAddress socketAddress, String requestPath) {
         this.socketAddress = socketAddress;
@@ -96,4 +98,26 @@ public class SimpleHttpRequest {
         params.put(key, value);
         return this;
     }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Set the raw body of a POST request, which takes the place of the encoded parameters.
+     *
+     * @param body        raw body
+     * @param contentType content type of the body
+     * @return the request
+     * @since 1.4.1
+     */
+    public SimpleHttpRequest setBody(byte[] body, String contentType) {
+        this.body = body;
+        this.contentType = contentType;
+        return this;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
 }